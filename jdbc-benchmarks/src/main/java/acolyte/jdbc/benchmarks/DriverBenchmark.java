@@ -0,0 +1,98 @@
+package acolyte.jdbc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.Properties;
+
+import java.sql.PreparedStatement;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acolyte.jdbc.CompositeHandler;
+import acolyte.jdbc.Driver;
+
+/**
+ * Benchmarks of the connection resolution and statement preparation.
+ *
+ * @author Cedric Chantepie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class DriverBenchmark {
+    /**
+     * JDBC URL of the registered handler
+     */
+    static final String URL = "jdbc:acolyte:bench?handler=driver-benchmark";
+
+    private CompositeHandler handler;
+    private Driver driver;
+    private Properties props;
+    private Connection connection;
+
+    @Setup
+    public void setUp() {
+        this.handler = Handlers.composite(Handlers.rows(10));
+
+        Driver.register("driver-benchmark", this.handler);
+
+        this.driver = new Driver();
+        this.props = new Properties();
+        this.connection = Driver.connection(this.handler);
+    } // end of setUp
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.connection.close();
+        Driver.unregister("driver-benchmark");
+    } // end of tearDown
+
+    /**
+     * Resolves a connection from the JDBC URL (registered handler),
+     * then closes it.
+     */
+    @Benchmark
+    public Connection connect() throws SQLException {
+        final Connection con = this.driver.connect(URL, this.props);
+
+        con.close();
+
+        return con;
+    } // end of connect
+
+    /**
+     * Creates a direct connection for a statement handler, then closes it.
+     */
+    @Benchmark
+    public Connection directConnection() throws SQLException {
+        final Connection con = Driver.connection(this.handler);
+
+        con.close();
+
+        return con;
+    } // end of directConnection
+
+    /**
+     * Prepares a statement from an opened connection.
+     */
+    @Benchmark
+    public PreparedStatement prepareStatement() throws SQLException {
+        return this.connection.
+            prepareStatement("SELECT * FROM test WHERE id = ?");
+
+    } // end of prepareStatement
+} // end of class DriverBenchmark
@@ -0,0 +1,61 @@
+package acolyte.jdbc.benchmarks;
+
+import java.util.List;
+
+import acolyte.jdbc.AbstractCompositeHandler.QueryHandler;
+import acolyte.jdbc.AbstractCompositeHandler.UpdateHandler;
+import acolyte.jdbc.StatementHandler.Parameter;
+import acolyte.jdbc.CompositeHandler;
+import acolyte.jdbc.UpdateResult;
+import acolyte.jdbc.QueryResult;
+import acolyte.jdbc.RowList3;
+import acolyte.jdbc.RowList;
+import acolyte.jdbc.RowLists;
+
+/**
+ * Handlers shared by the benchmarks.
+ *
+ * @author Cedric Chantepie
+ */
+final class Handlers {
+    /**
+     * Returns a list of |size| rows (id, name, amount).
+     */
+    static RowList3.Impl<Integer, String, Double> rows(final int size) {
+        final RowList3.Builder<Integer, String, Double, RowList3.Impl<Integer, String, Double>> builder = RowLists.
+            rowList3(Integer.class, String.class, Double.class).
+            withLabel(1, "id").withLabel(2, "name").withLabel(3, "amount").
+            builder(size);
+
+        for (int i = 0; i < size; i++) {
+            builder.append(i, "name" + i, i * 1.5D);
+        } // end of for
+
+        return builder.build();
+    } // end of rows
+
+    /**
+     * Returns a composite handler, answering the queries
+     * with the given |rows|, and the updates with a count of 1.
+     */
+    static CompositeHandler composite(final RowList<?> rows) {
+        final QueryResult result = rows.asResult();
+        final UpdateResult updated = new UpdateResult(1);
+
+        return CompositeHandler.empty().
+            withQueryDetection("^SELECT ").
+            withQueryHandler(new QueryHandler() {
+                    public QueryResult apply(final String sql,
+                                             final List<Parameter> ps) {
+                        return result;
+                    }
+                }).
+            withUpdateHandler(new UpdateHandler() {
+                    public UpdateResult apply(final String sql,
+                                              final List<Parameter> ps) {
+                        return updated;
+                    }
+                });
+
+    } // end of composite
+} // end of class Handlers
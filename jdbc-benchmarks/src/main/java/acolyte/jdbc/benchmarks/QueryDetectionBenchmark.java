@@ -0,0 +1,77 @@
+package acolyte.jdbc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acolyte.jdbc.CompositeHandler;
+
+/**
+ * Benchmarks of the query detection, with many patterns.
+ *
+ * @author Cedric Chantepie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class QueryDetectionBenchmark {
+    /**
+     * Number of detection patterns
+     */
+    @Param({ "1", "10", "100" })
+    public int patterns;
+
+    private CompositeHandler handler;
+    private String lastQuery;
+
+    @Setup
+    public void setUp() {
+        final String[] ps = new String[this.patterns];
+
+        for (int i = 0; i < ps.length; i++) {
+            ps[i] = "^SELECT \\* FROM table" + i + " ";
+        } // end of for
+
+        this.handler = CompositeHandler.empty().withQueryDetection(ps);
+        this.lastQuery = "SELECT * FROM table" + (ps.length - 1) +
+            " WHERE id = ?";
+
+    } // end of setUp
+
+    /**
+     * Detects a query matching the first pattern.
+     */
+    @Benchmark
+    public boolean firstPattern() {
+        return this.handler.isQuery("SELECT * FROM table0 WHERE id = ?");
+    } // end of firstPattern
+
+    /**
+     * Detects a query matching the last pattern.
+     */
+    @Benchmark
+    public boolean lastPattern() {
+        return this.handler.isQuery(this.lastQuery);
+    } // end of lastPattern
+
+    /**
+     * Detects an update (no pattern matching).
+     */
+    @Benchmark
+    public boolean update() {
+        return this.handler.isQuery("UPDATE table0 SET name = ? WHERE id = ?");
+    } // end of update
+} // end of class QueryDetectionBenchmark
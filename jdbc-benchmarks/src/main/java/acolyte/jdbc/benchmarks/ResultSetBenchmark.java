@@ -0,0 +1,90 @@
+package acolyte.jdbc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import java.sql.SQLException;
+import java.sql.ResultSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import acolyte.jdbc.RowList3;
+
+/**
+ * Benchmarks of the result set iteration.
+ *
+ * @author Cedric Chantepie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class ResultSetBenchmark {
+    /**
+     * Number of rows
+     */
+    @Param({ "100", "10000" })
+    public int size;
+
+    private RowList3.Impl<Integer, String, Double> rows;
+
+    @Setup
+    public void setUp() {
+        this.rows = Handlers.rows(this.size);
+    } // end of setUp
+
+    /**
+     * Iterates over the rows, using the index getters.
+     */
+    @Benchmark
+    public void indexGetters(final Blackhole bh) throws SQLException {
+        final ResultSet rs = this.rows.resultSet();
+
+        while (rs.next()) {
+            bh.consume(rs.getInt(1));
+            bh.consume(rs.getString(2));
+            bh.consume(rs.getDouble(3));
+        } // end of while
+    } // end of indexGetters
+
+    /**
+     * Iterates over the rows, using the label getters.
+     */
+    @Benchmark
+    public void labelGetters(final Blackhole bh) throws SQLException {
+        final ResultSet rs = this.rows.resultSet();
+
+        while (rs.next()) {
+            bh.consume(rs.getInt("id"));
+            bh.consume(rs.getString("name"));
+            bh.consume(rs.getDouble("amount"));
+        } // end of while
+    } // end of labelGetters
+
+    /**
+     * Iterates over the rows, using the generic getter.
+     */
+    @Benchmark
+    public void objectGetter(final Blackhole bh) throws SQLException {
+        final ResultSet rs = this.rows.resultSet();
+
+        while (rs.next()) {
+            bh.consume(rs.getObject(1));
+            bh.consume(rs.getObject(2));
+            bh.consume(rs.getObject(3));
+        } // end of while
+    } // end of objectGetter
+} // end of class ResultSetBenchmark
@@ -0,0 +1,86 @@
+package acolyte.jdbc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acolyte.jdbc.ColumnarRowList;
+import acolyte.jdbc.RowList3;
+import acolyte.jdbc.RowLists;
+
+import static acolyte.jdbc.RowList.Column;
+
+/**
+ * Benchmarks of the row list building.
+ *
+ * @author Cedric Chantepie
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class RowListBenchmark {
+    /**
+     * Number of appended rows
+     */
+    @Param({ "100", "10000" })
+    public int size;
+
+    /**
+     * Appends the rows one by one to the immutable list.
+     */
+    @Benchmark
+    public RowList3.Impl<Integer, String, Double> append() {
+        RowList3.Impl<Integer, String, Double> rows =
+            RowLists.rowList3(Integer.class, String.class, Double.class);
+
+        for (int i = 0; i < this.size; i++) {
+            rows = rows.append(i, "name", 1.5D);
+        } // end of for
+
+        return rows;
+    } // end of append
+
+    /**
+     * Appends the rows using a builder.
+     */
+    @Benchmark
+    public RowList3.Impl<Integer, String, Double> builder() {
+        final RowList3.Builder<Integer, String, Double, RowList3.Impl<Integer, String, Double>> builder = RowLists.
+            rowList3(Integer.class, String.class, Double.class).
+            builder(this.size);
+
+        for (int i = 0; i < this.size; i++) {
+            builder.append(i, "name", 1.5D);
+        } // end of for
+
+        return builder.build();
+    } // end of builder
+
+    /**
+     * Appends the rows to a columnar list.
+     */
+    @Benchmark
+    public ColumnarRowList columnar() {
+        final ColumnarRowList.Builder builder = ColumnarRowList.
+            empty(Column(Integer.class, "id"), Column(String.class, "name"),
+                  Column(Double.class, "amount")).builder(this.size);
+
+        for (int i = 0; i < this.size; i++) {
+            builder.append(i, "name", 1.5D);
+        } // end of for
+
+        return builder.build();
+    } // end of columnar
+} // end of class RowListBenchmark
@@ -0,0 +1,105 @@
+package acolyte.jdbc.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import java.sql.PreparedStatement;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.ResultSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import acolyte.jdbc.Driver;
+
+/**
+ * Benchmarks of the prepared statement execution.
+ *
+ * @author Cedric Chantepie
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class StatementBenchmark {
+    /**
+     * Number of statements in a batch
+     */
+    @Param({ "10", "100" })
+    public int batchSize;
+
+    private Connection connection;
+    private PreparedStatement query;
+    private PreparedStatement update;
+
+    @Setup
+    public void setUp() throws SQLException {
+        this.connection = Driver.connection(Handlers.
+                                            composite(Handlers.rows(10)));
+
+        this.query = this.connection.
+            prepareStatement("SELECT * FROM test WHERE id = ? AND name = ?");
+
+        this.update = this.connection.
+            prepareStatement("UPDATE test SET name = ? WHERE id = ?");
+
+    } // end of setUp
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.connection.close();
+    } // end of tearDown
+
+    /**
+     * Executes a query with two parameters.
+     */
+    @Benchmark
+    public ResultSet executeQuery() throws SQLException {
+        this.query.setInt(1, 1);
+        this.query.setString(2, "name1");
+
+        return this.query.executeQuery();
+    } // end of executeQuery
+
+    /**
+     * Executes an update with two parameters.
+     */
+    @Benchmark
+    public int executeUpdate() throws SQLException {
+        this.update.setString(1, "foo");
+        this.update.setInt(2, 1);
+
+        return this.update.executeUpdate();
+    } // end of executeUpdate
+
+    /**
+     * Executes a batch of updates,
+     * cleared afterwards so each invocation executes `batchSize` elements.
+     */
+    @Benchmark
+    public int[] executeBatch() throws SQLException {
+        for (int i = 0; i < this.batchSize; i++) {
+            this.update.setString(1, "foo");
+            this.update.setInt(2, i);
+            this.update.addBatch();
+        } // end of for
+
+        try {
+            return this.update.executeBatch();
+        } finally {
+            this.update.clearBatch();
+        } // end of finally
+    } // end of executeBatch
+} // end of class StatementBenchmark
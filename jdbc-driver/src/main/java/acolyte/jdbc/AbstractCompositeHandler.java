@@ -33,6 +33,11 @@ public abstract class AbstractCompositeHandler<T extends AbstractCompositeHandle
      */
     protected final UpdateHandler updateHandler;
 
+    /**
+     * Compiled query detection (lazily initialized)
+     */
+    private volatile QueryDetection compiledDetection = null;
+
     // --- Constructors ---
 
     /**
@@ -95,13 +100,16 @@ public abstract class AbstractCompositeHandler<T extends AbstractCompositeHandle
      * {@inheritDoc}
      */
     public boolean isQuery(final String sql) {
-        for (final Pattern p : queryDetection) {
-            if (p.matcher(sql).lookingAt()) {
-                return true;
-            } // end of if
-        } // end of for
+        QueryDetection detection = this.compiledDetection;
+
+        if (detection == null) {
+            // Possibly compiled twice on concurrent first calls, harmless
+            detection = new QueryDetection(this.queryDetection);
+
+            this.compiledDetection = detection;
+        } // end of if
 
-        return false;
+        return detection.isQuery(sql);
     } // end of isQuery
 
     // ---
@@ -0,0 +1,168 @@
+package acolyte.jdbc;
+
+import java.util.regex.Pattern;
+
+import java.sql.SQLException;
+
+/**
+ * Immutable router, dispatching each statement
+ * to the handler registered for it:
+ * by exact statement (hash lookup), then by statement fingerprint
+ * (hash lookup), then by longest prefix (trie lookup),
+ * then by pattern (in registration order),
+ * and finally to the fallback handler.
+ *
+ * Statements and prefixes are compared once normalized:
+ * whitespaces outside quotes are collapsed, and leading/trailing ones
+ * are ignored. Patterns are looking at the statement as is.
+ *
+ * Each new router shares the routes of the one it's derived from,
+ * so that registering many routes doesn't copy the previous ones.
+ *
+ * @param <H> the handler type
+ * @param <R> the router type
+ * @author Cedric Chantepie
+ * @see QueryRouter
+ * @see UpdateRouter
+ */
+public abstract class AbstractRouter<H, R extends AbstractRouter<H,R>> {
+    // --- Properties ---
+
+    /**
+     * Routes
+     */
+    private final SqlRoutes<H> routes;
+
+    /**
+     * Kind of the routed statements (e.g. "query")
+     */
+    private final String kind;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     *
+     * @param routes the routes
+     * @param kind the kind of the routed statements
+     */
+    AbstractRouter(final SqlRoutes<H> routes, final String kind) {
+        this.routes = routes;
+        this.kind = kind;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns a new router with given |routes|.
+     *
+     * @param routes the routes of the new router
+     * @return New router
+     */
+    abstract R withRoutes(SqlRoutes<H> routes);
+
+    /**
+     * Returns a new router based on this one,
+     * with given |handler| for the specified |statement|.
+     *
+     * @param statement the SQL statement
+     * @param handler the handler for the statement
+     * @return Updated router
+     * @throws IllegalArgumentException if |statement| or |handler| is null
+     */
+    public R withStatement(final String statement, final H handler) {
+        return withRoutes(this.routes.withStatement(statement, handler));
+    } // end of withStatement
+
+    /**
+     * Returns a new router based on this one,
+     * with given |handler| for the statements having the same fingerprint
+     * as the specified |statement| (e.g. only differing by literal values).
+     *
+     * @param statement the SQL statement
+     * @param handler the handler for the statements
+     * @return Updated router
+     * @throws IllegalArgumentException if |statement| or |handler| is null
+     * @see SqlFingerprint
+     */
+    public R withFingerprint(final String statement, final H handler) {
+        return withRoutes(this.routes.withFingerprint(statement, handler));
+    } // end of withFingerprint
+
+    /**
+     * Returns a new router based on this one,
+     * with given |handler| for the statements starting with |prefix|
+     * (if no longer prefix is matching).
+     *
+     * @param prefix the statement prefix
+     * @param handler the handler for the matching statements
+     * @return Updated router
+     * @throws IllegalArgumentException if |prefix| is null or empty,
+     * or if |handler| is null
+     */
+    public R withPrefix(final String prefix, final H handler) {
+        return withRoutes(this.routes.withPrefix(prefix, handler));
+    } // end of withPrefix
+
+    /**
+     * Returns a new router based on this one,
+     * with given |handler| for the statements matching the |pattern|,
+     * checked after the previous patterns.
+     *
+     * @param pattern the statement pattern
+     * @param handler the handler for the matching statements
+     * @return Updated router
+     * @throws IllegalArgumentException if |pattern| or |handler| is null
+     * @throws java.util.regex.PatternSyntaxException if |pattern| is invalid
+     */
+    public R withPattern(final String pattern, final H handler) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("No pattern");
+        } // end of if
+
+        return withPattern(Pattern.compile(pattern), handler);
+    } // end of withPattern
+
+    /**
+     * Returns a new router based on this one,
+     * with given |handler| for the statements matching the |pattern|,
+     * checked after the previous patterns.
+     *
+     * @param pattern the statement pattern
+     * @param handler the handler for the matching statements
+     * @return Updated router
+     * @throws IllegalArgumentException if |pattern| or |handler| is null
+     */
+    public R withPattern(final Pattern pattern, final H handler) {
+        return withRoutes(this.routes.withPattern(pattern, handler));
+    } // end of withPattern
+
+    /**
+     * Returns a new router based on this one,
+     * with given |handler| for the statements without any other route.
+     *
+     * @param handler the fallback handler
+     * @return Updated router
+     * @throws IllegalArgumentException if |handler| is null
+     */
+    public R withFallback(final H handler) {
+        return withRoutes(this.routes.withFallback(handler));
+    } // end of withFallback
+
+    /**
+     * Returns the handler for given |sql| statement.
+     *
+     * @param sql the SQL statement
+     * @return the matching handler
+     * @throws SQLException if there is no route for the |sql| statement
+     */
+    final H route(final String sql) throws SQLException {
+        final H handler = this.routes.route(sql);
+
+        if (handler == null) {
+            throw new SQLException("No " + this.kind + " route: " + sql);
+        } // end of if
+
+        return handler;
+    } // end of route
+} // end of class AbstractRouter
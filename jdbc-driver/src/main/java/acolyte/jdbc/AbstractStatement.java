@@ -4,9 +4,19 @@ import java.util.Collections;
 import java.util.Properties;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
 
 import java.sql.SQLFeatureNotSupportedException;
-import java.sql.BatchUpdateException;
+import java.sql.SQLTimeoutException;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.ResultSet;
@@ -62,6 +72,25 @@ abstract class AbstractStatement implements java.sql.Statement {
      */
     protected final StatementHandler handler;
 
+    /**
+     * Handler executing the statements within their context,
+     * using the statement handler (awaiting the results
+     * of an asynchronous one, see #await)
+     */
+    protected final StatementHandler execution;
+
+    /**
+     * Query timeout, in seconds (or 0 if none)
+     */
+    protected volatile int queryTimeout = 0;
+
+    /**
+     * Pending asynchronous executions
+     * (several ones for a batch executed in parallel)
+     */
+    private final Set<Future<?>> pending =
+        Collections.newSetFromMap(new ConcurrentHashMap<Future<?>,Boolean>());
+
     /**
      * Warning
      */
@@ -123,6 +152,7 @@ abstract class AbstractStatement implements java.sql.Statement {
     protected AbstractStatement() {
         this.connection = null;
         this.handler = null;
+        this.execution = null;
         this.batch = new ArrayList<String>();
     } // end of <init>
 
@@ -144,6 +174,8 @@ abstract class AbstractStatement implements java.sql.Statement {
 
         this.connection = connection;
         this.handler = handler;
+        this.execution = new Execution();
+
         this.batch = new ArrayList<String>();
     } // end of <init>
 
@@ -160,7 +192,8 @@ abstract class AbstractStatement implements java.sql.Statement {
         this.generatedKeys = EMPTY_GENERATED_KEYS.withStatement(this);
 
         try {
-            final QueryResult res = this.handler.whenSQLQuery(sql, NO_PARAMS);
+            final QueryResult res = DriverEvents.
+                whenSQLQuery(this.execution, sql, NO_PARAMS);
 
             final SQLException exception = res.getException();
 
@@ -172,8 +205,9 @@ abstract class AbstractStatement implements java.sql.Statement {
             
             this.warning = res.getWarning();
 
-            return (this.result = res.getRowList().resultSet(this.maxRows).
-                    withStatement(this).withWarning(this.warning));
+            return (this.result = DriverEvents.resultSetOpened(res.
+                getRowList().resultSet(this.maxRows).withStatement(this).
+                withWarning(this.warning), sql));
 
         } catch (SQLException se) {
             throw se;
@@ -251,24 +285,37 @@ abstract class AbstractStatement implements java.sql.Statement {
     public int getQueryTimeout() throws SQLException {
         checkClosed();
 
-        return 0;
+        return this.queryTimeout;
     } // end of getQueryTimeout
 
     /**
      * {@inheritDoc}
+     *
+     * The timeout is enforced when the statement handler
+     * is an {@link AsyncStatementHandler}.
      */
     public void setQueryTimeout(final int seconds) throws SQLException {
         checkClosed();
 
-        throw new UnsupportedOperationException();
+        if (seconds < 0) {
+            throw new SQLException("Negative query timeout");
+        } // end of if
+
+        this.queryTimeout = seconds;
     } // end of setQueryTimeout
 
     /**
      * {@inheritDoc}
-     * @throws java.sql.SQLFeatureNotSupportedException Not currently supported
+     *
+     * Cancels the pending executions of an {@link AsyncStatementHandler},
+     * or does nothing if there is none.
      */
     public void cancel() throws SQLException {
-        throw new SQLFeatureNotSupportedException();
+        checkClosed();
+
+        for (final Future<?> p : this.pending) {
+            p.cancel(true);
+        } // end of for
     } // end of cancel
 
     /**
@@ -418,33 +465,22 @@ abstract class AbstractStatement implements java.sql.Statement {
      * {@inheritDoc}
      */
     public int[] executeBatch() throws SQLException {
-        final int[] cs = new int[batch.size()];
-        java.util.Arrays.fill(cs, EXECUTE_FAILED);
-
-        final boolean cont = 
-            "true".equals(connection.getProperties().
-                          get("acolyte.batch.continueOnError"));
-
-        SQLException firstEx = null;  // if |cont| is true
-        SQLException lastEx = null;
-
-        int i = 0;
-        for (final String sql : batch) {
-            try {
-                cs[i++] = update(sql, NO_GENERATED_KEYS).left;
-            } catch (SQLException se) {
-                if (!cont) throw new BatchUpdateException(se.getMessage(), se.getSQLState(), se.getErrorCode(), cs, se.getCause());
-                else {
-                    if (firstEx == null) firstEx = se;
-                    if (lastEx != null) lastEx.setNextException(se);
-                    lastEx = se;
-                } // end of else
-            } // end of catch
-        } // end of for
-
-        if (firstEx != null) throw new BatchUpdateException(firstEx.getMessage(), firstEx.getSQLState(), firstEx.getErrorCode(), cs, firstEx.getCause());
+        final Object event = DriverEvents.begin(DriverEvents.BATCH);
+        final int size = this.batch.size();
 
-        return cs;
+        try {
+            return BatchExecution.
+                execute(this.batch, new BatchExecution.Update<String>() {
+                        public int apply(final String sql)
+                            throws SQLException {
+
+                            return batchUpdate(sql, NO_PARAMS);
+                        }
+                    }, connection.getProperties());
+
+        } finally {
+            DriverEvents.batched(event, null, size);
+        } // end of finally
     } // end of executeBatch
 
     /**
@@ -501,7 +537,8 @@ abstract class AbstractStatement implements java.sql.Statement {
         checkClosed();
 
         try {
-            final UpdateResult res = this.handler.whenSQLUpdate(sql, NO_PARAMS);
+            final UpdateResult res = DriverEvents.
+                whenSQLUpdate(this.execution, sql, NO_PARAMS);
             final SQLException exception = res.getException();
 
             if (exception != null) {
@@ -666,6 +703,110 @@ abstract class AbstractStatement implements java.sql.Statement {
 
     // ---
 
+    /**
+     * Awaits the asynchronous result, at most the query timeout.
+     *
+     * @param stage the stage of the result
+     * @throws SQLTimeoutException if the query timeout is exceeded
+     * @throws SQLException if the execution is cancelled or fails
+     */
+    protected <T> T await(final CompletionStage<T> stage) 
+        throws SQLException {
+
+        if (stage == null) {
+            throw new SQLException("No asynchronous result");
+        } // end of if
+
+        final CompletableFuture<T> f = stage.toCompletableFuture();
+        final int timeout = this.queryTimeout;
+
+        this.pending.add(f);
+
+        try {
+            return (timeout == 0) ? f.get() : f.get(timeout, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            f.cancel(true);
+
+            throw new SQLTimeoutException("Query timeout exceeded: " + 
+                                          timeout + "s");
+
+        } catch (CancellationException e) {
+            throw new SQLException("Statement cancelled", "57014");
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+
+            throw new SQLException("Interrupted", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } // end of if
+
+            throw new SQLException(cause.getMessage(), cause);
+        } finally {
+            this.pending.remove(f);
+        } // end of finally
+    } // end of await
+
+    /**
+     * Executes a batch element, only returning its update count:
+     * the state of this statement (result, warning, generated keys,
+     * update count) is not changed, so the elements can be executed
+     * concurrently (see {@link BatchExecution}).
+     *
+     * @param sql the SQL statement
+     * @param params the element parameters
+     * @return the update count
+     * @throws SQLException if the execution fails
+     */
+    protected final int batchUpdate(final String sql,
+                                    final List<Parameter> params)
+        throws SQLException {
+
+        checkClosed();
+
+        try {
+            final UpdateResult res = DriverEvents.
+                whenSQLUpdate(this.execution, sql, params);
+            final SQLException exception = res.getException();
+
+            if (exception != null) {
+                throw exception;
+            } // end of if
+
+            return res.getUpdateCount();
+        } catch (SQLException se) {
+            throw se;
+        } catch (Exception e) {
+            throw new SQLException(e.getMessage(), e);
+        } // end of catch
+    } // end of batchUpdate
+
+    /**
+     * Executes the whole batch in a single call of the bulk handler,
+     * within the statement context (and asynchronously if the handler
+     * is also an {@link AsyncStatementHandler}, so that the query timeout
+     * and the cancellation apply). The state of this statement
+     * is not changed.
+     *
+     * @param sql the SQL statement
+     * @param params the parameters of each batch element
+     * @return the update counts, as returned by the handler
+     * @throws SQLException if the execution fails
+     * @throws ClassCastException if the statement handler
+     * is not a {@link BatchStatementHandler}
+     */
+    protected final int[] batchUpdate(final String sql,
+                                      final Parameter[][] params)
+        throws SQLException {
+
+        checkClosed();
+
+        return ((Execution) this.execution).whenSQLBatch(sql, params);
+    } // end of batchUpdate
+
     /**
      * Throws a SQLException("Statement is closed") if connection is closed.
      * @throws SQLException if connection is closed
@@ -675,4 +816,116 @@ abstract class AbstractStatement implements java.sql.Statement {
             throw new SQLException("Statement is closed");
         } // end of if
     } // end of checkClosed
+
+    // --- Inner classes ---
+
+    /**
+     * Execution of the statements using the statement handler,
+     * with the statement context bound to the current thread.
+     */
+    private final class Execution implements StatementHandler {
+        /**
+         * {@inheritDoc}
+         */
+        public QueryResult whenSQLQuery(final String sql, 
+                                        final List<Parameter> parameters)
+            throws SQLException {
+
+            final StatementContext previous = StatementContext.
+                enter(new StatementContext(connection, sql));
+
+            try {
+                if (handler instanceof AsyncStatementHandler) {
+                    return await(((AsyncStatementHandler) handler).
+                                 whenSQLQueryAsync(sql, parameters));
+
+                } // end of if
+
+                return handler.whenSQLQuery(sql, parameters);
+            } finally {
+                StatementContext.exit(previous);
+            } // end of finally
+        } // end of whenSQLQuery
+
+        /**
+         * {@inheritDoc}
+         */
+        public UpdateResult whenSQLUpdate(final String sql, 
+                                          final List<Parameter> parameters)
+            throws SQLException {
+
+            final StatementContext previous = StatementContext.
+                enter(new StatementContext(connection, sql));
+
+            try {
+                if (handler instanceof AsyncStatementHandler) {
+                    return await(((AsyncStatementHandler) handler).
+                                 whenSQLUpdateAsync(sql, parameters));
+
+                } // end of if
+
+                return handler.whenSQLUpdate(sql, parameters);
+            } finally {
+                StatementContext.exit(previous);
+            } // end of finally
+        } // end of whenSQLUpdate
+
+        /**
+         * Executes the whole batch using the bulk handler.
+         *
+         * @see BatchStatementHandler#whenSQLBatch
+         */
+        int[] whenSQLBatch(final String sql, final Parameter[][] parameters)
+            throws SQLException {
+
+            final BatchStatementHandler bulk = (BatchStatementHandler) handler;
+            final StatementContext context =
+                new StatementContext(connection, sql);
+
+            if (!(handler instanceof AsyncStatementHandler)) {
+                final StatementContext previous = StatementContext.enter(context);
+
+                try {
+                    return bulk.whenSQLBatch(sql, parameters);
+                } finally {
+                    StatementContext.exit(previous);
+                } // end of finally
+            } // end of if
+
+            // ---
+
+            final CompletableFuture<int[]> result =
+                new CompletableFuture<int[]>();
+
+            BatchExecution.executor().execute(new Runnable() {
+                    public void run() {
+                        if (result.isDone()) {
+                            return; // cancelled meanwhile
+                        } // end of if
+
+                        final StatementContext previous =
+                            StatementContext.enter(context);
+
+                        try {
+                            result.complete(bulk.
+                                            whenSQLBatch(sql, parameters));
+
+                        } catch (Throwable e) {
+                            result.completeExceptionally(e);
+                        } finally {
+                            StatementContext.exit(previous);
+                        } // end of finally
+                    }
+                });
+
+            return await(result);
+        } // end of whenSQLBatch
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean isQuery(final String sql) {
+            return handler.isQuery(sql);
+        } // end of isQuery
+    } // end of class Execution
 } // end of class AbstractStatement
@@ -0,0 +1,57 @@
+package acolyte.jdbc;
+
+import java.util.List;
+
+import java.util.concurrent.CompletionStage;
+
+import acolyte.jdbc.StatementHandler.Parameter;
+
+/**
+ * Statement handler also providing its results asynchronously,
+ * so that the statements can enforce their query timeout,
+ * and be cancelled from another thread.
+ *
+ * <pre>
+ * {@code
+ * public CompletionStage<QueryResult> whenSQLQueryAsync(String sql, List<Parameter> parameters) {
+ *   return slowDatabase.query(sql, parameters); // completed later
+ * }
+ * }
+ * </pre>
+ *
+ * When such handler is used, a statement waits for the asynchronous result
+ * at most the query timeout, and then throws a
+ * {@link java.sql.SQLTimeoutException}. If the statement is cancelled
+ * while waiting, the pending result is cancelled,
+ * and a SQLException with state `57014` is thrown.
+ *
+ * The returned stages must support `toCompletableFuture`
+ * (as those of the JDK).
+ *
+ * @author Cedric Chantepie
+ * @see ExecutorStatementHandler
+ * @see java.sql.Statement#setQueryTimeout
+ * @see java.sql.Statement#cancel
+ */
+public interface AsyncStatementHandler extends StatementHandler {
+    /**
+     * When given |sql| query is executed against Acolyte connection ...
+     *
+     * @param sql SQL query (with '?' for prepared/callable statement)
+     * @param parameters Parameters (or empty list if none)
+     * @return Stage of the query result (completed exceptionally
+     * with a SQLException if fails to handle the query)
+     */
+    public CompletionStage<QueryResult> whenSQLQueryAsync(String sql, List<Parameter> parameters);
+
+    /**
+     * When given |sql| update is executed against Acolyte connection ...
+     *
+     * @param sql SQL query (with '?' for prepared/callable statement)
+     * @param parameters Parameters (or empty list if none)
+     * @return Stage of the update result (completed exceptionally
+     * with a SQLException if fails to handle the update)
+     */
+    public CompletionStage<UpdateResult> whenSQLUpdateAsync(String sql, List<Parameter> parameters);
+
+} // end of interface AsyncStatementHandler
@@ -0,0 +1,420 @@
+package acolyte.jdbc;
+
+import java.util.Properties;
+import java.util.Arrays;
+import java.util.List;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Execution of the batch elements, either sequentially
+ * or in parallel according the connection properties:
+ *
+ * <ul>
+ * <li>`acolyte.batch.continueOnError`: If "true", execution continues
+ * after an element has failed.</li>
+ * <li>`acolyte.batch.parallelism`: Max number of elements executed
+ * at the same time (default: 1, sequential execution).</li>
+ * </ul>
+ *
+ * The whole batch can also be executed in a single call
+ * (see {@link BatchStatementHandler}), with the same error policy.
+ *
+ * Whatever the parallelism, the update counts are in the same order
+ * as the batch elements, and the BatchUpdateException is the same
+ * as for a sequential execution (a runtime exception raised
+ * by an element being reported as its SQLException).
+ * The elements are executed without changing the state of the statement
+ * (see {@link AbstractStatement#batchUpdate}).
+ *
+ * Without continuation on error, some elements after the failed one
+ * may have been executed in parallel, but their update counts
+ * are reported as failed.
+ *
+ * The parallel elements are executed by the calling thread,
+ * together with the threads of a pool shared by all the batches
+ * (daemon threads, created when first needed, and stopped once idle).
+ * So the effective parallelism is also bounded by the size of this pool.
+ *
+ * @author Cedric Chantepie
+ */
+final class BatchExecution {
+    // --- Shared ---
+
+    /**
+     * Name of the property for batch parallelism
+     */
+    static final String PARALLELISM_PROPERTY = "acolyte.batch.parallelism";
+
+    /**
+     * Name of the property for continuation on error
+     */
+    static final String CONTINUE_ON_ERROR_PROPERTY =
+        "acolyte.batch.continueOnError";
+
+    /**
+     * Max number of threads in the shared pool
+     */
+    static final int POOL_SIZE =
+        Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+    // --- Constructors ---
+
+    /**
+     * No constructor.
+     */
+    private BatchExecution() {}
+
+    // ---
+
+    /**
+     * Executes the batch |elements|.
+     *
+     * @param <T> the type of batch element
+     * @param elements the batch elements
+     * @param update the function executing each element
+     * @param props the connection properties
+     * @return the update counts
+     * @throws BatchUpdateException if an element fails
+     */
+    static <T> int[] execute(final List<T> elements,
+                             final Update<T> update,
+                             final Properties props) throws SQLException {
+
+        final boolean cont = "true".
+            equals(props.get(CONTINUE_ON_ERROR_PROPERTY));
+
+        final int parallelism =
+            Math.min(parallelism(props), elements.size());
+
+        final int[] cs = new int[elements.size()];
+        final SQLException[] errors = new SQLException[cs.length];
+
+        Arrays.fill(cs, Statement.EXECUTE_FAILED);
+
+        if (parallelism <= 1) {
+            for (int i = 0; i < cs.length; i++) {
+                if (!run(elements, update, i, cs, errors) && !cont) {
+                    break;
+                } // end of if
+            } // end of for
+        } else {
+            parallel(elements, update, cont, parallelism, cs, errors);
+        } // end of else
+
+        // ---
+
+        SQLException firstEx = null;
+        SQLException lastEx = null;
+
+        for (int i = 0; i < errors.length; i++) {
+            final SQLException se = errors[i];
+
+            if (se == null) continue;
+
+            if (firstEx == null) {
+                firstEx = se;
+
+                if (!cont) {
+                    // Same as sequential: nothing reported after the failure
+                    Arrays.fill(cs, i, cs.length, Statement.EXECUTE_FAILED);
+                    break;
+                } // end of if
+            } // end of if
+
+            if (lastEx != null) lastEx.setNextException(se);
+            lastEx = se;
+        } // end of for
+
+        if (firstEx != null) throw new BatchUpdateException(firstEx.getMessage(), firstEx.getSQLState(), firstEx.getErrorCode(), cs, firstEx.getCause());
+
+        return cs;
+    } // end of execute
+
+    /**
+     * Executes the whole batch of |size| elements in a single call,
+     * with the same error policy as the execution element by element:
+     * if the |bulk| execution fails, or returns an EXECUTE_FAILED count,
+     * a BatchUpdateException is thrown with the update counts
+     * (those of a BatchUpdateException thrown by the |bulk| execution,
+     * or EXECUTE_FAILED for all the elements), and without continuation
+     * on error nothing is reported as executed after the first failure.
+     *
+     * @param size the number of batch elements
+     * @param bulk the function executing the whole batch
+     * @param props the connection properties
+     * @return the update counts
+     * @throws BatchUpdateException if the batch fails
+     */
+    static int[] executeBulk(final int size,
+                             final Bulk bulk,
+                             final Properties props) throws SQLException {
+
+        final boolean cont = "true".
+            equals(props.get(CONTINUE_ON_ERROR_PROPERTY));
+
+        int[] executed = null;
+        SQLException failure = null;
+
+        try {
+            executed = bulk.apply();
+
+            if (executed == null || executed.length != size) {
+                throw new SQLException("Invalid update counts: " +
+                                       ((executed == null) ? null
+                                        : executed.length) + " != " + size);
+
+            } // end of if
+        } catch (BatchUpdateException be) {
+            failure = be;
+            executed = be.getUpdateCounts();
+        } catch (SQLException se) {
+            failure = se;
+            executed = null;
+        } catch (RuntimeException re) {
+            failure = new SQLException(re.getMessage(), re);
+            executed = null;
+        } // end of catch
+
+        final int[] cs = new int[size];
+
+        Arrays.fill(cs, Statement.EXECUTE_FAILED);
+
+        if (executed != null) {
+            System.arraycopy(executed, 0, cs, 0,
+                             Math.min(executed.length, size));
+
+        } // end of if
+
+        int failed = -1;
+
+        for (int i = 0; i < size && failed == -1; i++) {
+            if (cs[i] == Statement.EXECUTE_FAILED) {
+                failed = i;
+            } // end of if
+        } // end of for
+
+        if (failure == null && failed == -1) {
+            return cs;
+        } // end of if
+
+        // ---
+
+        if (!cont && failed != -1) {
+            // Same as sequential: nothing reported after the failure
+            Arrays.fill(cs, failed, size, Statement.EXECUTE_FAILED);
+        } // end of if
+
+        if (failure == null) {
+            failure = new SQLException("Batch element failed: #" + (failed + 1));
+        } // end of if
+
+        throw new BatchUpdateException(failure.getMessage(), failure.getSQLState(), failure.getErrorCode(), cs, failure.getCause());
+    } // end of executeBulk
+
+    /**
+     * Returns the executor shared by the parallel batches.
+     */
+    static Executor executor() {
+        return Shared.EXECUTOR;
+    } // end of executor
+
+    /**
+     * Executes the batch |elements| using |parallelism| threads.
+     * Without continuation on error, the elements after a failed one
+     * are no longer started.
+     */
+    private static <T> void parallel(final List<T> elements,
+                                     final Update<T> update,
+                                     final boolean cont,
+                                     final int parallelism,
+                                     final int[] cs,
+                                     final SQLException[] errors)
+        throws SQLException {
+
+        final AtomicInteger next = new AtomicInteger(0);
+        final AtomicInteger failed = new AtomicInteger(Integer.MAX_VALUE);
+        final Runnable worker = new Runnable() {
+            public void run() {
+                int i;
+
+                while ((i = next.getAndIncrement()) < cs.length) {
+                    if (!cont && i > failed.get()) {
+                        return;
+                    } // end of if
+
+                    if (!BatchExecution.run(elements, update, i, cs, errors)) {
+                        int f;
+                        do {
+                            f = failed.get();
+                        } while (i < f && !failed.compareAndSet(f, i));
+                    } // end of if
+                } // end of while
+            }
+        };
+
+        final AtomicBoolean[] started = new AtomicBoolean[parallelism - 1];
+        final Future<?>[] futures = new Future<?>[started.length];
+
+        for (int t = 0; t < futures.length; t++) {
+            final AtomicBoolean s = started[t] = new AtomicBoolean(false);
+
+            futures[t] = Shared.EXECUTOR.submit(new Runnable() {
+                    public void run() {
+                        if (s.compareAndSet(false, true)) {
+                            worker.run();
+                        } // end of if
+                    }
+                });
+        } // end of for
+
+        worker.run(); // by the calling thread
+
+        // ---
+
+        try {
+            for (int t = 0; t < futures.length; t++) {
+                if (started[t].compareAndSet(false, true)) {
+                    // Not started yet (pool busy): no longer needed,
+                    // as all the elements have been executed by the others
+                    futures[t].cancel(false);
+                    Shared.EXECUTOR.remove((Runnable) futures[t]);
+                } else {
+                    futures[t].get();
+                } // end of else
+            } // end of for
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new SQLException("Batch execution interrupted", e);
+        } catch (ExecutionException e) {
+            throw new SQLException(e.getCause().getMessage(), e.getCause());
+        } // end of catch
+    } // end of parallel
+
+    /**
+     * Executes the element at index |i|, keeping either its update count
+     * in |cs| or its error in |errors| (the same way whatever
+     * the parallelism).
+     *
+     * @return true if the element has been successfully executed
+     */
+    private static <T> boolean run(final List<T> elements,
+                                   final Update<T> update,
+                                   final int i,
+                                   final int[] cs,
+                                   final SQLException[] errors) {
+
+        try {
+            cs[i] = update.apply(elements.get(i));
+
+            return true;
+        } catch (SQLException se) {
+            errors[i] = se;
+        } catch (RuntimeException re) {
+            errors[i] = new SQLException(re.getMessage(), re);
+        } // end of catch
+
+        return false;
+    } // end of run
+
+    /**
+     * Returns the batch parallelism from the connection properties.
+     *
+     * @throws SQLException if the property is not a valid integer
+     */
+    private static int parallelism(final Properties props)
+        throws SQLException {
+
+        final Object p = props.get(PARALLELISM_PROPERTY);
+
+        if (p == null) {
+            return 1;
+        } // end of if
+
+        try {
+            final int n = Integer.parseInt(p.toString().trim());
+
+            if (n < 1) {
+                throw new NumberFormatException();
+            } // end of if
+
+            return n;
+        } catch (NumberFormatException e) {
+            throw new SQLException("Invalid batch parallelism: " + p);
+        } // end of catch
+    } // end of parallelism
+
+    // --- Inner classes ---
+
+    /**
+     * Lazily initialized shared pool.
+     */
+    private static final class Shared {
+        /**
+         * Pool of the batch threads
+         */
+        static final ThreadPoolExecutor EXECUTOR;
+
+        static {
+            final ThreadFactory factory = new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger(0);
+
+                    public Thread newThread(final Runnable r) {
+                        final Thread t = new Thread(r, "acolyte-batch-" +
+                                                    count.incrementAndGet());
+
+                        t.setDaemon(true);
+
+                        return t;
+                    }
+                };
+
+            EXECUTOR = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE,
+                                              30L, TimeUnit.SECONDS,
+                                              new LinkedBlockingQueue<Runnable>(),
+                                              factory);
+
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    } // end of class Shared
+
+    /**
+     * Execution of a single batch element,
+     * which can be called concurrently.
+     *
+     * @param <T> the type of batch element
+     */
+    static interface Update<T> {
+        /**
+         * Executes the |element|, without changing the statement state.
+         *
+         * @return the update count
+         */
+        int apply(T element) throws SQLException;
+    } // end of interface Update
+
+    /**
+     * Execution of the whole batch in a single call.
+     */
+    static interface Bulk {
+        /**
+         * Executes all the batch elements.
+         *
+         * @return the update counts
+         */
+        int[] apply() throws SQLException;
+    } // end of interface Bulk
+} // end of class BatchExecution
@@ -0,0 +1,45 @@
+package acolyte.jdbc;
+
+import java.sql.SQLException;
+
+import acolyte.jdbc.StatementHandler.Parameter;
+
+/**
+ * Statement handler also processing the whole batch of a prepared statement
+ * in a single call, rather than calling `whenSQLUpdate` for each element.
+ *
+ * <pre>
+ * {@code
+ * public int[] whenSQLBatch(String sql, Parameter[][] parameters) {
+ *   final int[] counts = new int[parameters.length];
+ *
+ *   for (int i = 0; i < parameters.length; i++) {
+ *     // parameters[i][j]: parameter #j+1 of batch element #i+1
+ *     counts[i] = store.insert(parameters[i]);
+ *   }
+ *
+ *   return counts;
+ * }
+ * }
+ * </pre>
+ *
+ * @author Cedric Chantepie
+ * @see java.sql.PreparedStatement#executeBatch
+ */
+public interface BatchStatementHandler extends StatementHandler {
+    /**
+     * When the batch of a prepared |sql| statement is executed
+     * against Acolyte connection ...
+     *
+     * @param sql SQL statement (with '?' for the parameters)
+     * @param parameters Parameters for each batch element:
+     * parameters[i] are those of element #i+1 (the array must not be modified)
+     * @return Update count for each batch element (same order)
+     * @throws SQLException if fails to handle the batch
+     * (a java.sql.BatchUpdateException can be thrown to specify
+     * the update counts before the failure)
+     */
+    public int[] whenSQLBatch(String sql, Parameter[][] parameters)
+        throws SQLException;
+
+} // end of interface BatchStatementHandler
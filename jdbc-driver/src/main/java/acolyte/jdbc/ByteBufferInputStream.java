@@ -0,0 +1,114 @@
+package acolyte.jdbc;
+
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream reading a byte buffer (without copying it).
+ *
+ * @author Cedric Chantepie
+ * @see MappedBlob
+ * @see MappedClob
+ */
+final class ByteBufferInputStream extends InputStream {
+    // --- Properties ---
+
+    /**
+     * Buffer to be read (own position and limit)
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Marked position
+     */
+    private int mark;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     *
+     * @param buffer the buffer to be read, from its position to its limit
+     * (this stream reads a duplicate, not changing the |buffer|)
+     */
+    ByteBufferInputStream(final ByteBuffer buffer) {
+        this.buffer = buffer.duplicate();
+        this.mark = this.buffer.position();
+    } // end of <init>
+
+    // ---
+
+    /**
+     * {@inheritDoc}
+     */
+    public int read() {
+        if (!this.buffer.hasRemaining()) {
+            return -1;
+        } // end of if
+
+        return this.buffer.get() & 0xFF;
+    } // end of read
+
+    /**
+     * {@inheritDoc}
+     */
+    public int read(final byte[] b, final int off, final int len) {
+        if (len == 0) {
+            return 0;
+        } // end of if
+
+        final int n = Math.min(len, this.buffer.remaining());
+
+        if (n == 0) {
+            return -1;
+        } // end of if
+
+        this.buffer.get(b, off, n);
+
+        return n;
+    } // end of read
+
+    /**
+     * {@inheritDoc}
+     */
+    public long skip(final long n) {
+        if (n <= 0L) {
+            return 0L;
+        } // end of if
+
+        final int skipped = (int) Math.min(n, this.buffer.remaining());
+
+        this.buffer.position(this.buffer.position() + skipped);
+
+        return skipped;
+    } // end of skip
+
+    /**
+     * {@inheritDoc}
+     */
+    public int available() {
+        return this.buffer.remaining();
+    } // end of available
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean markSupported() {
+        return true;
+    } // end of markSupported
+
+    /**
+     * {@inheritDoc}
+     */
+    public void mark(final int readlimit) {
+        this.mark = this.buffer.position();
+    } // end of mark
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset() {
+        this.buffer.position(this.mark);
+    } // end of reset
+} // end of class ByteBufferInputStream
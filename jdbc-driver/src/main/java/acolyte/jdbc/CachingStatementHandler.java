@@ -0,0 +1,621 @@
+package acolyte.jdbc;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.HashSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.sql.SQLException;
+
+/**
+ * Statement handler caching the query results of another one,
+ * by SQL statement and parameters, so that the same result
+ * is not built again for an identical query.
+ *
+ * <pre>
+ * {@code
+ * CachingStatementHandler handler =
+ *   new CachingStatementHandler(otherHandler, 100). // max 100 results
+ *   withTimeToLive(5, TimeUnit.MINUTES).
+ *   withTableTags(new CachingStatementHandler.TableTags() {
+ *     public Collection<String> tags(String sql) {
+ *       return Collections.singleton(tableName(sql));
+ *     }
+ *   });
+ *
+ * handler.getHits(); // Number of results returned from the cache
+ * }
+ * </pre>
+ *
+ * When there are more than the maximum number of entries
+ * (or weight), the least recently used results are evicted.
+ *
+ * An update invalidates the cached results of the same tables,
+ * according the table tags, or all the results if there is
+ * no table tags function (or if it returns null for the update).
+ * With a table tags function, the result of a query whose tags
+ * are unknown (null) is not cached.
+ *
+ * Results of streaming row lists, which can't be used more than once,
+ * are not cached. An asynchronous or batch handler can't be cached,
+ * as the caching handler is neither one. The configuration is immutable:
+ * each with-method returns a new handler, with an empty cache.
+ *
+ * @author Cedric Chantepie
+ */
+public final class CachingStatementHandler implements StatementHandler {
+    // --- Shared ---
+
+    /**
+     * Default weigher: each result weighs 1
+     */
+    private static final Weigher UNIT_WEIGHER = new Weigher() {
+            public long weigh(final QueryResult result) { return 1L; }
+        };
+
+    // --- Properties ---
+
+    /**
+     * Underlying handler
+     */
+    private final StatementHandler handler;
+
+    /**
+     * Max number of cached results
+     */
+    private final int maxEntries;
+
+    /**
+     * Max total weight of the cached results
+     */
+    private final long maxWeight;
+
+    /**
+     * Result weigher
+     */
+    private final Weigher weigher;
+
+    /**
+     * Time to live of the cached results, in nanoseconds (or 0 if none)
+     */
+    private final long ttlNanos;
+
+    /**
+     * Table tags function (or null)
+     */
+    private final TableTags tableTags;
+
+    /**
+     * Cached results, from the least to the most recently used
+     * (guarded by itself)
+     */
+    private final LinkedHashMap<Key,Entry> entries =
+        new LinkedHashMap<Key,Entry>(16, 0.75f, true);
+
+    /**
+     * Keys of the cached results per table tag (guarded by entries)
+     */
+    private final HashMap<String,Set<Key>> tagged =
+        new HashMap<String,Set<Key>>();
+
+    /**
+     * Total weight of the cached results (guarded by entries)
+     */
+    private long weight = 0L;
+
+    /**
+     * Number of invalidations since creation (guarded by entries),
+     * so that a result built before an update is not cached after it
+     */
+    private long generation = 0L;
+
+    /**
+     * Number of results returned from the cache
+     */
+    private final AtomicLong hits = new AtomicLong(0L);
+
+    /**
+     * Number of results built by the underlying handler
+     */
+    private final AtomicLong misses = new AtomicLong(0L);
+
+    /**
+     * Number of results evicted (size, weight or expiration)
+     */
+    private final AtomicLong evictions = new AtomicLong(0L);
+
+    /**
+     * Number of results invalidated by an update
+     */
+    private final AtomicLong invalidations = new AtomicLong(0L);
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private CachingStatementHandler(final StatementHandler handler,
+                                    final int maxEntries,
+                                    final long maxWeight,
+                                    final Weigher weigher,
+                                    final long ttlNanos,
+                                    final TableTags tableTags) {
+
+        this.handler = handler;
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.ttlNanos = ttlNanos;
+        this.tableTags = tableTags;
+    } // end of <init>
+
+    /**
+     * Caching handler, without expiration or table tags.
+     *
+     * @param handler the underlying handler
+     * @param maxEntries the max number of cached results
+     * @throws IllegalArgumentException if |handler| is null,
+     * an {@link AsyncStatementHandler} or a {@link BatchStatementHandler},
+     * or if |maxEntries| is negative
+     */
+    public CachingStatementHandler(final StatementHandler handler,
+                                   final int maxEntries) {
+
+        this(checkHandler(handler), checkMaxEntries(maxEntries),
+             Long.MAX_VALUE, UNIT_WEIGHER, 0L, null);
+
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns a new caching handler based on this one,
+     * also bounded by the total weight of the cached results.
+     *
+     * @param maxWeight the max total weight
+     * @param weigher the function weighing each result
+     * (e.g. its number of rows)
+     * @return New caching handler, with an empty cache
+     * @throws IllegalArgumentException if |maxWeight| is negative,
+     * or |weigher| is null
+     */
+    public CachingStatementHandler withMaxWeight(final long maxWeight,
+                                                 final Weigher weigher) {
+
+        if (maxWeight < 0L) {
+            throw new IllegalArgumentException("Invalid max weight: " +
+                                               maxWeight);
+
+        } // end of if
+
+        if (weigher == null) {
+            throw new IllegalArgumentException("No weigher");
+        } // end of if
+
+        return new CachingStatementHandler(this.handler, this.maxEntries,
+                                           maxWeight, weigher,
+                                           this.ttlNanos, this.tableTags);
+
+    } // end of withMaxWeight
+
+    /**
+     * Returns a new caching handler based on this one,
+     * whose results expire after given |duration|.
+     *
+     * @param duration the time to live of the cached results
+     * @param unit the time unit
+     * @return New caching handler, with an empty cache
+     * @throws IllegalArgumentException if |duration| is not positive,
+     * or |unit| is null
+     */
+    public CachingStatementHandler withTimeToLive(final long duration,
+                                                  final TimeUnit unit) {
+
+        if (duration <= 0L || unit == null) {
+            throw new IllegalArgumentException("Invalid time to live: " +
+                                               duration + " " + unit);
+
+        } // end of if
+
+        return new CachingStatementHandler(this.handler, this.maxEntries,
+                                           this.maxWeight, this.weigher,
+                                           unit.toNanos(duration),
+                                           this.tableTags);
+
+    } // end of withTimeToLive
+
+    /**
+     * Returns a new caching handler based on this one,
+     * with updates only invalidating the results of the same tables.
+     *
+     * @param tableTags the function returning the table tags of a statement
+     * @return New caching handler, with an empty cache
+     * @throws IllegalArgumentException if |tableTags| is null
+     */
+    public CachingStatementHandler withTableTags(final TableTags tableTags) {
+        if (tableTags == null) {
+            throw new IllegalArgumentException("No table tags");
+        } // end of if
+
+        return new CachingStatementHandler(this.handler, this.maxEntries,
+                                           this.maxWeight, this.weigher,
+                                           this.ttlNanos, tableTags);
+
+    } // end of withTableTags
+
+    // --- StatementHandler impl ---
+
+    /**
+     * Returns the cached result for the same |sql| and |parameters|,
+     * or the one built by the underlying handler (then cached).
+     *
+     * {@inheritDoc}
+     */
+    public QueryResult whenSQLQuery(final String sql,
+                                    final List<Parameter> parameters)
+        throws SQLException {
+
+        final Key key = new Key(sql, parameters);
+        final long now = (this.ttlNanos == 0L) ? 0L : System.nanoTime();
+        final long gen;
+
+        synchronized (this.entries) {
+            gen = this.generation;
+
+            final Entry e = this.entries.get(key);
+
+            if (e != null) {
+                if (this.ttlNanos == 0L || now - e.created < this.ttlNanos) {
+                    this.hits.incrementAndGet();
+
+                    return e.result;
+                } // end of if
+
+                remove(key, e);
+                this.evictions.incrementAndGet();
+            } // end of if
+        } // end of synchronized
+
+        // ---
+
+        this.misses.incrementAndGet();
+
+        final QueryResult result = this.handler.whenSQLQuery(sql, parameters);
+
+        if (result != null &&
+            !(result.getRowList() instanceof StreamingRowList)) {
+
+            put(new Key(sql, new ArrayList<Parameter>(parameters)),
+                result, now, gen);
+
+        } // end of if
+
+        return result;
+    } // end of whenSQLQuery
+
+    /**
+     * Executes the update using the underlying handler,
+     * then invalidates the cached results of the updated tables.
+     *
+     * {@inheritDoc}
+     */
+    public UpdateResult whenSQLUpdate(final String sql,
+                                      final List<Parameter> parameters)
+        throws SQLException {
+
+        try {
+            return this.handler.whenSQLUpdate(sql, parameters);
+        } finally {
+            invalidate((this.tableTags == null) ? null
+                       : this.tableTags.tags(sql));
+        } // end of finally
+    } // end of whenSQLUpdate
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isQuery(final String sql) {
+        return this.handler.isQuery(sql);
+    } // end of isQuery
+
+    // ---
+
+    /**
+     * Invalidates the cached results with any of given table |tags|.
+     *
+     * @param tags the table tags, or null to invalidate all the results
+     */
+    public void invalidate(final Collection<String> tags) {
+        synchronized (this.entries) {
+            this.generation++;
+
+            if (tags == null) {
+                this.invalidations.addAndGet(this.entries.size());
+                this.entries.clear();
+                this.tagged.clear();
+                this.weight = 0L;
+
+                return;
+            } // end of if
+
+            for (final String tag : tags) {
+                final Set<Key> keys = this.tagged.get(tag);
+
+                if (keys == null) {
+                    continue;
+                } // end of if
+
+                for (final Key key : new ArrayList<Key>(keys)) {
+                    final Entry e = this.entries.get(key);
+
+                    if (e != null) {
+                        remove(key, e);
+                        this.invalidations.incrementAndGet();
+                    } // end of if
+                } // end of for
+            } // end of for
+        } // end of synchronized
+    } // end of invalidate
+
+    /**
+     * Returns the number of results returned from the cache.
+     *
+     * @return the cache hits
+     */
+    public long getHits() {
+        return this.hits.get();
+    } // end of getHits
+
+    /**
+     * Returns the number of results built by the underlying handler.
+     *
+     * @return the cache misses
+     */
+    public long getMisses() {
+        return this.misses.get();
+    } // end of getMisses
+
+    /**
+     * Returns the number of results evicted from the cache,
+     * as least recently used or expired.
+     *
+     * @return the cache evictions
+     */
+    public long getEvictions() {
+        return this.evictions.get();
+    } // end of getEvictions
+
+    /**
+     * Returns the number of results invalidated by the updates.
+     *
+     * @return the cache invalidations
+     */
+    public long getInvalidations() {
+        return this.invalidations.get();
+    } // end of getInvalidations
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the cache size
+     */
+    public int getSize() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        } // end of synchronized
+    } // end of getSize
+
+    /**
+     * Caches the |result| for given |key|,
+     * and evicts the least recently used ones if needed.
+     *
+     * @param gen the generation when the result has started to be built
+     */
+    private void put(final Key key, final QueryResult result,
+                     final long now, final long gen) {
+
+        final long w = this.weigher.weigh(result);
+
+        if (w > this.maxWeight || this.maxEntries == 0) {
+            return; // can't be cached
+        } // end of if
+
+        final Collection<String> tags = (this.tableTags == null)
+            ? Collections.<String>emptySet()
+            : this.tableTags.tags(key.sql);
+
+        if (tags == null) {
+            return; // unknown tables, can't be invalidated
+        } // end of if
+
+        final Entry entry =
+            new Entry(result, w, now, new HashSet<String>(tags));
+
+        synchronized (this.entries) {
+            if (gen != this.generation) {
+                return; // possibly updated since
+            } // end of if
+
+            final Entry prev = this.entries.get(key);
+
+            if (prev != null) {
+                remove(key, prev); // concurrently cached
+            } // end of if
+
+            this.entries.put(key, entry);
+            this.weight += w;
+
+            for (final String tag : entry.tags) {
+                Set<Key> keys = this.tagged.get(tag);
+
+                if (keys == null) {
+                    keys = new HashSet<Key>();
+                    this.tagged.put(tag, keys);
+                } // end of if
+
+                keys.add(key);
+            } // end of for
+
+            // ---
+
+            final Iterator<Map.Entry<Key,Entry>> it =
+                this.entries.entrySet().iterator();
+
+            while ((this.entries.size() > this.maxEntries ||
+                    this.weight > this.maxWeight) && it.hasNext()) {
+
+                final Map.Entry<Key,Entry> eldest = it.next();
+
+                it.remove();
+                untag(eldest.getKey(), eldest.getValue());
+                this.evictions.incrementAndGet();
+            } // end of while
+        } // end of synchronized
+    } // end of put
+
+    /**
+     * Removes cached entry |e| for given |key| (must hold the lock).
+     */
+    private void remove(final Key key, final Entry e) {
+        this.entries.remove(key);
+        untag(key, e);
+    } // end of remove
+
+    /**
+     * Removes the tags and the weight of entry |e| (must hold the lock).
+     */
+    private void untag(final Key key, final Entry e) {
+        this.weight -= e.weight;
+
+        for (final String tag : e.tags) {
+            final Set<Key> keys = this.tagged.get(tag);
+
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                this.tagged.remove(tag);
+            } // end of if
+        } // end of for
+    } // end of untag
+
+    /**
+     * Checks the underlying |handler|.
+     */
+    private static StatementHandler checkHandler(final StatementHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Invalid Acolyte handler");
+        } // end of if
+
+        if (handler instanceof AsyncStatementHandler ||
+            handler instanceof BatchStatementHandler) {
+
+            // Would no longer be asynchronous (query timeout, cancel),
+            // or execute the batch in a single call
+            throw new IllegalArgumentException("Cannot cache asynchronous or batch handler: " + handler);
+        } // end of if
+
+        return handler;
+    } // end of checkHandler
+
+    /**
+     * Checks the max number of entries.
+     */
+    private static int checkMaxEntries(final int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Invalid max entries: " +
+                                               maxEntries);
+
+        } // end of if
+
+        return maxEntries;
+    } // end of checkMaxEntries
+
+    // --- Inner classes ---
+
+    /**
+     * Function weighing a query result
+     * (e.g. according its number of rows).
+     */
+    public static interface Weigher {
+        /**
+         * Returns the weight of given |result| (not null).
+         *
+         * @param result the query result
+         * @return the result weight (not negative)
+         */
+        public long weigh(QueryResult result);
+    } // end of interface Weigher
+
+    /**
+     * Function returning the tags of the tables used by a statement.
+     */
+    public static interface TableTags {
+        /**
+         * Returns the table tags for given |sql| statement
+         * (either a query or an update).
+         *
+         * @param sql the SQL statement
+         * @return the table tags, or null if unknown
+         * (for an update, all the cached results are then invalidated;
+         * for a query, its result is not cached)
+         */
+        public Collection<String> tags(String sql);
+    } // end of interface TableTags
+
+    /**
+     * Cache key.
+     */
+    private static final class Key {
+        final String sql;
+        final List<Parameter> parameters;
+        final int hash;
+
+        Key(final String sql, final List<Parameter> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.hash = 31 * sql.hashCode() + parameters.hashCode();
+        } // end of <init>
+
+        public int hashCode() {
+            return this.hash;
+        } // end of hashCode
+
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            } // end of if
+
+            final Key other = (Key) o;
+
+            return this.hash == other.hash && this.sql.equals(other.sql) &&
+                this.parameters.equals(other.parameters);
+
+        } // end of equals
+    } // end of class Key
+
+    /**
+     * Cached result.
+     */
+    private static final class Entry {
+        final QueryResult result;
+        final long weight;
+        final long created;
+        final Set<String> tags;
+
+        Entry(final QueryResult result, final long weight,
+              final long created, final Set<String> tags) {
+
+            this.result = result;
+            this.weight = weight;
+            this.created = created;
+            this.tags = tags;
+        } // end of <init>
+    } // end of class Entry
+} // end of class CachingStatementHandler
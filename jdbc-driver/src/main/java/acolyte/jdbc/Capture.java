@@ -0,0 +1,498 @@
+package acolyte.jdbc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Time;
+import java.sql.Date;
+
+import acolyte.jdbc.StatementHandler.Parameter;
+
+/**
+ * Binary format of the capture files,
+ * written by {@link CaptureWriter} and replayed by
+ * {@link ReplayStatementHandler}.
+ *
+ * <pre>
+ * capture := MAGIC result* index indexOffset:long MAGIC
+ * result  := columnCount:int column* rowCount:int value*
+ * column  := className:string label:string nullable:byte
+ * index   := entryCount:int entry*
+ * entry   := QUERY sql:string parameters:bytes offset:long length:int
+ *          | UPDATE sql:string parameters:bytes count:int
+ * value   := tag:byte payload
+ * string  := length:int UTF-8 bytes
+ * bytes   := length:int bytes
+ * </pre>
+ *
+ * The parameters of an entry are the encoded values of the statement
+ * parameters, so that a replayed statement is looked up
+ * without decoding the recorded ones.
+ *
+ * @author Cedric Chantepie
+ */
+final class Capture {
+    // --- Shared ---
+
+    /**
+     * File magic
+     */
+    static final byte[] MAGIC = {
+        'A', 'C', 'O', 'L', 'Y', 'C', 'A', 'P'
+    };
+
+    /**
+     * Length of the trailer (index offset and magic)
+     */
+    static final int TRAILER_LENGTH = 8 + MAGIC.length;
+
+    /**
+     * Kind of entry: query
+     */
+    static final byte QUERY = 1;
+
+    /**
+     * Kind of entry: update
+     */
+    static final byte UPDATE = 2;
+
+    /**
+     * String charset
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // Value tags
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte SHORT = 4;
+    private static final byte BYTE = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte FLOAT = 7;
+    private static final byte BOOLEAN = 8;
+    private static final byte BIG_DECIMAL = 9;
+    private static final byte BIG_INTEGER = 10;
+    private static final byte DATE = 11;
+    private static final byte TIME = 12;
+    private static final byte TIMESTAMP = 13;
+    private static final byte BYTES = 14;
+    private static final byte CHAR = 15;
+
+    // --- Constructors ---
+
+    /**
+     * No constructor.
+     */
+    private Capture() {}
+
+    // --- Encoding ---
+
+    /**
+     * Returns the encoded values of given |parameters|.
+     *
+     * @throws IllegalArgumentException if a value is not supported
+     */
+    static byte[] parameters(final List<Parameter> parameters) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        try {
+            out.writeInt(parameters.size());
+
+            for (final Parameter p : parameters) {
+                writeValue(out, p.right);
+            } // end of for
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in memory: no I/O error
+        } // end of catch
+
+        return bytes.toByteArray();
+    } // end of parameters
+
+    /**
+     * Returns the encoded |rows|.
+     *
+     * @throws IllegalArgumentException if a value is not supported,
+     * or if |rows| is a streaming list (rows not kept in memory)
+     */
+    static byte[] rowList(final RowList<?> rows) {
+        if (rows instanceof StreamingRowList) {
+            throw new IllegalArgumentException("Streaming rows");
+        } // end of if
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        final List<Class<?>> classes = rows.getColumnClasses();
+        final int count = classes.size();
+        final String[] labels = new String[count];
+
+        for (final Map.Entry<String,Integer> l :
+                 rows.getColumnLabels().entrySet()) {
+
+            final int idx = l.getValue().intValue() - 1;
+
+            if (idx >= 0 && idx < count && labels[idx] == null) {
+                labels[idx] = l.getKey();
+            } // end of if
+        } // end of for
+
+        final Map<Integer,Boolean> nullables = rows.getColumnNullables();
+
+        try {
+            out.writeInt(count);
+
+            for (int i = 0; i < count; i++) {
+                final Boolean n = nullables.get(i + 1);
+
+                writeString(out, classes.get(i).getName());
+                writeString(out, (labels[i] == null)
+                            ? Integer.toString(i + 1) : labels[i]);
+
+                out.writeByte((n != null && n.booleanValue()) ? 1 : 0);
+            } // end of for
+
+            final List<? extends Row> rs = rows.getRows();
+
+            out.writeInt(rs.size());
+
+            for (final Row r : rs) {
+                final List<Object> cells = r.cells();
+
+                for (int i = 0; i < count; i++) {
+                    writeValue(out, (i < cells.size()) ? cells.get(i) : null);
+                } // end of for
+            } // end of for
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in memory: no I/O error
+        } // end of catch
+
+        return bytes.toByteArray();
+    } // end of rowList
+
+    /**
+     * Writes given |s| as length and UTF-8 bytes.
+     */
+    static void writeString(final DataOutput out, final String s)
+        throws IOException {
+
+        final byte[] b = s.getBytes(UTF8);
+
+        out.writeInt(b.length);
+        out.write(b);
+    } // end of writeString
+
+    /**
+     * Writes given |value| as tag and payload.
+     *
+     * @throws IllegalArgumentException if the value is not supported
+     */
+    static void writeValue(final DataOutput out, final Object value)
+        throws IOException {
+
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt(((Integer) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong(((Long) value).longValue());
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort(((Short) value).shortValue());
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte(((Byte) value).byteValue());
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Double) value).doubleValue());
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat(((Float) value).floatValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeByte(((Boolean) value).booleanValue() ? 1 : 0);
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value instanceof Date) {
+            out.writeByte(DATE);
+            out.writeLong(((Date) value).getTime());
+        } else if (value instanceof Time) {
+            out.writeByte(TIME);
+            out.writeLong(((Time) value).getTime());
+        } else if (value instanceof Timestamp) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(((Timestamp) value).getTime());
+            out.writeInt(((Timestamp) value).getNanos());
+        } else if (value instanceof java.util.Date) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(((java.util.Date) value).getTime());
+            out.writeInt(new Timestamp(((java.util.Date) value).
+                                       getTime()).getNanos());
+
+        } else if (value instanceof byte[]) {
+            final byte[] b = (byte[]) value;
+
+            out.writeByte(BYTES);
+            out.writeInt(b.length);
+            out.write(b);
+        } else if (value instanceof Character) {
+            out.writeByte(CHAR);
+            out.writeChar(((Character) value).charValue());
+        } else {
+            throw new IllegalArgumentException("Unsupported value: " +
+                                               value.getClass().getName());
+
+        } // end of else
+    } // end of writeValue
+
+    // --- Decoding ---
+
+    /**
+     * Returns the row list decoded from given buffer.
+     *
+     * @param in the buffer, positioned at the encoded rows
+     */
+    static ColumnarRowList rowList(final ByteBuffer in) {
+        final int count = in.getInt();
+        final Column<?>[] columns = new Column<?>[count];
+
+        for (int i = 0; i < count; i++) {
+            final Class<?> c = columnClass(readString(in));
+            final String label = readString(in);
+
+            columns[i] = RowList.Column(c, label).withNullable(in.get() != 0);
+        } // end of for
+
+        final int size = in.getInt();
+        final ColumnarRowList.Builder builder =
+            ColumnarRowList.empty(columns).builder(size);
+
+        final Object[] values = new Object[count];
+
+        for (int r = 0; r < size; r++) {
+            for (int i = 0; i < count; i++) {
+                values[i] = readValue(in);
+            } // end of for
+
+            builder.append(values);
+        } // end of for
+
+        return builder.build();
+    } // end of rowList
+
+    /**
+     * Reads a string from given buffer.
+     */
+    static String readString(final ByteBuffer in) {
+        final int len = in.getInt();
+
+        if (in.hasArray()) {
+            final int pos = in.position();
+
+            in.position(pos + len);
+
+            return new String(in.array(), in.arrayOffset() + pos, len, UTF8);
+        } // end of if
+
+        final byte[] b = new byte[len];
+
+        in.get(b);
+
+        return new String(b, UTF8);
+    } // end of readString
+
+    /**
+     * Reads a value from given buffer.
+     */
+    static Object readValue(final ByteBuffer in) {
+        final byte tag = in.get();
+
+        switch (tag) {
+        case NULL: return null;
+        case STRING: return readString(in);
+        case INT: return Integer.valueOf(in.getInt());
+        case LONG: return Long.valueOf(in.getLong());
+        case SHORT: return Short.valueOf(in.getShort());
+        case BYTE: return Byte.valueOf(in.get());
+        case DOUBLE: return Double.valueOf(in.getDouble());
+        case FLOAT: return Float.valueOf(in.getFloat());
+        case BOOLEAN: return Boolean.valueOf(in.get() != 0);
+        case BIG_DECIMAL: return new BigDecimal(readString(in));
+        case BIG_INTEGER: return new BigInteger(readString(in));
+        case DATE: return new Date(in.getLong());
+        case TIME: return new Time(in.getLong());
+
+        case TIMESTAMP: {
+            final Timestamp ts = new Timestamp(in.getLong());
+
+            ts.setNanos(in.getInt());
+
+            return ts;
+        }
+
+        case BYTES: {
+            final byte[] b = new byte[in.getInt()];
+
+            in.get(b);
+
+            return b;
+        }
+
+        case CHAR: return Character.valueOf(in.getChar());
+
+        default:
+            throw new IllegalArgumentException("Invalid value tag: " + tag);
+        } // end of switch
+    } // end of readValue
+
+    /**
+     * Returns the column class with given |name|
+     * (wrapper class for a primitive one, or Object if not found).
+     */
+    static Class<?> columnClass(final String name) {
+        if ("int".equals(name)) return Integer.class;
+        if ("long".equals(name)) return Long.class;
+        if ("short".equals(name)) return Short.class;
+        if ("byte".equals(name)) return Byte.class;
+        if ("double".equals(name)) return Double.class;
+        if ("float".equals(name)) return Float.class;
+        if ("boolean".equals(name)) return Boolean.class;
+        if ("char".equals(name)) return Character.class;
+
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            return Object.class;
+        } // end of catch
+    } // end of columnClass
+
+    // --- JDBC ---
+
+    /**
+     * Returns the rows read from given result set,
+     * with the column classes and labels of its meta-data.
+     * Blob and Clob values are read as byte[] and String.
+     *
+     * @throws SQLException if fails to read the rows
+     */
+    static ColumnarRowList rowList(final ResultSet rs) throws SQLException {
+        final ResultSetMetaData meta = rs.getMetaData();
+        final int count = meta.getColumnCount();
+        final ArrayList<Object[]> rows = new ArrayList<Object[]>();
+
+        while (rs.next()) {
+            final Object[] values = new Object[count];
+
+            for (int i = 0; i < count; i++) {
+                Object v = rs.getObject(i + 1);
+
+                if (v instanceof java.sql.Blob) {
+                    final java.sql.Blob b = (java.sql.Blob) v;
+
+                    v = b.getBytes(1L, (int) b.length());
+                } else if (v instanceof java.sql.Clob) {
+                    final java.sql.Clob c = (java.sql.Clob) v;
+
+                    v = c.getSubString(1L, (int) c.length());
+                } // end of else if
+
+                values[i] = v;
+            } // end of for
+
+            rows.add(values);
+        } // end of while
+
+        // ---
+
+        final Column<?>[] columns = new Column<?>[count];
+
+        for (int i = 0; i < count; i++) {
+            Class<?> c = columnClass(meta.getColumnClassName(i + 1));
+
+            for (final Object[] values : rows) {
+                if (values[i] != null && !c.isInstance(values[i])) {
+                    c = Object.class; // e.g. Blob read as bytes
+                    break;
+                } // end of if
+            } // end of for
+
+            String label = meta.getColumnLabel(i + 1);
+
+            if (label == null || label.length() == 0) {
+                label = Integer.toString(i + 1);
+            } // end of if
+
+            columns[i] = RowList.Column(c, label).withNullable(meta.
+                isNullable(i + 1) != ResultSetMetaData.columnNoNulls);
+
+        } // end of for
+
+        final ColumnarRowList.Builder builder =
+            ColumnarRowList.empty(columns).builder(rows.size());
+
+        for (final Object[] values : rows) {
+            builder.append(values);
+        } // end of for
+
+        return builder.build();
+    } // end of rowList
+
+    // --- Inner classes ---
+
+    /**
+     * Lookup key: SQL statement and encoded parameters.
+     */
+    static final class Key {
+        final String sql;
+        final byte[] parameters;
+        final int hash;
+
+        Key(final String sql, final byte[] parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+            this.hash = 31 * sql.hashCode() + Arrays.hashCode(parameters);
+        } // end of <init>
+
+        public int hashCode() {
+            return this.hash;
+        } // end of hashCode
+
+        public boolean equals(final Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            } // end of if
+
+            final Key other = (Key) o;
+
+            return this.hash == other.hash && this.sql.equals(other.sql) &&
+                Arrays.equals(this.parameters, other.parameters);
+
+        } // end of equals
+    } // end of class Key
+} // end of class Capture
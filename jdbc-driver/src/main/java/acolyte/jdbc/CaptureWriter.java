@@ -0,0 +1,200 @@
+package acolyte.jdbc;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Closeable;
+import java.io.File;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import acolyte.jdbc.StatementHandler.Parameter;
+
+/**
+ * Writer of a capture file, recording the results of the executed
+ * statements, so that they can be replayed by
+ * {@link ReplayStatementHandler}.
+ *
+ * <pre>
+ * {@code
+ * CaptureWriter capture = new CaptureWriter(new File("capture.bin"));
+ *
+ * capture.recordQuery("SELECT * FROM test WHERE id = ?", params, rows);
+ * capture.recordUpdate("DELETE FROM test", params, 3);
+ * capture.close(); // writes the index
+ * }
+ * </pre>
+ *
+ * The results are written as soon as recorded,
+ * only the index entries are kept in memory until the writer is closed.
+ * A capture file can't be replayed if its writer has not been closed.
+ *
+ * @author Cedric Chantepie
+ * @see RecordingStatementHandler
+ */
+public final class CaptureWriter implements Closeable {
+    // --- Properties ---
+
+    /**
+     * Output (null once closed)
+     */
+    private DataOutputStream out;
+
+    /**
+     * Current position in the file
+     */
+    private long position;
+
+    /**
+     * Index entries
+     */
+    private final List<IndexEntry> index = new ArrayList<IndexEntry>();
+
+    // --- Constructors ---
+
+    /**
+     * Creates a writer for given |file| (overwritten if exists).
+     *
+     * @param file the capture file
+     * @throws IOException if fails to create the file
+     */
+    public CaptureWriter(final File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("No capture file");
+        } // end of if
+
+        this.out = new DataOutputStream(new BufferedOutputStream(
+            new FileOutputStream(file), 65536));
+
+        this.out.write(Capture.MAGIC);
+        this.position = Capture.MAGIC.length;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Records the |rows| returned for the |sql| query
+     * with given |parameters|. If the same query is recorded
+     * several times, the last rows are replayed.
+     *
+     * @param sql the SQL query
+     * @param parameters the query parameters
+     * @param rows the result rows
+     * @throws IOException if fails to write the rows
+     * @throws IllegalArgumentException if a parameter or column value
+     * is not supported, or if |rows| is a streaming list
+     */
+    public synchronized void recordQuery(final String sql,
+                                         final List<Parameter> parameters,
+                                         final RowList<?> rows)
+        throws IOException {
+
+        final byte[] params = Capture.parameters(parameters);
+        final byte[] data = Capture.rowList(rows);
+
+        checkOpen();
+
+        this.out.write(data);
+
+        this.index.add(new IndexEntry(Capture.QUERY, sql, params,
+                                      this.position, data.length));
+
+        this.position += data.length;
+    } // end of recordQuery
+
+    /**
+     * Records the update |count| for the |sql| update
+     * with given |parameters|.
+     *
+     * @param sql the SQL update
+     * @param parameters the update parameters
+     * @param count the update count
+     * @throws IOException if the writer is closed
+     * @throws IllegalArgumentException if a parameter value is not supported
+     */
+    public synchronized void recordUpdate(final String sql,
+                                          final List<Parameter> parameters,
+                                          final int count)
+        throws IOException {
+
+        final byte[] params = Capture.parameters(parameters);
+
+        checkOpen();
+
+        this.index.add(new IndexEntry(Capture.UPDATE, sql, params, 0L, count));
+    } // end of recordUpdate
+
+    /**
+     * Writes the index, and closes the capture file.
+     *
+     * @throws IOException if fails to write the index
+     */
+    public synchronized void close() throws IOException {
+        if (this.out == null) {
+            return;
+        } // end of if
+
+        // ---
+
+        try {
+            this.out.writeInt(this.index.size());
+
+            for (final IndexEntry e : this.index) {
+                this.out.writeByte(e.kind);
+                Capture.writeString(this.out, e.sql);
+                this.out.writeInt(e.parameters.length);
+                this.out.write(e.parameters);
+
+                if (e.kind == Capture.QUERY) {
+                    this.out.writeLong(e.offset);
+                } // end of if
+
+                this.out.writeInt(e.value);
+            } // end of for
+
+            this.out.writeLong(this.position);
+            this.out.write(Capture.MAGIC);
+        } finally {
+            this.out.close();
+            this.out = null;
+        } // end of finally
+    } // end of close
+
+    /**
+     * Checks this writer is not closed.
+     */
+    private void checkOpen() throws IOException {
+        if (this.out == null) {
+            throw new IOException("Capture closed");
+        } // end of if
+    } // end of checkOpen
+
+    // --- Inner classes ---
+
+    /**
+     * Index entry.
+     */
+    private static final class IndexEntry {
+        final byte kind;
+        final String sql;
+        final byte[] parameters;
+        final long offset;
+
+        /**
+         * Length of the query result, or update count
+         */
+        final int value;
+
+        IndexEntry(final byte kind, final String sql, final byte[] parameters,
+                   final long offset, final int value) {
+
+            this.kind = kind;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.offset = offset;
+            this.value = value;
+        } // end of <init>
+    } // end of class IndexEntry
+} // end of class CaptureWriter
@@ -0,0 +1,486 @@
+package acolyte.jdbc;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import java.util.List;
+
+import java.math.BigDecimal;
+
+import java.sql.Timestamp;
+import java.sql.Time;
+import java.sql.Date;
+
+/**
+ * Value converters of the typed getters, precompiled per column
+ * according the column class, and shared by the result sets of a row list.
+ *
+ * A converter is resolved once per (column class, target type) pair,
+ * so a typed getter no longer checks the value against each supported type.
+ * It only applies to values of exactly the column class:
+ * for any other value (e.g. subclass, or undeclared column),
+ * the conversion falls back to the generic one.
+ *
+ * @author Cedric Chantepie
+ */
+final class ColumnConverters {
+    // --- Shared ---
+
+    /**
+     * Converter not applying to any value (generic conversion is used)
+     */
+    static final Converter<Object> NONE = new Converter<Object>() {
+            public Object convert(final Object val) { return null; }
+        };
+
+    /**
+     * Converters resolved for getObject(int, Class),
+     * by column class then by target type
+     */
+    private static final ConcurrentHashMap<Class<?>, ConcurrentHashMap<Class<?>, Converter<?>>> resolved = new ConcurrentHashMap<Class<?>, ConcurrentHashMap<Class<?>, Converter<?>>>();
+
+    // --- Properties ---
+
+    /**
+     * Column classes (boxed for the primitive ones)
+     */
+    private final Class<?>[] classes;
+
+    /**
+     * Converters to BigDecimal, per column
+     */
+    private final Converter<?>[] bigDecimals;
+
+    /**
+     * Converters to Date, per column
+     */
+    private final Converter<?>[] dates;
+
+    /**
+     * Converters to Time, per column
+     */
+    private final Converter<?>[] times;
+
+    /**
+     * Converters to Timestamp, per column
+     */
+    private final Converter<?>[] timestamps;
+
+    /**
+     * Last converter used by getObject(int, Class), per column
+     */
+    private final Typed[] typed;
+
+    // --- Constructors ---
+
+    /**
+     * Precompiles the converters for given |columnClasses|.
+     *
+     * @param columnClasses the column classes (first is column #1)
+     */
+    ColumnConverters(final List<Class<?>> columnClasses) {
+        final int n = columnClasses.size();
+
+        this.classes = new Class<?>[n];
+        this.bigDecimals = new Converter<?>[n];
+        this.dates = new Converter<?>[n];
+        this.times = new Converter<?>[n];
+        this.timestamps = new Converter<?>[n];
+        this.typed = new Typed[n];
+
+        for (int i = 0; i < n; i++) {
+            final Class<?> c = boxed(columnClasses.get(i));
+
+            this.classes[i] = c;
+            this.bigDecimals[i] = bigDecimalConverter(c);
+            this.dates[i] = resolve(c, Date.class);
+            this.times[i] = resolve(c, Time.class);
+            this.timestamps[i] = resolve(c, Timestamp.class);
+        } // end of for
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns the converter for values of column #|columnIndex|
+     * to given |type|, as for getObject(int, Class).
+     *
+     * @param columnIndex the column index (first is 1)
+     * @param type the target type
+     * @return the converter (never null)
+     */
+    @SuppressWarnings("unchecked")
+    <T> Converter<T> converter(final int columnIndex, final Class<T> type) {
+        final int idx = columnIndex - 1;
+
+        if (idx < 0 || idx >= this.classes.length) {
+            return (Converter<T>) NONE;
+        } // end of if
+
+        final Typed t = this.typed[idx];
+
+        if (t != null && t.type == type) {
+            return (Converter<T>) t.converter;
+        } // end of if
+
+        // ---
+
+        final Converter<T> c = resolve(this.classes[idx], type);
+
+        this.typed[idx] = new Typed(type, c);
+
+        return c;
+    } // end of converter
+
+    /**
+     * Returns not null |val| of column #|columnIndex| as BigDecimal,
+     * or null if not numeric.
+     */
+    BigDecimal bigDecimal(final int columnIndex, final Object val) {
+        final Object v = apply(this.bigDecimals, columnIndex, val);
+
+        if (v != null) {
+            return (BigDecimal) v;
+        } // end of if
+
+        if (val instanceof BigDecimal) {
+            return (BigDecimal) val;
+        } // end of if
+
+        if (val instanceof Number) {
+            return new BigDecimal(val.toString());
+        } // end of if
+
+        return null;
+    } // end of bigDecimal
+
+    /**
+     * Returns not null |val| of column #|columnIndex| as Date,
+     * or null if not temporal.
+     */
+    Date date(final int columnIndex, final Object val) {
+        final Object v = apply(this.dates, columnIndex, val);
+
+        if (v != null) {
+            return (Date) v;
+        } // end of if
+
+        if (val instanceof Date) {
+            return (Date) val;
+        } // end of if
+
+        if (val instanceof java.util.Date) {
+            return new Date(((java.util.Date) val).getTime());
+        } // end of if
+
+        return null;
+    } // end of date
+
+    /**
+     * Returns not null |val| of column #|columnIndex| as Time,
+     * or null if not temporal.
+     */
+    Time time(final int columnIndex, final Object val) {
+        final Object v = apply(this.times, columnIndex, val);
+
+        if (v != null) {
+            return (Time) v;
+        } // end of if
+
+        if (val instanceof Time) {
+            return (Time) val;
+        } // end of if
+
+        if (val instanceof java.util.Date) {
+            return new Time(((java.util.Date) val).getTime());
+        } // end of if
+
+        return null;
+    } // end of time
+
+    /**
+     * Returns not null |val| of column #|columnIndex| as Timestamp,
+     * or null if not temporal.
+     */
+    Timestamp timestamp(final int columnIndex, final Object val) {
+        final Object v = apply(this.timestamps, columnIndex, val);
+
+        if (v != null) {
+            return (Timestamp) v;
+        } // end of if
+
+        if (val instanceof Timestamp) {
+            return (Timestamp) val;
+        } // end of if
+
+        if (val instanceof java.util.Date) {
+            return new Timestamp(((java.util.Date) val).getTime());
+        } // end of if
+
+        return null;
+    } // end of timestamp
+
+    /**
+     * Applies the converter of column #|columnIndex| to |val|.
+     *
+     * @return the converted value, or null if no converter applies
+     */
+    private static Object apply(final Converter<?>[] converters,
+                                final int columnIndex, final Object val) {
+
+        final int idx = columnIndex - 1;
+
+        if (idx < 0 || idx >= converters.length) {
+            return null;
+        } // end of if
+
+        return converters[idx].convert(val);
+    } // end of apply
+
+    // --- Resolution ---
+
+    /**
+     * Returns the converter from values of exactly class |from|
+     * to given |type|, as for getObject(int, Class).
+     * Once resolved, a converter is shared for the same pair of classes.
+     *
+     * @param from the column class
+     * @param type the target type
+     * @return the converter (never null)
+     */
+    @SuppressWarnings("unchecked")
+    static <T> Converter<T> resolve(final Class<?> from, final Class<T> type) {
+        ConcurrentHashMap<Class<?>, Converter<?>> byType = resolved.get(from);
+
+        if (byType == null) {
+            final ConcurrentHashMap<Class<?>, Converter<?>> m =
+                new ConcurrentHashMap<Class<?>, Converter<?>>();
+
+            byType = resolved.putIfAbsent(from, m);
+
+            if (byType == null) {
+                byType = m;
+            } // end of if
+        } // end of if
+
+        Converter<?> c = byType.get(type);
+
+        if (c == null) {
+            c = compile(boxed(from), type);
+            byType.putIfAbsent(type, c);
+        } // end of if
+
+        return (Converter<T>) c;
+    } // end of resolve
+
+    /**
+     * Compiles the converter from class |from| to |type|.
+     */
+    private static Converter<?> compile(final Class<?> from,
+                                        final Class<?> type) {
+
+        if (type.isAssignableFrom(from)) {
+            return new Identity(from);
+        } // end of if
+
+        if (java.util.Date.class.isAssignableFrom(from)) {
+            if (Date.class.isAssignableFrom(type)) {
+                return new Temporal(from, Date.class);
+            } else if (Time.class.isAssignableFrom(type)) {
+                return new Temporal(from, Time.class);
+            } else if (Timestamp.class.isAssignableFrom(type)) {
+                return new Temporal(from, Timestamp.class);
+            } // end of else if
+
+            return NONE;
+        } // end of if
+
+        if (isIntegral(from) && (Number.class.isAssignableFrom(type))) {
+            if (Byte.class.isAssignableFrom(type)) {
+                return new Integral(from, Byte.class);
+            } else if (Double.class.isAssignableFrom(type)) {
+                return new Integral(from, Double.class);
+            } else if (Float.class.isAssignableFrom(type)) {
+                return new Integral(from, Float.class);
+            } else if (Integer.class.isAssignableFrom(type)) {
+                return new Integral(from, Integer.class);
+            } else if (Long.class.isAssignableFrom(type)) {
+                return new Integral(from, Long.class);
+            } else if (Short.class.isAssignableFrom(type)) {
+                return new Integral(from, Short.class);
+            } // end of else if
+        } // end of if
+
+        return NONE; // generic conversion (or error)
+    } // end of compile
+
+    /**
+     * Returns the converter to BigDecimal for class |from|,
+     * as for getBigDecimal.
+     */
+    private static Converter<?> bigDecimalConverter(final Class<?> from) {
+        if (BigDecimal.class.isAssignableFrom(from)) {
+            return new Identity(from);
+        } // end of if
+
+        if (isIntegral(from)) {
+            return new Integral(from, BigDecimal.class);
+        } // end of if
+
+        return NONE;
+    } // end of bigDecimalConverter
+
+    /**
+     * Returns whether |c| is a class of integral number
+     * (exactly represented by its long value).
+     */
+    private static boolean isIntegral(final Class<?> c) {
+        return (c == Integer.class || c == Long.class ||
+                c == Short.class || c == Byte.class);
+
+    } // end of isIntegral
+
+    /**
+     * Returns the wrapper class for |c| if primitive, or |c|.
+     */
+    private static Class<?> boxed(final Class<?> c) {
+        if (c == null || !c.isPrimitive()) {
+            return c;
+        } else if (c == Integer.TYPE) {
+            return Integer.class;
+        } else if (c == Long.TYPE) {
+            return Long.class;
+        } else if (c == Double.TYPE) {
+            return Double.class;
+        } else if (c == Float.TYPE) {
+            return Float.class;
+        } else if (c == Boolean.TYPE) {
+            return Boolean.class;
+        } else if (c == Short.TYPE) {
+            return Short.class;
+        } else if (c == Byte.TYPE) {
+            return Byte.class;
+        } else if (c == Character.TYPE) {
+            return Character.class;
+        } // end of else if
+
+        return c;
+    } // end of boxed
+
+    // --- Inner classes ---
+
+    /**
+     * Value converter.
+     *
+     * @param <T> the target type
+     */
+    static interface Converter<T> {
+        /**
+         * Converts not null |val|.
+         *
+         * @return the converted value, or null if this converter doesn't
+         * apply to |val| (generic conversion must then be used)
+         */
+        T convert(Object val);
+    } // end of interface Converter
+
+    /**
+     * Value already of the target type.
+     */
+    private static final class Identity implements Converter<Object> {
+        private final Class<?> from;
+
+        Identity(final Class<?> from) {
+            this.from = from;
+        } // end of <init>
+
+        public Object convert(final Object val) {
+            return (val.getClass() == this.from) ? val : null;
+        } // end of convert
+    } // end of class Identity
+
+    /**
+     * Conversion between temporal types.
+     */
+    private static final class Temporal implements Converter<Object> {
+        private final Class<?> from;
+        private final Class<?> to;
+
+        Temporal(final Class<?> from, final Class<?> to) {
+            this.from = from;
+            this.to = to;
+        } // end of <init>
+
+        public Object convert(final Object val) {
+            if (val.getClass() != this.from) {
+                return null;
+            } // end of if
+
+            final long time = ((java.util.Date) val).getTime();
+
+            if (this.to == Date.class) {
+                return new Date(time);
+            } else if (this.to == Time.class) {
+                return new Time(time);
+            } // end of else if
+
+            return new Timestamp(time);
+        } // end of convert
+    } // end of class Temporal
+
+    /**
+     * Conversion from integral number,
+     * without formatting and parsing it back.
+     */
+    private static final class Integral implements Converter<Object> {
+        private final Class<?> from;
+        private final Class<?> to;
+
+        Integral(final Class<?> from, final Class<?> to) {
+            this.from = from;
+            this.to = to;
+        } // end of <init>
+
+        public Object convert(final Object val) {
+            if (val.getClass() != this.from) {
+                return null;
+            } // end of if
+
+            final long l = ((Number) val).longValue();
+
+            if (this.to == Integer.class) {
+                return (l < Integer.MIN_VALUE || l > Integer.MAX_VALUE)
+                    ? null : Integer.valueOf((int) l);
+
+            } else if (this.to == Long.class) {
+                return Long.valueOf(l);
+            } else if (this.to == Short.class) {
+                return (l < Short.MIN_VALUE || l > Short.MAX_VALUE)
+                    ? null : Short.valueOf((short) l);
+
+            } else if (this.to == Byte.class) {
+                return (l < Byte.MIN_VALUE || l > Byte.MAX_VALUE)
+                    ? null : Byte.valueOf((byte) l);
+
+            } else if (this.to == Double.class) {
+                return Double.valueOf((double) l);
+            } else if (this.to == Float.class) {
+                return Float.valueOf((float) l);
+            } // end of else if
+
+            return BigDecimal.valueOf(l);
+        } // end of convert
+    } // end of class Integral
+
+    /**
+     * Converter last resolved for a target type.
+     */
+    private static final class Typed {
+        final Class<?> type;
+        final Converter<?> converter;
+
+        Typed(final Class<?> type, final Converter<?> converter) {
+            this.type = type;
+            this.converter = converter;
+        } // end of <init>
+    } // end of class Typed
+} // end of class ColumnConverters
@@ -0,0 +1,177 @@
+package acolyte.jdbc;
+
+import java.util.Map;
+
+/**
+ * Immutable index from column label to column index,
+ * built once per row list and shared by its result sets.
+ *
+ * A label is first looked up as is, then case insensitively
+ * (as most JDBC drivers do); if several columns have labels only differing
+ * by case, the case insensitive lookup resolves the first column.
+ *
+ * Lookups use open addressing on the label hash,
+ * so they don't allocate (even case insensitively) or box the index.
+ *
+ * @author Cedric Chantepie
+ */
+final class ColumnIndex {
+    // --- Properties ---
+
+    /**
+     * Labels (or null for empty slot)
+     */
+    private final String[] labels;
+
+    /**
+     * Column indexes (for the same slots as labels)
+     */
+    private final int[] indexes;
+
+    /**
+     * Labels, by case insensitive hash (or null for empty slot)
+     */
+    private final String[] ciLabels;
+
+    /**
+     * Column indexes (for the same slots as case insensitive labels)
+     */
+    private final int[] ciIndexes;
+
+    /**
+     * Slot mask (capacity - 1)
+     */
+    private final int mask;
+
+    // --- Constructors ---
+
+    /**
+     * Builds index from given |labels|.
+     *
+     * @param labels the column indexes (first is 1) per label
+     */
+    ColumnIndex(final Map<String,Integer> labels) {
+        int capacity = 4;
+
+        while (capacity < labels.size() * 2) {
+            capacity <<= 1;
+        } // end of while
+
+        this.mask = capacity - 1;
+        this.labels = new String[capacity];
+        this.indexes = new int[capacity];
+        this.ciLabels = new String[capacity];
+        this.ciIndexes = new int[capacity];
+
+        for (final Map.Entry<String,Integer> e : labels.entrySet()) {
+            final String label = e.getKey();
+            final Integer index = e.getValue();
+
+            if (label == null || index == null) {
+                continue;
+            } // end of if
+
+            put(this.labels, this.indexes, label, index.intValue(), false);
+            put(this.ciLabels, this.ciIndexes, label, index.intValue(), true);
+
+        } // end of for
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns the index of the column with given |label|,
+     * or -1 if none.
+     *
+     * @param label the column label
+     * @return the column index (first is 1), or -1
+     */
+    int indexOf(final String label) {
+        if (label == null) {
+            return -1;
+        } // end of if
+
+        final int index = lookup(this.labels, this.indexes, label, false);
+
+        if (index != -1) {
+            return index;
+        } // end of if
+
+        return lookup(this.ciLabels, this.ciIndexes, label, true);
+    } // end of indexOf
+
+    /**
+     * Returns the index for |key| in the given slots, or -1 if none.
+     */
+    private int lookup(final String[] keys, final int[] values,
+                       final String key, final boolean ignoreCase) {
+
+        int slot = hash(key, ignoreCase) & this.mask;
+
+        while (true) {
+            final String k = keys[slot];
+
+            if (k == null) {
+                return -1;
+            } // end of if
+
+            if (ignoreCase ? k.equalsIgnoreCase(key) : k.equals(key)) {
+                return values[slot];
+            } // end of if
+
+            slot = (slot + 1) & this.mask;
+        } // end of while
+    } // end of lookup
+
+    /**
+     * Puts |index| for |key| in the given slots.
+     *
+     * @param ignoreCase if true, keys only differing by case are the same
+     * (and the lowest index is kept)
+     */
+    private void put(final String[] keys, final int[] values,
+                     final String key, final int index,
+                     final boolean ignoreCase) {
+
+        int slot = hash(key, ignoreCase) & this.mask;
+
+        while (keys[slot] != null) {
+            if (ignoreCase ? keys[slot].equalsIgnoreCase(key)
+                : keys[slot].equals(key)) {
+
+                if (!ignoreCase || index < values[slot]) {
+                    values[slot] = index;
+                } // end of if
+
+                return;
+            } // end of if
+
+            slot = (slot + 1) & this.mask;
+        } // end of while
+
+        keys[slot] = key;
+        values[slot] = index;
+    } // end of put
+
+    /**
+     * Returns the hash of given |key|
+     * (consistent with equalsIgnoreCase if |ignoreCase| is true).
+     */
+    private static int hash(final String key, final boolean ignoreCase) {
+        int h;
+
+        if (!ignoreCase) {
+            h = key.hashCode();
+        } else {
+            h = 0;
+
+            for (int i = 0; i < key.length(); i++) {
+                h = 31 * h + Character.toLowerCase(Character.
+                                                   toUpperCase(key.charAt(i)));
+
+            } // end of for
+        } // end of else
+
+        return h ^ (h >>> 16);
+    } // end of hash
+} // end of class ColumnIndex
@@ -0,0 +1,905 @@
+package acolyte.jdbc;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.RandomAccess;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row list storing values by column, rather than by row.
+ *
+ * Values of the columns whose class is {@link Integer}, {@link Long},
+ * {@link Double} or {@link Boolean} are kept unboxed (primitive arrays,
+ * with null bitmap), so that large synthetic result sets use less heap,
+ * and so that the typed getters of the result set (e.g. `getInt`)
+ * read them without any boxing.
+ * Values of the other columns are kept as is.
+ *
+ * <pre>
+ * {@code
+ * import static acolyte.jdbc.RowList.Column;
+ *
+ * ColumnarRowList list = ColumnarRowList.
+ *   empty(Column(Integer.class, "id"), Column(String.class, "name")).
+ *   builder(1000000).append(1, "foo").append(2, "bar").build();
+ * }
+ * </pre>
+ *
+ * @author Cedric Chantepie
+ */
+public final class ColumnarRowList extends RowList<Row> {
+    // --- Properties ---
+
+    /**
+     * Column values
+     */
+    private final Values[] columns;
+
+    /**
+     * Row count
+     */
+    private final int size;
+
+    /**
+     * Column classes
+     */
+    private final List<Class<?>> colClasses;
+
+    /**
+     * Column names
+     */
+    private final Map<String,Integer> colNames;
+
+    /**
+     * Nullable flags
+     */
+    private final Map<Integer,Boolean> colNullables;
+
+    /**
+     * Cycling?
+     */
+    private final boolean cycling;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     *
+     * @param columns the column values (not updated afterwards)
+     * @param size the number of rows
+     */
+    private ColumnarRowList(final Values[] columns,
+                            final int size,
+                            final List<Class<?>> colClasses,
+                            final Map<String,Integer> colNames,
+                            final Map<Integer,Boolean> colNullables,
+                            final boolean cycling) {
+
+        this.columns = columns;
+        this.size = size;
+        this.colClasses = colClasses;
+        this.colNames = Collections.unmodifiableMap(colNames);
+        this.colNullables = Collections.unmodifiableMap(colNullables);
+        this.cycling = cycling;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns an empty list with the given columns.
+     *
+     * @param columns the column definitions
+     * @return Empty list, to be completed using a {@link #builder}
+     * @throws IllegalArgumentException if no column is given
+     */
+    public static ColumnarRowList empty(final Column<?>... columns) {
+        if (columns == null || columns.length == 0) {
+            throw new IllegalArgumentException("No column");
+        } // end of if
+
+        final ArrayList<Class<?>> classes =
+            new ArrayList<Class<?>>(columns.length);
+
+        final HashMap<String,Integer> names = new HashMap<String,Integer>();
+        final HashMap<Integer,Boolean> nullables =
+            new HashMap<Integer,Boolean>();
+
+        final Values[] values = new Values[columns.length];
+
+        for (int i = 0; i < columns.length; i++) {
+            final Column<?> c = columns[i];
+
+            if (c == null) {
+                throw new IllegalArgumentException("Missing column #" +
+                                                   (i + 1));
+
+            } // end of if
+
+            classes.add(c.columnClass);
+            names.put(c.name, i + 1);
+            nullables.put(i + 1, c.nullable);
+
+            values[i] = Values.forClass(c.columnClass, 0);
+        } // end of for
+
+        return new ColumnarRowList(values, 0,
+                                   Collections.unmodifiableList(classes),
+                                   names, nullables, false);
+
+    } // end of empty
+
+    /**
+     * Returns a builder initialized with the rows of this list.
+     *
+     * @return New builder
+     */
+    public Builder builder() {
+        return new Builder(this, this.size);
+    } // end of builder
+
+    /**
+     * Returns a builder initialized with the rows of this list.
+     *
+     * @param capacity the expected number of rows
+     * @return New builder
+     */
+    public Builder builder(final int capacity) {
+        return new Builder(this, capacity);
+    } // end of builder
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Row> getRows() {
+        return new Rows(this.columns, 0, this.size);
+    } // end of getRows
+
+    /**
+     * {@inheritDoc}
+     * @deprecated Use the builder to append values.
+     */
+    @Deprecated
+    protected ColumnarRowList append(final Row row) {
+        return builder(this.size + 1).append(row.cells().toArray()).build();
+    } // end of append
+
+    /**
+     * {@inheritDoc}
+     */
+    public ColumnarRowList withLabel(final int columnIndex,
+                                     final String label) {
+
+        if (columnIndex < 1 || columnIndex > this.columns.length) {
+            throw new IllegalArgumentException("Invalid index: " +
+                                               columnIndex);
+
+        } // end of if
+
+        if (label == null) {
+            throw new IllegalArgumentException("Invalid label: " + label);
+        } // end of if
+
+        final HashMap<String,Integer> names =
+            new HashMap<String,Integer>(this.colNames);
+
+        names.put(label, columnIndex);
+
+        return new ColumnarRowList(this.columns, this.size, this.colClasses,
+                                   names, this.colNullables, this.cycling);
+
+    } // end of withLabel
+
+    /**
+     * {@inheritDoc}
+     */
+    public ColumnarRowList withNullable(final int columnIndex,
+                                        final boolean nullable) {
+
+        if (columnIndex < 1 || columnIndex > this.columns.length) {
+            throw new IllegalArgumentException("Invalid index: " +
+                                               columnIndex);
+
+        } // end of if
+
+        final HashMap<Integer,Boolean> nullables =
+            new HashMap<Integer,Boolean>(this.colNullables);
+
+        nullables.put(columnIndex, nullable);
+
+        return new ColumnarRowList(this.columns, this.size, this.colClasses,
+                                   this.colNames, nullables, this.cycling);
+
+    } // end of withNullable
+
+    /**
+     * {@inheritDoc}
+     */
+    public ColumnarRowList withCycling(final boolean cycling) {
+        return new ColumnarRowList(this.columns, this.size, this.colClasses,
+                                   this.colNames, this.colNullables, cycling);
+
+    } // end of withCycling
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isCycling() {
+        return this.cycling;
+    } // end of isCycling
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Class<?>> getColumnClasses() {
+        return this.colClasses;
+    } // end of getColumnClasses
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<String,Integer> getColumnLabels() {
+        return this.colNames;
+    } // end of getColumnLabels
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<Integer,Boolean> getColumnNullables() {
+        return this.colNullables;
+    } // end of getColumnNullables
+
+    // --- Inner classes ---
+
+    /**
+     * Mutable builder, appending rows in amortized constant time.
+     * Once built, the builder cannot be used any longer.
+     */
+    public static final class Builder {
+        // --- Properties ---
+
+        /**
+         * Original list (column classes and meta-data)
+         */
+        private final ColumnarRowList list;
+
+        /**
+         * Appended values (null once built)
+         */
+        private Values[] columns;
+
+        /**
+         * Row count
+         */
+        private int size;
+
+        // --- Constructors ---
+
+        /**
+         * Bulk constructor.
+         *
+         * @param list the original list
+         * @param capacity the expected number of rows
+         */
+        Builder(final ColumnarRowList list, final int capacity) {
+            final int c = Math.max(capacity, list.size);
+
+            this.list = list;
+            this.columns = new Values[list.columns.length];
+            this.size = list.size;
+
+            for (int i = 0; i < this.columns.length; i++) {
+                this.columns[i] = list.columns[i].copy(c);
+            } // end of for
+        } // end of <init>
+
+        // ---
+
+        /**
+         * Appends a row with given column |values|.
+         *
+         * @param values the column values (possibly null)
+         * @return This builder
+         * @throws IllegalArgumentException if values doesn't match
+         * the columns of the list
+         * @throws IllegalStateException if the list is already built
+         */
+        public Builder append(final Object... values) {
+            if (this.columns == null) {
+                throw new IllegalStateException("Row list already built");
+            } // end of if
+
+            if (values == null || values.length != this.columns.length) {
+                throw new IllegalArgumentException("Expected " +
+                                                   this.columns.length +
+                                                   " value(s)");
+
+            } // end of if
+
+            for (int i = 0; i < values.length; i++) {
+                final Object v = values[i];
+
+                if (v != null && !this.columns[i].accept(v)) {
+                    throw new IllegalArgumentException("Invalid value for column #" + (i + 1) + ": " + v);
+
+                } // end of if
+            } // end of for
+
+            // ---
+
+            for (int i = 0; i < values.length; i++) {
+                this.columns[i].append(this.size, values[i]);
+            } // end of for
+
+            this.size++;
+
+            return this;
+        } // end of append
+
+        /**
+         * Returns the number of rows appended so far.
+         *
+         * @return Row count
+         */
+        public int size() {
+            return (this.columns == null) ? 0 : this.size;
+        } // end of size
+
+        /**
+         * Returns the immutable list of the appended rows,
+         * without copying them.
+         *
+         * @return Built row list
+         * @throws IllegalStateException if the list is already built
+         */
+        public ColumnarRowList build() {
+            if (this.columns == null) {
+                throw new IllegalStateException("Row list already built");
+            } // end of if
+
+            final Values[] built = this.columns;
+
+            this.columns = null;
+
+            return new ColumnarRowList(built, this.size,
+                                       this.list.colClasses,
+                                       this.list.colNames,
+                                       this.list.colNullables,
+                                       this.list.cycling);
+
+        } // end of build
+    } // end of class Builder
+
+    /**
+     * Rows view over column values
+     * (range of the rows, as a result set can be limited).
+     */
+    static final class Rows extends AbstractList<Row> implements RandomAccess {
+        // --- Properties ---
+
+        /**
+         * Column values
+         */
+        private final Values[] columns;
+
+        /**
+         * Index of the first row
+         */
+        private final int offset;
+
+        /**
+         * Row count
+         */
+        private final int size;
+
+        // --- Constructors ---
+
+        /**
+         * Bulk constructor.
+         */
+        Rows(final Values[] columns, final int offset, final int size) {
+            this.columns = columns;
+            this.offset = offset;
+            this.size = size;
+        } // end of <init>
+
+        // ---
+
+        /**
+         * Returns the values of the column at given |index|,
+         * or null if there is no such column.
+         *
+         * @param columnIndex the column index (first is 1)
+         */
+        Values column(final int columnIndex) {
+            if (columnIndex < 1 || columnIndex > this.columns.length) {
+                return null;
+            } // end of if
+
+            return this.columns[columnIndex - 1];
+        } // end of column
+
+        /**
+         * Returns the index in the column values for given |row|.
+         *
+         * @param row the row index (first is 1)
+         */
+        int valueIndex(final int row) {
+            return this.offset + row - 1;
+        } // end of valueIndex
+
+        /**
+         * {@inheritDoc}
+         */
+        public Row get(final int index) {
+            if (index < 0 || index >= this.size) {
+                throw new IndexOutOfBoundsException("Index: " + index
+                                                    + ", Size: " + this.size);
+
+            } // end of if
+
+            return new ColumnarRow(this.columns, this.offset + index);
+        } // end of get
+
+        /**
+         * {@inheritDoc}
+         */
+        public int size() {
+            return this.size;
+        } // end of size
+
+        /**
+         * {@inheritDoc}
+         */
+        public List<Row> subList(final int fromIndex, final int toIndex) {
+            if (fromIndex < 0 || toIndex > this.size || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException("Range: " + fromIndex +
+                                                    " - " + toIndex +
+                                                    ", Size: " + this.size);
+
+            } // end of if
+
+            return new Rows(this.columns,
+                            this.offset + fromIndex, toIndex - fromIndex);
+
+        } // end of subList
+    } // end of class Rows
+
+    /**
+     * Row view, boxing the values when its cells are read.
+     */
+    private static final class ColumnarRow implements Row {
+        private final Values[] columns;
+        private final int index;
+
+        /**
+         * Bulk constructor.
+         */
+        ColumnarRow(final Values[] columns, final int index) {
+            this.columns = columns;
+            this.index = index;
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public List<Object> cells() {
+            return new AbstractList<Object>() {
+                public Object get(final int i) {
+                    return columns[i].get(index);
+                }
+
+                public int size() {
+                    return columns.length;
+                }
+            };
+        } // end of cells
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean equals(final Object o) {
+            if (o == null || !(o instanceof ColumnarRow)) {
+                return false;
+            } // end of if
+
+            return cells().equals(((ColumnarRow) o).cells());
+        } // end of equals
+
+        /**
+         * {@inheritDoc}
+         */
+        public int hashCode() {
+            return cells().hashCode();
+        } // end of hashCode
+
+        /**
+         * {@inheritDoc}
+         */
+        public String toString() {
+            return String.format("ColumnarRow%s", cells());
+        } // end of toString
+    } // end of class ColumnarRow
+
+    /**
+     * Values of a column, with null bitmap.
+     * Values are only appended by the builder, before the list is built.
+     */
+    static abstract class Values {
+        /**
+         * Null bitmap (lazily allocated, on first null value)
+         */
+        private long[] nulls = null;
+
+        /**
+         * Returns values for a column of given class.
+         */
+        static Values forClass(final Class<?> columnClass,
+                               final int capacity) {
+
+            if (Integer.class.equals(columnClass) ||
+                Integer.TYPE.equals(columnClass)) {
+
+                return new IntValues(new int[capacity]);
+            } // end of if
+
+            if (Long.class.equals(columnClass) ||
+                Long.TYPE.equals(columnClass)) {
+
+                return new LongValues(new long[capacity]);
+            } // end of if
+
+            if (Double.class.equals(columnClass) ||
+                Double.TYPE.equals(columnClass)) {
+
+                return new DoubleValues(new double[capacity]);
+            } // end of if
+
+            if (Boolean.class.equals(columnClass) ||
+                Boolean.TYPE.equals(columnClass)) {
+
+                return new BooleanValues(new long[bitmapLength(capacity)]);
+            } // end of if
+
+            return new ObjectValues(columnClass, new Object[capacity]);
+        } // end of forClass
+
+        /**
+         * Returns the length of a bitmap for given number of values.
+         */
+        static int bitmapLength(final int capacity) {
+            return (Math.max(capacity, 1) + 63) >>> 6;
+        } // end of bitmapLength
+
+        /**
+         * Returns whether the value at given |index| is null.
+         */
+        final boolean isNull(final int index) {
+            return (this.nulls != null && (index >>> 6) < this.nulls.length
+                    && (this.nulls[index >>> 6] & (1L << index)) != 0);
+
+        } // end of isNull
+
+        /**
+         * Returns the value at given |index|, boxed if required.
+         */
+        final Object get(final int index) {
+            return isNull(index) ? null : box(index);
+        } // end of get
+
+        /**
+         * Sets the value at given |index| (appended one).
+         */
+        final void append(final int index, final Object value) {
+            ensureCapacity(index + 1);
+
+            if (value == null) {
+                if (this.nulls == null) {
+                    this.nulls = new long[bitmapLength(capacity())];
+                } else if (this.nulls.length < bitmapLength(index + 1)) {
+                    this.nulls = Arrays.
+                        copyOf(this.nulls, bitmapLength(capacity()));
+
+                } // end of else if
+
+                this.nulls[index >>> 6] |= (1L << index);
+            } else {
+                set(index, value);
+            } // end of else
+        } // end of append
+
+        /**
+         * Returns a copy of these values, with given |capacity|.
+         */
+        final Values copy(final int capacity) {
+            final Values c = copyValues(Math.max(capacity, 1));
+
+            if (this.nulls != null) {
+                c.nulls = Arrays.copyOf(this.nulls,
+                                        bitmapLength(c.capacity()));
+
+            } // end of if
+
+            return c;
+        } // end of copy
+
+        /**
+         * Returns whether the values are primitive numbers.
+         */
+        boolean isNumeric() { return false; }
+
+        /**
+         * Returns whether the values are primitive booleans.
+         */
+        boolean isBoolean() { return false; }
+
+        /**
+         * Returns the not null value at given |index| as int
+         * (as {@link Number#intValue} would do).
+         */
+        int intValue(final int index) {
+            throw incompatible("int");
+        } // end of intValue
+
+        /**
+         * Returns the not null value at given |index| as long
+         * (as {@link Number#longValue} would do).
+         */
+        long longValue(final int index) {
+            throw incompatible("long");
+        } // end of longValue
+
+        /**
+         * Returns the not null value at given |index| as float
+         * (as {@link Number#floatValue} would do).
+         */
+        float floatValue(final int index) {
+            throw incompatible("float");
+        } // end of floatValue
+
+        /**
+         * Returns the not null value at given |index| as double
+         * (as {@link Number#doubleValue} would do).
+         */
+        double doubleValue(final int index) {
+            throw incompatible("double");
+        } // end of doubleValue
+
+        /**
+         * Returns the not null value at given |index| as boolean.
+         */
+        boolean booleanValue(final int index) {
+            throw incompatible("boolean");
+        } // end of booleanValue
+
+        /**
+         * Returns the error for a read of these values as given |type|,
+         * not supported by the column class.
+         */
+        private ClassCastException incompatible(final String type) {
+            return new ClassCastException("Cannot read " +
+                                          valueClass().getName() +
+                                          " value as " + type);
+
+        } // end of incompatible
+
+        /**
+         * Returns the class of the values.
+         */
+        abstract Class<?> valueClass();
+
+        /**
+         * Returns whether the not null |value| can be appended.
+         */
+        abstract boolean accept(Object value);
+
+        /**
+         * Returns the current capacity.
+         */
+        abstract int capacity();
+
+        /**
+         * Makes sure at least |capacity| values can be stored.
+         */
+        abstract void ensureCapacity(int capacity);
+
+        /**
+         * Sets the not null |value| at given |index|.
+         */
+        abstract void set(int index, Object value);
+
+        /**
+         * Returns the not null value at given |index|, boxed.
+         */
+        abstract Object box(int index);
+
+        /**
+         * Returns a copy of these values (without null bitmap).
+         */
+        abstract Values copyValues(int capacity);
+
+        /**
+         * Returns the capacity to grow to, so that at least |min| values
+         * can be stored (amortized constant time appending).
+         */
+        static int grownCapacity(final int current, final int min) {
+            return Math.max(min, current + (current >>> 1) + 1);
+        } // end of grownCapacity
+    } // end of class Values
+
+    /**
+     * Int values.
+     */
+    static final class IntValues extends Values {
+        private int[] values;
+
+        IntValues(final int[] values) { this.values = values; }
+
+        boolean isNumeric() { return true; }
+        int intValue(final int i) { return this.values[i]; }
+        long longValue(final int i) { return this.values[i]; }
+        float floatValue(final int i) { return this.values[i]; }
+        double doubleValue(final int i) { return this.values[i]; }
+
+        Class<?> valueClass() { return Integer.class; }
+        boolean accept(final Object v) { return (v instanceof Integer); }
+        int capacity() { return this.values.length; }
+
+        void ensureCapacity(final int c) {
+            if (c > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grownCapacity(this.values.length, c));
+            } // end of if
+        } // end of ensureCapacity
+
+        void set(final int i, final Object v) {
+            this.values[i] = ((Integer) v).intValue();
+        } // end of set
+
+        Object box(final int i) { return Integer.valueOf(this.values[i]); }
+
+        Values copyValues(final int c) {
+            return new IntValues(Arrays.copyOf(this.values, Math.max(c, this.values.length)));
+        } // end of copyValues
+    } // end of class IntValues
+
+    /**
+     * Long values.
+     */
+    static final class LongValues extends Values {
+        private long[] values;
+
+        LongValues(final long[] values) { this.values = values; }
+
+        boolean isNumeric() { return true; }
+        int intValue(final int i) { return (int) this.values[i]; }
+        long longValue(final int i) { return this.values[i]; }
+        float floatValue(final int i) { return this.values[i]; }
+        double doubleValue(final int i) { return this.values[i]; }
+
+        Class<?> valueClass() { return Long.class; }
+        boolean accept(final Object v) { return (v instanceof Long); }
+        int capacity() { return this.values.length; }
+
+        void ensureCapacity(final int c) {
+            if (c > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grownCapacity(this.values.length, c));
+            } // end of if
+        } // end of ensureCapacity
+
+        void set(final int i, final Object v) {
+            this.values[i] = ((Long) v).longValue();
+        } // end of set
+
+        Object box(final int i) { return Long.valueOf(this.values[i]); }
+
+        Values copyValues(final int c) {
+            return new LongValues(Arrays.copyOf(this.values, Math.max(c, this.values.length)));
+        } // end of copyValues
+    } // end of class LongValues
+
+    /**
+     * Double values.
+     */
+    static final class DoubleValues extends Values {
+        private double[] values;
+
+        DoubleValues(final double[] values) { this.values = values; }
+
+        boolean isNumeric() { return true; }
+        int intValue(final int i) { return (int) this.values[i]; }
+        long longValue(final int i) { return (long) this.values[i]; }
+        float floatValue(final int i) { return (float) this.values[i]; }
+        double doubleValue(final int i) { return this.values[i]; }
+
+        Class<?> valueClass() { return Double.class; }
+        boolean accept(final Object v) { return (v instanceof Double); }
+        int capacity() { return this.values.length; }
+
+        void ensureCapacity(final int c) {
+            if (c > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grownCapacity(this.values.length, c));
+            } // end of if
+        } // end of ensureCapacity
+
+        void set(final int i, final Object v) {
+            this.values[i] = ((Double) v).doubleValue();
+        } // end of set
+
+        Object box(final int i) { return Double.valueOf(this.values[i]); }
+
+        Values copyValues(final int c) {
+            return new DoubleValues(Arrays.copyOf(this.values, Math.max(c, this.values.length)));
+        } // end of copyValues
+    } // end of class DoubleValues
+
+    /**
+     * Boolean values (bitmap).
+     */
+    static final class BooleanValues extends Values {
+        private long[] bits;
+
+        BooleanValues(final long[] bits) { this.bits = bits; }
+
+        boolean isBoolean() { return true; }
+
+        boolean booleanValue(final int i) {
+            return (this.bits[i >>> 6] & (1L << i)) != 0;
+        } // end of booleanValue
+
+        Class<?> valueClass() { return Boolean.class; }
+        boolean accept(final Object v) { return (v instanceof Boolean); }
+        int capacity() { return this.bits.length << 6; }
+
+        void ensureCapacity(final int c) {
+            if (c > capacity()) {
+                this.bits = Arrays.copyOf(this.bits, bitmapLength(grownCapacity(capacity(), c)));
+            } // end of if
+        } // end of ensureCapacity
+
+        void set(final int i, final Object v) {
+            if (((Boolean) v).booleanValue()) {
+                this.bits[i >>> 6] |= (1L << i);
+            } // end of if
+        } // end of set
+
+        Object box(final int i) { return Boolean.valueOf(booleanValue(i)); }
+
+        Values copyValues(final int c) {
+            return new BooleanValues(Arrays.copyOf(this.bits, Math.max(bitmapLength(c), this.bits.length)));
+        } // end of copyValues
+    } // end of class BooleanValues
+
+    /**
+     * Values of any other column class, kept as is.
+     */
+    static final class ObjectValues extends Values {
+        private final Class<?> columnClass;
+        private Object[] values;
+
+        ObjectValues(final Class<?> columnClass, final Object[] values) {
+            this.columnClass = columnClass;
+            this.values = values;
+        } // end of <init>
+
+        Class<?> valueClass() { return this.columnClass; }
+        boolean accept(final Object v) { return this.columnClass.isInstance(v); }
+        int capacity() { return this.values.length; }
+
+        void ensureCapacity(final int c) {
+            if (c > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grownCapacity(this.values.length, c));
+            } // end of if
+        } // end of ensureCapacity
+
+        void set(final int i, final Object v) { this.values[i] = v; }
+
+        Object box(final int i) { return this.values[i]; }
+
+        Values copyValues(final int c) {
+            return new ObjectValues(this.columnClass, Arrays.copyOf(this.values, Math.max(c, this.values.length)));
+        } // end of copyValues
+    } // end of class ObjectValues
+} // end of class ColumnarRowList
@@ -101,6 +101,11 @@ public class Connection implements java.sql.Connection {
      */
     private String schema = null;
 
+    /**
+     * Flight Recorder close event, begun when opened (or null)
+     */
+    private Object closeEvent = null;
+
     // --- Constructors ---
 
     /**
@@ -132,6 +137,8 @@ public class Connection implements java.sql.Connection {
         if (props != null) {
             this.props.putAll(props);
         } // end of if
+
+        this.closeEvent = DriverEvents.connectionOpened(url);
     } // end of <init>
 
     // --- Connection impl ---
@@ -178,11 +185,18 @@ public class Connection implements java.sql.Connection {
     } // end of nativeSQL
 
     /**
+     * Enabling the auto-commit (previously disabled)
+     * commits the pending transaction.
+     *
      * {@inheritDoc}
      */
     public void setAutoCommit(boolean autoCommit) throws SQLException {
         checkClosed();
 
+        if (autoCommit && !this.autoCommit) {
+            handler.getResourceHandler().whenCommitTransaction(this);
+        } // end of if
+
         this.autoCommit = autoCommit;
     } // end of setAutoCommit
 
@@ -235,6 +249,9 @@ public class Connection implements java.sql.Connection {
 
         this.closed = true;
         this.validity = false;
+
+        DriverEvents.connectionClosed(this.closeEvent, this.url);
+        this.closeEvent = null;
     } // end of close
 
     /**
@@ -437,7 +454,7 @@ public class Connection implements java.sql.Connection {
             throw new SQLException("Auto-commit is enabled");
         } // end of if
                 
-        return (this.savepoint = new acolyte.jdbc.Savepoint());
+        return (this.savepoint = savepoint(new acolyte.jdbc.Savepoint()));
     } // end of setSavepoint
 
     /**
@@ -450,9 +467,27 @@ public class Connection implements java.sql.Connection {
             throw new SQLException("Auto-commit is enabled");
         } // end of if
 
-        return (this.savepoint = new acolyte.jdbc.Savepoint(name));
+        return (this.savepoint = savepoint(new acolyte.jdbc.Savepoint(name)));
     } // end of setSavepoint
 
+    /**
+     * Notifies the resource handler about the new |savepoint|,
+     * if it's a savepoint handler.
+     *
+     * @return the |savepoint|
+     */
+    private Savepoint savepoint(final Savepoint savepoint)
+        throws SQLException {
+
+        final ResourceHandler h = handler.getResourceHandler();
+
+        if (h instanceof SavepointHandler) {
+            ((SavepointHandler) h).whenSetSavepoint(this, savepoint);
+        } // end of if
+
+        return savepoint;
+    } // end of savepoint
+
     /**
      * {@inheritDoc}
      */
@@ -463,7 +498,7 @@ public class Connection implements java.sql.Connection {
             throw new SQLException("Auto-commit is enabled");
         } // end of if        
 
-        throw new SQLFeatureNotSupportedException();
+        savepointHandler().whenRollbackSavepoint(this, savepoint);
     } // end of rollback
 
     /**
@@ -478,9 +513,24 @@ public class Connection implements java.sql.Connection {
             throw new SQLException("Auto-commit is enabled");
         } // end of if        
 
-        throw new SQLFeatureNotSupportedException();
+        savepointHandler().whenReleaseSavepoint(this, savepoint);
     } // end of releaseSavepoint
 
+    /**
+     * Returns the resource handler, if it's a savepoint handler.
+     *
+     * @throws SQLFeatureNotSupportedException if not a savepoint handler
+     */
+    private SavepointHandler savepointHandler() throws SQLException {
+        final ResourceHandler h = handler.getResourceHandler();
+
+        if (!(h instanceof SavepointHandler)) {
+            throw new SQLFeatureNotSupportedException();
+        } // end of if
+
+        return (SavepointHandler) h;
+    } // end of savepointHandler
+
     /**
      * {@inheritDoc}
      * @throws java.sql.SQLFeatureNotSupportedException if |resultSetHoldability| is not ResultSet.CLOSE_CURSORS_AT_COMMIT
@@ -542,9 +592,7 @@ public class Connection implements java.sql.Connection {
 
         checkClosed();
 
-        return new acolyte.jdbc.
-            PreparedStatement(this, sql, autoGeneratedKeys, null, null,
-                              this.handler.getStatementHandler());
+        return prepare(sql, autoGeneratedKeys, null, null);
 
     } // end of prepareStatement
 
@@ -557,10 +605,8 @@ public class Connection implements java.sql.Connection {
 
         checkClosed();
 
-        return new acolyte.jdbc.
-            PreparedStatement(this, sql, Statement.RETURN_GENERATED_KEYS,
-                              null, columnIndexes,
-                              this.handler.getStatementHandler());
+        return prepare(sql, Statement.RETURN_GENERATED_KEYS,
+                       null, columnIndexes);
 
     } // end of prepareStatement
 
@@ -573,13 +619,36 @@ public class Connection implements java.sql.Connection {
 
         checkClosed();
 
-        return new acolyte.jdbc.
-            PreparedStatement(this, sql, Statement.RETURN_GENERATED_KEYS,
-                              columnNames, null,
-                              this.handler.getStatementHandler());
+        return prepare(sql, Statement.RETURN_GENERATED_KEYS,
+                       columnNames, null);
 
     } // end of prepareStatement
 
+    /**
+     * Creates a prepared statement.
+     *
+     * @param sql the SQL statement
+     * @param autoGeneratedKeys the generated keys flag
+     * @param columnNames the names of the generated keys (or null)
+     * @param columnIndexes the indexes of the generated keys (or null)
+     */
+    private PreparedStatement prepare(final String sql,
+                                      final int autoGeneratedKeys,
+                                      final String[] columnNames,
+                                      final int[] columnIndexes)
+        throws SQLException {
+
+        final Object event = DriverEvents.begin(DriverEvents.PREPARE);
+        final PreparedStatement stmt = new acolyte.jdbc.
+            PreparedStatement(this, sql, autoGeneratedKeys,
+                              columnNames, columnIndexes,
+                              this.handler.getStatementHandler());
+
+        DriverEvents.prepared(event, sql);
+
+        return stmt;
+    } // end of prepare
+
     /**
      * {@inheritDoc}
      * @throws java.sql.SQLFeatureNotSupportedException Not currently supported
@@ -799,6 +868,40 @@ public class Connection implements java.sql.Connection {
         return this.props;
     } // end of getProperties
 
+    /**
+     * Restores the initial state of this connection (auto-commit, read-only,
+     * transaction isolation, warnings, savepoint, type map, client info,
+     * catalog and schema), without changing whether it's closed.
+     */
+    void reset() {
+        this.autoCommit = false;
+        this.readonly = false;
+        this.warning = null;
+        this.transactionIsolation = Connection.TRANSACTION_NONE;
+        this.savepoint = null;
+        this.catalog = null;
+        this.schema = null;
+
+        if (!this.typemap.isEmpty()) {
+            // Not cleared, as it can have been set by the caller
+            this.typemap = new HashMap<String,Class<?>>();
+        } // end of if
+
+        if (!this.clientInfo.isEmpty()) {
+            this.clientInfo = new Properties();
+        } // end of if
+    } // end of reset
+
+    /**
+     * Opens again this connection, once closed
+     * (notified as a new connection to the driver events).
+     */
+    void reopen() {
+        this.closed = false;
+        this.validity = true;
+        this.closeEvent = DriverEvents.connectionOpened(this.url);
+    } // end of reopen
+
     /**
      * Throws a SQLException("Connection is closed") if connection is closed.
      */
@@ -1,8 +1,8 @@
 package acolyte.jdbc;
 
-import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+
 import java.util.Properties;
-import java.util.HashMap;
 import java.util.Map;
 
 import java.util.logging.Logger;
@@ -34,10 +34,21 @@ public final class Driver implements java.sql.Driver {
      * Handler registry
      */
     public static final Map<String,ConnectionHandler> handlers =
-        Collections.synchronizedMap(new HashMap<String,ConnectionHandler>());
+        new ConcurrentHashMap<String,ConnectionHandler>();
+
+    /**
+     * Max number of JDBC URLs whose handler ID is cached
+     */
+    static final int MAX_CACHED_URLS = 1024;
 
     // --- Shared ---
 
+    /**
+     * Handler IDs per JDBC URL (parsed once)
+     */
+    private static final ConcurrentHashMap<String,String> handlerIds =
+        new ConcurrentHashMap<String,String>();
+
     static {
         try {
             java.sql.DriverManager.registerDriver(new Driver());
@@ -61,21 +72,7 @@ public final class Driver implements java.sql.Driver {
             return null;
         } // end of if
         
-        final String[] parts = url.substring(url.lastIndexOf("?")+1).split("&");
-        String h = null;
-
-        for (final String p : parts) {
-            if (p.startsWith("handler=")) {
-                h = p.substring(8);
-                break;
-            } // end of if
-        } // end of for
-
-        if (h == null || h.length() == 0) {
-            throw new IllegalArgumentException("Invalid handler ID: " + h);
-        } // end of if
-
-        final String id = h;
+        final String id = handlerId(url);
         final ConnectionHandler handler = handlers.get(id);
 
         if (handler == null) {
@@ -313,6 +310,46 @@ public final class Driver implements java.sql.Driver {
         return handlers.remove(id);
     } // end of unregister
 
+    /**
+     * Returns the ID of the handler specified by given |url|
+     * (parsed once per URL).
+     *
+     * @param url the JDBC URL
+     * @return the handler ID
+     * @throws IllegalArgumentException if there is no valid handler ID
+     */
+    static String handlerId(final String url) {
+        final String cached = handlerIds.get(url);
+
+        if (cached != null) {
+            return cached;
+        } // end of if
+
+        // ---
+
+        final String[] parts = url.substring(url.lastIndexOf("?")+1).split("&");
+        String h = null;
+
+        for (final String p : parts) {
+            if (p.startsWith("handler=")) {
+                h = p.substring(8);
+                break;
+            } // end of if
+        } // end of for
+
+        if (h == null || h.length() == 0) {
+            throw new IllegalArgumentException("Invalid handler ID: " + h);
+        } // end of if
+
+        if (handlerIds.size() >= MAX_CACHED_URLS) {
+            handlerIds.clear();
+        } // end of if
+
+        handlerIds.put(url, h);
+
+        return h;
+    } // end of handlerId
+
     /** 
      * Returns prepared properties. 
      *
@@ -0,0 +1,224 @@
+package acolyte.jdbc;
+
+import java.util.List;
+
+import java.sql.SQLException;
+
+import acolyte.jdbc.StatementHandler.Parameter;
+
+/**
+ * Facade of the Flight Recorder events of the driver
+ * (connection open/close, statement prepare, query, update and batch
+ * executions, result set iteration).
+ *
+ * The events are only emitted if the `jdk.jfr` API is available
+ * (and the `acolyte.jfr` system property is not `false`),
+ * and if they are enabled in a running recording
+ * (they are disabled by default); otherwise the instrumented
+ * operations only check a null event.
+ *
+ * @author Cedric Chantepie
+ */
+final class DriverEvents {
+    // --- Shared ---
+
+    // Event kinds
+    static final int CONNECTION = 0;
+    static final int PREPARE = 1;
+    static final int QUERY = 2;
+    static final int UPDATE = 3;
+    static final int BATCH = 4;
+    static final int RESULT_SET = 5;
+
+    /**
+     * Whether the events can be emitted
+     */
+    static final boolean AVAILABLE = available();
+
+    // --- Constructors ---
+
+    /**
+     * No instance.
+     */
+    private DriverEvents() {}
+
+    // ---
+
+    /**
+     * Begins an event of given |kind|.
+     *
+     * @param kind the event kind
+     * @return the begun event, or null if disabled
+     */
+    static Object begin(final int kind) {
+        if (!AVAILABLE) {
+            return null;
+        } // end of if
+
+        return JfrDriverEvents.begin(kind);
+    } // end of begin
+
+    /**
+     * Emits the connection open event,
+     * and begins the corresponding close one.
+     *
+     * @param url the JDBC URL
+     * @return the begun close event, or null if disabled
+     */
+    static Object connectionOpened(final String url) {
+        if (!AVAILABLE) {
+            return null;
+        } // end of if
+
+        JfrDriverEvents.connectionOpened(url);
+
+        return JfrDriverEvents.begin(CONNECTION);
+    } // end of connectionOpened
+
+    /**
+     * Commits the close |event| (if not null).
+     */
+    static void connectionClosed(final Object event, final String url) {
+        if (event != null) {
+            JfrDriverEvents.connectionClosed(event, url);
+        } // end of if
+    } // end of connectionClosed
+
+    /**
+     * Commits the prepare |event| (if not null).
+     */
+    static void prepared(final Object event, final String sql) {
+        if (event != null) {
+            JfrDriverEvents.prepared(event, sql);
+        } // end of if
+    } // end of prepared
+
+    /**
+     * Commits the batch |event| (if not null).
+     *
+     * @param sql the SQL of the prepared statement, or null
+     * @param size the number of batch elements
+     */
+    static void batched(final Object event, final String sql,
+                        final int size) {
+
+        if (event != null) {
+            JfrDriverEvents.batched(event, sql, size);
+        } // end of if
+    } // end of batched
+
+    /**
+     * Begins the iteration event for the |resultSet| of the |sql| query.
+     *
+     * @return the |resultSet|
+     */
+    static java.sql.ResultSet resultSetOpened(final RowList<?>.RowResultSet<?> resultSet,
+                                              final String sql) {
+
+        final Object event = begin(RESULT_SET);
+
+        if (event != null) {
+            JfrDriverEvents.resultSetOpened(event, sql);
+            resultSet.event = event;
+        } // end of if
+
+        return resultSet;
+    } // end of resultSetOpened
+
+    /**
+     * Commits the iteration |event| (if not null).
+     */
+    static void resultSetClosed(final Object event, final int rowsRead) {
+        if (event != null) {
+            JfrDriverEvents.resultSetClosed(event, rowsRead);
+        } // end of if
+    } // end of resultSetClosed
+
+    /**
+     * Executes the |sql| query using the |handler|,
+     * within a query event.
+     *
+     * @see StatementHandler#whenSQLQuery
+     */
+    static QueryResult whenSQLQuery(final StatementHandler handler,
+                                    final String sql,
+                                    final List<Parameter> parameters)
+        throws SQLException {
+
+        final Object event = begin(QUERY);
+
+        if (event == null) {
+            return handler.whenSQLQuery(sql, parameters);
+        } // end of if
+
+        // ---
+
+        int rowCount = -1;
+
+        try {
+            final QueryResult res = handler.whenSQLQuery(sql, parameters);
+            final RowList<?> rows = (res == null) ? null : res.getRowList();
+
+            if (rows != null && !(rows instanceof StreamingRowList)) {
+                rowCount = rows.getRows().size();
+            } // end of if
+
+            return res;
+        } finally {
+            JfrDriverEvents.queried(event, sql, parameters.size(), rowCount);
+        } // end of finally
+    } // end of whenSQLQuery
+
+    /**
+     * Executes the |sql| update using the |handler|,
+     * within an update event.
+     *
+     * @see StatementHandler#whenSQLUpdate
+     */
+    static UpdateResult whenSQLUpdate(final StatementHandler handler,
+                                      final String sql,
+                                      final List<Parameter> parameters)
+        throws SQLException {
+
+        final Object event = begin(UPDATE);
+
+        if (event == null) {
+            return handler.whenSQLUpdate(sql, parameters);
+        } // end of if
+
+        // ---
+
+        int count = -1;
+
+        try {
+            final UpdateResult res = handler.whenSQLUpdate(sql, parameters);
+
+            if (res != null) {
+                count = res.getUpdateCount();
+            } // end of if
+
+            return res;
+        } finally {
+            JfrDriverEvents.updated(event, sql, parameters.size(), count);
+        } // end of finally
+    } // end of whenSQLUpdate
+
+    /**
+     * Checks whether the `jdk.jfr` API is available.
+     */
+    private static boolean available() {
+        if ("false".equals(System.getProperty("acolyte.jfr"))) {
+            return false;
+        } // end of if
+
+        try {
+            Class.forName("jdk.jfr.Event");
+
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        } catch (LinkageError e) {
+            return false;
+        } // end of catch
+    } // end of available
+} // end of class DriverEvents
@@ -0,0 +1,358 @@
+package acolyte.jdbc;
+
+import java.util.List;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import java.util.function.BiConsumer;
+
+import java.sql.SQLException;
+
+/**
+ * Asynchronous handler executing a blocking statement handler
+ * on an executor, optionally after a simulated latency.
+ *
+ * <pre>
+ * {@code
+ * // Slow database: each statement takes 5s
+ * AsyncStatementHandler handler =
+ *   new ExecutorStatementHandler(otherHandler).
+ *   withDelay(5, TimeUnit.SECONDS);
+ *
+ * Statement stmt = Driver.connection(handler).createStatement();
+ *
+ * stmt.setQueryTimeout(1);
+ * stmt.executeQuery("SELECT * FROM test"); // SQLTimeoutException after 1s
+ * }
+ * </pre>
+ *
+ * The delay is scheduled on a single shared timer thread,
+ * and the underlying handler is only called once it has elapsed,
+ * so that pending statements don't hold any thread
+ * (and a cancelled statement doesn't call the underlying handler).
+ *
+ * By default, the underlying handler is executed on virtual threads
+ * when available (Java 21+), or otherwise on a shared pool of daemon threads.
+ *
+ * @author Cedric Chantepie
+ */
+public final class ExecutorStatementHandler implements AsyncStatementHandler {
+    // --- Properties ---
+
+    /**
+     * Underlying handler
+     */
+    private final StatementHandler handler;
+
+    /**
+     * Executor of the underlying handler
+     */
+    private final Executor executor;
+
+    /**
+     * Delay before the execution, in nanoseconds (or 0 if none)
+     */
+    private final long delayNanos;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private ExecutorStatementHandler(final StatementHandler handler,
+                                     final Executor executor,
+                                     final long delayNanos) {
+
+        this.handler = handler;
+        this.executor = executor;
+        this.delayNanos = delayNanos;
+    } // end of <init>
+
+    /**
+     * Handler executing the underlying one on given |executor|.
+     *
+     * @param handler the underlying handler
+     * @param executor the executor of the underlying handler
+     * @throws IllegalArgumentException if |handler| or |executor| is null
+     */
+    public ExecutorStatementHandler(final StatementHandler handler,
+                                    final Executor executor) {
+
+        this(checkHandler(handler), checkExecutor(executor), 0L);
+    } // end of <init>
+
+    /**
+     * Handler executing the underlying one on the default executor
+     * (virtual threads if available).
+     *
+     * @param handler the underlying handler
+     * @throws IllegalArgumentException if |handler| is null
+     */
+    public ExecutorStatementHandler(final StatementHandler handler) {
+        this(checkHandler(handler), Shared.EXECUTOR, 0L);
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns a new handler based on this one,
+     * only executing the underlying handler after given |delay|.
+     *
+     * @param delay the simulated latency
+     * @param unit the time unit
+     * @return New handler
+     * @throws IllegalArgumentException if |delay| is negative,
+     * or |unit| is null
+     */
+    public ExecutorStatementHandler withDelay(final long delay,
+                                              final TimeUnit unit) {
+
+        if (delay < 0L || unit == null) {
+            throw new IllegalArgumentException("Invalid delay: " +
+                                               delay + " " + unit);
+
+        } // end of if
+
+        return new ExecutorStatementHandler(this.handler, this.executor,
+                                            unit.toNanos(delay));
+
+    } // end of withDelay
+
+    // --- AsyncStatementHandler impl ---
+
+    /**
+     * {@inheritDoc}
+     */
+    public CompletionStage<QueryResult> whenSQLQueryAsync(final String sql, final List<Parameter> parameters) {
+        return submit(new Callable<QueryResult>() {
+                public QueryResult call() throws SQLException {
+                    return handler.whenSQLQuery(sql, parameters);
+                }
+            });
+    } // end of whenSQLQueryAsync
+
+    /**
+     * {@inheritDoc}
+     */
+    public CompletionStage<UpdateResult> whenSQLUpdateAsync(final String sql, final List<Parameter> parameters) {
+        return submit(new Callable<UpdateResult>() {
+                public UpdateResult call() throws SQLException {
+                    return handler.whenSQLUpdate(sql, parameters);
+                }
+            });
+    } // end of whenSQLUpdateAsync
+
+    // --- StatementHandler impl ---
+
+    /**
+     * Executes the query in the calling thread, after the delay.
+     *
+     * {@inheritDoc}
+     */
+    public QueryResult whenSQLQuery(final String sql,
+                                    final List<Parameter> parameters)
+        throws SQLException {
+
+        pause();
+
+        return this.handler.whenSQLQuery(sql, parameters);
+    } // end of whenSQLQuery
+
+    /**
+     * Executes the update in the calling thread, after the delay.
+     *
+     * {@inheritDoc}
+     */
+    public UpdateResult whenSQLUpdate(final String sql,
+                                      final List<Parameter> parameters)
+        throws SQLException {
+
+        pause();
+
+        return this.handler.whenSQLUpdate(sql, parameters);
+    } // end of whenSQLUpdate
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isQuery(final String sql) {
+        return this.handler.isQuery(sql);
+    } // end of isQuery
+
+    // ---
+
+    /**
+     * Submits the |task| to the executor, after the delay if any,
+     * with the current statement context.
+     *
+     * @return the pending result, whose cancellation
+     * also cancels the delay
+     */
+    private <T> CompletableFuture<T> submit(final Callable<T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<T>();
+        final StatementContext context = StatementContext.current();
+        final Runnable execution = new Runnable() {
+                public void run() {
+                    if (result.isDone()) {
+                        return; // cancelled meanwhile
+                    } // end of if
+
+                    final StatementContext previous =
+                        StatementContext.enter(context);
+
+                    try {
+                        result.complete(task.call());
+                    } catch (Throwable e) {
+                        result.completeExceptionally(e);
+                    } finally {
+                        StatementContext.exit(previous);
+                    } // end of finally
+                }
+            };
+
+        if (this.delayNanos == 0L) {
+            execute(execution, result);
+
+            return result;
+        } // end of if
+
+        // ---
+
+        final ScheduledFuture<?> timer = Shared.SCHEDULER.
+            schedule(new Runnable() {
+                    public void run() {
+                        execute(execution, result);
+                    }
+                }, this.delayNanos, TimeUnit.NANOSECONDS);
+
+        result.whenComplete(new BiConsumer<T,Throwable>() {
+                public void accept(final T value, final Throwable cause) {
+                    if (result.isCancelled()) {
+                        timer.cancel(false);
+                    } // end of if
+                }
+            });
+
+        return result;
+    } // end of submit
+
+    /**
+     * Executes the |execution| of the |result|.
+     */
+    private void execute(final Runnable execution,
+                         final CompletableFuture<?> result) {
+
+        try {
+            this.executor.execute(execution);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new SQLException("Execution rejected", e));
+        } // end of catch
+    } // end of execute
+
+    /**
+     * Waits for the delay, in the calling thread.
+     *
+     * @throws SQLException if interrupted
+     */
+    private void pause() throws SQLException {
+        if (this.delayNanos == 0L) {
+            return;
+        } // end of if
+
+        try {
+            TimeUnit.NANOSECONDS.sleep(this.delayNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new SQLException("Interrupted", e);
+        } // end of catch
+    } // end of pause
+
+    /**
+     * Checks the underlying |handler|.
+     */
+    private static StatementHandler checkHandler(final StatementHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Invalid handler");
+        } // end of if
+
+        return handler;
+    } // end of checkHandler
+
+    /**
+     * Checks the |executor|.
+     */
+    private static Executor checkExecutor(final Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Invalid executor");
+        } // end of if
+
+        return executor;
+    } // end of checkExecutor
+
+    // --- Inner classes ---
+
+    /**
+     * Lazily initialized shared executors.
+     */
+    private static final class Shared {
+        /**
+         * Default executor
+         */
+        static final Executor EXECUTOR = defaultExecutor();
+
+        /**
+         * Timer of the delays
+         */
+        static final ScheduledThreadPoolExecutor SCHEDULER;
+
+        static {
+            SCHEDULER = new ScheduledThreadPoolExecutor(1, daemon("timer"));
+
+            SCHEDULER.setRemoveOnCancelPolicy(true);
+        }
+
+        /**
+         * Returns the virtual thread executor if available,
+         * or a cached pool of daemon threads.
+         */
+        private static Executor defaultExecutor() {
+            try {
+                return (Executor) Executors.class.
+                    getMethod("newVirtualThreadPerTaskExecutor").
+                    invoke(null);
+
+            } catch (Exception e) {
+                return Executors.newCachedThreadPool(daemon("executor"));
+            } // end of catch
+        } // end of defaultExecutor
+
+        /**
+         * Returns a factory of daemon threads.
+         */
+        private static ThreadFactory daemon(final String name) {
+            final AtomicInteger count = new AtomicInteger(0);
+
+            return new ThreadFactory() {
+                public Thread newThread(final Runnable r) {
+                    final Thread t = new Thread(r, "acolyte-async-" + name +
+                                                "-" + count.incrementAndGet());
+
+                    t.setDaemon(true);
+
+                    return t;
+                }
+            };
+        } // end of daemon
+    } // end of class Shared
+} // end of class ExecutorStatementHandler
@@ -0,0 +1,944 @@
+package acolyte.jdbc;
+
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.File;
+
+import java.nio.charset.Charset;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Callable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import java.math.BigDecimal;
+
+import java.sql.Timestamp;
+import java.sql.Time;
+import java.sql.Date;
+
+/**
+ * Importer of fixture files (CSV or JSON lines) as row list,
+ * according the declared columns.
+ *
+ * <pre>
+ * {@code
+ * import static acolyte.jdbc.RowList.Column;
+ *
+ * FixtureImporter importer = FixtureImporter.of(
+ *   Column(Integer.class, "id"),
+ *   Column(String.class, "name").withNullable(true));
+ *
+ * ColumnarRowList rows1 = importer.csv(new File("fixture.csv"));
+ * ColumnarRowList rows2 = importer.jsonLines(new File("fixture.jsonl"));
+ * }
+ * </pre>
+ *
+ * The file is read as a stream of chunks (cut at record boundaries),
+ * parsed in parallel on a fork-join pool. At most two chunks per worker
+ * are pending at a time, so the memory used to read the file is bounded,
+ * and the parsed chunks are appended in order to a single
+ * {@link ColumnarRowList.Builder}.
+ *
+ * For CSV, fields are separated by `,` (by default), and can be quoted
+ * with `"` (a quote is escaped as `""`); an empty field is null,
+ * unless quoted. By default, the first record is a header,
+ * naming the columns of the fields. The blank lines are skipped,
+ * except with a single field per record, where an empty line
+ * is a null value.
+ *
+ * For JSON lines, each line is an object, whose properties are
+ * the column values (string, number, boolean or null);
+ * a missing property is null.
+ *
+ * Supported column classes are {@link String}, {@link Integer},
+ * {@link Long}, {@link Short}, {@link Byte}, {@link Double},
+ * {@link Float}, {@link Boolean}, {@link BigDecimal},
+ * {@link Date} (`yyyy-mm-dd`), {@link Time} (`hh:mm:ss`)
+ * and {@link Timestamp} (`yyyy-mm-dd hh:mm:ss[.f...]`).
+ *
+ * @author Cedric Chantepie
+ */
+public final class FixtureImporter {
+    // --- Shared ---
+
+    /**
+     * Default chunk size (in bytes)
+     */
+    private static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    /**
+     * Fixture charset
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // Value kinds
+    private static final int STRING = 0;
+    private static final int INT = 1;
+    private static final int LONG = 2;
+    private static final int SHORT = 3;
+    private static final int BYTE = 4;
+    private static final int DOUBLE = 5;
+    private static final int FLOAT = 6;
+    private static final int BOOLEAN = 7;
+    private static final int DECIMAL = 8;
+    private static final int DATE = 9;
+    private static final int TIME = 10;
+    private static final int TIMESTAMP = 11;
+
+    // --- Properties ---
+
+    /**
+     * Column definitions
+     */
+    private final Column<?>[] columns;
+
+    /**
+     * Value kind of each column
+     */
+    private final int[] kinds;
+
+    /**
+     * CSV separator
+     */
+    private final char separator;
+
+    /**
+     * Whether the CSV files start with a header
+     */
+    private final boolean header;
+
+    /**
+     * Chunk size
+     */
+    private final int chunkSize;
+
+    /**
+     * Parsing pool
+     */
+    private final ForkJoinPool pool;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private FixtureImporter(final Column<?>[] columns,
+                            final int[] kinds,
+                            final char separator,
+                            final boolean header,
+                            final int chunkSize,
+                            final ForkJoinPool pool) {
+
+        this.columns = columns;
+        this.kinds = kinds;
+        this.separator = separator;
+        this.header = header;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns an importer for given |columns|,
+     * using the common fork-join pool.
+     *
+     * @param columns the column definitions
+     * @return New importer
+     * @throws IllegalArgumentException if no column is given,
+     * or if a column class is not supported
+     */
+    public static FixtureImporter of(final Column<?>... columns) {
+        if (columns == null || columns.length == 0) {
+            throw new IllegalArgumentException("No column");
+        } // end of if
+
+        final int[] kinds = new int[columns.length];
+
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == null) {
+                throw new IllegalArgumentException("Missing column #" +
+                                                   (i + 1));
+
+            } // end of if
+
+            kinds[i] = kind(columns[i].columnClass);
+        } // end of for
+
+        return new FixtureImporter(columns.clone(), kinds, ',', true,
+                                   DEFAULT_CHUNK_SIZE,
+                                   ForkJoinPool.commonPool());
+
+    } // end of of
+
+    /**
+     * Returns an importer using given CSV |separator|.
+     *
+     * @param separator the field separator (e.g. `;`)
+     * @return New importer
+     * @throws IllegalArgumentException if separator is a quote or a newline
+     */
+    public FixtureImporter withSeparator(final char separator) {
+        if (separator == '"' || separator == '\n' || separator == '\r') {
+            throw new IllegalArgumentException("Invalid separator: " +
+                                               separator);
+
+        } // end of if
+
+        return new FixtureImporter(this.columns, this.kinds, separator,
+                                   this.header, this.chunkSize, this.pool);
+
+    } // end of withSeparator
+
+    /**
+     * Returns an importer whose CSV files start with a header or not.
+     * Without header, the fields are mapped to the columns by position.
+     *
+     * @param header whether there is a header
+     * @return New importer
+     */
+    public FixtureImporter withHeader(final boolean header) {
+        return new FixtureImporter(this.columns, this.kinds, this.separator,
+                                   header, this.chunkSize, this.pool);
+
+    } // end of withHeader
+
+    /**
+     * Returns an importer reading the files by chunks of given |size|
+     * (grown if a record is larger).
+     *
+     * @param size the chunk size, in bytes
+     * @return New importer
+     * @throws IllegalArgumentException if size is not strictly positive
+     */
+    public FixtureImporter withChunkSize(final int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Invalid chunk size: " + size);
+        } // end of if
+
+        return new FixtureImporter(this.columns, this.kinds, this.separator,
+                                   this.header, size, this.pool);
+
+    } // end of withChunkSize
+
+    /**
+     * Returns an importer parsing the chunks on given |pool|.
+     *
+     * @param pool the fork-join pool
+     * @return New importer
+     */
+    public FixtureImporter withPool(final ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("No pool");
+        } // end of if
+
+        return new FixtureImporter(this.columns, this.kinds, this.separator,
+                                   this.header, this.chunkSize, pool);
+
+    } // end of withPool
+
+    /**
+     * Imports the CSV |file|.
+     *
+     * @param file the CSV file (UTF-8)
+     * @return Imported rows
+     * @throws IOException if fails to read the file, or if it's not valid
+     */
+    public ColumnarRowList csv(final File file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+
+        try {
+            return csv(in);
+        } finally {
+            in.close();
+        } // end of finally
+    } // end of csv
+
+    /**
+     * Imports CSV records from the |in|put stream (not closed).
+     *
+     * @param in the CSV input (UTF-8)
+     * @return Imported rows
+     * @throws IOException if fails to read the input, or if it's not valid
+     */
+    public ColumnarRowList csv(final InputStream in) throws IOException {
+        return importRows(in, true);
+    } // end of csv
+
+    /**
+     * Imports the JSON lines |file|.
+     *
+     * @param file the JSON lines file (UTF-8)
+     * @return Imported rows
+     * @throws IOException if fails to read the file, or if it's not valid
+     */
+    public ColumnarRowList jsonLines(final File file) throws IOException {
+        final InputStream in = new FileInputStream(file);
+
+        try {
+            return jsonLines(in);
+        } finally {
+            in.close();
+        } // end of finally
+    } // end of jsonLines
+
+    /**
+     * Imports JSON lines from the |in|put stream (not closed).
+     *
+     * @param in the JSON lines input (UTF-8)
+     * @return Imported rows
+     * @throws IOException if fails to read the input, or if it's not valid
+     */
+    public ColumnarRowList jsonLines(final InputStream in) throws IOException {
+        return importRows(in, false);
+    } // end of jsonLines
+
+    /**
+     * Reads the input by chunks, submitting the parsing of each one,
+     * and appends the parsed rows in order.
+     *
+     * @param csv true if CSV, or false if JSON lines
+     */
+    private ColumnarRowList importRows(final InputStream in,
+                                       final boolean csv) throws IOException {
+
+        final ColumnarRowList.Builder builder =
+            ColumnarRowList.empty(this.columns).builder();
+
+        final ArrayDeque<ForkJoinTask<List<Object[]>>> pending =
+            new ArrayDeque<ForkJoinTask<List<Object[]>>>();
+
+        final int maxPending = 2 * this.pool.getParallelism();
+
+        int[] mapping = null;
+        byte[] buf = new byte[this.chunkSize];
+        int len = 0;
+        long line = 1;
+        boolean eof = false;
+
+        if (!csv || !this.header) {
+            mapping = new int[this.columns.length];
+
+            for (int i = 0; i < mapping.length; i++) {
+                mapping[i] = i;
+            } // end of for
+        } // end of if
+
+        try {
+            while (!eof || len > 0) {
+                while (!eof && len < buf.length) {
+                    final int r = in.read(buf, len, buf.length - len);
+
+                    if (r == -1) {
+                        eof = true;
+                    } else {
+                        len += r;
+                    } // end of else
+                } // end of while
+
+                if (len == 0) {
+                    break; // empty input
+                } // end of if
+
+                if (csv && mapping == null) {
+                    final int end = boundary(buf, len, true, true);
+
+                    if (end == -1 && !eof) {
+                        buf = Arrays.copyOf(buf, buf.length * 2);
+                        continue;
+                    } // end of if
+
+                    final int h = (end == -1) ? len : end;
+
+                    mapping = header(new String(buf, 0, h, UTF8));
+                    line += newlines(buf, 0, h);
+                    len -= h;
+
+                    System.arraycopy(buf, h, buf, 0, len);
+                    continue;
+                } // end of if
+
+                final int end = eof ? len : boundary(buf, len, csv, false);
+
+                if (end == -1) { // record larger than the buffer
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    continue;
+                } // end of if
+
+                final String text = new String(buf, 0, end, UTF8);
+                final long first = line;
+                final int[] m = mapping;
+
+                line += newlines(buf, 0, end);
+                len -= end;
+
+                System.arraycopy(buf, end, buf, 0, len);
+
+                if (pending.size() >= maxPending) {
+                    append(builder, pending.removeFirst());
+                } // end of if
+
+                pending.addLast(this.pool.submit(ForkJoinTask.adapt(new Callable<List<Object[]>>() {
+                        public List<Object[]> call() throws IOException {
+                            return csv ? parseCsv(text, first, m)
+                                : parseJson(text, first);
+                        }
+                    })));
+            } // end of while
+
+            while (!pending.isEmpty()) {
+                append(builder, pending.removeFirst());
+            } // end of while
+        } finally {
+            for (final ForkJoinTask<?> t : pending) {
+                t.cancel(true);
+            } // end of for
+        } // end of finally
+
+        return builder.build();
+    } // end of importRows
+
+    /**
+     * Waits for the parsed |task|, and appends its rows to the |builder|.
+     */
+    private static void append(final ColumnarRowList.Builder builder,
+                               final ForkJoinTask<List<Object[]>> task)
+        throws IOException {
+
+        final List<Object[]> rows;
+
+        try {
+            rows = task.get();
+        } catch (InterruptedException e) {
+            throw new java.io.InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            while (cause != null) { // unwrap from the fork-join task
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                } // end of if
+
+                cause = cause.getCause();
+            } // end of while
+
+            throw new IOException("Fails to parse fixture", e.getCause());
+        } // end of catch
+
+        for (final Object[] row : rows) {
+            builder.append(row);
+        } // end of for
+    } // end of append
+
+    /**
+     * Returns the index following the first or |last| newline
+     * of the buffer |b| (ignoring the quoted ones if |csv|),
+     * or -1 if there is none.
+     */
+    private static int boundary(final byte[] b, final int len,
+                                final boolean csv, final boolean first) {
+
+        int end = -1;
+        boolean quoted = false;
+
+        for (int i = 0; i < len; i++) {
+            final byte c = b[i];
+
+            if (csv && c == '"') {
+                quoted = !quoted;
+            } else if (c == '\n' && !quoted) {
+                end = i + 1;
+
+                if (first) {
+                    break;
+                } // end of if
+            } // end of else if
+        } // end of for
+
+        return end;
+    } // end of boundary
+
+    /**
+     * Returns the number of newlines in |b|, from |off| to |end|.
+     */
+    private static int newlines(final byte[] b, final int off, final int end) {
+        int n = 0;
+
+        for (int i = off; i < end; i++) {
+            if (b[i] == '\n') {
+                n++;
+            } // end of if
+        } // end of for
+
+        return n;
+    } // end of newlines
+
+    /**
+     * Returns the mapping from the CSV field positions,
+     * to the column indexes (or -1 for the unknown fields).
+     */
+    private int[] header(final String text) {
+        final List<String> fields = new ArrayList<String>();
+
+        csvRecord(text, 0, fields);
+
+        final Map<String,Integer> names = new HashMap<String,Integer>();
+
+        for (int i = 0; i < this.columns.length; i++) {
+            names.put(this.columns[i].name, i);
+        } // end of for
+
+        final int[] mapping = new int[fields.size()];
+
+        for (int i = 0; i < mapping.length; i++) {
+            final String f = fields.get(i);
+            final Integer idx = (f == null) ? null : names.get(f.trim());
+
+            mapping[i] = (idx == null) ? -1 : idx;
+        } // end of for
+
+        return mapping;
+    } // end of header
+
+    /**
+     * Parses the CSV records of the chunk |text|.
+     *
+     * @param line the number of the first line of the chunk
+     * @param mapping the mapping from field positions to column indexes
+     */
+    private List<Object[]> parseCsv(final String text,
+                                    final long line,
+                                    final int[] mapping) throws IOException {
+
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        final List<String> fields = new ArrayList<String>(mapping.length);
+        final int len = text.length();
+
+        int pos = 0;
+        long l = line;
+
+        while (pos < len) {
+            final int start = pos;
+            final int blank = (mapping.length > 1) ? blankLine(text, pos) : -1;
+
+            if (blank != -1) {
+                pos = blank;
+                l++;
+                continue;
+            } // end of if
+
+            fields.clear();
+            pos = csvRecord(text, pos, fields);
+
+            final Object[] row = new Object[this.columns.length];
+
+            for (int i = 0; i < fields.size(); i++) {
+                final int c = (i < mapping.length) ? mapping[i] : -1;
+
+                if (c != -1) {
+                    row[c] = value(c, fields.get(i), l);
+                } // end of if
+            } // end of for
+
+            rows.add(row);
+
+            for (int i = start; i < pos; i++) {
+                if (text.charAt(i) == '\n') {
+                    l++;
+                } // end of if
+            } // end of for
+        } // end of while
+
+        return rows;
+    } // end of parseCsv
+
+    /**
+     * Returns the position following the line starting at |pos| in |text|,
+     * if it's blank (only whitespaces, other than the separator),
+     * or -1 otherwise.
+     */
+    private int blankLine(final String text, final int pos) {
+        final int len = text.length();
+
+        for (int i = pos; i < len; i++) {
+            final char c = text.charAt(i);
+
+            if (c == '\n') {
+                return i + 1;
+            } else if (c == this.separator || !Character.isWhitespace(c)) {
+                return -1;
+            } // end of else if
+        } // end of for
+
+        return len;
+    } // end of blankLine
+
+    /**
+     * Reads the CSV record from |pos| in |text|, and adds its |fields|
+     * (null if empty and not quoted).
+     *
+     * @return the position following the record
+     */
+    private int csvRecord(final String text, final int pos,
+                          final List<String> fields) {
+
+        final int len = text.length();
+        final StringBuilder buf = new StringBuilder();
+
+        int i = pos;
+        boolean quoted = false;
+        boolean wasQuoted = false;
+
+        while (i < len) {
+            final char c = text.charAt(i++);
+
+            if (quoted) {
+                if (c != '"') {
+                    buf.append(c);
+                } else if (i < len && text.charAt(i) == '"') {
+                    buf.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                } // end of else
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == this.separator) {
+                fields.add(field(buf, wasQuoted));
+                buf.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                buf.append(c);
+            } // end of else if
+        } // end of while
+
+        fields.add(field(buf, wasQuoted));
+
+        return i;
+    } // end of csvRecord
+
+    /**
+     * Returns the field value.
+     */
+    private static String field(final StringBuilder buf,
+                                final boolean quoted) {
+
+        return (buf.length() == 0 && !quoted) ? null : buf.toString();
+    } // end of field
+
+    /**
+     * Parses the JSON lines of the chunk |text|.
+     *
+     * @param line the number of the first line of the chunk
+     */
+    private List<Object[]> parseJson(final String text, final long line)
+        throws IOException {
+
+        final Map<String,Integer> names = new HashMap<String,Integer>();
+
+        for (int i = 0; i < this.columns.length; i++) {
+            names.put(this.columns[i].name, i);
+        } // end of for
+
+        final List<Object[]> rows = new ArrayList<Object[]>();
+        final int len = text.length();
+
+        int pos = 0;
+        long l = line;
+
+        while (pos < len) {
+            int end = text.indexOf('\n', pos);
+
+            if (end == -1) {
+                end = len;
+            } // end of if
+
+            final String json = text.substring(pos, end).trim();
+
+            if (json.length() > 0) {
+                rows.add(jsonObject(json, names, l));
+            } // end of if
+
+            pos = end + 1;
+            l++;
+        } // end of while
+
+        return rows;
+    } // end of parseJson
+
+    /**
+     * Parses the |json| object as row.
+     */
+    private Object[] jsonObject(final String json,
+                                final Map<String,Integer> names,
+                                final long line) throws IOException {
+
+        final Object[] row = new Object[this.columns.length];
+        final int[] pos = new int[] { 0 };
+        final String[] token = new String[1];
+
+        if (next(json, pos) != '{') {
+            throw invalid(line, "JSON object expected");
+        } // end of if
+
+        pos[0]++;
+
+        if (next(json, pos) == '}') {
+            return row;
+        } // end of if
+
+        while (true) {
+            if (next(json, pos) != '"' || !jsonToken(json, pos, token, line)) {
+                throw invalid(line, "JSON property expected");
+            } // end of if
+
+            final Integer c = names.get(token[0]);
+
+            if (next(json, pos) != ':') {
+                throw invalid(line, "':' expected");
+            } // end of if
+
+            pos[0]++;
+            next(json, pos);
+
+            final boolean str = jsonToken(json, pos, token, line);
+
+            if (c != null && (str || !"null".equals(token[0]))) {
+                row[c] = value(c, token[0], line);
+            } // end of if
+
+            final char sep = next(json, pos);
+
+            pos[0]++;
+
+            if (sep == '}') {
+                break;
+            } else if (sep != ',') {
+                throw invalid(line, "',' or '}' expected");
+            } // end of else if
+        } // end of while
+
+        if (next(json, pos) != 0) {
+            throw invalid(line, "Unexpected content after JSON object");
+        } // end of if
+
+        return row;
+    } // end of jsonObject
+
+    /**
+     * Skips the whitespaces, and returns the next character (or 0).
+     */
+    private static char next(final String json, final int[] pos) {
+        while (pos[0] < json.length()) {
+            final char c = json.charAt(pos[0]);
+
+            if (!Character.isWhitespace(c)) {
+                return c;
+            } // end of if
+
+            pos[0]++;
+        } // end of while
+
+        return 0;
+    } // end of next
+
+    /**
+     * Reads a JSON string or scalar literal at |pos|, into the |token|.
+     *
+     * @return true if a string, or false if a literal
+     */
+    private static boolean jsonToken(final String json, final int[] pos,
+                                     final String[] token, final long line)
+        throws IOException {
+
+        final int len = json.length();
+        int i = pos[0];
+
+        if (i < len && json.charAt(i) == '"') {
+            final StringBuilder buf = new StringBuilder();
+
+            i++;
+
+            while (true) {
+                if (i >= len) {
+                    throw invalid(line, "Unterminated JSON string");
+                } // end of if
+
+                final char c = json.charAt(i++);
+
+                if (c == '"') {
+                    break;
+                } else if (c != '\\') {
+                    buf.append(c);
+                } else if (i >= len) {
+                    throw invalid(line, "Unterminated JSON string");
+                } else {
+                    final char e = json.charAt(i++);
+
+                    switch (e) {
+                    case 'b': buf.append('\b'); break;
+                    case 'f': buf.append('\f'); break;
+                    case 'n': buf.append('\n'); break;
+                    case 'r': buf.append('\r'); break;
+                    case 't': buf.append('\t'); break;
+                    case 'u':
+                        if (i + 4 > len) {
+                            throw invalid(line, "Invalid JSON escape");
+                        } // end of if
+
+                        try {
+                            buf.append((char) Integer.
+                                       parseInt(json.substring(i, i + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw invalid(line, "Invalid JSON escape");
+                        } // end of catch
+
+                        i += 4;
+                        break;
+
+                    default: buf.append(e);
+                    } // end of switch
+                } // end of else
+            } // end of while
+
+            token[0] = buf.toString();
+            pos[0] = i;
+
+            return true;
+        } // end of if
+
+        // ---
+
+        final int start = i;
+
+        while (i < len) {
+            final char c = json.charAt(i);
+
+            if (c == ',' || c == '}' || Character.isWhitespace(c)) {
+                break;
+            } // end of if
+
+            if (c == '{' || c == '[') {
+                throw invalid(line, "Unsupported JSON value");
+            } // end of if
+
+            i++;
+        } // end of while
+
+        if (i == start) {
+            throw invalid(line, "JSON value expected");
+        } // end of if
+
+        token[0] = json.substring(start, i);
+        pos[0] = i;
+
+        return false;
+    } // end of jsonToken
+
+    /**
+     * Returns the value of column |c| parsed from |text|.
+     */
+    private Object value(final int c, final String text, final long line)
+        throws IOException {
+
+        if (text == null) {
+            return null;
+        } // end of if
+
+        final int kind = this.kinds[c];
+
+        if (kind == STRING) {
+            return text;
+        } // end of if
+
+        final String t = text.trim();
+
+        if (t.length() == 0) {
+            return null;
+        } // end of if
+
+        try {
+            switch (kind) {
+            case INT: return Integer.valueOf(t);
+            case LONG: return Long.valueOf(t);
+            case SHORT: return Short.valueOf(t);
+            case BYTE: return Byte.valueOf(t);
+            case DOUBLE: return Double.valueOf(t);
+            case FLOAT: return Float.valueOf(t);
+            case DECIMAL: return new BigDecimal(t);
+            case DATE: return Date.valueOf(t);
+            case TIME: return Time.valueOf(t);
+            case TIMESTAMP: return Timestamp.valueOf(t);
+
+            default: // BOOLEAN
+                if ("true".equalsIgnoreCase(t)) {
+                    return Boolean.TRUE;
+                } else if ("false".equalsIgnoreCase(t)) {
+                    return Boolean.FALSE;
+                } // end of else if
+
+                throw new IllegalArgumentException();
+            } // end of switch
+        } catch (IllegalArgumentException e) {
+            throw invalid(line, "Invalid value for column #" + (c + 1) +
+                          ": " + text);
+
+        } // end of catch
+    } // end of value
+
+    /**
+     * Returns the value kind for given column class.
+     *
+     * @throws IllegalArgumentException if the class is not supported
+     */
+    private static int kind(final Class<?> cls) {
+        if (String.class.equals(cls)) {
+            return STRING;
+        } else if (Integer.class.equals(cls)) {
+            return INT;
+        } else if (Long.class.equals(cls)) {
+            return LONG;
+        } else if (Short.class.equals(cls)) {
+            return SHORT;
+        } else if (Byte.class.equals(cls)) {
+            return BYTE;
+        } else if (Double.class.equals(cls)) {
+            return DOUBLE;
+        } else if (Float.class.equals(cls)) {
+            return FLOAT;
+        } else if (Boolean.class.equals(cls)) {
+            return BOOLEAN;
+        } else if (BigDecimal.class.equals(cls)) {
+            return DECIMAL;
+        } else if (Date.class.equals(cls)) {
+            return DATE;
+        } else if (Time.class.equals(cls)) {
+            return TIME;
+        } else if (Timestamp.class.equals(cls)) {
+            return TIMESTAMP;
+        } // end of else if
+
+        throw new IllegalArgumentException("Unsupported column class: " +
+                                           cls.getName());
+
+    } // end of kind
+
+    /**
+     * Returns an exception for invalid content at given |line|.
+     */
+    private static IOException invalid(final long line, final String msg) {
+        return new IOException("Invalid fixture (line " + line + "): " + msg);
+    } // end of invalid
+} // end of class FixtureImporter
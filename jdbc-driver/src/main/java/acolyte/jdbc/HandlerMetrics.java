@@ -0,0 +1,852 @@
+package acolyte.jdbc;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionStage;
+
+import java.util.function.BiConsumer;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.JMException;
+
+/**
+ * Metrics of the handlers, recorded by instrumenting them:
+ * per SQL fingerprint, the execution counts, the latency
+ * histogram of the statement handler, the row and update counts,
+ * and the count of failed executions (exception thrown,
+ * or result with an exception);
+ * also the commit and rollback counts of the resource handler.
+ *
+ * <pre>
+ * {@code
+ * HandlerMetrics metrics = new HandlerMetrics();
+ * Connection con = Driver.connection(metrics.instrument(handler));
+ *
+ * // ... then
+ * HandlerMetrics.Snapshot snapshot = metrics.snapshot();
+ * StatementMetrics m = snapshot.getStatement("SELECT * FROM test");
+ * long p99 = m.getLatency().getValueAtPercentile(99D);
+ *
+ * // Can also be exposed through JMX
+ * metrics.registerMBean("my-tests");
+ * }
+ * </pre>
+ *
+ * The metrics are recorded without lock, so that the instrumented
+ * handlers can be used concurrently. A snapshot is consistent
+ * per statement counter, but not across them.
+ *
+ * An asynchronous handler is still one once instrumented
+ * (and so a batch handler), its executions being recorded
+ * when their results are completed.
+ *
+ * @author Cedric Chantepie
+ */
+public final class HandlerMetrics implements HandlerMetricsMXBean {
+    // --- Properties ---
+
+    /**
+     * Metrics per SQL fingerprint
+     */
+    private final ConcurrentHashMap<String,Recorder> statements =
+        new ConcurrentHashMap<String,Recorder>();
+
+    /**
+     * Commit count
+     */
+    private final LongAdder commits = new LongAdder();
+
+    /**
+     * Rollback count
+     */
+    private final LongAdder rollbacks = new LongAdder();
+
+    // ---
+
+    /**
+     * Returns the connection |handler| instrumented
+     * (both statement and resource handlers).
+     *
+     * @param handler the connection handler
+     * @return Instrumented handler
+     */
+    public ConnectionHandler instrument(final ConnectionHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("No connection handler");
+        } // end of if
+
+        return new InstrumentedConnectionHandler(this,
+            instrument(handler.getStatementHandler()),
+            instrument(handler.getResourceHandler()));
+
+    } // end of instrument
+
+    /**
+     * Returns the statement |handler| instrumented
+     * (still an {@link AsyncStatementHandler}
+     * and/or a {@link BatchStatementHandler} if it's one).
+     *
+     * @param handler the statement handler
+     * @return Instrumented handler
+     */
+    public StatementHandler instrument(final StatementHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("No statement handler");
+        } // end of if
+
+        final boolean batch = (handler instanceof BatchStatementHandler);
+
+        if (handler instanceof AsyncStatementHandler) {
+            return batch
+                ? new InstrumentedAsyncBatchHandler(this, handler)
+                : new InstrumentedAsyncHandler(this, handler);
+
+        } // end of if
+
+        if (batch) {
+            return new InstrumentedBatchHandler(this, handler);
+        } // end of if
+
+        return new InstrumentedStatementHandler(this, handler);
+    } // end of instrument
+
+    /**
+     * Returns the resource |handler| instrumented
+     * (still a {@link SavepointHandler} if it's one).
+     *
+     * @param handler the resource handler
+     * @return Instrumented handler
+     */
+    public ResourceHandler instrument(final ResourceHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("No resource handler");
+        } // end of if
+
+        if (handler instanceof SavepointHandler) {
+            return new InstrumentedSavepointHandler(this,
+                                                    (SavepointHandler) handler);
+
+        } // end of if
+
+        return new InstrumentedResourceHandler(this, handler);
+    } // end of instrument
+
+    /**
+     * Returns a snapshot of the current metrics.
+     *
+     * @return Metrics snapshot
+     */
+    public Snapshot snapshot() {
+        final ArrayList<StatementMetrics> stmts =
+            new ArrayList<StatementMetrics>(this.statements.size());
+
+        for (final Map.Entry<String,Recorder> e : this.statements.entrySet()) {
+            stmts.add(e.getValue().snapshot(e.getKey()));
+        } // end of for
+
+        Collections.sort(stmts, new Comparator<StatementMetrics>() {
+                public int compare(final StatementMetrics a,
+                                   final StatementMetrics b) {
+
+                    final long x = a.getLatency().getTotal();
+                    final long y = b.getLatency().getTotal();
+
+                    return (x > y) ? -1 : ((x == y) ? 0 : 1);
+                }
+            });
+
+        return new Snapshot(stmts, this.commits.sum(), this.rollbacks.sum());
+    } // end of snapshot
+
+    /**
+     * Registers these metrics as MBean in the platform server,
+     * with name `acolyte.jdbc:type=HandlerMetrics,name=<name>`.
+     *
+     * @param name the name of the metrics
+     * @return the name of the registered MBean
+     * @throws JMException if fails to register the MBean
+     * (e.g. already registered)
+     */
+    public ObjectName registerMBean(final String name) throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName on = new ObjectName("acolyte.jdbc:type=HandlerMetrics,name=" + ObjectName.quote(name));
+
+        server.registerMBean(this, on);
+
+        return on;
+    } // end of registerMBean
+
+    // --- HandlerMetricsMXBean impl ---
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getStatementCount() {
+        return this.statements.size();
+    } // end of getStatementCount
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getExecutions() {
+        long n = 0L;
+
+        for (final Recorder r : this.statements.values()) {
+            n += r.latency.getCount();
+        } // end of for
+
+        return n;
+    } // end of getExecutions
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getErrors() {
+        long n = 0L;
+
+        for (final Recorder r : this.statements.values()) {
+            n += r.errors.sum();
+        } // end of for
+
+        return n;
+    } // end of getErrors
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getTotalTime() {
+        long n = 0L;
+
+        for (final Recorder r : this.statements.values()) {
+            n += r.latency.getTotal();
+        } // end of for
+
+        return n;
+    } // end of getTotalTime
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getCommits() {
+        return this.commits.sum();
+    } // end of getCommits
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getRollbacks() {
+        return this.rollbacks.sum();
+    } // end of getRollbacks
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<StatementMetrics> getStatements() {
+        return snapshot().getStatements();
+    } // end of getStatements
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getLatencyPercentile(final String sql,
+                                     final double percentile) {
+
+        final Recorder r = (sql == null) ? null
+            : this.statements.get(SqlFingerprint.of(sql));
+
+        return (r == null) ? -1L : r.latency.getValueAtPercentile(percentile);
+    } // end of getLatencyPercentile
+
+    /**
+     * {@inheritDoc}
+     */
+    public void reset() {
+        this.statements.clear();
+        this.commits.reset();
+        this.rollbacks.reset();
+    } // end of reset
+
+    // ---
+
+    /**
+     * Returns the recorder for the |sql| statement.
+     */
+    Recorder recorder(final String sql) {
+        final String key = SqlFingerprint.of(sql);
+        final Recorder r = this.statements.get(key);
+
+        if (r != null) {
+            return r;
+        } // end of if
+
+        final Recorder created = new Recorder();
+        final Recorder prev = this.statements.putIfAbsent(key, created);
+
+        return (prev == null) ? created : prev;
+    } // end of recorder
+
+    // --- Inner classes ---
+
+    /**
+     * Snapshot of the metrics.
+     */
+    public static final class Snapshot {
+        private final List<StatementMetrics> statements;
+        private final Map<String,StatementMetrics> bySql;
+        private final long commits;
+        private final long rollbacks;
+
+        /**
+         * Bulk constructor.
+         */
+        Snapshot(final List<StatementMetrics> statements,
+                 final long commits,
+                 final long rollbacks) {
+
+            final HashMap<String,StatementMetrics> bySql =
+                new HashMap<String,StatementMetrics>(statements.size());
+
+            for (final StatementMetrics m : statements) {
+                bySql.put(m.getSql(), m);
+            } // end of for
+
+            this.statements = Collections.unmodifiableList(statements);
+            this.bySql = bySql;
+            this.commits = commits;
+            this.rollbacks = rollbacks;
+        } // end of <init>
+
+        /**
+         * Returns the metrics of each statement.
+         *
+         * @return Statement metrics, the most time consuming first
+         */
+        public List<StatementMetrics> getStatements() {
+            return this.statements;
+        } // end of getStatements
+
+        /**
+         * Returns the metrics of the |sql| statement
+         * (fingerprinted, so that formatting and literal differences
+         * are ignored).
+         *
+         * @param sql the SQL statement
+         * @return Statement metrics, or null if not executed
+         */
+        public StatementMetrics getStatement(final String sql) {
+            if (sql == null) {
+                return null;
+            } // end of if
+
+            return this.bySql.get(SqlFingerprint.of(sql));
+        } // end of getStatement
+
+        /**
+         * Returns the number of committed transactions.
+         *
+         * @return Commit count
+         */
+        public long getCommits() {
+            return this.commits;
+        } // end of getCommits
+
+        /**
+         * Returns the number of rollbacked transactions.
+         *
+         * @return Rollback count
+         */
+        public long getRollbacks() {
+            return this.rollbacks;
+        } // end of getRollbacks
+    } // end of class Snapshot
+
+    /**
+     * Metrics recorder for a statement.
+     */
+    static final class Recorder {
+        final LongAdder queries = new LongAdder();
+        final LongAdder updates = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder rows = new LongAdder();
+        final LongAdder updateCount = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        /**
+         * Returns the snapshot of the metrics for |sql|.
+         */
+        StatementMetrics snapshot(final String sql) {
+            return new StatementMetrics(sql, this.queries.sum(),
+                                        this.updates.sum(), this.errors.sum(),
+                                        this.rows.sum(),
+                                        this.updateCount.sum(),
+                                        this.latency.snapshot());
+
+        } // end of snapshot
+    } // end of class Recorder
+
+    /**
+     * Instrumented statement handler.
+     */
+    private static class InstrumentedStatementHandler
+        implements StatementHandler {
+
+        final HandlerMetrics metrics;
+        final StatementHandler handler;
+
+        InstrumentedStatementHandler(final HandlerMetrics metrics,
+                                     final StatementHandler handler) {
+
+            this.metrics = metrics;
+            this.handler = handler;
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public QueryResult whenSQLQuery(final String sql,
+                                        final List<Parameter> parameters)
+            throws SQLException {
+
+            final Recorder r = this.metrics.recorder(sql);
+            final long start = System.nanoTime();
+            boolean done = false;
+
+            try {
+                final QueryResult res =
+                    this.handler.whenSQLQuery(sql, parameters);
+
+                done = true;
+
+                queried(r, start, res);
+
+                return res;
+            } finally {
+                if (!done) {
+                    failed(r, start);
+                } // end of if
+            } // end of finally
+        } // end of whenSQLQuery
+
+        /**
+         * {@inheritDoc}
+         */
+        public UpdateResult whenSQLUpdate(final String sql,
+                                          final List<Parameter> parameters)
+            throws SQLException {
+
+            final Recorder r = this.metrics.recorder(sql);
+            final long start = System.nanoTime();
+            boolean done = false;
+
+            try {
+                final UpdateResult res =
+                    this.handler.whenSQLUpdate(sql, parameters);
+
+                done = true;
+
+                updated(r, start, res);
+
+                return res;
+            } finally {
+                if (!done) {
+                    failed(r, start);
+                } // end of if
+            } // end of finally
+        } // end of whenSQLUpdate
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean isQuery(final String sql) {
+            return this.handler.isQuery(sql);
+        } // end of isQuery
+
+        // ---
+
+        /**
+         * Returns the stage of the query result
+         * from the underlying asynchronous handler,
+         * recording the metrics once it's completed.
+         *
+         * @see AsyncStatementHandler#whenSQLQueryAsync
+         */
+        final CompletionStage<QueryResult> queryAsync(final String sql, final List<Parameter> parameters) {
+            final Recorder r = this.metrics.recorder(sql);
+            final long start = System.nanoTime();
+            boolean done = false;
+
+            try {
+                final CompletionStage<QueryResult> stage =
+                    ((AsyncStatementHandler) this.handler).
+                    whenSQLQueryAsync(sql, parameters);
+
+                done = true;
+
+                // Returned as is, so that it can still be cancelled
+                stage.whenComplete(new BiConsumer<QueryResult,Throwable>() {
+                        public void accept(final QueryResult res,
+                                           final Throwable cause) {
+
+                            if (cause != null) {
+                                failed(r, start);
+                            } else {
+                                queried(r, start, res);
+                            } // end of else
+                        }
+                    });
+
+                return stage;
+            } finally {
+                if (!done) {
+                    failed(r, start);
+                } // end of if
+            } // end of finally
+        } // end of queryAsync
+
+        /**
+         * Returns the stage of the update result
+         * from the underlying asynchronous handler,
+         * recording the metrics once it's completed.
+         *
+         * @see AsyncStatementHandler#whenSQLUpdateAsync
+         */
+        final CompletionStage<UpdateResult> updateAsync(final String sql, final List<Parameter> parameters) {
+            final Recorder r = this.metrics.recorder(sql);
+            final long start = System.nanoTime();
+            boolean done = false;
+
+            try {
+                final CompletionStage<UpdateResult> stage =
+                    ((AsyncStatementHandler) this.handler).
+                    whenSQLUpdateAsync(sql, parameters);
+
+                done = true;
+
+                // Returned as is, so that it can still be cancelled
+                stage.whenComplete(new BiConsumer<UpdateResult,Throwable>() {
+                        public void accept(final UpdateResult res,
+                                           final Throwable cause) {
+
+                            if (cause != null) {
+                                failed(r, start);
+                            } else {
+                                updated(r, start, res);
+                            } // end of else
+                        }
+                    });
+
+                return stage;
+            } finally {
+                if (!done) {
+                    failed(r, start);
+                } // end of if
+            } // end of finally
+        } // end of updateAsync
+
+        /**
+         * Executes the whole batch using the underlying batch handler,
+         * recording each element as an update.
+         *
+         * @see BatchStatementHandler#whenSQLBatch
+         */
+        final int[] batch(final String sql, final Parameter[][] parameters)
+            throws SQLException {
+
+            final Recorder r = this.metrics.recorder(sql);
+            final long start = System.nanoTime();
+            boolean done = false;
+
+            try {
+                final int[] counts = ((BatchStatementHandler) this.handler).
+                    whenSQLBatch(sql, parameters);
+
+                done = true;
+
+                r.latency.record(System.nanoTime() - start);
+                r.updates.add(parameters.length);
+
+                if (counts != null) {
+                    for (final int c : counts) {
+                        if (c > 0) {
+                            r.updateCount.add(c);
+                        } // end of if
+                    } // end of for
+                } // end of if
+
+                return counts;
+            } finally {
+                if (!done) {
+                    failed(r, start);
+                } // end of if
+            } // end of finally
+        } // end of batch
+
+        /**
+         * Records the query |res|ult, as an error if it has an exception.
+         */
+        static void queried(final Recorder r,
+                            final long start,
+                            final QueryResult res) {
+
+            r.latency.record(System.nanoTime() - start);
+
+            if (res != null && res.getException() != null) {
+                r.errors.increment();
+                return;
+            } // end of if
+
+            r.queries.increment();
+
+            final RowList<?> rows = (res == null) ? null : res.getRowList();
+
+            if (rows != null && !(rows instanceof StreamingRowList)) {
+                r.rows.add(rows.getRows().size());
+            } // end of if
+        } // end of queried
+
+        /**
+         * Records the update |res|ult, as an error if it has an exception.
+         */
+        static void updated(final Recorder r,
+                            final long start,
+                            final UpdateResult res) {
+
+            r.latency.record(System.nanoTime() - start);
+
+            if (res != null && res.getException() != null) {
+                r.errors.increment();
+                return;
+            } // end of if
+
+            r.updates.increment();
+
+            if (res != null) {
+                r.updateCount.add(res.getUpdateCount());
+            } // end of if
+        } // end of updated
+
+        /**
+         * Records a failed execution.
+         */
+        static void failed(final Recorder r, final long start) {
+            r.latency.record(System.nanoTime() - start);
+            r.errors.increment();
+        } // end of failed
+    } // end of class InstrumentedStatementHandler
+
+    /**
+     * Instrumented asynchronous statement handler.
+     */
+    private static class InstrumentedAsyncHandler
+        extends InstrumentedStatementHandler
+        implements AsyncStatementHandler {
+
+        InstrumentedAsyncHandler(final HandlerMetrics metrics,
+                                 final StatementHandler handler) {
+
+            super(metrics, handler);
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public CompletionStage<QueryResult> whenSQLQueryAsync(final String sql, final List<Parameter> parameters) {
+            return queryAsync(sql, parameters);
+        } // end of whenSQLQueryAsync
+
+        /**
+         * {@inheritDoc}
+         */
+        public CompletionStage<UpdateResult> whenSQLUpdateAsync(final String sql, final List<Parameter> parameters) {
+            return updateAsync(sql, parameters);
+        } // end of whenSQLUpdateAsync
+    } // end of class InstrumentedAsyncHandler
+
+    /**
+     * Instrumented batch statement handler.
+     */
+    private static final class InstrumentedBatchHandler
+        extends InstrumentedStatementHandler
+        implements BatchStatementHandler {
+
+        InstrumentedBatchHandler(final HandlerMetrics metrics,
+                                 final StatementHandler handler) {
+
+            super(metrics, handler);
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public int[] whenSQLBatch(final String sql,
+                                  final Parameter[][] parameters)
+            throws SQLException {
+
+            return batch(sql, parameters);
+        } // end of whenSQLBatch
+    } // end of class InstrumentedBatchHandler
+
+    /**
+     * Instrumented handler, both asynchronous and batch one.
+     */
+    private static final class InstrumentedAsyncBatchHandler
+        extends InstrumentedAsyncHandler implements BatchStatementHandler {
+
+        InstrumentedAsyncBatchHandler(final HandlerMetrics metrics,
+                                      final StatementHandler handler) {
+
+            super(metrics, handler);
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public int[] whenSQLBatch(final String sql,
+                                  final Parameter[][] parameters)
+            throws SQLException {
+
+            return batch(sql, parameters);
+        } // end of whenSQLBatch
+    } // end of class InstrumentedAsyncBatchHandler
+
+    /**
+     * Instrumented resource handler.
+     */
+    private static class InstrumentedResourceHandler
+        implements ResourceHandler {
+
+        final HandlerMetrics metrics;
+        final ResourceHandler handler;
+
+        InstrumentedResourceHandler(final HandlerMetrics metrics,
+                                    final ResourceHandler handler) {
+
+            this.metrics = metrics;
+            this.handler = handler;
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public void whenCommitTransaction(final Connection connection)
+            throws SQLException {
+
+            this.metrics.commits.increment();
+            this.handler.whenCommitTransaction(connection);
+        } // end of whenCommitTransaction
+
+        /**
+         * {@inheritDoc}
+         */
+        public void whenRollbackTransaction(final Connection connection)
+            throws SQLException {
+
+            this.metrics.rollbacks.increment();
+            this.handler.whenRollbackTransaction(connection);
+        } // end of whenRollbackTransaction
+    } // end of class InstrumentedResourceHandler
+
+    /**
+     * Instrumented savepoint handler (savepoints not counted).
+     */
+    private static final class InstrumentedSavepointHandler
+        extends InstrumentedResourceHandler implements SavepointHandler {
+
+        final SavepointHandler savepoints;
+
+        InstrumentedSavepointHandler(final HandlerMetrics metrics,
+                                     final SavepointHandler handler) {
+
+            super(metrics, handler);
+
+            this.savepoints = handler;
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public void whenSetSavepoint(final Connection connection,
+                                     final Savepoint savepoint)
+            throws SQLException {
+
+            this.savepoints.whenSetSavepoint(connection, savepoint);
+        } // end of whenSetSavepoint
+
+        /**
+         * {@inheritDoc}
+         */
+        public void whenRollbackSavepoint(final Connection connection,
+                                          final Savepoint savepoint)
+            throws SQLException {
+
+            this.savepoints.whenRollbackSavepoint(connection, savepoint);
+        } // end of whenRollbackSavepoint
+
+        /**
+         * {@inheritDoc}
+         */
+        public void whenReleaseSavepoint(final Connection connection,
+                                         final Savepoint savepoint)
+            throws SQLException {
+
+            this.savepoints.whenReleaseSavepoint(connection, savepoint);
+        } // end of whenReleaseSavepoint
+    } // end of class InstrumentedSavepointHandler
+
+    /**
+     * Instrumented connection handler.
+     */
+    private static final class InstrumentedConnectionHandler
+        implements ConnectionHandler {
+
+        final HandlerMetrics metrics;
+        final StatementHandler stmtHandler;
+        final ResourceHandler resHandler;
+
+        InstrumentedConnectionHandler(final HandlerMetrics metrics,
+                                      final StatementHandler stmtHandler,
+                                      final ResourceHandler resHandler) {
+
+            this.metrics = metrics;
+            this.stmtHandler = stmtHandler;
+            this.resHandler = resHandler;
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public StatementHandler getStatementHandler() {
+            return this.stmtHandler;
+        } // end of getStatementHandler
+
+        /**
+         * {@inheritDoc}
+         */
+        public ResourceHandler getResourceHandler() {
+            return this.resHandler;
+        } // end of getResourceHandler
+
+        /**
+         * Returns a connection handler with the new resource |handler|,
+         * also instrumented.
+         */
+        public ConnectionHandler withResourceHandler(final ResourceHandler handler) {
+            return new InstrumentedConnectionHandler(this.metrics,
+                this.stmtHandler, this.metrics.instrument(handler));
+
+        } // end of withResourceHandler
+    } // end of class InstrumentedConnectionHandler
+} // end of class HandlerMetrics
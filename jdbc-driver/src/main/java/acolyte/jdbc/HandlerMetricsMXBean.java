@@ -0,0 +1,74 @@
+package acolyte.jdbc;
+
+import java.util.List;
+
+/**
+ * Management interface of {@link HandlerMetrics}.
+ *
+ * @author Cedric Chantepie
+ * @see HandlerMetrics#registerMBean
+ */
+public interface HandlerMetricsMXBean {
+    /**
+     * Returns the number of distinct statements (by fingerprint).
+     *
+     * @return Statement count
+     */
+    public int getStatementCount();
+
+    /**
+     * Returns the total number of executions.
+     *
+     * @return Execution count
+     */
+    public long getExecutions();
+
+    /**
+     * Returns the total number of failed executions.
+     *
+     * @return Error count
+     */
+    public long getErrors();
+
+    /**
+     * Returns the total time spent in the statement handler.
+     *
+     * @return Time, in nanoseconds
+     */
+    public long getTotalTime();
+
+    /**
+     * Returns the number of committed transactions.
+     *
+     * @return Commit count
+     */
+    public long getCommits();
+
+    /**
+     * Returns the number of rollbacked transactions.
+     *
+     * @return Rollback count
+     */
+    public long getRollbacks();
+
+    /**
+     * Returns the metrics of each statement.
+     *
+     * @return Statement metrics, the most time consuming first
+     */
+    public List<StatementMetrics> getStatements();
+
+    /**
+     * Returns the latency at given |percentile|, for the |sql| statement.
+     *
+     * @param sql the SQL statement
+     * @param percentile the percentile (from 0 to 100)
+     * @return Latency, in nanoseconds (or -1 if the statement is unknown)
+     */
+    public long getLatencyPercentile(String sql, double percentile);
+
+    /**
+     * Resets all the metrics.
+     */
+    public void reset();
+} // end of interface HandlerMetricsMXBean
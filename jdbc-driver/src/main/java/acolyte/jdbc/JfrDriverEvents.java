@@ -0,0 +1,288 @@
+package acolyte.jdbc;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder events of the driver, only loaded (by
+ * {@link DriverEvents}) if the `jdk.jfr` API is available.
+ *
+ * The events are disabled by default, and must be enabled
+ * in the recording settings (e.g. `acolyte.Query#enabled=true`).
+ *
+ * @author Cedric Chantepie
+ */
+final class JfrDriverEvents {
+    // --- Shared ---
+
+    private static final EventType CONNECTION_OPEN =
+        EventType.getEventType(ConnectionOpenEvent.class);
+
+    private static final EventType CONNECTION_CLOSE =
+        EventType.getEventType(ConnectionCloseEvent.class);
+
+    private static final EventType PREPARE =
+        EventType.getEventType(PrepareEvent.class);
+
+    private static final EventType QUERY =
+        EventType.getEventType(QueryEvent.class);
+
+    private static final EventType UPDATE =
+        EventType.getEventType(UpdateEvent.class);
+
+    private static final EventType BATCH =
+        EventType.getEventType(BatchEvent.class);
+
+    private static final EventType RESULT_SET =
+        EventType.getEventType(ResultSetEvent.class);
+
+    // ---
+
+    /**
+     * Begins an event of given |kind|, if enabled.
+     *
+     * @param kind the event kind (see {@link DriverEvents})
+     * @return the begun event, or null if disabled
+     */
+    static Object begin(final int kind) {
+        final Event event;
+
+        switch (kind) {
+        case DriverEvents.CONNECTION:
+            if (!CONNECTION_CLOSE.isEnabled()) {
+                return null;
+            } // end of if
+
+            event = new ConnectionCloseEvent();
+            break;
+
+        case DriverEvents.PREPARE:
+            if (!PREPARE.isEnabled()) {
+                return null;
+            } // end of if
+
+            event = new PrepareEvent();
+            break;
+
+        case DriverEvents.QUERY:
+            if (!QUERY.isEnabled()) {
+                return null;
+            } // end of if
+
+            event = new QueryEvent();
+            break;
+
+        case DriverEvents.UPDATE:
+            if (!UPDATE.isEnabled()) {
+                return null;
+            } // end of if
+
+            event = new UpdateEvent();
+            break;
+
+        case DriverEvents.BATCH:
+            if (!BATCH.isEnabled()) {
+                return null;
+            } // end of if
+
+            event = new BatchEvent();
+            break;
+
+        default: // RESULT_SET
+            if (!RESULT_SET.isEnabled()) {
+                return null;
+            } // end of if
+
+            event = new ResultSetEvent();
+        } // end of switch
+
+        event.begin();
+
+        return event;
+    } // end of begin
+
+    /**
+     * Commits the connection open event (instant), if enabled.
+     */
+    static void connectionOpened(final String url) {
+        if (CONNECTION_OPEN.isEnabled()) {
+            final ConnectionOpenEvent event = new ConnectionOpenEvent();
+
+            event.url = url;
+            event.commit();
+        } // end of if
+    } // end of connectionOpened
+
+    /**
+     * Commits the connection close event, begun when opened.
+     */
+    static void connectionClosed(final Object event, final String url) {
+        final ConnectionCloseEvent e = (ConnectionCloseEvent) event;
+
+        e.url = url;
+        e.commit();
+    } // end of connectionClosed
+
+    /**
+     * Commits the prepare event.
+     */
+    static void prepared(final Object event, final String sql) {
+        final PrepareEvent e = (PrepareEvent) event;
+
+        e.sql = sql;
+        e.commit();
+    } // end of prepared
+
+    /**
+     * Commits the query event.
+     */
+    static void queried(final Object event, final String sql,
+                        final int parameterCount, final int rowCount) {
+
+        final QueryEvent e = (QueryEvent) event;
+
+        e.sql = sql;
+        e.parameterCount = parameterCount;
+        e.rowCount = rowCount;
+        e.commit();
+    } // end of queried
+
+    /**
+     * Commits the update event.
+     */
+    static void updated(final Object event, final String sql,
+                        final int parameterCount, final int updateCount) {
+
+        final UpdateEvent e = (UpdateEvent) event;
+
+        e.sql = sql;
+        e.parameterCount = parameterCount;
+        e.updateCount = updateCount;
+        e.commit();
+    } // end of updated
+
+    /**
+     * Commits the batch event.
+     */
+    static void batched(final Object event, final String sql,
+                        final int size) {
+
+        final BatchEvent e = (BatchEvent) event;
+
+        e.sql = sql;
+        e.size = size;
+        e.commit();
+    } // end of batched
+
+    /**
+     * Sets the SQL of the result set event.
+     */
+    static void resultSetOpened(final Object event, final String sql) {
+        ((ResultSetEvent) event).sql = sql;
+    } // end of resultSetOpened
+
+    /**
+     * Commits the result set event.
+     */
+    static void resultSetClosed(final Object event, final int rowsRead) {
+        final ResultSetEvent e = (ResultSetEvent) event;
+
+        e.rowsRead = rowsRead;
+        e.commit();
+    } // end of resultSetClosed
+
+    // --- Inner classes ---
+
+    @Name("acolyte.ConnectionOpen")
+    @Label("Connection Open")
+    @Category({ "Acolyte", "JDBC" })
+    @Enabled(false)
+    static final class ConnectionOpenEvent extends Event {
+        @Label("URL")
+        String url;
+    } // end of class ConnectionOpenEvent
+
+    @Name("acolyte.ConnectionClose")
+    @Label("Connection Close")
+    @Description("Connection closed, with the time it has been opened as duration")
+    @Category({ "Acolyte", "JDBC" })
+    @Enabled(false)
+    static final class ConnectionCloseEvent extends Event {
+        @Label("URL")
+        String url;
+    } // end of class ConnectionCloseEvent
+
+    @Name("acolyte.Prepare")
+    @Label("Statement Prepare")
+    @Category({ "Acolyte", "JDBC" })
+    @Enabled(false)
+    static final class PrepareEvent extends Event {
+        @Label("SQL")
+        String sql;
+    } // end of class PrepareEvent
+
+    @Name("acolyte.Query")
+    @Label("Query Execution")
+    @Description("Execution of a query by the statement handler")
+    @Category({ "Acolyte", "JDBC" })
+    @Enabled(false)
+    static final class QueryEvent extends Event {
+        @Label("SQL")
+        String sql;
+
+        @Label("Parameter Count")
+        int parameterCount;
+
+        @Label("Row Count")
+        @Description("Number of rows, or -1 if failed or streaming")
+        int rowCount;
+    } // end of class QueryEvent
+
+    @Name("acolyte.Update")
+    @Label("Update Execution")
+    @Description("Execution of an update by the statement handler")
+    @Category({ "Acolyte", "JDBC" })
+    @Enabled(false)
+    static final class UpdateEvent extends Event {
+        @Label("SQL")
+        String sql;
+
+        @Label("Parameter Count")
+        int parameterCount;
+
+        @Label("Update Count")
+        @Description("Update count, or -1 if failed")
+        int updateCount;
+    } // end of class UpdateEvent
+
+    @Name("acolyte.Batch")
+    @Label("Batch Execution")
+    @Category({ "Acolyte", "JDBC" })
+    @Enabled(false)
+    static final class BatchEvent extends Event {
+        @Label("SQL")
+        @Description("SQL of the prepared statement (null for a plain one)")
+        String sql;
+
+        @Label("Size")
+        int size;
+    } // end of class BatchEvent
+
+    @Name("acolyte.ResultSet")
+    @Label("Result Set Iteration")
+    @Description("Result set closed, with the time it has been opened as duration")
+    @Category({ "Acolyte", "JDBC" })
+    @Enabled(false)
+    static final class ResultSetEvent extends Event {
+        @Label("SQL")
+        String sql;
+
+        @Label("Rows Read")
+        int rowsRead;
+    } // end of class ResultSetEvent
+} // end of class JfrDriverEvents
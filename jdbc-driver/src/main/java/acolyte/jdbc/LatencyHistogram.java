@@ -0,0 +1,255 @@
+package acolyte.jdbc;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Histogram of latencies (in nanoseconds), recorded without lock.
+ *
+ * Values are counted in logarithmic buckets, each power of 2 being
+ * divided in 8 linear sub-buckets (values lower than 16 are exact),
+ * so that the relative error of the percentiles is at most 12.5%,
+ * with a fixed memory footprint (about 4KB).
+ *
+ * @author Cedric Chantepie
+ * @see HandlerMetrics
+ */
+public final class LatencyHistogram {
+    // --- Shared ---
+
+    /**
+     * Sub-buckets per power of 2 (as bit count)
+     */
+    private static final int SUB_BITS = 3;
+
+    /**
+     * Number of exact values (below the first logarithmic bucket)
+     */
+    private static final int LINEAR = 1 << (SUB_BITS + 1);
+
+    /**
+     * Bucket count
+     */
+    private static final int BUCKETS =
+        LINEAR + (63 - (SUB_BITS + 1)) * (1 << SUB_BITS);
+
+    // --- Properties ---
+
+    /**
+     * Bucket counts
+     */
+    private final AtomicLongArray counts;
+
+    /**
+     * Value count
+     */
+    private final AtomicLong count;
+
+    /**
+     * Value sum
+     */
+    private final AtomicLong sum;
+
+    /**
+     * Min value
+     */
+    private final AtomicLong min;
+
+    /**
+     * Max value
+     */
+    private final AtomicLong max;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private LatencyHistogram(final AtomicLongArray counts,
+                             final long count, final long sum,
+                             final long min, final long max) {
+
+        this.counts = counts;
+        this.count = new AtomicLong(count);
+        this.sum = new AtomicLong(sum);
+        this.min = new AtomicLong(min);
+        this.max = new AtomicLong(max);
+    } // end of <init>
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        this(new AtomicLongArray(BUCKETS), 0L, 0L, Long.MAX_VALUE, 0L);
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Records a |value|.
+     *
+     * @param value the latency, in nanoseconds (negative one is recorded as 0)
+     */
+    public void record(final long value) {
+        final long v = (value < 0L) ? 0L : value;
+
+        this.counts.incrementAndGet(bucket(v));
+        this.count.incrementAndGet();
+        this.sum.addAndGet(v);
+
+        long m = this.min.get();
+
+        while (v < m && !this.min.compareAndSet(m, v)) {
+            m = this.min.get();
+        } // end of while
+
+        m = this.max.get();
+
+        while (v > m && !this.max.compareAndSet(m, v)) {
+            m = this.max.get();
+        } // end of while
+    } // end of record
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return Value count
+     */
+    public long getCount() {
+        return this.count.get();
+    } // end of getCount
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return Total latency, in nanoseconds
+     */
+    public long getTotal() {
+        return this.sum.get();
+    } // end of getTotal
+
+    /**
+     * Returns the min recorded value.
+     *
+     * @return Min latency, in nanoseconds (0 if none)
+     */
+    public long getMin() {
+        final long m = this.min.get();
+
+        return (m == Long.MAX_VALUE) ? 0L : m;
+    } // end of getMin
+
+    /**
+     * Returns the max recorded value.
+     *
+     * @return Max latency, in nanoseconds (0 if none)
+     */
+    public long getMax() {
+        return this.max.get();
+    } // end of getMax
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return Mean latency, in nanoseconds (0 if none)
+     */
+    public double getMean() {
+        final long c = this.count.get();
+
+        return (c == 0L) ? 0D : ((double) this.sum.get() / c);
+    } // end of getMean
+
+    /**
+     * Returns the value at given |percentile|: the highest value
+     * of the bucket in which the percentile falls (bounded by the max).
+     *
+     * @param percentile the percentile (from 0 to 100)
+     * @return Latency, in nanoseconds (0 if none)
+     * @throws IllegalArgumentException if percentile is not in [0, 100]
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (percentile < 0D || percentile > 100D) {
+            throw new IllegalArgumentException("Invalid percentile: " +
+                                               percentile);
+
+        } // end of if
+
+        long total = 0L;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            total += this.counts.get(i);
+        } // end of for
+
+        if (total == 0L) {
+            return 0L;
+        } // end of if
+
+        final long rank = Math.max(1L, (long) Math.ceil(percentile * total / 100D));
+        long seen = 0L;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.counts.get(i);
+
+            if (seen >= rank) {
+                return Math.min(highest(i), getMax());
+            } // end of if
+        } // end of for
+
+        return getMax();
+    } // end of getValueAtPercentile
+
+    /**
+     * Returns a copy of this histogram.
+     *
+     * @return Histogram with the values recorded so far
+     */
+    public LatencyHistogram snapshot() {
+        final AtomicLongArray cs = new AtomicLongArray(BUCKETS);
+
+        for (int i = 0; i < BUCKETS; i++) {
+            cs.set(i, this.counts.get(i));
+        } // end of for
+
+        return new LatencyHistogram(cs, this.count.get(), this.sum.get(),
+                                    this.min.get(), this.max.get());
+
+    } // end of snapshot
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString() {
+        return String.format("LatencyHistogram(count = %d, min = %d, max = %d, mean = %.1f, p50 = %d, p99 = %d)", getCount(), getMin(), getMax(), getMean(), getValueAtPercentile(50D), getValueAtPercentile(99D));
+
+    } // end of toString
+
+    /**
+     * Returns the index of the bucket for value |v| (positive).
+     */
+    static int bucket(final long v) {
+        if (v < LINEAR) {
+            return (int) v;
+        } // end of if
+
+        final int exp = 63 - Long.numberOfLeadingZeros(v);
+        final int sub = (int) (v >>> (exp - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+
+        return LINEAR + ((exp - SUB_BITS - 1) << SUB_BITS) + sub;
+    } // end of bucket
+
+    /**
+     * Returns the highest value of the bucket |i|.
+     */
+    static long highest(final int i) {
+        if (i < LINEAR) {
+            return i;
+        } // end of if
+
+        final int exp = ((i - LINEAR) >>> SUB_BITS) + SUB_BITS + 1;
+        final long sub = (i - LINEAR) & ((1 << SUB_BITS) - 1);
+        final long width = 1L << (exp - SUB_BITS);
+        final long lowest = (1L << exp) + (sub * width);
+
+        return lowest + width - 1L;
+    } // end of highest
+} // end of class LatencyHistogram
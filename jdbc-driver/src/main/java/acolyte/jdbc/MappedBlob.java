@@ -0,0 +1,327 @@
+package acolyte.jdbc;
+
+import java.io.RandomAccessFile;
+import java.io.OutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.File;
+
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLException;
+
+/**
+ * Read-only binary large object, backed by a byte buffer
+ * (e.g. a memory-mapped file), so that large BLOB fixtures
+ * are not kept on the heap.
+ *
+ * <pre>
+ * {@code
+ * java.sql.Blob doc = MappedBlob.map(new File("document.pdf"));
+ *
+ * RowLists.rowList1(java.sql.Blob.class).append(doc);
+ * }
+ * </pre>
+ *
+ * The binary streams (including the ones from the result set)
+ * read the buffer directly, a sub-stream being a slice of it,
+ * and the pattern search is performed in place:
+ * only {@link #getBytes} copies the requested bytes.
+ *
+ * A mapped file is limited to 2GB (single mapping).
+ *
+ * @author Cedric Chantepie
+ * @see MappedClob
+ */
+public final class MappedBlob implements java.sql.Blob {
+    // --- Properties ---
+
+    /**
+     * Read-only data (from position 0 to limit),
+     * or null once freed
+     */
+    private volatile ByteBuffer data;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private MappedBlob(final ByteBuffer data) {
+        this.data = data;
+    } // end of <init>
+
+    /**
+     * Returns a BLOB for the remaining bytes of given |buffer|
+     * (neither copied nor changed).
+     *
+     * @param buffer the BLOB data
+     * @return BLOB
+     * @throws IllegalArgumentException if |buffer| is null
+     */
+    public static MappedBlob wrap(final ByteBuffer buffer) {
+        if (buffer == null) {
+            throw new IllegalArgumentException("No buffer");
+        } // end of if
+
+        return new MappedBlob(buffer.asReadOnlyBuffer().slice());
+    } // end of wrap
+
+    /**
+     * Returns a BLOB for the content of given |file|, mapped in memory.
+     *
+     * @param file the BLOB file
+     * @return BLOB
+     * @throws IllegalArgumentException if |file| is null
+     * @throws IOException if fails to map the file
+     */
+    public static MappedBlob map(final File file) throws IOException {
+        return new MappedBlob(mapFile(file));
+    } // end of map
+
+    // --- Blob impl ---
+
+    /**
+     * {@inheritDoc}
+     */
+    public long length() throws SQLException {
+        return data().limit();
+    } // end of length
+
+    /**
+     * {@inheritDoc}
+     */
+    public byte[] getBytes(final long pos, final int length)
+        throws SQLException {
+
+        final ByteBuffer b = slice(data(), pos, length);
+        final byte[] bytes = new byte[b.remaining()];
+
+        b.get(bytes);
+
+        return bytes;
+    } // end of getBytes
+
+    /**
+     * Returns a stream reading the buffer directly.
+     *
+     * {@inheritDoc}
+     */
+    public InputStream getBinaryStream() throws SQLException {
+        return new ByteBufferInputStream(data());
+    } // end of getBinaryStream
+
+    /**
+     * Returns a stream reading a slice of the buffer directly.
+     *
+     * {@inheritDoc}
+     */
+    public InputStream getBinaryStream(final long pos, final long length)
+        throws SQLException {
+
+        return new ByteBufferInputStream(slice(data(), pos, length));
+    } // end of getBinaryStream
+
+    /**
+     * {@inheritDoc}
+     */
+    public long position(final byte[] pattern, final long start)
+        throws SQLException {
+
+        if (pattern == null) {
+            throw new SQLException("No pattern");
+        } // end of if
+
+        final ByteBuffer b = data();
+
+        if (start < 1L || start > b.limit() + 1L) {
+            throw new SQLException("Invalid offset: " + start);
+        } // end of if
+
+        if (pattern.length == 0) {
+            return start;
+        } // end of if
+
+        // ---
+
+        final int[] fallback = fallback(pattern);
+        final int len = b.limit();
+        int m = 0; // matched pattern bytes
+
+        for (int i = (int) start - 1; i < len; i++) {
+            final byte c = b.get(i);
+
+            while (m > 0 && pattern[m] != c) {
+                m = fallback[m - 1];
+            } // end of while
+
+            if (pattern[m] == c && ++m == pattern.length) {
+                return i - m + 2L; // 1-based
+            } // end of if
+        } // end of for
+
+        return -1L;
+    } // end of position
+
+    /**
+     * {@inheritDoc}
+     */
+    public long position(final java.sql.Blob pattern, final long start)
+        throws SQLException {
+
+        if (pattern == null) {
+            throw new SQLException("No pattern");
+        } // end of if
+
+        final long len = pattern.length();
+
+        if (len > Integer.MAX_VALUE) {
+            return -1L;
+        } // end of if
+
+        return position(pattern.getBytes(1L, (int) len), start);
+    } // end of position
+
+    /**
+     * @throws SQLFeatureNotSupportedException as read-only
+     */
+    public int setBytes(final long pos, final byte[] bytes)
+        throws SQLException {
+
+        throw new SQLFeatureNotSupportedException("Read-only BLOB");
+    } // end of setBytes
+
+    /**
+     * @throws SQLFeatureNotSupportedException as read-only
+     */
+    public int setBytes(final long pos, final byte[] bytes,
+                        final int offset, final int len)
+        throws SQLException {
+
+        throw new SQLFeatureNotSupportedException("Read-only BLOB");
+    } // end of setBytes
+
+    /**
+     * @throws SQLFeatureNotSupportedException as read-only
+     */
+    public OutputStream setBinaryStream(final long pos) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Read-only BLOB");
+    } // end of setBinaryStream
+
+    /**
+     * @throws SQLFeatureNotSupportedException as read-only
+     */
+    public void truncate(final long len) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Read-only BLOB");
+    } // end of truncate
+
+    /**
+     * Releases the reference to the buffer
+     * (a mapping is then released once garbage collected).
+     *
+     * {@inheritDoc}
+     */
+    public void free() throws SQLException {
+        this.data = null;
+    } // end of free
+
+    // ---
+
+    /**
+     * Returns the data.
+     *
+     * @throws SQLException if freed
+     */
+    private ByteBuffer data() throws SQLException {
+        final ByteBuffer b = this.data;
+
+        if (b == null) {
+            throw new SQLException("BLOB freed");
+        } // end of if
+
+        return b;
+    } // end of data
+
+    // --- Shared ---
+
+    /**
+     * Returns the read-only mapping of the |file|.
+     *
+     * @throws IllegalArgumentException if |file| is null
+     * @throws IOException if fails to map the file
+     */
+    static ByteBuffer mapFile(final File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("No file");
+        } // end of if
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try {
+            final FileChannel ch = raf.getChannel();
+
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new IOException("Too large file: " + file);
+            } // end of if
+
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0L, ch.size());
+        } finally {
+            raf.close(); // mapping remains valid
+        } // end of finally
+    } // end of mapFile
+
+    /**
+     * Returns the slice of |data| from 1-based |pos|,
+     * up to |length| bytes (or less at end of data).
+     *
+     * @throws SQLException if |pos| or |length| is invalid
+     */
+    static ByteBuffer slice(final ByteBuffer data,
+                            final long pos,
+                            final long length) throws SQLException {
+
+        final int size = data.limit();
+
+        if (pos < 1L || pos > size + 1L) {
+            throw new SQLException("Invalid position: " + pos);
+        } // end of if
+
+        if (length < 0L) {
+            throw new SQLException("Invalid length: " + length);
+        } // end of if
+
+        // ---
+
+        final ByteBuffer b = data.duplicate();
+        final int from = (int) (pos - 1L);
+
+        b.position(from);
+        b.limit(from + (int) Math.min(length, size - from));
+
+        return b.slice();
+    } // end of slice
+
+    /**
+     * Returns the fallback table of the |pattern|, for the KMP search:
+     * length of the longest proper prefix also suffix of each pattern prefix.
+     */
+    private static int[] fallback(final byte[] pattern) {
+        final int[] f = new int[pattern.length];
+
+        for (int i = 1, k = 0; i < pattern.length; i++) {
+            while (k > 0 && pattern[i] != pattern[k]) {
+                k = f[k - 1];
+            } // end of while
+
+            if (pattern[i] == pattern[k]) {
+                k++;
+            } // end of if
+
+            f[i] = k;
+        } // end of for
+
+        return f;
+    } // end of fallback
+} // end of class MappedBlob
@@ -0,0 +1,529 @@
+package acolyte.jdbc;
+
+import java.io.InputStreamReader;
+import java.io.FilterReader;
+import java.io.OutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.io.Reader;
+import java.io.File;
+
+import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLException;
+
+/**
+ * Read-only character large object, backed by a byte buffer
+ * (e.g. a memory-mapped file) encoded with a given charset,
+ * so that large CLOB fixtures are not kept on the heap.
+ *
+ * <pre>
+ * {@code
+ * java.sql.Clob text = MappedClob.map(new File("document.txt"),
+ *                                     Charset.forName("UTF-8"));
+ *
+ * RowLists.rowList1(java.sql.Clob.class).append(text);
+ * }
+ * </pre>
+ *
+ * The character streams decode the buffer as read (without copying it),
+ * and the pattern search is performed on the fly.
+ * With a single-byte charset (e.g. ISO-8859-1), a character position
+ * is a byte position, so a sub-stream is a slice of the buffer;
+ * otherwise the characters before the requested position
+ * are decoded to be skipped.
+ *
+ * A mapped file is limited to 2GB (single mapping).
+ *
+ * @author Cedric Chantepie
+ * @see MappedBlob
+ */
+public final class MappedClob implements java.sql.Clob {
+    // --- Properties ---
+
+    /**
+     * Read-only encoded data (from position 0 to limit),
+     * or null once freed
+     */
+    private volatile ByteBuffer data;
+
+    /**
+     * Data charset
+     */
+    private final Charset charset;
+
+    /**
+     * Whether each character is encoded as a single byte
+     */
+    private final boolean singleByte;
+
+    /**
+     * Number of characters (or -1 if not yet counted)
+     */
+    private volatile long length = -1L;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private MappedClob(final ByteBuffer data, final Charset charset) {
+        this.data = data;
+        this.charset = charset;
+        this.singleByte = (charset.newEncoder().maxBytesPerChar() == 1.0F);
+    } // end of <init>
+
+    /**
+     * Returns a CLOB for the remaining bytes of given |buffer|
+     * (neither copied nor changed), encoded with the |charset|.
+     *
+     * @param buffer the CLOB data
+     * @param charset the data charset
+     * @return CLOB
+     * @throws IllegalArgumentException if |buffer| or |charset| is null
+     */
+    public static MappedClob wrap(final ByteBuffer buffer,
+                                  final Charset charset) {
+
+        if (buffer == null) {
+            throw new IllegalArgumentException("No buffer");
+        } // end of if
+
+        return new MappedClob(buffer.asReadOnlyBuffer().slice(),
+                              checkCharset(charset));
+
+    } // end of wrap
+
+    /**
+     * Returns a CLOB for the content of given |file|, mapped in memory,
+     * and encoded with the |charset|.
+     *
+     * @param file the CLOB file
+     * @param charset the file charset
+     * @return CLOB
+     * @throws IllegalArgumentException if |file| or |charset| is null
+     * @throws IOException if fails to map the file
+     */
+    public static MappedClob map(final File file, final Charset charset)
+        throws IOException {
+
+        final Charset cs = checkCharset(charset);
+
+        return new MappedClob(MappedBlob.mapFile(file), cs);
+    } // end of map
+
+    // --- Clob impl ---
+
+    /**
+     * Returns the number of characters, counted once
+     * (by decoding the data, unless single-byte charset).
+     *
+     * {@inheritDoc}
+     */
+    public long length() throws SQLException {
+        final ByteBuffer b = data();
+
+        if (this.singleByte) {
+            return b.limit();
+        } // end of if
+
+        long len = this.length;
+
+        if (len == -1L) {
+            len = skip(reader(b), Long.MAX_VALUE);
+            this.length = len;
+        } // end of if
+
+        return len;
+    } // end of length
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getSubString(final long pos, final int length)
+        throws SQLException {
+
+        if (length < 0) {
+            throw new SQLException("Invalid length: " + length);
+        } // end of if
+
+        final Reader r = reader(pos);
+        final StringBuilder s = new StringBuilder(Math.min(length, 8192));
+        final char[] buf = new char[Math.min(Math.max(length, 1), 8192)];
+
+        try {
+            int n;
+
+            while (s.length() < length &&
+                   (n = r.read(buf, 0, Math.min(buf.length,
+                                                length - s.length()))) != -1) {
+
+                s.append(buf, 0, n);
+            } // end of while
+        } catch (IOException e) {
+            throw new SQLException("Fails to decode CLOB", e);
+        } // end of catch
+
+        return s.toString();
+    } // end of getSubString
+
+    /**
+     * Returns a reader decoding the buffer directly.
+     *
+     * {@inheritDoc}
+     */
+    public Reader getCharacterStream() throws SQLException {
+        return reader(data());
+    } // end of getCharacterStream
+
+    /**
+     * {@inheritDoc}
+     */
+    public Reader getCharacterStream(final long pos, final long length)
+        throws SQLException {
+
+        if (length < 0L) {
+            throw new SQLException("Invalid length: " + length);
+        } // end of if
+
+        if (this.singleByte) {
+            return reader(MappedBlob.slice(data(), pos, length));
+        } // end of if
+
+        return new LimitedReader(reader(pos), length);
+    } // end of getCharacterStream
+
+    /**
+     * Returns the data bytes as is, if encoded with a single-byte charset.
+     *
+     * {@inheritDoc}
+     * @throws SQLFeatureNotSupportedException if not a single-byte charset
+     */
+    public InputStream getAsciiStream() throws SQLException {
+        if (!this.singleByte) {
+            throw new SQLFeatureNotSupportedException("Not a single-byte " +
+                                                      "charset: " +
+                                                      this.charset);
+
+        } // end of if
+
+        return new ByteBufferInputStream(data());
+    } // end of getAsciiStream
+
+    /**
+     * {@inheritDoc}
+     */
+    public long position(final String searchstr, final long start)
+        throws SQLException {
+
+        if (searchstr == null) {
+            throw new SQLException("No pattern");
+        } // end of if
+
+        if (start < 1L) {
+            throw new SQLException("Invalid offset: " + start);
+        } // end of if
+
+        final Reader r;
+
+        try {
+            r = reader(start);
+        } catch (SQLException e) {
+            throw new SQLException("Invalid offset: " + start);
+        } // end of catch
+
+        if (searchstr.length() == 0) {
+            return start;
+        } // end of if
+
+        // ---
+
+        final char[] pattern = searchstr.toCharArray();
+        final int[] fallback = fallback(pattern);
+        long i = start - 1L;
+        int m = 0; // matched pattern characters
+        int c;
+
+        try {
+            while ((c = r.read()) != -1) {
+                while (m > 0 && pattern[m] != c) {
+                    m = fallback[m - 1];
+                } // end of while
+
+                if (pattern[m] == c && ++m == pattern.length) {
+                    return i - m + 2L; // 1-based
+                } // end of if
+
+                i++;
+            } // end of while
+        } catch (IOException e) {
+            throw new SQLException("Fails to decode CLOB", e);
+        } // end of catch
+
+        return -1L;
+    } // end of position
+
+    /**
+     * {@inheritDoc}
+     */
+    public long position(final java.sql.Clob searchstr, final long start)
+        throws SQLException {
+
+        if (searchstr == null) {
+            throw new SQLException("No pattern");
+        } // end of if
+
+        final long len = searchstr.length();
+
+        if (len > Integer.MAX_VALUE) {
+            return -1L;
+        } // end of if
+
+        return position(searchstr.getSubString(1L, (int) len), start);
+    } // end of position
+
+    /**
+     * @throws SQLFeatureNotSupportedException as read-only
+     */
+    public int setString(final long pos, final String str)
+        throws SQLException {
+
+        throw new SQLFeatureNotSupportedException("Read-only CLOB");
+    } // end of setString
+
+    /**
+     * @throws SQLFeatureNotSupportedException as read-only
+     */
+    public int setString(final long pos, final String str,
+                         final int offset, final int len)
+        throws SQLException {
+
+        throw new SQLFeatureNotSupportedException("Read-only CLOB");
+    } // end of setString
+
+    /**
+     * @throws SQLFeatureNotSupportedException as read-only
+     */
+    public OutputStream setAsciiStream(final long pos) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Read-only CLOB");
+    } // end of setAsciiStream
+
+    /**
+     * @throws SQLFeatureNotSupportedException as read-only
+     */
+    public Writer setCharacterStream(final long pos) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Read-only CLOB");
+    } // end of setCharacterStream
+
+    /**
+     * @throws SQLFeatureNotSupportedException as read-only
+     */
+    public void truncate(final long len) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Read-only CLOB");
+    } // end of truncate
+
+    /**
+     * Releases the reference to the buffer
+     * (a mapping is then released once garbage collected).
+     *
+     * {@inheritDoc}
+     */
+    public void free() throws SQLException {
+        this.data = null;
+    } // end of free
+
+    // ---
+
+    /**
+     * Returns the data.
+     *
+     * @throws SQLException if freed
+     */
+    private ByteBuffer data() throws SQLException {
+        final ByteBuffer b = this.data;
+
+        if (b == null) {
+            throw new SQLException("CLOB freed");
+        } // end of if
+
+        return b;
+    } // end of data
+
+    /**
+     * Returns a reader decoding the |bytes|.
+     */
+    private Reader reader(final ByteBuffer bytes) {
+        return new InputStreamReader(new ByteBufferInputStream(bytes),
+                                     this.charset);
+
+    } // end of reader
+
+    /**
+     * Returns a reader from the 1-based character position |pos|.
+     *
+     * @throws SQLException if |pos| is invalid
+     */
+    private Reader reader(final long pos) throws SQLException {
+        final ByteBuffer b = data();
+
+        if (this.singleByte) {
+            return reader(MappedBlob.slice(b, pos, Long.MAX_VALUE));
+        } // end of if
+
+        if (pos < 1L) {
+            throw new SQLException("Invalid position: " + pos);
+        } // end of if
+
+        final Reader r = reader(b);
+
+        if (skip(r, pos - 1L) < pos - 1L) {
+            throw new SQLException("Invalid position: " + pos);
+        } // end of if
+
+        return r;
+    } // end of reader
+
+    /**
+     * Skips up to |n| characters from the |reader|.
+     *
+     * @return the number of skipped characters
+     */
+    private static long skip(final Reader reader, final long n)
+        throws SQLException {
+
+        long skipped = 0L;
+
+        try {
+            while (skipped < n) {
+                final long s = reader.skip(n - skipped);
+
+                if (s <= 0L) {
+                    if (reader.read() == -1) {
+                        break;
+                    } // end of if
+
+                    skipped++;
+                } else {
+                    skipped += s;
+                } // end of else
+            } // end of while
+        } catch (IOException e) {
+            throw new SQLException("Fails to decode CLOB", e);
+        } // end of catch
+
+        return skipped;
+    } // end of skip
+
+    /**
+     * Checks the |charset|.
+     */
+    private static Charset checkCharset(final Charset charset) {
+        if (charset == null) {
+            throw new IllegalArgumentException("No charset");
+        } // end of if
+
+        return charset;
+    } // end of checkCharset
+
+    /**
+     * Returns the fallback table of the |pattern|, for the KMP search.
+     *
+     * @see MappedBlob
+     */
+    private static int[] fallback(final char[] pattern) {
+        final int[] f = new int[pattern.length];
+
+        for (int i = 1, k = 0; i < pattern.length; i++) {
+            while (k > 0 && pattern[i] != pattern[k]) {
+                k = f[k - 1];
+            } // end of while
+
+            if (pattern[i] == pattern[k]) {
+                k++;
+            } // end of if
+
+            f[i] = k;
+        } // end of for
+
+        return f;
+    } // end of fallback
+
+    // --- Inner classes ---
+
+    /**
+     * Reader limited to a number of characters.
+     */
+    private static final class LimitedReader extends FilterReader {
+        /**
+         * Number of characters still to be read
+         */
+        private long remaining;
+
+        /**
+         * Bulk constructor.
+         */
+        LimitedReader(final Reader in, final long limit) {
+            super(in);
+
+            this.remaining = limit;
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public int read() throws IOException {
+            if (this.remaining <= 0L) {
+                return -1;
+            } // end of if
+
+            final int c = super.read();
+
+            if (c != -1) {
+                this.remaining--;
+            } // end of if
+
+            return c;
+        } // end of read
+
+        /**
+         * {@inheritDoc}
+         */
+        public int read(final char[] cbuf, final int off, final int len)
+            throws IOException {
+
+            if (this.remaining <= 0L) {
+                return -1;
+            } // end of if
+
+            final int n = super.read(cbuf, off,
+                                     (int) Math.min(len, this.remaining));
+
+            if (n > 0) {
+                this.remaining -= n;
+            } // end of if
+
+            return n;
+        } // end of read
+
+        /**
+         * {@inheritDoc}
+         */
+        public long skip(final long n) throws IOException {
+            final long s = super.skip(Math.min(n, this.remaining));
+
+            this.remaining -= s;
+
+            return s;
+        } // end of skip
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean markSupported() {
+            return false;
+        } // end of markSupported
+    } // end of class LimitedReader
+} // end of class MappedClob
@@ -0,0 +1,828 @@
+package acolyte.jdbc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.RandomAccessFile;
+import java.io.IOException;
+import java.io.File;
+
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
+
+import java.util.Collections;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import java.math.BigDecimal;
+
+import java.sql.Timestamp;
+import java.sql.Time;
+import java.sql.Date;
+
+/**
+ * Row list read from a binary columnar file, memory-mapped
+ * so that loading it doesn't depend on the number of rows:
+ * the cells are only decoded when read from the result set.
+ *
+ * <pre>
+ * {@code
+ * // Once, to write the fixture
+ * MappedRowList.write(rows, new File("fixture.bin"));
+ *
+ * // Then to load it
+ * MappedRowList list = MappedRowList.load(new File("fixture.bin"));
+ * }
+ * </pre>
+ *
+ * The file contains the column classes, labels and nullable flags,
+ * then a block of values per column: fixed-size values for the numeric,
+ * boolean and temporal columns (so a cell is read at a computed offset),
+ * or offsets and variable-size values for the other ones.
+ * A file is limited to 2GB (single mapping).
+ *
+ * @author Cedric Chantepie
+ */
+public final class MappedRowList extends RowList<Row> {
+    // --- Shared ---
+
+    /**
+     * File magic
+     */
+    private static final byte[] MAGIC = {
+        'A', 'C', 'O', 'L', 'Y', 'R', 'O', 'W'
+    };
+
+    /**
+     * String charset
+     */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // Column encodings
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte FLOAT = 4;
+    private static final byte SHORT = 5;
+    private static final byte BYTE = 6;
+    private static final byte BOOLEAN = 7;
+    private static final byte DATE = 8;
+    private static final byte TIME = 9;
+    private static final byte TIMESTAMP = 10;
+    private static final byte STRING = 11;
+    private static final byte BYTES = 12;
+    private static final byte DECIMAL = 13;
+    private static final byte TAGGED = 14; // see Capture.writeValue
+
+    // --- Properties ---
+
+    /**
+     * Mapped file
+     */
+    private final ByteBuffer data;
+
+    /**
+     * Column blocks
+     */
+    private final Block[] blocks;
+
+    /**
+     * Row count
+     */
+    private final int size;
+
+    /**
+     * Column classes
+     */
+    private final List<Class<?>> colClasses;
+
+    /**
+     * Column labels
+     */
+    private final Map<String,Integer> colNames;
+
+    /**
+     * Nullable flags
+     */
+    private final Map<Integer,Boolean> colNullables;
+
+    /**
+     * Cycling?
+     */
+    private final boolean cycling;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private MappedRowList(final ByteBuffer data,
+                          final Block[] blocks,
+                          final int size,
+                          final List<Class<?>> colClasses,
+                          final Map<String,Integer> colNames,
+                          final Map<Integer,Boolean> colNullables,
+                          final boolean cycling) {
+
+        this.data = data;
+        this.blocks = blocks;
+        this.size = size;
+        this.colClasses = colClasses;
+        this.colNames = Collections.unmodifiableMap(colNames);
+        this.colNullables = Collections.unmodifiableMap(colNullables);
+        this.cycling = cycling;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Loads the row list from given |file|.
+     *
+     * @param file the file written by {@link #write}
+     * @return Mapped row list
+     * @throws IOException if fails to map the file,
+     * or if it's not a valid row list file
+     */
+    public static MappedRowList load(final File file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("No file");
+        } // end of if
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+        try {
+            final FileChannel ch = raf.getChannel();
+
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new IOException("Too large row list: " + file);
+            } // end of if
+
+            final ByteBuffer data =
+                ch.map(FileChannel.MapMode.READ_ONLY, 0L, ch.size());
+
+            final ByteBuffer in = data.duplicate();
+            final byte[] magic = new byte[MAGIC.length];
+
+            in.get(magic);
+
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Invalid row list: " + file);
+            } // end of if
+
+            final int size = in.getInt();
+            final int columnCount = in.getInt();
+            final ArrayList<Class<?>> classes =
+                new ArrayList<Class<?>>(columnCount);
+
+            final Block[] blocks = new Block[columnCount];
+
+            for (int i = 0; i < columnCount; i++) {
+                classes.add(Capture.columnClass(Capture.readString(in)));
+
+                final byte encoding = in.get();
+                final boolean hasNulls = (in.get() != 0);
+
+                blocks[i] = new Block(encoding, hasNulls, in.getInt(), size);
+            } // end of for
+
+            final HashMap<String,Integer> names =
+                new HashMap<String,Integer>();
+
+            for (int n = in.getInt(); n > 0; n--) {
+                final String label = Capture.readString(in);
+
+                names.put(label, in.getInt());
+            } // end of for
+
+            final HashMap<Integer,Boolean> nullables =
+                new HashMap<Integer,Boolean>();
+
+            for (int n = in.getInt(); n > 0; n--) {
+                final int index = in.getInt();
+
+                nullables.put(index, in.get() != 0);
+            } // end of for
+
+            return new MappedRowList(data, blocks, size,
+                                     Collections.unmodifiableList(classes),
+                                     names, nullables, false);
+
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid row list: " + file, e);
+        } finally {
+            raf.close(); // mapping remains valid
+        } // end of finally
+    } // end of load
+
+    /**
+     * Writes given |rows| to a |file|, so that it can be loaded
+     * as mapped row list.
+     *
+     * @param rows the rows to be written
+     * @param file the file (overwritten if exists)
+     * @throws IOException if fails to write the file
+     * @throws IllegalArgumentException if a value is not supported
+     * (see {@link CaptureWriter}), or if |rows| is a streaming list
+     * (rows not kept in memory)
+     */
+    public static void write(final RowList<?> rows, final File file)
+        throws IOException {
+
+        if (rows == null || file == null) {
+            throw new IllegalArgumentException("No rows or file");
+        } // end of if
+
+        if (rows instanceof StreamingRowList) {
+            throw new IllegalArgumentException("Streaming rows");
+        } // end of if
+
+        final List<Class<?>> classes = rows.getColumnClasses();
+        final List<? extends Row> rs = rows.getRows();
+        final int count = classes.size();
+        final int size = rs.size();
+        final byte[][] blocks = new byte[count][];
+        final byte[] encodings = new byte[count];
+        final boolean[] hasNulls = new boolean[count];
+
+        for (int c = 0; c < count; c++) {
+            encodings[c] = encoding(classes.get(c), rs, c);
+
+            for (final Row r : rs) {
+                if (cell(r, c) == null) {
+                    hasNulls[c] = true;
+                    break;
+                } // end of if
+            } // end of for
+
+            blocks[c] = block(encodings[c], hasNulls[c], rs, c);
+        } // end of for
+
+        // Header
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(header);
+        long offset = MAGIC.length + 8;
+
+        for (int c = 0; c < count; c++) {
+            offset += 4 + classes.get(c).getName().getBytes(UTF8).length + 6;
+        } // end of for
+
+        offset += 4;
+
+        for (final String label : rows.getColumnLabels().keySet()) {
+            offset += 4 + label.getBytes(UTF8).length + 4;
+        } // end of for
+
+        offset += 4 + 5 * rows.getColumnNullables().size();
+
+        out.write(MAGIC);
+        out.writeInt(size);
+        out.writeInt(count);
+
+        for (int c = 0; c < count; c++) {
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("Too large row list");
+            } // end of if
+
+            Capture.writeString(out, classes.get(c).getName());
+            out.writeByte(encodings[c]);
+            out.writeByte(hasNulls[c] ? 1 : 0);
+            out.writeInt((int) offset);
+
+            offset += blocks[c].length;
+        } // end of for
+
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Too large row list");
+        } // end of if
+
+        out.writeInt(rows.getColumnLabels().size());
+
+        for (final Map.Entry<String,Integer> l :
+                 rows.getColumnLabels().entrySet()) {
+
+            Capture.writeString(out, l.getKey());
+            out.writeInt(l.getValue().intValue());
+        } // end of for
+
+        out.writeInt(rows.getColumnNullables().size());
+
+        for (final Map.Entry<Integer,Boolean> n :
+                 rows.getColumnNullables().entrySet()) {
+
+            out.writeInt(n.getKey().intValue());
+            out.writeByte(n.getValue().booleanValue() ? 1 : 0);
+        } // end of for
+
+        // ---
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+
+        try {
+            final FileChannel ch = raf.getChannel();
+
+            ch.truncate(0L);
+            write(ch, header.toByteArray());
+
+            for (final byte[] b : blocks) {
+                write(ch, b);
+            } // end of for
+        } finally {
+            raf.close();
+        } // end of finally
+    } // end of write
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Row> getRows() {
+        return new Rows(this, 0, this.size);
+    } // end of getRows
+
+    /**
+     * Not supported, as the rows are read from the mapped file.
+     *
+     * @throws UnsupportedOperationException
+     * @deprecated Not supported, as the rows are read from the mapped file.
+     */
+    @Deprecated
+    protected MappedRowList append(final Row row) {
+        throw new UnsupportedOperationException("Mapped row list");
+    } // end of append
+
+    /**
+     * {@inheritDoc}
+     */
+    public MappedRowList withLabel(final int columnIndex, final String label) {
+        if (columnIndex < 1 || columnIndex > this.blocks.length) {
+            throw new IllegalArgumentException("Invalid index: " +
+                                               columnIndex);
+
+        } // end of if
+
+        if (label == null) {
+            throw new IllegalArgumentException("Invalid label: " + label);
+        } // end of if
+
+        final HashMap<String,Integer> names =
+            new HashMap<String,Integer>(this.colNames);
+
+        names.put(label, columnIndex);
+
+        return new MappedRowList(this.data, this.blocks, this.size,
+                                 this.colClasses, names, this.colNullables,
+                                 this.cycling);
+
+    } // end of withLabel
+
+    /**
+     * {@inheritDoc}
+     */
+    public MappedRowList withNullable(final int columnIndex,
+                                      final boolean nullable) {
+
+        if (columnIndex < 1 || columnIndex > this.blocks.length) {
+            throw new IllegalArgumentException("Invalid index: " +
+                                               columnIndex);
+
+        } // end of if
+
+        final HashMap<Integer,Boolean> nullables =
+            new HashMap<Integer,Boolean>(this.colNullables);
+
+        nullables.put(columnIndex, nullable);
+
+        return new MappedRowList(this.data, this.blocks, this.size,
+                                 this.colClasses, this.colNames, nullables,
+                                 this.cycling);
+
+    } // end of withNullable
+
+    /**
+     * {@inheritDoc}
+     */
+    public MappedRowList withCycling(final boolean cycling) {
+        return new MappedRowList(this.data, this.blocks, this.size,
+                                 this.colClasses, this.colNames,
+                                 this.colNullables, cycling);
+
+    } // end of withCycling
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isCycling() {
+        return this.cycling;
+    } // end of isCycling
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Class<?>> getColumnClasses() {
+        return this.colClasses;
+    } // end of getColumnClasses
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<String,Integer> getColumnLabels() {
+        return this.colNames;
+    } // end of getColumnLabels
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<Integer,Boolean> getColumnNullables() {
+        return this.colNullables;
+    } // end of getColumnNullables
+
+    // --- Decoding ---
+
+    /**
+     * Returns the value of column #|c|+1 for row at given |index|.
+     */
+    Object cell(final int c, final int index) {
+        final Block b = this.blocks[c];
+        final ByteBuffer d = this.data;
+
+        if (b.hasNulls &&
+            (d.get(b.offset + (index >>> 3)) & (1 << (index & 7))) != 0) {
+
+            return null;
+        } // end of if
+
+        final int v = b.values;
+
+        switch (b.encoding) {
+        case INT: return Integer.valueOf(d.getInt(v + 4 * index));
+        case LONG: return Long.valueOf(d.getLong(v + 8 * index));
+        case DOUBLE: return Double.valueOf(d.getDouble(v + 8 * index));
+        case FLOAT: return Float.valueOf(d.getFloat(v + 4 * index));
+        case SHORT: return Short.valueOf(d.getShort(v + 2 * index));
+        case BYTE: return Byte.valueOf(d.get(v + index));
+        case BOOLEAN: return Boolean.valueOf(d.get(v + index) != 0);
+        case DATE: return new Date(d.getLong(v + 8 * index));
+        case TIME: return new Time(d.getLong(v + 8 * index));
+
+        case TIMESTAMP: {
+            final Timestamp ts = new Timestamp(d.getLong(v + 12 * index));
+
+            ts.setNanos(d.getInt(v + 12 * index + 8));
+
+            return ts;
+        }
+
+        default: break;
+        } // end of switch
+
+        // Variable-size value
+        final int start = d.getInt(v + 4 * index);
+        final int end = d.getInt(v + 4 * index + 4);
+        final int pos = v + 4 * (this.size + 1) + start;
+
+        switch (b.encoding) {
+        case STRING: return new String(bytes(d, pos, end - start), UTF8);
+        case BYTES: return bytes(d, pos, end - start);
+
+        case DECIMAL:
+            return new BigDecimal(new String(bytes(d, pos, end - start),
+                                             UTF8));
+
+        default: {
+            final ByteBuffer in = d.duplicate();
+
+            in.position(pos);
+
+            return Capture.readValue(in);
+        }
+        } // end of switch
+    } // end of cell
+
+    /**
+     * Returns |len| bytes read from |pos| in |d|.
+     */
+    private static byte[] bytes(final ByteBuffer d, final int pos, final int len) {
+        final byte[] b = new byte[len];
+
+        for (int i = 0; i < len; i++) {
+            b[i] = d.get(pos + i);
+        } // end of for
+
+        return b;
+    } // end of bytes
+
+    // --- Encoding ---
+
+    /**
+     * Returns the encoding for column #|c|+1, according its class
+     * (tagged values if not all its values are exactly of this class).
+     */
+    private static byte encoding(final Class<?> columnClass,
+                                 final List<? extends Row> rows,
+                                 final int c) {
+
+        final Class<?> cls = Capture.columnClass(columnClass.getName());
+        final byte enc;
+
+        if (cls == Integer.class) enc = INT;
+        else if (cls == Long.class) enc = LONG;
+        else if (cls == Double.class) enc = DOUBLE;
+        else if (cls == Float.class) enc = FLOAT;
+        else if (cls == Short.class) enc = SHORT;
+        else if (cls == Byte.class) enc = BYTE;
+        else if (cls == Boolean.class) enc = BOOLEAN;
+        else if (cls == Date.class) enc = DATE;
+        else if (cls == Time.class) enc = TIME;
+        else if (cls == Timestamp.class) enc = TIMESTAMP;
+        else if (cls == String.class) enc = STRING;
+        else if (cls == byte[].class) enc = BYTES;
+        else if (cls == BigDecimal.class) enc = DECIMAL;
+        else return TAGGED;
+
+        for (final Row r : rows) {
+            final Object v = cell(r, c);
+
+            if (v != null && v.getClass() != cls) {
+                return TAGGED;
+            } // end of if
+        } // end of for
+
+        return enc;
+    } // end of encoding
+
+    /**
+     * Returns the encoded block for column #|c|+1.
+     */
+    private static byte[] block(final byte encoding,
+                                final boolean hasNulls,
+                                final List<? extends Row> rows,
+                                final int c) throws IOException {
+
+        final int size = rows.size();
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+
+        if (hasNulls) {
+            final byte[] bitmap = new byte[(size + 7) >>> 3];
+            int i = 0;
+
+            for (final Row r : rows) {
+                if (cell(r, c) == null) {
+                    bitmap[i >>> 3] |= (byte) (1 << (i & 7));
+                } // end of if
+
+                i++;
+            } // end of for
+
+            out.write(bitmap);
+        } // end of if
+
+        if (encoding >= STRING) {
+            // Offsets, then values
+            final ByteArrayOutputStream values = new ByteArrayOutputStream();
+            final DataOutputStream vout = new DataOutputStream(values);
+
+            out.writeInt(0);
+
+            for (final Row r : rows) {
+                final Object v = cell(r, c);
+
+                if (v != null) {
+                    if (encoding == STRING) {
+                        vout.write(((String) v).getBytes(UTF8));
+                    } else if (encoding == BYTES) {
+                        vout.write((byte[]) v);
+                    } else if (encoding == DECIMAL) {
+                        vout.write(v.toString().getBytes(UTF8));
+                    } else {
+                        Capture.writeValue(vout, v);
+                    } // end of else
+                } // end of if
+
+                out.writeInt(values.size());
+            } // end of for
+
+            values.writeTo(out);
+
+            return bytes.toByteArray();
+        } // end of if
+
+        // ---
+
+        for (final Row r : rows) {
+            final Object v = cell(r, c);
+
+            switch (encoding) {
+            case INT:
+                out.writeInt((v == null) ? 0 : ((Integer) v).intValue());
+                break;
+
+            case LONG:
+                out.writeLong((v == null) ? 0L : ((Long) v).longValue());
+                break;
+
+            case DOUBLE:
+                out.writeDouble((v == null) ? 0D : ((Double) v).doubleValue());
+                break;
+
+            case FLOAT:
+                out.writeFloat((v == null) ? 0F : ((Float) v).floatValue());
+                break;
+
+            case SHORT:
+                out.writeShort((v == null) ? 0 : ((Short) v).shortValue());
+                break;
+
+            case BYTE:
+                out.writeByte((v == null) ? 0 : ((Byte) v).byteValue());
+                break;
+
+            case BOOLEAN:
+                out.writeByte((v != null && ((Boolean) v).booleanValue())
+                              ? 1 : 0);
+                break;
+
+            case DATE:
+            case TIME:
+                out.writeLong((v == null)
+                              ? 0L : ((java.util.Date) v).getTime());
+                break;
+
+            default: // TIMESTAMP
+                out.writeLong((v == null) ? 0L : ((Timestamp) v).getTime());
+                out.writeInt((v == null) ? 0 : ((Timestamp) v).getNanos());
+                break;
+            } // end of switch
+        } // end of for
+
+        return bytes.toByteArray();
+    } // end of block
+
+    /**
+     * Returns the value of column #|c|+1 in given |row|.
+     */
+    private static Object cell(final Row row, final int c) {
+        final List<Object> cells = row.cells();
+
+        return (c < cells.size()) ? cells.get(c) : null;
+    } // end of cell
+
+    /**
+     * Writes all the |bytes| to given channel.
+     */
+    private static void write(final FileChannel ch, final byte[] bytes)
+        throws IOException {
+
+        final ByteBuffer b = ByteBuffer.wrap(bytes);
+
+        while (b.hasRemaining()) {
+            ch.write(b);
+        } // end of while
+    } // end of write
+
+    // --- Inner classes ---
+
+    /**
+     * Column block.
+     */
+    private static final class Block {
+        final byte encoding;
+        final boolean hasNulls;
+
+        /**
+         * Offset of the block (null bitmap if any)
+         */
+        final int offset;
+
+        /**
+         * Offset of the values (or of the value offsets)
+         */
+        final int values;
+
+        Block(final byte encoding, final boolean hasNulls,
+              final int offset, final int size) {
+
+            this.encoding = encoding;
+            this.hasNulls = hasNulls;
+            this.offset = offset;
+            this.values = hasNulls ? offset + ((size + 7) >>> 3) : offset;
+        } // end of <init>
+    } // end of class Block
+
+    /**
+     * Rows view, decoding the cells when read.
+     */
+    private static final class Rows extends AbstractList<Row>
+        implements RandomAccess {
+
+        private final MappedRowList list;
+        private final int offset;
+        private final int size;
+
+        Rows(final MappedRowList list, final int offset, final int size) {
+            this.list = list;
+            this.offset = offset;
+            this.size = size;
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public Row get(final int index) {
+            if (index < 0 || index >= this.size) {
+                throw new IndexOutOfBoundsException("Index: " + index
+                                                    + ", Size: " + this.size);
+
+            } // end of if
+
+            return new MappedRow(this.list, this.offset + index);
+        } // end of get
+
+        /**
+         * {@inheritDoc}
+         */
+        public int size() {
+            return this.size;
+        } // end of size
+
+        /**
+         * {@inheritDoc}
+         */
+        public List<Row> subList(final int fromIndex, final int toIndex) {
+            if (fromIndex < 0 || toIndex > this.size || fromIndex > toIndex) {
+                throw new IndexOutOfBoundsException("Range: " + fromIndex +
+                                                    " - " + toIndex +
+                                                    ", Size: " + this.size);
+
+            } // end of if
+
+            return new Rows(this.list, this.offset + fromIndex,
+                            toIndex - fromIndex);
+
+        } // end of subList
+    } // end of class Rows
+
+    /**
+     * Row view, decoding its cells when read.
+     */
+    private static final class MappedRow implements Row {
+        private final MappedRowList list;
+        private final int index;
+
+        /**
+         * Bulk constructor.
+         */
+        MappedRow(final MappedRowList list, final int index) {
+            this.list = list;
+            this.index = index;
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public List<Object> cells() {
+            return new AbstractList<Object>() {
+                public Object get(final int i) {
+                    if (i < 0 || i >= list.blocks.length) {
+                        throw new IndexOutOfBoundsException("Index: " + i);
+                    } // end of if
+
+                    return list.cell(i, index);
+                }
+
+                public int size() {
+                    return list.blocks.length;
+                }
+            };
+        } // end of cells
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean equals(final Object o) {
+            if (o == null || !(o instanceof MappedRow)) {
+                return false;
+            } // end of if
+
+            return cells().equals(((MappedRow) o).cells());
+        } // end of equals
+
+        /**
+         * {@inheritDoc}
+         */
+        public int hashCode() {
+            return cells().hashCode();
+        } // end of hashCode
+
+        /**
+         * {@inheritDoc}
+         */
+        public String toString() {
+            return String.format("MappedRow%s", cells());
+        } // end of toString
+    } // end of class MappedRow
+} // end of class MappedRowList
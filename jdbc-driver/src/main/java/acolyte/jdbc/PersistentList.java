@@ -0,0 +1,480 @@
+package acolyte.jdbc;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.List;
+
+/**
+ * Immutable list, sharing its structure with the list it's derived from
+ * (32-way trie, with the last elements kept in a separate tail),
+ * so that appending is done in O(log32 n) without copying elements.
+ * Many elements can also be appended in place using a {@link Builder}.
+ *
+ * @author Cedric Chantepie
+ */
+final class PersistentList<E> extends AbstractList<E> implements RandomAccess {
+    // --- Shared ---
+
+    /**
+     * Bits per trie level
+     */
+    private static final int BITS = 5;
+
+    /**
+     * Node width
+     */
+    private static final int WIDTH = 1 << BITS;
+
+    /**
+     * Index mask
+     */
+    private static final int MASK = WIDTH - 1;
+
+    /**
+     * Empty node
+     */
+    private static final Object[] EMPTY_NODE = new Object[0];
+
+    /**
+     * Empty list
+     */
+    private static final PersistentList<Object> EMPTY =
+        new PersistentList<Object>(0, BITS, EMPTY_NODE, EMPTY_NODE);
+
+    // --- Properties ---
+
+    /**
+     * Element count
+     */
+    private final int size;
+
+    /**
+     * Shift of the root level
+     */
+    private final int shift;
+
+    /**
+     * Root node (elements before the tail)
+     */
+    private final Object[] root;
+
+    /**
+     * Tail node (last elements, up to 32)
+     */
+    private final Object[] tail;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private PersistentList(final int size,
+                           final int shift,
+                           final Object[] root,
+                           final Object[] tail) {
+
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns empty list.
+     *
+     * @param <E> the element type
+     * @return Empty persistent list
+     */
+    @SuppressWarnings("unchecked")
+    static <E> PersistentList<E> empty() {
+        return (PersistentList<E>) EMPTY;
+    } // end of empty
+
+    /**
+     * Returns persistent list with the elements of given |list|.
+     * If |list| is already a persistent one, it's returned as is
+     * (otherwise elements are copied once).
+     *
+     * @param <E> the element type
+     * @param list the list to be converted
+     * @return Persistent list with the same elements
+     */
+    @SuppressWarnings("unchecked")
+    static <E> PersistentList<E> from(final List<? extends E> list) {
+        if (list instanceof PersistentList) {
+            return (PersistentList<E>) list;
+        } // end of if
+
+        final int n = list.size();
+
+        if (n == 0) {
+            return empty();
+        } // end of if
+
+        // ---
+
+        final Object[] elements = list.toArray();
+        final int tailSize = ((n - 1) & MASK) + 1;
+        final int treeSize = n - tailSize;
+        final Object[] tail = new Object[tailSize];
+
+        System.arraycopy(elements, treeSize, tail, 0, tailSize);
+
+        if (treeSize == 0) {
+            return new PersistentList<E>(n, BITS, EMPTY_NODE, tail);
+        } // end of if
+
+        // ---
+
+        Object[] nodes = new Object[treeSize >>> BITS];
+
+        for (int i = 0; i < nodes.length; i++) {
+            final Object[] leaf = new Object[WIDTH];
+
+            System.arraycopy(elements, i << BITS, leaf, 0, WIDTH);
+
+            nodes[i] = leaf;
+        } // end of for
+
+        int shift = BITS;
+
+        while (nodes.length > WIDTH) {
+            final Object[] parents = new Object[(nodes.length + MASK) >>> BITS];
+
+            for (int i = 0; i < parents.length; i++) {
+                final int off = i << BITS;
+                final Object[] parent =
+                    new Object[Math.min(WIDTH, nodes.length - off)];
+
+                System.arraycopy(nodes, off, parent, 0, parent.length);
+
+                parents[i] = parent;
+            } // end of for
+
+            nodes = parents;
+            shift += BITS;
+        } // end of while
+
+        return new PersistentList<E>(n, shift, nodes, tail);
+    } // end of from
+
+    /**
+     * Returns a builder initialized with the elements of given |list|,
+     * which is not modified by the builder.
+     *
+     * @param <E> the element type
+     * @param list the initial elements
+     * @return New builder
+     */
+    static <E> Builder<E> builder(final PersistentList<E> list) {
+        return new Builder<E>(list);
+    } // end of builder
+
+    /**
+     * Returns a new list with given |element| appended,
+     * sharing the structure of this one.
+     *
+     * @param element the element to be appended
+     * @return Updated list
+     */
+    PersistentList<E> append(final E element) {
+        if (this.tail.length < WIDTH) {
+            final Object[] t = new Object[this.tail.length + 1];
+
+            System.arraycopy(this.tail, 0, t, 0, this.tail.length);
+            t[this.tail.length] = element;
+
+            return new PersistentList<E>(this.size + 1,
+                                         this.shift, this.root, t);
+
+        } // end of if
+
+        // ---
+
+        // Full tail is pushed into the trie
+        final int leafIndex = (this.size - WIDTH) >>> BITS;
+        final Object[] t = new Object[] { element };
+
+        if (leafIndex == (1 << this.shift)) { // root overflow
+            final Object[] r = new Object[] {
+                this.root, newPath(this.shift, this.tail)
+            };
+
+            return new PersistentList<E>(this.size + 1,
+                                         this.shift + BITS, r, t);
+
+        } // end of if
+
+        return new PersistentList<E>(this.size + 1, this.shift,
+                                     pushTail(this.shift, this.root,
+                                              leafIndex, this.tail), t);
+
+    } // end of append
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public E get(final int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index: " + index
+                                                + ", Size: " + this.size);
+
+        } // end of if
+
+        final int tailOffset = this.size - this.tail.length;
+
+        if (index >= tailOffset) {
+            return (E) this.tail[index - tailOffset];
+        } // end of if
+
+        Object[] node = this.root;
+
+        for (int level = this.shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        } // end of for
+
+        return (E) node[index & MASK];
+    } // end of get
+
+    /**
+     * {@inheritDoc}
+     */
+    public int size() {
+        return this.size;
+    } // end of size
+
+    // ---
+
+    /**
+     * Returns a copy of |node| (at given |level|),
+     * with |leaf| inserted at |leafIndex|.
+     */
+    private static Object[] pushTail(final int level,
+                                     final Object[] node,
+                                     final int leafIndex,
+                                     final Object[] leaf) {
+
+        final int sub = (leafIndex >>> (level - BITS)) & MASK;
+        final Object child;
+
+        if (level == BITS) {
+            child = leaf;
+        } else if (sub < node.length) {
+            child = pushTail(level - BITS, (Object[]) node[sub],
+                             leafIndex, leaf);
+
+        } else {
+            child = newPath(level - BITS, leaf);
+        } // end of else
+
+        final Object[] copy = new Object[Math.max(node.length, sub + 1)];
+
+        System.arraycopy(node, 0, copy, 0, node.length);
+        copy[sub] = child;
+
+        return copy;
+    } // end of pushTail
+
+    /**
+     * Returns the path of nodes from given |level| down to the |leaf|.
+     */
+    private static Object newPath(final int level, final Object[] leaf) {
+        return (level == 0) ? leaf
+            : new Object[] { newPath(level - BITS, leaf) };
+
+    } // end of newPath
+
+    // --- Inner classes ---
+
+    /**
+     * Mutable builder, appending elements in place
+     * (in amortized constant time), then handing its nodes over
+     * to the built list without copying the elements.
+     *
+     * The nodes of the rightmost path of the trie are allocated
+     * with the full width, as the nodes being filled, and are only trimmed
+     * (along with the tail) when the list is built.
+     * Once built, the builder cannot be used any longer.
+     */
+    static final class Builder<E> {
+        // --- Properties ---
+
+        /**
+         * Element count
+         */
+        private int size;
+
+        /**
+         * Shift of the root level
+         */
+        private int shift;
+
+        /**
+         * Root node (null once built)
+         */
+        private Object[] root;
+
+        /**
+         * Tail node (full width)
+         */
+        private Object[] tail;
+
+        /**
+         * Element count in the tail
+         */
+        private int tailSize;
+
+        // --- Constructors ---
+
+        /**
+         * Initializes the builder with the elements of the |list|,
+         * only copying the nodes of its rightmost path (O(log32 n)).
+         */
+        Builder(final PersistentList<E> list) {
+            this.size = list.size;
+            this.shift = list.shift;
+            this.root = own(list.root, list.shift);
+            this.tail = Arrays.copyOf(list.tail, WIDTH);
+            this.tailSize = list.tail.length;
+        } // end of <init>
+
+        // ---
+
+        /**
+         * Appends given |element|.
+         *
+         * @param element the element to be appended
+         * @return This builder
+         * @throws IllegalStateException if the list is already built
+         */
+        Builder<E> append(final E element) {
+            if (this.root == null) {
+                throw new IllegalStateException("List already built");
+            } // end of if
+
+            if (this.tailSize == WIDTH) {
+                pushTail();
+            } // end of if
+
+            this.tail[this.tailSize++] = element;
+            this.size++;
+
+            return this;
+        } // end of append
+
+        /**
+         * Returns the number of elements appended so far.
+         *
+         * @return Element count
+         */
+        int size() {
+            return this.size;
+        } // end of size
+
+        /**
+         * Returns the persistent list of the appended elements.
+         *
+         * @return Built list
+         * @throws IllegalStateException if the list is already built
+         */
+        PersistentList<E> build() {
+            if (this.root == null) {
+                throw new IllegalStateException("List already built");
+            } // end of if
+
+            final int treeSize = this.size - this.tailSize;
+            final Object[] r = (treeSize == 0) ? EMPTY_NODE
+                : trim(this.root, this.shift, treeSize);
+
+            final Object[] t = (this.tailSize == WIDTH) ? this.tail
+                : Arrays.copyOf(this.tail, this.tailSize);
+
+            this.root = null;
+            this.tail = null;
+
+            if (this.size == 0) {
+                return empty();
+            } // end of if
+
+            return new PersistentList<E>(this.size, this.shift, r, t);
+        } // end of build
+
+        /**
+         * Pushes the full tail into the trie, in place.
+         */
+        private void pushTail() {
+            final int leafIndex = (this.size - WIDTH) >>> BITS;
+
+            if (leafIndex == (1 << this.shift)) { // root overflow
+                final Object[] r = new Object[WIDTH];
+
+                r[0] = this.root;
+
+                this.root = r;
+                this.shift += BITS;
+            } // end of if
+
+            Object[] node = this.root;
+
+            for (int level = this.shift; level > BITS; level -= BITS) {
+                final int sub = (leafIndex >>> (level - BITS)) & MASK;
+
+                if (node[sub] == null) {
+                    node[sub] = new Object[WIDTH];
+                } // end of if
+
+                node = (Object[]) node[sub];
+            } // end of for
+
+            node[leafIndex & MASK] = this.tail;
+
+            this.tail = new Object[WIDTH];
+            this.tailSize = 0;
+        } // end of pushTail
+
+        /**
+         * Returns a full width copy of the |node| (at given |level|),
+         * with its rightmost path also copied (leaves are full,
+         * and so never modified).
+         */
+        private static Object[] own(final Object[] node, final int level) {
+            final Object[] copy = Arrays.copyOf(node, WIDTH);
+
+            if (level > BITS && node.length > 0) {
+                final int last = node.length - 1;
+
+                copy[last] = own((Object[]) node[last], level - BITS);
+            } // end of if
+
+            return copy;
+        } // end of own
+
+        /**
+         * Returns the |node| (at given |level|) trimmed to its children,
+         * for the |count| elements it contains,
+         * with its rightmost path also trimmed.
+         */
+        private static Object[] trim(final Object[] node,
+                                     final int level,
+                                     final int count) {
+
+            final int children = ((count - 1) >>> level) + 1;
+            final Object[] trimmed = (children == WIDTH) ? node
+                : Arrays.copyOf(node, children);
+
+            if (level > BITS) {
+                final int last = children - 1;
+
+                trimmed[last] = trim((Object[]) node[last], level - BITS,
+                                     count - (last << level));
+
+            } // end of if
+
+            return trimmed;
+        } // end of trim
+    } // end of class Builder
+} // end of class PersistentList
@@ -0,0 +1,491 @@
+package acolyte.jdbc;
+
+import java.util.NoSuchElementException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable map, sharing its structure with the map it's derived from
+ * (hash array mapped trie, 32-way), so that putting or removing
+ * an entry is done in O(log32 n), only copying the nodes of its path.
+ *
+ * @author Cedric Chantepie
+ */
+final class PersistentMap<K,V> extends AbstractMap<K,V> {
+    // --- Shared ---
+
+    /**
+     * Hash bits per trie level
+     */
+    private static final int BITS = 5;
+
+    /**
+     * Hash index mask
+     */
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Shift from which the hash bits are all consumed
+     * (node of colliding entries)
+     */
+    private static final int COLLISION = 35;
+
+    /**
+     * Max node depth (including the collision level)
+     */
+    private static final int DEPTH = (COLLISION / BITS) + 1;
+
+    /**
+     * Empty node
+     */
+    private static final Node EMPTY_NODE = new Node(0, new Object[0]);
+
+    /**
+     * Empty map
+     */
+    private static final PersistentMap<Object,Object> EMPTY =
+        new PersistentMap<Object,Object>(0, EMPTY_NODE);
+
+    // --- Properties ---
+
+    /**
+     * Entry count
+     */
+    private final int size;
+
+    /**
+     * Root node
+     */
+    private final Node root;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private PersistentMap(final int size, final Node root) {
+        this.size = size;
+        this.root = root;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns empty map.
+     *
+     * @param <K> the key type
+     * @param <V> the value type
+     * @return Empty persistent map
+     */
+    @SuppressWarnings("unchecked")
+    static <K,V> PersistentMap<K,V> empty() {
+        return (PersistentMap<K,V>) EMPTY;
+    } // end of empty
+
+    /**
+     * Returns a new map with the |value| for given |key|,
+     * sharing the structure of this one.
+     *
+     * @param key the entry key
+     * @param value the entry value
+     * @return Updated map
+     */
+    PersistentMap<K,V> plus(final K key, final V value) {
+        final int hash = hash(key);
+        final int n = (find(this.root, hash, key) == null)
+            ? this.size + 1 : this.size;
+
+        final Leaf<K,V> leaf = new Leaf<K,V>(hash, key, value);
+
+        return new PersistentMap<K,V>(n, put(this.root, leaf, 0));
+    } // end of plus
+
+    /**
+     * Returns a new map without the entry for given |key|,
+     * sharing the structure of this one (or this one if there is no entry).
+     *
+     * @param key the key of the entry to be removed
+     * @return Updated map
+     */
+    PersistentMap<K,V> minus(final K key) {
+        final Node r = remove(this.root, hash(key), key, 0);
+
+        if (r == this.root) {
+            return this;
+        } // end of if
+
+        return new PersistentMap<K,V>(this.size - 1, r);
+    } // end of minus
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        final Leaf<?,?> l = find(this.root, hash(key), key);
+
+        return (l == null) ? null : (V) l.getValue();
+    } // end of get
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean containsKey(final Object key) {
+        return find(this.root, hash(key), key) != null;
+    } // end of containsKey
+
+    /**
+     * {@inheritDoc}
+     */
+    public int size() {
+        return this.size;
+    } // end of size
+
+    /**
+     * Returns the immutable view of the entries (not copied).
+     *
+     * {@inheritDoc}
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        return new AbstractSet<Map.Entry<K,V>>() {
+            public Iterator<Map.Entry<K,V>> iterator() {
+                return new EntryIterator<K,V>(root);
+            } // end of iterator
+
+            public int size() {
+                return size;
+            } // end of size
+        };
+    } // end of entrySet
+
+    // ---
+
+    /**
+     * Returns the spread hash code of the |key|.
+     */
+    private static int hash(final Object key) {
+        if (key == null) {
+            return 0;
+        } // end of if
+
+        final int h = key.hashCode();
+
+        return h ^ (h >>> 16);
+    } // end of hash
+
+    /**
+     * Returns true if the |leaf| is the one for the |key|.
+     */
+    private static boolean matches(final Leaf<?,?> leaf,
+                                   final int hash,
+                                   final Object key) {
+
+        final Object k = leaf.getKey();
+
+        return leaf.hash == hash && (k == key || (k != null && k.equals(key)));
+    } // end of matches
+
+    /**
+     * Returns the leaf for the |key| in the trie from |node|, or null.
+     */
+    private static Leaf<?,?> find(final Node node,
+                                  final int hash,
+                                  final Object key) {
+
+        Node n = node;
+
+        for (int shift = 0; shift < COLLISION; shift += BITS) {
+            final int bit = 1 << ((hash >>> shift) & MASK);
+
+            if ((n.bitmap & bit) == 0) {
+                return null;
+            } // end of if
+
+            final Object s = n.slots[Integer.bitCount(n.bitmap & (bit - 1))];
+
+            if (!(s instanceof Node)) {
+                final Leaf<?,?> l = (Leaf<?,?>) s;
+
+                return matches(l, hash, key) ? l : null;
+            } // end of if
+
+            n = (Node) s;
+        } // end of for
+
+        for (final Object s : n.slots) {
+            final Leaf<?,?> l = (Leaf<?,?>) s;
+
+            if (matches(l, hash, key)) {
+                return l;
+            } // end of if
+        } // end of for
+
+        return null;
+    } // end of find
+
+    /**
+     * Returns a copy of |node| (at given |shift|),
+     * with the |leaf| inserted or replacing the one with the same key.
+     */
+    private static Node put(final Node node,
+                            final Leaf<?,?> leaf,
+                            final int shift) {
+
+        if (shift >= COLLISION) {
+            final Object[] slots = node.slots;
+
+            for (int i = 0; i < slots.length; i++) {
+                if (matches((Leaf<?,?>) slots[i], leaf.hash, leaf.getKey())) {
+                    return new Node(0, replaced(slots, i, leaf));
+                } // end of if
+            } // end of for
+
+            return new Node(0, inserted(slots, slots.length, leaf));
+        } // end of if
+
+        // ---
+
+        final int bit = 1 << ((leaf.hash >>> shift) & MASK);
+        final int idx = Integer.bitCount(node.bitmap & (bit - 1));
+
+        if ((node.bitmap & bit) == 0) {
+            return new Node(node.bitmap | bit,
+                            inserted(node.slots, idx, leaf));
+
+        } // end of if
+
+        final Object s = node.slots[idx];
+        final Node child;
+
+        if (s instanceof Node) {
+            child = put((Node) s, leaf, shift + BITS);
+        } else {
+            final Leaf<?,?> l = (Leaf<?,?>) s;
+
+            if (matches(l, leaf.hash, leaf.getKey())) {
+                return new Node(node.bitmap, replaced(node.slots, idx, leaf));
+            } // end of if
+
+            // Both leaves are pushed down
+            child = put(put(EMPTY_NODE, l, shift + BITS), leaf, shift + BITS);
+        } // end of else
+
+        return new Node(node.bitmap, replaced(node.slots, idx, child));
+    } // end of put
+
+    /**
+     * Returns a copy of |node| (at given |shift|) without the leaf
+     * for the |key|, or the |node| itself if there is no such leaf.
+     */
+    private static Node remove(final Node node,
+                               final int hash,
+                               final Object key,
+                               final int shift) {
+
+        if (shift >= COLLISION) {
+            final Object[] slots = node.slots;
+
+            for (int i = 0; i < slots.length; i++) {
+                if (matches((Leaf<?,?>) slots[i], hash, key)) {
+                    return new Node(0, removed(slots, i));
+                } // end of if
+            } // end of for
+
+            return node;
+        } // end of if
+
+        // ---
+
+        final int bit = 1 << ((hash >>> shift) & MASK);
+
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        } // end of if
+
+        final int idx = Integer.bitCount(node.bitmap & (bit - 1));
+        final Object s = node.slots[idx];
+
+        if (!(s instanceof Node)) {
+            if (!matches((Leaf<?,?>) s, hash, key)) {
+                return node;
+            } // end of if
+
+            return new Node(node.bitmap & ~bit, removed(node.slots, idx));
+        } // end of if
+
+        // ---
+
+        final Node child = remove((Node) s, hash, key, shift + BITS);
+
+        if (child == s) {
+            return node;
+        } // end of if
+
+        if (child.slots.length == 0) {
+            return new Node(node.bitmap & ~bit, removed(node.slots, idx));
+        } // end of if
+
+        if (child.slots.length == 1 && !(child.slots[0] instanceof Node)) {
+            // Single remaining leaf is pulled up
+            return new Node(node.bitmap,
+                            replaced(node.slots, idx, child.slots[0]));
+
+        } // end of if
+
+        return new Node(node.bitmap, replaced(node.slots, idx, child));
+    } // end of remove
+
+    /**
+     * Returns a copy of |slots| with the |value| at index |i|.
+     */
+    private static Object[] replaced(final Object[] slots,
+                                     final int i,
+                                     final Object value) {
+
+        final Object[] copy = slots.clone();
+
+        copy[i] = value;
+
+        return copy;
+    } // end of replaced
+
+    /**
+     * Returns a copy of |slots| with the |value| inserted at index |i|.
+     */
+    private static Object[] inserted(final Object[] slots,
+                                     final int i,
+                                     final Object value) {
+
+        final Object[] copy = new Object[slots.length + 1];
+
+        System.arraycopy(slots, 0, copy, 0, i);
+        copy[i] = value;
+        System.arraycopy(slots, i, copy, i + 1, slots.length - i);
+
+        return copy;
+    } // end of inserted
+
+    /**
+     * Returns a copy of |slots| without the value at index |i|.
+     */
+    private static Object[] removed(final Object[] slots, final int i) {
+        final Object[] copy = new Object[slots.length - 1];
+
+        System.arraycopy(slots, 0, copy, 0, i);
+        System.arraycopy(slots, i + 1, copy, i, copy.length - i);
+
+        return copy;
+    } // end of removed
+
+    // --- Inner classes ---
+
+    /**
+     * Trie node (immutable): the slots are either leaves or child nodes,
+     * one per bit set in the bitmap (or only colliding leaves,
+     * without bitmap, once the hash bits are consumed).
+     */
+    private static final class Node {
+        final int bitmap;
+        final Object[] slots;
+
+        Node(final int bitmap, final Object[] slots) {
+            this.bitmap = bitmap;
+            this.slots = slots;
+        } // end of <init>
+    } // end of class Node
+
+    /**
+     * Map entry (immutable).
+     */
+    private static final class Leaf<K,V>
+        extends AbstractMap.SimpleImmutableEntry<K,V> {
+
+        private static final long serialVersionUID = 1L;
+
+        final int hash;
+
+        Leaf(final int hash, final K key, final V value) {
+            super(key, value);
+
+            this.hash = hash;
+        } // end of <init>
+    } // end of class Leaf
+
+    /**
+     * Depth-first iterator over the leaves.
+     */
+    private static final class EntryIterator<K,V>
+        implements Iterator<Map.Entry<K,V>> {
+
+        private final Object[][] stack = new Object[DEPTH][];
+        private final int[] index = new int[DEPTH];
+        private int depth = 0;
+        private Leaf<K,V> next = null;
+
+        EntryIterator(final Node root) {
+            this.stack[0] = root.slots;
+
+            advance();
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean hasNext() {
+            return this.next != null;
+        } // end of hasNext
+
+        /**
+         * {@inheritDoc}
+         */
+        public Map.Entry<K,V> next() {
+            final Leaf<K,V> l = this.next;
+
+            if (l == null) {
+                throw new NoSuchElementException();
+            } // end of if
+
+            advance();
+
+            return l;
+        } // end of next
+
+        /**
+         * @throws UnsupportedOperationException as immutable
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        } // end of remove
+
+        /**
+         * Moves to the next leaf, if any.
+         */
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            this.next = null;
+
+            while (this.depth >= 0) {
+                final Object[] slots = this.stack[this.depth];
+
+                if (this.index[this.depth] >= slots.length) {
+                    this.depth--;
+                    continue;
+                } // end of if
+
+                final Object s = slots[this.index[this.depth]++];
+
+                if (s instanceof Node) {
+                    this.depth++;
+                    this.stack[this.depth] = ((Node) s).slots;
+                    this.index[this.depth] = 0;
+                } else {
+                    this.next = (Leaf<K,V>) s;
+                    return;
+                } // end of else
+            } // end of while
+        } // end of advance
+    } // end of class EntryIterator
+} // end of class PersistentMap
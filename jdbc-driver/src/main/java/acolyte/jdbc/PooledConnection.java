@@ -0,0 +1,771 @@
+package acolyte.jdbc;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Map;
+import java.util.Set;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.sql.SQLClientInfoException;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.SQLXML;
+import java.sql.Struct;
+import java.sql.NClob;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+
+/**
+ * Handle of a connection checked out from a {@link PooledDataSource}:
+ * a new handle is returned for each checkout,
+ * delegating to the pooled (physical) connection until closed.
+ *
+ * Once the handle is closed, the statements created through it are closed,
+ * the pending transaction is rollbacked, the connection is returned
+ * to the pool, and any call on the handle (except {@link #isClosed},
+ * {@link #isValid} and {@link #abort}) throws a SQLException
+ * ("Connection is already closed").
+ *
+ * The statements, result sets and metadata obtained through the handle
+ * refer to it (e.g. `statement.getConnection()`),
+ * rather than to the pooled connection.
+ *
+ * @author Cedric Chantepie
+ */
+final class PooledConnection implements java.sql.Connection {
+    // --- Properties ---
+
+    /**
+     * Pool of the connection
+     */
+    private final PooledDataSource pool;
+
+    /**
+     * Pooled connection, or null once the handle is closed
+     */
+    private final AtomicReference<acolyte.jdbc.Connection> connection;
+
+    /**
+     * Statements created through this handle, and not yet closed
+     */
+    private final Set<Statement> statements =
+        Collections.newSetFromMap(new ConcurrentHashMap<Statement,Boolean>());
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     *
+     * @param pool the pool of the |connection|
+     * @param connection the pooled connection (checked out)
+     */
+    PooledConnection(final PooledDataSource pool,
+                     final acolyte.jdbc.Connection connection) {
+
+        this.pool = pool;
+        this.connection =
+            new AtomicReference<acolyte.jdbc.Connection>(connection);
+
+    } // end of <init>
+
+    // --- Connection impl ---
+
+    /**
+     * {@inheritDoc}
+     */
+    public Statement createStatement() throws SQLException {
+        return track(Statement.class, connection().createStatement());
+    } // end of createStatement
+
+    /**
+     * {@inheritDoc}
+     */
+    public PreparedStatement prepareStatement(final String sql)
+        throws SQLException {
+
+        return track(PreparedStatement.class,
+                     connection().prepareStatement(sql));
+    } // end of prepareStatement
+
+    /**
+     * {@inheritDoc}
+     */
+    public CallableStatement prepareCall(final String sql)
+        throws SQLException {
+
+        return track(CallableStatement.class,
+                     connection().prepareCall(sql));
+    } // end of prepareCall
+
+    /**
+     * {@inheritDoc}
+     */
+    public String nativeSQL(final String sql) throws SQLException {
+        return connection().nativeSQL(sql);
+    } // end of nativeSQL
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setAutoCommit(final boolean autoCommit) throws SQLException {
+        connection().setAutoCommit(autoCommit);
+    } // end of setAutoCommit
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean getAutoCommit() throws SQLException {
+        return connection().getAutoCommit();
+    } // end of getAutoCommit
+
+    /**
+     * {@inheritDoc}
+     */
+    public void commit() throws SQLException {
+        connection().commit();
+    } // end of commit
+
+    /**
+     * {@inheritDoc}
+     */
+    public void rollback() throws SQLException {
+        connection().rollback();
+    } // end of rollback
+
+    /**
+     * Closes the statements created through this handle,
+     * rollbacks the pending transaction (unless in auto-commit mode),
+     * and returns the connection to the pool.
+     *
+     * @throws SQLException if this handle is already closed
+     */
+    public void close() throws SQLException {
+        final acolyte.jdbc.Connection con = this.connection.getAndSet(null);
+
+        if (con == null) {
+            throw new SQLException("Connection is already closed");
+        } // end of if
+
+        // ---
+
+        try {
+            for (final Statement st : this.statements) {
+                this.statements.remove(st);
+
+                if (!st.isClosed()) {
+                    st.close();
+                } // end of if
+            } // end of for
+
+            if (!con.isClosed() && !con.getAutoCommit()) {
+                con.rollback();
+            } // end of if
+        } finally {
+            this.pool.release(con);
+        } // end of finally
+    } // end of close
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isClosed() throws SQLException {
+        return this.connection.get() == null;
+    } // end of isClosed
+
+    /**
+     * {@inheritDoc}
+     */
+    public DatabaseMetaData getMetaData() throws SQLException {
+        return facade(DatabaseMetaData.class, connection().getMetaData(), null);
+    } // end of getMetaData
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setReadOnly(final boolean readOnly) throws SQLException {
+        connection().setReadOnly(readOnly);
+    } // end of setReadOnly
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isReadOnly() throws SQLException {
+        return connection().isReadOnly();
+    } // end of isReadOnly
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setCatalog(final String catalog) throws SQLException {
+        connection().setCatalog(catalog);
+    } // end of setCatalog
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getCatalog() throws SQLException {
+        return connection().getCatalog();
+    } // end of getCatalog
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setTransactionIsolation(final int level) throws SQLException {
+        connection().setTransactionIsolation(level);
+    } // end of setTransactionIsolation
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getTransactionIsolation() throws SQLException {
+        return connection().getTransactionIsolation();
+    } // end of getTransactionIsolation
+
+    /**
+     * {@inheritDoc}
+     */
+    public SQLWarning getWarnings() throws SQLException {
+        return connection().getWarnings();
+    } // end of getWarnings
+
+    /**
+     * {@inheritDoc}
+     */
+    public void clearWarnings() throws SQLException {
+        connection().clearWarnings();
+    } // end of clearWarnings
+
+    /**
+     * {@inheritDoc}
+     */
+    public Statement createStatement(final int resultSetType,
+                                     final int resultSetConcurrency)
+        throws SQLException {
+
+        return track(Statement.class, connection().
+                     createStatement(resultSetType, resultSetConcurrency));
+
+    } // end of createStatement
+
+    /**
+     * {@inheritDoc}
+     */
+    public PreparedStatement prepareStatement(final String sql,
+                                              final int resultSetType,
+                                              final int resultSetConcurrency)
+        throws SQLException {
+
+        return track(PreparedStatement.class,
+                     connection().prepareStatement(sql, resultSetType,
+                                                   resultSetConcurrency));
+
+    } // end of prepareStatement
+
+    /**
+     * {@inheritDoc}
+     */
+    public CallableStatement prepareCall(final String sql,
+                                         final int resultSetType,
+                                         final int resultSetConcurrency)
+        throws SQLException {
+
+        return track(CallableStatement.class,
+                     connection().prepareCall(sql, resultSetType,
+                                              resultSetConcurrency));
+
+    } // end of prepareCall
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<String,Class<?>> getTypeMap() throws SQLException {
+        return connection().getTypeMap();
+    } // end of getTypeMap
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setTypeMap(final Map<String,Class<?>> typemap)
+        throws SQLException {
+
+        connection().setTypeMap(typemap);
+    } // end of setTypeMap
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setHoldability(final int holdability) throws SQLException {
+        connection().setHoldability(holdability);
+    } // end of setHoldability
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getHoldability() throws SQLException {
+        return connection().getHoldability();
+    } // end of getHoldability
+
+    /**
+     * {@inheritDoc}
+     */
+    public Savepoint setSavepoint() throws SQLException {
+        return connection().setSavepoint();
+    } // end of setSavepoint
+
+    /**
+     * {@inheritDoc}
+     */
+    public Savepoint setSavepoint(final String name) throws SQLException {
+        return connection().setSavepoint(name);
+    } // end of setSavepoint
+
+    /**
+     * {@inheritDoc}
+     */
+    public void rollback(final Savepoint savepoint) throws SQLException {
+        connection().rollback(savepoint);
+    } // end of rollback
+
+    /**
+     * {@inheritDoc}
+     */
+    public void releaseSavepoint(final Savepoint savepoint)
+        throws SQLException {
+
+        connection().releaseSavepoint(savepoint);
+    } // end of releaseSavepoint
+
+    /**
+     * {@inheritDoc}
+     */
+    public Statement createStatement(final int resultSetType,
+                                     final int resultSetConcurrency,
+                                     final int resultSetHoldability)
+        throws SQLException {
+
+        return track(Statement.class,
+                     connection().createStatement(resultSetType,
+                                                  resultSetConcurrency,
+                                                  resultSetHoldability));
+
+    } // end of createStatement
+
+    /**
+     * {@inheritDoc}
+     */
+    public PreparedStatement prepareStatement(final String sql,
+                                              final int resultSetType,
+                                              final int resultSetConcurrency,
+                                              final int resultSetHoldability)
+        throws SQLException {
+
+        return track(PreparedStatement.class,
+                     connection().prepareStatement(sql, resultSetType,
+                                                   resultSetConcurrency,
+                                                   resultSetHoldability));
+
+    } // end of prepareStatement
+
+    /**
+     * {@inheritDoc}
+     */
+    public CallableStatement prepareCall(final String sql,
+                                         final int resultSetType,
+                                         final int resultSetConcurrency,
+                                         final int resultSetHoldability)
+        throws SQLException {
+
+        return track(CallableStatement.class,
+                     connection().prepareCall(sql, resultSetType,
+                                              resultSetConcurrency,
+                                              resultSetHoldability));
+
+    } // end of prepareCall
+
+    /**
+     * {@inheritDoc}
+     */
+    public PreparedStatement prepareStatement(final String sql,
+                                              final int autoGeneratedKeys)
+        throws SQLException {
+
+        return track(PreparedStatement.class,
+                     connection().prepareStatement(sql, autoGeneratedKeys));
+    } // end of prepareStatement
+
+    /**
+     * {@inheritDoc}
+     */
+    public PreparedStatement prepareStatement(final String sql,
+                                              final int[] columnIndexes)
+        throws SQLException {
+
+        return track(PreparedStatement.class,
+                     connection().prepareStatement(sql, columnIndexes));
+    } // end of prepareStatement
+
+    /**
+     * {@inheritDoc}
+     */
+    public PreparedStatement prepareStatement(final String sql,
+                                              final String[] columnNames)
+        throws SQLException {
+
+        return track(PreparedStatement.class,
+                     connection().prepareStatement(sql, columnNames));
+    } // end of prepareStatement
+
+    /**
+     * {@inheritDoc}
+     */
+    public Clob createClob() throws SQLException {
+        return connection().createClob();
+    } // end of createClob
+
+    /**
+     * {@inheritDoc}
+     */
+    public Blob createBlob() throws SQLException {
+        return connection().createBlob();
+    } // end of createBlob
+
+    /**
+     * {@inheritDoc}
+     */
+    public NClob createNClob() throws SQLException {
+        return connection().createNClob();
+    } // end of createNClob
+
+    /**
+     * {@inheritDoc}
+     */
+    public SQLXML createSQLXML() throws SQLException {
+        return connection().createSQLXML();
+    } // end of createSQLXML
+
+    /**
+     * Returns false once this handle is closed.
+     *
+     * {@inheritDoc}
+     */
+    public boolean isValid(final int timeout) throws SQLException {
+        final acolyte.jdbc.Connection con = this.connection.get();
+
+        return (con != null && con.isValid(timeout));
+    } // end of isValid
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setClientInfo(final String name, final String value)
+        throws SQLClientInfoException {
+
+        clientInfoConnection().setClientInfo(name, value);
+    } // end of setClientInfo
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setClientInfo(final Properties properties)
+        throws SQLClientInfoException {
+
+        clientInfoConnection().setClientInfo(properties);
+    } // end of setClientInfo
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getClientInfo(final String name) throws SQLException {
+        return connection().getClientInfo(name);
+    } // end of getClientInfo
+
+    /**
+     * {@inheritDoc}
+     */
+    public Properties getClientInfo() throws SQLException {
+        return connection().getClientInfo();
+    } // end of getClientInfo
+
+    /**
+     * {@inheritDoc}
+     */
+    public Array createArrayOf(final String typeName,
+                               final Object[] elements)
+        throws SQLException {
+
+        return connection().createArrayOf(typeName, elements);
+    } // end of createArrayOf
+
+    /**
+     * {@inheritDoc}
+     */
+    public Struct createStruct(final String typeName,
+                               final Object[] attributes)
+        throws SQLException {
+
+        return connection().createStruct(typeName, attributes);
+    } // end of createStruct
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setSchema(final String schema) throws SQLException {
+        connection().setSchema(schema);
+    } // end of setSchema
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getSchema() throws SQLException {
+        return connection().getSchema();
+    } // end of getSchema
+
+    /**
+     * Closes this handle, discarding the connection
+     * (not returned to the pool), or does nothing if already closed.
+     *
+     * {@inheritDoc}
+     */
+    public void abort(final Executor exec) throws SQLException {
+        if (exec == null) {
+            throw new SQLException("Missing executor");
+        } // end of if
+
+        final acolyte.jdbc.Connection con = this.connection.getAndSet(null);
+
+        if (con != null) {
+            this.statements.clear();
+
+            if (!con.isClosed()) {
+                con.close();
+            } // end of if
+        } // end of if
+    } // end of abort
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setNetworkTimeout(final Executor executor,
+                                  final int milliseconds)
+        throws SQLException {
+
+        connection().setNetworkTimeout(executor, milliseconds);
+    } // end of setNetworkTimeout
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getNetworkTimeout() throws SQLException {
+        return connection().getNetworkTimeout();
+    } // end of getNetworkTimeout
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isAssignableFrom(this.getClass()) ||
+            connection().isWrapperFor(iface);
+
+    } // end of isWrapperFor
+
+    /**
+     * Returns this handle, or the pooled connection
+     * (e.g. for `acolyte.jdbc.Connection`).
+     *
+     * {@inheritDoc}
+     */
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isAssignableFrom(this.getClass())) {
+            return iface.cast(this);
+        } // end of if
+
+        return connection().unwrap(iface);
+    } // end of unwrap
+
+    // ---
+
+    /**
+     * Returns the properties of the pooled connection.
+     *
+     * @return the connection properties
+     * @throws SQLException if this handle is closed
+     * @see acolyte.jdbc.Connection#getProperties
+     */
+    public Properties getProperties() throws SQLException {
+        return connection().getProperties();
+    } // end of getProperties
+
+    /**
+     * Returns the pooled connection.
+     *
+     * @throws SQLException if this handle is closed
+     */
+    private acolyte.jdbc.Connection connection() throws SQLException {
+        final acolyte.jdbc.Connection con = this.connection.get();
+
+        if (con == null) {
+            throw new SQLException("Connection is already closed");
+        } // end of if
+
+        return con;
+    } // end of connection
+
+    /**
+     * Returns the pooled connection, for the client info.
+     *
+     * @throws SQLClientInfoException if this handle is closed
+     */
+    private acolyte.jdbc.Connection clientInfoConnection()
+        throws SQLClientInfoException {
+
+        final acolyte.jdbc.Connection con = this.connection.get();
+
+        if (con == null) {
+            throw new SQLClientInfoException("Connection is already closed",
+                                             null);
+
+        } // end of if
+
+        return con;
+    } // end of clientInfoConnection
+
+    /**
+     * Keeps the |statement| to be closed with this handle,
+     * until it's closed itself.
+     *
+     * @return the statement facade, referring to this handle
+     */
+    private <S extends Statement> S track(final Class<S> type,
+                                          final S statement) {
+
+        this.statements.add(statement);
+
+        return facade(type, statement, null);
+    } // end of track
+
+    /**
+     * Returns a facade of given |type| over the |target|
+     * (statement, result set or metadata), referring to this handle.
+     *
+     * @param statement the statement facade owning the |target| result set,
+     * or null
+     */
+    private <T> T facade(final Class<T> type,
+                         final T target,
+                         final Statement statement) {
+
+        return type.cast(Proxy.
+                         newProxyInstance(PooledConnection.class.
+                                          getClassLoader(),
+                                          new Class<?>[] { type },
+                                          new Facade(target, statement)));
+
+    } // end of facade
+
+    // --- Inner classes ---
+
+    /**
+     * Facade over a statement, result set or metadata obtained
+     * through this handle: its connection is the handle,
+     * the result sets it returns are themselves facades,
+     * and a statement is no longer tracked once closed.
+     */
+    private final class Facade implements InvocationHandler {
+        /**
+         * Statement, result set or metadata
+         */
+        private final Object target;
+
+        /**
+         * Statement facade owning the target result set, or null
+         */
+        private final Statement statement;
+
+        /**
+         * Bulk constructor.
+         */
+        Facade(final Object target, final Statement statement) {
+            this.target = target;
+            this.statement = statement;
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public Object invoke(final Object proxy,
+                             final Method method,
+                             final Object[] args) throws Throwable {
+
+            final String name = method.getName();
+            final int arity = (args == null) ? 0 : args.length;
+
+            if (method.getDeclaringClass() == Object.class) {
+                if ("equals".equals(name)) {
+                    return proxy == args[0];
+                } else if ("hashCode".equals(name)) {
+                    return System.identityHashCode(proxy);
+                } // end of else if
+
+                return this.target.toString();
+            } // end of if
+
+            if (arity == 0 && "getConnection".equals(name)) {
+                return PooledConnection.this;
+            } // end of if
+
+            if (arity == 0 && this.statement != null &&
+                "getStatement".equals(name)) {
+
+                return this.statement;
+            } // end of if
+
+            if (arity == 1 && "unwrap".equals(name) &&
+                ((Class<?>) args[0]).isInstance(proxy)) {
+
+                return proxy;
+            } // end of if
+
+            // ---
+
+            final Object result;
+
+            try {
+                result = method.invoke(this.target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (arity == 0 && "close".equals(name) &&
+                    this.target instanceof Statement) {
+
+                    statements.remove(this.target);
+                } // end of if
+            } // end of finally
+
+            if (result == null || method.getReturnType() != ResultSet.class) {
+                return result;
+            } // end of if
+
+            // ---
+
+            final Statement owner = (this.target instanceof Statement)
+                ? (Statement) proxy : this.statement;
+
+            return facade(ResultSet.class, (ResultSet) result, owner);
+        } // end of invoke
+    } // end of class Facade
+} // end of class PooledConnection
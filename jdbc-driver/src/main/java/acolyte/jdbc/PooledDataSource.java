@@ -0,0 +1,344 @@
+package acolyte.jdbc;
+
+import java.io.PrintWriter;
+
+import java.util.Properties;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.util.logging.Logger;
+
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+/**
+ * Data source reusing the Acolyte connections once closed,
+ * rather than allocating a new connection each time.
+ *
+ * Each call to {@link #getConnection()} returns a new handle
+ * over a pooled connection. When the handle is closed,
+ * the statements created through it are closed, the pending transaction
+ * is rollbacked, and the connection state is reset (auto-commit, read-only,
+ * transaction isolation, warnings, savepoint, type map, client info,
+ * catalog and schema). Then the connection is kept in the pool
+ * if there are less than |maxSize| idle connections
+ * (otherwise it's discarded).
+ *
+ * <pre>
+ * {@code
+ * PooledDataSource ds = new PooledDataSource(handler, 10);
+ * java.sql.Connection con = ds.getConnection();
+ *
+ * // ...
+ * con.close(); // Connection returned to the pool
+ *
+ * ds.getHits(); // Number of connections reused from the pool
+ * ds.getMisses(); // Number of connections created (pool was empty)
+ * }
+ * </pre>
+ *
+ * A closed handle can no longer be used (even if its connection
+ * has been checked out again by another one): any call then throws
+ * a SQLException ("Connection is already closed").
+ *
+ * @author Cedric Chantepie
+ */
+public final class PooledDataSource implements DataSource {
+    // --- Properties ---
+
+    /**
+     * JDBC URL of the pooled connections
+     */
+    private final String url;
+
+    /**
+     * Connection properties
+     */
+    private final Properties info;
+
+    /**
+     * Connection handler
+     */
+    private final ConnectionHandler handler;
+
+    /**
+     * Max number of idle connections
+     */
+    private final int maxSize;
+
+    /**
+     * Idle connections
+     */
+    private final ConcurrentLinkedQueue<acolyte.jdbc.Connection> idle =
+        new ConcurrentLinkedQueue<acolyte.jdbc.Connection>();
+
+    /**
+     * Number of idle connections
+     */
+    private final AtomicInteger idleCount = new AtomicInteger(0);
+
+    /**
+     * Number of connections reused from the pool
+     */
+    private final AtomicLong hits = new AtomicLong(0L);
+
+    /**
+     * Number of connections created as the pool was empty
+     */
+    private final AtomicLong misses = new AtomicLong(0L);
+
+    /**
+     * Login timeout (not used)
+     */
+    private volatile int loginTimeout = 0;
+
+    /**
+     * Log writer (not used)
+     */
+    private volatile PrintWriter logWriter = null;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     *
+     * @param handler the connection handler
+     * @param info the connection properties (optional)
+     * @param maxSize the max number of idle connections kept in the pool
+     * @throws IllegalArgumentException if |handler| is null,
+     * or |maxSize| is negative
+     */
+    public PooledDataSource(final ConnectionHandler handler,
+                            final Properties info,
+                            final int maxSize) {
+
+        if (handler == null) {
+            throw new IllegalArgumentException("Invalid Acolyte handler");
+        } // end of if
+
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Invalid pool size: " + maxSize);
+        } // end of if
+
+        // ---
+
+        this.url = String.format("jdbc:acolyte:pooled-%d",
+                                 System.identityHashCode(handler));
+
+        this.info = new Properties();
+        this.handler = handler;
+        this.maxSize = maxSize;
+
+        if (info != null) {
+            this.info.putAll(info);
+        } // end of if
+    } // end of <init>
+
+    /**
+     * Data source without connection properties.
+     *
+     * @param handler the connection handler
+     * @param maxSize the max number of idle connections kept in the pool
+     * @throws IllegalArgumentException if |handler| is null,
+     * or |maxSize| is negative
+     */
+    public PooledDataSource(final ConnectionHandler handler,
+                            final int maxSize) {
+
+        this(handler, null, maxSize);
+    } // end of <init>
+
+    /**
+     * Data source using the default resource handler.
+     *
+     * @param handler the statement handler
+     * @param maxSize the max number of idle connections kept in the pool
+     * @throws IllegalArgumentException if |handler| is null,
+     * or |maxSize| is negative
+     */
+    public PooledDataSource(final StatementHandler handler,
+                            final int maxSize) {
+
+        this(connectionHandler(handler), null, maxSize);
+    } // end of <init>
+
+    // --- DataSource impl ---
+
+    /**
+     * Returns a new handle over an idle connection from the pool,
+     * or over a new connection if there is none.
+     *
+     * @return the connection handle
+     * @throws SQLException if fails to get a connection
+     */
+    public java.sql.Connection getConnection() throws SQLException {
+        final acolyte.jdbc.Connection pooled = this.idle.poll();
+
+        if (pooled != null) {
+            this.idleCount.decrementAndGet();
+            this.hits.incrementAndGet();
+
+            pooled.reopen();
+
+            return new PooledConnection(this, pooled);
+        } // end of if
+
+        // ---
+
+        this.misses.incrementAndGet();
+
+        final acolyte.jdbc.Connection created =
+            new acolyte.jdbc.Connection(this.url, this.info, this.handler);
+
+        return new PooledConnection(this, created);
+    } // end of getConnection
+
+    /**
+     * Returns a connection, ignoring the credentials.
+     *
+     * @see #getConnection()
+     */
+    public java.sql.Connection getConnection(final String username,
+                                             final String password)
+        throws SQLException {
+
+        return getConnection();
+    } // end of getConnection
+
+    /**
+     * {@inheritDoc}
+     */
+    public PrintWriter getLogWriter() throws SQLException {
+        return this.logWriter;
+    } // end of getLogWriter
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        this.logWriter = out;
+    } // end of setLogWriter
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getLoginTimeout() throws SQLException {
+        return this.loginTimeout;
+    } // end of getLoginTimeout
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        this.loginTimeout = seconds;
+    } // end of setLoginTimeout
+
+    /**
+     * {@inheritDoc}
+     */
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    } // end of getParentLogger
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isAssignableFrom(this.getClass());
+    } // end of isWrapperFor
+
+    /**
+     * {@inheritDoc}
+     */
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (!isWrapperFor(iface)) {
+            throw new SQLException();
+        } // end of if
+
+        @SuppressWarnings("unchecked")
+        final T proxy = (T) this;
+
+        return proxy;
+    } // end of unwrap
+
+    // ---
+
+    /**
+     * Returns the max number of idle connections kept in the pool.
+     *
+     * @return the pool size
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    } // end of getMaxSize
+
+    /**
+     * Returns the number of idle connections currently in the pool.
+     *
+     * @return the idle count
+     */
+    public int getIdleCount() {
+        return this.idleCount.get();
+    } // end of getIdleCount
+
+    /**
+     * Returns the number of connections reused from the pool.
+     *
+     * @return the pool hits
+     */
+    public long getHits() {
+        return this.hits.get();
+    } // end of getHits
+
+    /**
+     * Returns the number of connections created as the pool was empty.
+     *
+     * @return the pool misses
+     */
+    public long getMisses() {
+        return this.misses.get();
+    } // end of getMisses
+
+    /**
+     * Closes the |connection| checked out by a handle,
+     * and returns it to the pool, if not full.
+     * A connection already closed (e.g. through `unwrap`) is discarded.
+     *
+     * @param connection the connection of the closed handle
+     * @throws SQLException if fails to close the connection
+     */
+    void release(final acolyte.jdbc.Connection connection)
+        throws SQLException {
+
+        if (connection.isClosed()) {
+            return; // discarded
+        } // end of if
+
+        connection.close();
+
+        if (this.idleCount.incrementAndGet() > this.maxSize) {
+            this.idleCount.decrementAndGet(); // discarded
+
+            return;
+        } // end of if
+
+        connection.reset();
+
+        this.idle.offer(connection);
+    } // end of release
+
+    /**
+     * Returns the default connection handler for given statement |handler|.
+     */
+    private static ConnectionHandler connectionHandler(final StatementHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Invalid Acolyte handler");
+        } // end of if
+
+        return new ConnectionHandler.Default(handler);
+    } // end of connectionHandler
+} // end of class PooledDataSource
@@ -9,11 +9,14 @@ import java.util.ArrayList;
 
 import java.math.BigDecimal;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.RandomAccess;
 import java.util.Calendar;
 import java.util.TimeZone;
-import java.util.TreeMap;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Locale;
+import java.util.List;
 
 import java.text.SimpleDateFormat;
 
@@ -114,15 +117,31 @@ public class PreparedStatement
     private final int generatedKeysFlag;
 
     /**
-     * Parameters
+     * Parameter slots (slot #i for parameter #i+1),
+     * copied before being updated once shared by the parameter list
+     */
+    private Parameter[] slots;
+
+    /**
+     * Number of parameters (highest bound index)
      */
-    private final TreeMap<Integer,Parameter> parameters = 
-        new TreeMap<Integer,Parameter>();
+    private int parameterCount = 0;
+
+    /**
+     * Bound parameters (bit #i for parameter #i+1)
+     */
+    private final BitSet bound = new BitSet();
+
+    /**
+     * Immutable list of the current parameters,
+     * shared with the handler until a parameter is updated (or null)
+     */
+    private List<Parameter> parameterList = null;
 
     /**
      * Batch elements
      */
-    private final ArrayList<ImmutablePair<String,TreeMap<Integer,Parameter>>> batch;
+    private final ArrayList<Parameter[]> batch;
 
     /**
      * Names of the column to be considered within the generated keys
@@ -184,7 +203,8 @@ public class PreparedStatement
         this.generatedKeysColumnNames = generatedKeysColumnNames;
         this.generatedKeysColumnIndexes = generatedKeysColumnIndexes;
 
-        this.batch = new ArrayList<ImmutablePair<String,TreeMap<Integer,Parameter>>>();
+        this.batch = new ArrayList<Parameter[]>();
+        this.slots = new Parameter[placeholderCount(sql)];
     } // end of <init>
 
     // ---
@@ -201,19 +221,13 @@ public class PreparedStatement
 
         // ---
 
-        final ArrayList<Parameter> params = 
-            new ArrayList<Parameter>(this.parameters.values());
-
-        final int idx = params.indexOf(null);
+        final List<Parameter> params = parameters();
 
-        if (idx != -1) {
-            throw new SQLException("Missing parameter value: " + (idx+1));
-        } // end of if
-        
         // ---
 
         try {
-            final QueryResult res = this.handler.whenSQLQuery(sql, params);
+            final QueryResult res = DriverEvents.
+                whenSQLQuery(this.execution, sql, params);
             final SQLException exception = res.getException();
 
             if (exception != null) {
@@ -228,8 +242,9 @@ public class PreparedStatement
 
             this.warning = res.getWarning();
             
-            return (this.result = res.getRowList().resultSet().
-                withStatement(this).withWarning(this.warning));
+            return (this.result = DriverEvents.resultSetOpened(res.
+                getRowList().resultSet(this.maxRows).withStatement(this).
+                withWarning(this.warning), sql));
 
         } catch (SQLException se) {
             throw se;
@@ -245,7 +260,7 @@ public class PreparedStatement
         this.result = null;
 
         final ImmutableTriple<Integer,ResultSet,SQLWarning> res = 
-            update(parameters);
+            update();
 
         this.warning = res.right;
         this.generatedKeys = res.middle;
@@ -276,7 +291,7 @@ public class PreparedStatement
      * @return Triple of update count, generated keys (or null) 
      * and optional warning
      */
-    private ImmutableTriple<Integer,ResultSet,SQLWarning> update(final TreeMap<Integer,Parameter> parameters) throws SQLException {
+    private ImmutableTriple<Integer,ResultSet,SQLWarning> update() throws SQLException {
 
         checkClosed();
 
@@ -286,19 +301,13 @@ public class PreparedStatement
 
         // ---
 
-        final ArrayList<Parameter> params = 
-            new ArrayList<Parameter>(parameters.values());
-
-        final int idx = params.indexOf(null);
-
-        if (idx != -1) {
-            throw new SQLException("Missing parameter value: " + (idx+1));
-        } // end of if
+        final List<Parameter> params = parameters();
 
         // ---
 
         try {
-            final UpdateResult res = this.handler.whenSQLUpdate(sql, params);
+            final UpdateResult res = DriverEvents.
+                whenSQLUpdate(this.execution, sql, params);
             final SQLException exception = res.getException();
 
             if (exception != null) {
@@ -457,7 +466,15 @@ public class PreparedStatement
      * {@inheritDoc}
      */
     public void clearParameters() throws SQLException {
-        this.parameters.clear();
+        if (this.parameterList != null) {
+            this.slots = new Parameter[this.slots.length];
+            this.parameterList = null;
+        } else {
+            Arrays.fill(this.slots, null);
+        } // end of else
+
+        this.parameterCount = 0;
+        this.bound.clear();
     } // end of clearParameters()
 
     /**
@@ -573,8 +590,7 @@ public class PreparedStatement
     public void addBatch() throws SQLException {
         checkClosed();
 
-        batch.add(ImmutablePair.
-                  of(sql, new TreeMap<Integer,Parameter>(parameters)));
+        batch.add(Arrays.copyOf(this.slots, this.parameterCount));
 
     } // end of addBatch
 
@@ -589,35 +605,66 @@ public class PreparedStatement
      * {@inheritDoc}
      */
     public int[] executeBatch() throws SQLException {
-        final int[] cs = new int[batch.size()];
-        java.util.Arrays.fill(cs, EXECUTE_FAILED);
-
-        final boolean cont = 
-            "true".equals(connection.getProperties().
-                          get("acolyte.batch.continueOnError"));
-
-        SQLException firstEx = null;  // if |cont| is true
-        SQLException lastEx = null;
-
-        int i = 0;
-        for (final ImmutablePair<String,TreeMap<Integer,Parameter>> b : batch) {
-            try {
-                cs[i++] = update(b.right).left;
-            } catch (SQLException se) {
-                if (!cont) throw new BatchUpdateException(se.getMessage(), se.getSQLState(), se.getErrorCode(), cs, se.getCause());
-                else {
-                    if (firstEx == null) firstEx = se;
-                    if (lastEx != null) lastEx.setNextException(se);
-                    lastEx = se;
-                } // end of else
-            } // end of catch
-        } // end of for
+        final Object event = DriverEvents.begin(DriverEvents.BATCH);
+        final int size = this.batch.size();
 
-        if (firstEx != null) throw new BatchUpdateException(firstEx.getMessage(), firstEx.getSQLState(), firstEx.getErrorCode(), cs, firstEx.getCause());
+        try {
+            if (this.handler instanceof BatchStatementHandler) {
+                return bulkUpdate();
+            } // end of if
 
-        return cs;
+            return BatchExecution.execute(this.batch, new BatchExecution.
+                Update<Parameter[]>() {
+                    public int apply(final Parameter[] ps)
+                        throws SQLException {
+
+                        checkClosed();
+
+                        if (query) {
+                            throw new SQLException("Cannot update with query");
+                        } // end of if
+
+                        checkParameters(ps);
+
+                        return batchUpdate(sql,
+                                           new ParameterList(ps, ps.length));
+
+                    }
+                }, connection.getProperties());
+
+        } finally {
+            DriverEvents.batched(event, this.sql, size);
+        } // end of finally
     } // end of executeBatch
 
+    /**
+     * Executes the whole batch using the bulk handler.
+     *
+     * @throws BatchUpdateException if fails to execute the batch
+     */
+    private int[] bulkUpdate() throws SQLException {
+        final Parameter[][] params =
+            this.batch.toArray(new Parameter[this.batch.size()][]);
+
+        return BatchExecution.executeBulk(params.length, new BatchExecution.
+            Bulk() {
+                public int[] apply() throws SQLException {
+                    checkClosed();
+
+                    if (query) {
+                        throw new SQLException("Cannot update with query");
+                    } // end of if
+
+                    for (final Parameter[] ps : params) {
+                        checkParameters(ps);
+                    } // end of for
+
+                    return batchUpdate(sql, params);
+                }
+            }, connection.getProperties());
+
+    } // end of bulkUpdate
+
     /**
      * {@inheritDoc}
      * @throws java.sql.SQLFeatureNotSupportedException Not currently supported
@@ -755,7 +802,9 @@ public class PreparedStatement
     public ParameterMetaData getParameterMetaData() throws SQLException {
         final ArrayList<ParameterDef> params = new ArrayList<ParameterDef>();
         
-        for (final Parameter p : parameters.values()) {
+        for (int i = 0; i < this.parameterCount; i++) {
+            final Parameter p = this.slots[i];
+
             if (p == null) {
                 params.add(null);
             } else {
@@ -1037,19 +1086,99 @@ public class PreparedStatement
      */
     private void setParam(final int index, 
                           final ParameterDef meta, 
-                          final Object val) {
+                          final Object val) throws SQLException {
 
-        // Fill gap
-        for (int i = index-1; 
-             i > 0 && !this.parameters.containsKey(i);
-             i--) { 
+        if (index < 1) {
+            throw new SQLException("Invalid parameter index: " + index);
+        } // end of if
 
-            this.parameters.put(i, null);
-        } // end of for
+        final int slot = index - 1;
+
+        if (slot >= this.slots.length) {
+            this.slots = Arrays.copyOf(this.slots,
+                                       Math.max(index, this.slots.length * 2));
 
-        this.parameters.put(index, Parameter.of(meta, val));
+        } else if (this.parameterList != null) {
+            // Copy on write, as previous slots are shared with the handler
+            this.slots = this.slots.clone();
+        } // end of else if
+
+        this.parameterList = null;
+        this.slots[slot] = Parameter.of(meta, val);
+        this.bound.set(slot);
+
+        if (index > this.parameterCount) {
+            this.parameterCount = index;
+        } // end of if
     } // end of setParam
 
+    /**
+     * Returns immutable list of the current parameters.
+     *
+     * @throws SQLException if statement is closed,
+     * or if some parameter is missing
+     */
+    private List<Parameter> parameters() throws SQLException {
+        checkClosed();
+
+        if (this.parameterList != null) {
+            return this.parameterList;
+        } // end of if
+
+        // ---
+
+        final int missing = this.bound.nextClearBit(0);
+
+        if (missing < this.parameterCount) {
+            throw new SQLException("Missing parameter value: " + (missing+1));
+        } // end of if
+
+        return (this.parameterList =
+                new ParameterList(this.slots, this.parameterCount));
+
+    } // end of parameters
+
+    /**
+     * Checks there is no missing parameter in |params|.
+     *
+     * @throws SQLException if some parameter is missing
+     */
+    private static void checkParameters(final Parameter[] params)
+        throws SQLException {
+
+        for (int i = 0; i < params.length; i++) {
+            if (params[i] == null) {
+                throw new SQLException("Missing parameter value: " + (i+1));
+            } // end of if
+        } // end of for
+    } // end of checkParameters
+
+    /**
+     * Returns the number of '?' placeholders in given |sql|
+     * (outside of the quoted literals).
+     */
+    private static int placeholderCount(final String sql) {
+        final int len = sql.length();
+        char quote = 0;
+        int count = 0;
+
+        for (int i = 0; i < len; i++) {
+            final char c = sql.charAt(i);
+
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } // end of if
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                count++;
+            } // end of else if
+        } // end of for
+
+        return count;
+    } // end of placeholderCount
+
     /**
      * Normalizes parameter class name.
      */
@@ -1100,4 +1229,39 @@ public class PreparedStatement
 
         return blob;
     } // end of createBlob
+
+    // --- Inner classes ---
+
+    /**
+     * Immutable list of the first |size| parameters from an array.
+     */
+    private static final class ParameterList
+        extends AbstractList<Parameter> implements RandomAccess {
+
+        private final Parameter[] params;
+        private final int size;
+
+        ParameterList(final Parameter[] params, final int size) {
+            this.params = params;
+            this.size = size;
+        } // end of <init>
+
+        /**
+         * {@inheritDoc}
+         */
+        public Parameter get(final int index) {
+            if (index < 0 || index >= this.size) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            } // end of if
+
+            return this.params[index];
+        } // end of get
+
+        /**
+         * {@inheritDoc}
+         */
+        public int size() {
+            return this.size;
+        } // end of size
+    } // end of class ParameterList
 } // end of PreparedStatement
@@ -0,0 +1,376 @@
+package acolyte.jdbc;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import java.util.regex.PatternSyntaxException;
+import java.util.regex.Pattern;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.List;
+
+/**
+ * Compiled query detection, equivalent to check whether any of the
+ * detection patterns is matching (looking at) the SQL statement.
+ *
+ * Patterns that are only a literal prefix (e.g. `^SELECT `),
+ * possibly case insensitive, are checked using a prefix trie;
+ * other patterns are combined as a single alternation,
+ * so the statement is scanned once whatever the number of patterns.
+ * The detection result is then cached per SQL statement.
+ *
+ * @author Cedric Chantepie
+ */
+final class QueryDetection {
+    // --- Shared ---
+
+    /**
+     * Max number of SQL statements whose detection is cached
+     */
+    static final int MAX_CACHED = 4096;
+
+    /**
+     * Flags that can be specified inline, as (?...:X)
+     */
+    private static final int INLINE_FLAGS = Pattern.CASE_INSENSITIVE |
+        Pattern.UNIX_LINES | Pattern.MULTILINE | Pattern.DOTALL |
+        Pattern.UNICODE_CASE | Pattern.UNICODE_CHARACTER_CLASS;
+
+    /**
+     * Characters with special meaning in a pattern
+     */
+    private static final String METACHARS = "\\^$.|?*+()[]{}";
+
+    /**
+     * Constructs that cannot be safely combined with other patterns:
+     * back reference (group number or name), quotation (as it can be
+     * unterminated), or inline comments flag
+     */
+    private static final Pattern NOT_COMBINABLE =
+        Pattern.compile("\\\\(?:[1-9]|k<|Q)|\\(\\?[a-zA-Z]*x");
+
+    // --- Properties ---
+
+    /**
+     * Case sensitive prefixes
+     */
+    private final PrefixTrie prefixes;
+
+    /**
+     * Case insensitive prefixes (upper case)
+     */
+    private final PrefixTrie insensitivePrefixes;
+
+    /**
+     * Patterns, combined as much as possible
+     */
+    private final Pattern[] patterns;
+
+    /**
+     * Detection cache
+     */
+    private final ConcurrentHashMap<String,Boolean> cache =
+        new ConcurrentHashMap<String,Boolean>();
+
+    // --- Constructors ---
+
+    /**
+     * Compiles detection from given |patterns|.
+     *
+     * @param patterns the detection patterns
+     */
+    QueryDetection(final Pattern[] patterns) {
+        final PrefixTrie sensitive = new PrefixTrie();
+        final PrefixTrie insensitive = new PrefixTrie();
+        final ArrayList<Pattern> combinable = new ArrayList<Pattern>();
+        final ArrayList<Pattern> others = new ArrayList<Pattern>();
+
+        for (final Pattern p : patterns) {
+            final String prefix = literalPrefix(p);
+
+            if (prefix == null) {
+                if (isCombinable(p)) {
+                    combinable.add(p);
+                } else {
+                    others.add(p);
+                } // end of else
+            } else if (isCaseInsensitive(p)) {
+                insensitive.add(prefix.toUpperCase(Locale.ROOT));
+            } else {
+                sensitive.add(prefix);
+            } // end of else
+        } // end of for
+
+        // ---
+
+        final ArrayList<Pattern> compiled = new ArrayList<Pattern>();
+
+        if (combinable.size() == 1) {
+            compiled.add(combinable.get(0));
+        } else if (!combinable.isEmpty()) {
+            compiled.addAll(combine(combinable));
+        } // end of else if
+
+        compiled.addAll(others);
+
+        this.prefixes = sensitive.isEmpty() ? null : sensitive;
+        this.insensitivePrefixes = insensitive.isEmpty() ? null : insensitive;
+        this.patterns = compiled.toArray(new Pattern[compiled.size()]);
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns whether |sql| is detected as a query.
+     *
+     * @param sql the SQL statement
+     * @return true if any detection pattern is matching |sql|
+     */
+    boolean isQuery(final String sql) {
+        final Boolean cached = this.cache.get(sql);
+
+        if (cached != null) {
+            return cached.booleanValue();
+        } // end of if
+
+        // ---
+
+        final boolean query = detect(sql);
+
+        if (this.cache.size() >= MAX_CACHED) {
+            this.cache.clear();
+        } // end of if
+
+        this.cache.put(sql, Boolean.valueOf(query));
+
+        return query;
+    } // end of isQuery
+
+    /**
+     * Detects whether |sql| is a query, without cache.
+     */
+    private boolean detect(final String sql) {
+        if (this.prefixes != null && this.prefixes.isPrefixOf(sql, false)) {
+            return true;
+        } // end of if
+
+        if (this.insensitivePrefixes != null &&
+            this.insensitivePrefixes.isPrefixOf(sql, true)) {
+            return true;
+        } // end of if
+
+        for (final Pattern p : this.patterns) {
+            if (p.matcher(sql).lookingAt()) {
+                return true;
+            } // end of if
+        } // end of for
+
+        return false;
+    } // end of detect
+
+    /**
+     * Returns the literal prefix that is equivalent to given |pattern|
+     * (e.g. `^SELECT` or `(?i)select .*`), or null if none.
+     */
+    static String literalPrefix(final Pattern pattern) {
+        final int flags = pattern.flags();
+
+        if ((flags & ~(Pattern.CASE_INSENSITIVE | Pattern.MULTILINE)) != 0) {
+            return null;
+        } // end of if
+
+        // ---
+
+        String p = pattern.pattern();
+
+        if (p.startsWith("(?i)")) {
+            p = p.substring(4);
+        } // end of if
+
+        if (p.startsWith("^")) {
+            p = p.substring(1);
+        } // end of if
+
+        if (p.endsWith(".*") && !p.endsWith("\\.*")) {
+            p = p.substring(0, p.length() - 2);
+        } // end of if
+
+        if (p.length() == 0) {
+            return null;
+        } // end of if
+
+        for (int i = 0; i < p.length(); i++) {
+            final char c = p.charAt(i);
+
+            if (c > 127 || METACHARS.indexOf(c) != -1 ||
+                Character.isISOControl(c)) {
+                return null;
+            } // end of if
+        } // end of for
+
+        return p;
+    } // end of literalPrefix
+
+    /**
+     * Returns whether the literal prefix from |pattern| is case insensitive.
+     */
+    private static boolean isCaseInsensitive(final Pattern pattern) {
+        return ((pattern.flags() & Pattern.CASE_INSENSITIVE) != 0 ||
+                pattern.pattern().startsWith("(?i)"));
+
+    } // end of isCaseInsensitive
+
+    /**
+     * Returns whether |pattern| can be combined with other ones.
+     */
+    private static boolean isCombinable(final Pattern pattern) {
+        return ((pattern.flags() & ~INLINE_FLAGS) == 0 &&
+                !NOT_COMBINABLE.matcher(pattern.pattern()).find());
+
+    } // end of isCombinable
+
+    /**
+     * Combines |patterns| as a single alternation,
+     * or returns them as is if it fails.
+     */
+    private static List<Pattern> combine(final List<Pattern> patterns) {
+        final StringBuilder alt = new StringBuilder();
+
+        for (final Pattern p : patterns) {
+            if (alt.length() > 0) {
+                alt.append('|');
+            } // end of if
+
+            alt.append("(?").append(inlineFlags(p.flags())).append(':').
+                append(p.pattern()).append(')');
+
+        } // end of for
+
+        try {
+            final ArrayList<Pattern> combined = new ArrayList<Pattern>(1);
+
+            combined.add(Pattern.compile(alt.toString()));
+
+            return combined;
+        } catch (PatternSyntaxException e) {
+            // e.g. same group name in several patterns
+            return patterns;
+        } // end of catch
+    } // end of combine
+
+    /**
+     * Returns inline representation of given |flags|.
+     */
+    private static String inlineFlags(final int flags) {
+        final StringBuilder s = new StringBuilder();
+
+        if ((flags & Pattern.CASE_INSENSITIVE) != 0) s.append('i');
+        if ((flags & Pattern.UNIX_LINES) != 0) s.append('d');
+        if ((flags & Pattern.MULTILINE) != 0) s.append('m');
+        if ((flags & Pattern.DOTALL) != 0) s.append('s');
+        if ((flags & Pattern.UNICODE_CASE) != 0) s.append('u');
+        if ((flags & Pattern.UNICODE_CHARACTER_CLASS) != 0) s.append('U');
+
+        return s.toString();
+    } // end of inlineFlags
+
+    // --- Inner classes ---
+
+    /**
+     * Trie of (ASCII) prefixes.
+     */
+    private static final class PrefixTrie {
+        private char[] keys = new char[0];
+        private PrefixTrie[] children = new PrefixTrie[0];
+        private boolean terminal = false;
+
+        /**
+         * Returns whether there is no prefix.
+         */
+        boolean isEmpty() {
+            return (!this.terminal && this.keys.length == 0);
+        } // end of isEmpty
+
+        /**
+         * Adds the |prefix|.
+         */
+        void add(final String prefix) {
+            PrefixTrie node = this;
+
+            for (int i = 0; i < prefix.length() && !node.terminal; i++) {
+                node = node.child(prefix.charAt(i));
+            } // end of for
+
+            // Longer prefixes are useless, as the shorter one matches first
+            node.terminal = true;
+            node.keys = new char[0];
+            node.children = new PrefixTrie[0];
+        } // end of add
+
+        /**
+         * Returns the child for given character, created if needed.
+         */
+        private PrefixTrie child(final char c) {
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.keys[i] == c) {
+                    return this.children[i];
+                } // end of if
+            } // end of for
+
+            final int n = this.keys.length;
+            final char[] ks = new char[n + 1];
+            final PrefixTrie[] cs = new PrefixTrie[n + 1];
+
+            System.arraycopy(this.keys, 0, ks, 0, n);
+            System.arraycopy(this.children, 0, cs, 0, n);
+
+            ks[n] = c;
+            cs[n] = new PrefixTrie();
+
+            this.keys = ks;
+            this.children = cs;
+
+            return cs[n];
+        } // end of child
+
+        /**
+         * Returns whether any prefix of this trie starts |s|.
+         *
+         * @param s the string to be checked
+         * @param upper if true, |s| characters are compared in upper case
+         */
+        boolean isPrefixOf(final String s, final boolean upper) {
+            PrefixTrie node = this;
+            final int len = s.length();
+
+            for (int i = 0; !node.terminal; i++) {
+                if (i == len) {
+                    return false;
+                } // end of if
+
+                char c = s.charAt(i);
+
+                if (upper && c >= 'a' && c <= 'z') {
+                    c = (char) (c - ('a' - 'A'));
+                } // end of if
+
+                PrefixTrie next = null;
+
+                for (int k = 0; k < node.keys.length; k++) {
+                    if (node.keys[k] == c) {
+                        next = node.children[k];
+                        break;
+                    } // end of if
+                } // end of for
+
+                if (next == null) {
+                    return false;
+                } // end of if
+
+                node = next;
+            } // end of for
+
+            return true;
+        } // end of isPrefixOf
+    } // end of class PrefixTrie
+} // end of class QueryDetection
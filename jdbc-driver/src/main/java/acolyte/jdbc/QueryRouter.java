@@ -0,0 +1,79 @@
+package acolyte.jdbc;
+
+import java.util.List;
+
+import java.sql.SQLException;
+
+import acolyte.jdbc.AbstractCompositeHandler.QueryHandler;
+import acolyte.jdbc.StatementHandler.Parameter;
+
+/**
+ * Immutable query handler, dispatching each statement
+ * to the handler registered for it (see {@link AbstractRouter}).
+ *
+ * <pre>
+ * {@code
+ * QueryRouter router = QueryRouter.empty().
+ *   withStatement("SELECT * FROM users WHERE id = ?", handler1).
+ *   withPrefix("SELECT * FROM orders ", handler2).
+ *   withPattern("^EXEC ", handler3).
+ *   withFallback(defaultHandler);
+ *
+ * CompositeHandler.empty().withQueryHandler(router);
+ * }
+ * </pre>
+ *
+ * @author Cedric Chantepie
+ */
+public final class QueryRouter
+    extends AbstractRouter<QueryHandler, QueryRouter>
+    implements QueryHandler {
+
+    // --- Shared ---
+
+    /**
+     * Empty router
+     */
+    private static final QueryRouter EMPTY =
+        new QueryRouter(new SqlRoutes<QueryHandler>());
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     *
+     * @param routes the routes
+     */
+    private QueryRouter(final SqlRoutes<QueryHandler> routes) {
+        super(routes, "query");
+    } // end of <init>
+
+    /**
+     * Returns router without any route.
+     *
+     * @return Empty router
+     */
+    public static QueryRouter empty() {
+        return EMPTY;
+    } // end of empty
+
+    // ---
+
+    /**
+     * {@inheritDoc}
+     */
+    QueryRouter withRoutes(final SqlRoutes<QueryHandler> routes) {
+        return new QueryRouter(routes);
+    } // end of withRoutes
+
+    /**
+     * {@inheritDoc}
+     * @throws SQLException if there is no route for the |sql| statement
+     */
+    public QueryResult apply(final String sql,
+                             final List<Parameter> parameters)
+        throws SQLException {
+
+        return route(sql).apply(sql, parameters);
+    } // end of apply
+} // end of class QueryRouter
@@ -0,0 +1,224 @@
+package acolyte.jdbc;
+
+import java.io.IOException;
+
+import java.util.List;
+
+import java.util.regex.Pattern;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.ResultSet;
+
+/**
+ * Statement handler executing the statements against another database
+ * (e.g. a local one), and recording their results in a capture file,
+ * so that they can be replayed by {@link ReplayStatementHandler}.
+ *
+ * <pre>
+ * {@code
+ * CaptureWriter capture = new CaptureWriter(new File("capture.bin"));
+ * StatementHandler recording =
+ *   new RecordingStatementHandler(localConnection, capture);
+ *
+ * Connection con = AcolyteDSL.connection(recording);
+ * // ... execute the statements to be recorded, then:
+ * capture.close();
+ * }
+ * </pre>
+ *
+ * Each statement is executed as a prepared one,
+ * with the parameters set according their SQL type.
+ * By default, statements starting with `SELECT` or `WITH` are queries.
+ *
+ * @author Cedric Chantepie
+ */
+public final class RecordingStatementHandler implements StatementHandler {
+    // --- Shared ---
+
+    /**
+     * Default query detection
+     */
+    private static final Pattern[] DEFAULT_DETECTION = new Pattern[] {
+        Pattern.compile("^[ \t\r\n]*(SELECT|WITH)[ \t\r\n(]",
+                        Pattern.CASE_INSENSITIVE)
+    };
+
+    // --- Properties ---
+
+    /**
+     * Connection to the recorded database
+     */
+    private final java.sql.Connection target;
+
+    /**
+     * Capture writer
+     */
+    private final CaptureWriter capture;
+
+    /**
+     * Query detection
+     */
+    private final QueryDetection queryDetection;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private RecordingStatementHandler(final java.sql.Connection target,
+                                      final CaptureWriter capture,
+                                      final Pattern[] queryDetection) {
+
+        if (target == null) {
+            throw new IllegalArgumentException("No target connection");
+        } // end of if
+
+        if (capture == null) {
+            throw new IllegalArgumentException("No capture writer");
+        } // end of if
+
+        this.target = target;
+        this.capture = capture;
+        this.queryDetection = new QueryDetection(queryDetection);
+    } // end of <init>
+
+    /**
+     * Recording handler with the default query detection.
+     *
+     * @param target the connection to the recorded database
+     * @param capture the capture writer
+     * @throws IllegalArgumentException if |target| or |capture| is null
+     */
+    public RecordingStatementHandler(final java.sql.Connection target,
+                                     final CaptureWriter capture) {
+
+        this(target, capture, DEFAULT_DETECTION);
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns a new handler based on this one,
+     * but using given query detection |pattern|s
+     * (rather than the default one).
+     *
+     * @param pattern the query detection patterns
+     * @return New recording handler
+     * @throws java.util.regex.PatternSyntaxException if a pattern is invalid
+     */
+    public RecordingStatementHandler withQueryDetection(final String... pattern) {
+        if (pattern == null) {
+            throw new IllegalArgumentException();
+        } // end of if
+
+        final Pattern[] ps = new Pattern[pattern.length];
+
+        int i = 0;
+        for (final String p : pattern) {
+            ps[i++] = Pattern.compile(p);
+        } // end of for
+
+        return new RecordingStatementHandler(this.target, this.capture, ps);
+    } // end of withQueryDetection
+
+    // --- StatementHandler impl ---
+
+    /**
+     * Executes the query against the target database,
+     * and records its result.
+     *
+     * {@inheritDoc}
+     */
+    public QueryResult whenSQLQuery(final String sql,
+                                    final List<Parameter> parameters)
+        throws SQLException {
+
+        final PreparedStatement stmt = prepare(sql, parameters);
+
+        try {
+            final ResultSet rs = stmt.executeQuery();
+            final ColumnarRowList rows;
+
+            try {
+                rows = Capture.rowList(rs);
+            } finally {
+                rs.close();
+            } // end of finally
+
+            this.capture.recordQuery(sql, parameters, rows);
+
+            return rows.asResult();
+        } catch (IOException e) {
+            throw new SQLException("Fails to record query: " + sql, e);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException(e.getMessage(), e);
+        } finally {
+            stmt.close();
+        } // end of finally
+    } // end of whenSQLQuery
+
+    /**
+     * Executes the update against the target database,
+     * and records its count.
+     *
+     * {@inheritDoc}
+     */
+    public UpdateResult whenSQLUpdate(final String sql,
+                                      final List<Parameter> parameters)
+        throws SQLException {
+
+        final PreparedStatement stmt = prepare(sql, parameters);
+
+        try {
+            final int count = stmt.executeUpdate();
+
+            this.capture.recordUpdate(sql, parameters, count);
+
+            return new UpdateResult(count);
+        } catch (IOException e) {
+            throw new SQLException("Fails to record update: " + sql, e);
+        } catch (IllegalArgumentException e) {
+            throw new SQLException(e.getMessage(), e);
+        } finally {
+            stmt.close();
+        } // end of finally
+    } // end of whenSQLUpdate
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isQuery(final String sql) {
+        return this.queryDetection.isQuery(sql);
+    } // end of isQuery
+
+    /**
+     * Prepares the |sql| statement against the target database,
+     * with given |parameters|.
+     */
+    private PreparedStatement prepare(final String sql,
+                                      final List<Parameter> parameters)
+        throws SQLException {
+
+        final PreparedStatement stmt = this.target.prepareStatement(sql);
+
+        try {
+            int i = 1;
+            for (final Parameter p : parameters) {
+                if (p.right == null) {
+                    stmt.setNull(i, p.left.sqlType);
+                } else {
+                    stmt.setObject(i, p.right, p.left.sqlType);
+                } // end of else
+
+                i++;
+            } // end of for
+        } catch (SQLException e) {
+            stmt.close();
+
+            throw e;
+        } // end of catch
+
+        return stmt;
+    } // end of prepare
+} // end of class RecordingStatementHandler
@@ -0,0 +1,319 @@
+package acolyte.jdbc;
+
+import java.io.RandomAccessFile;
+import java.io.IOException;
+import java.io.File;
+
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.sql.SQLException;
+
+/**
+ * Statement handler replaying the results recorded in a capture file
+ * (see {@link CaptureWriter} and {@link RecordingStatementHandler}).
+ *
+ * <pre>
+ * {@code
+ * StatementHandler handler =
+ *   ReplayStatementHandler.open(new File("capture.bin"));
+ *
+ * Connection con = AcolyteDSL.connection(handler);
+ * }
+ * </pre>
+ *
+ * The capture file is memory-mapped: only its index
+ * (statements and parameters) is loaded on the heap,
+ * and the rows of a query result are decoded when replayed.
+ *
+ * A statement is replayed if it has been recorded with the same SQL
+ * and the same parameter values; otherwise an SQLException is raised.
+ * Statements recorded as queries are detected as such by `isQuery`.
+ *
+ * @author Cedric Chantepie
+ */
+public final class ReplayStatementHandler implements StatementHandler {
+    // --- Properties ---
+
+    /**
+     * Mapped segments of the capture file
+     */
+    private final ByteBuffer[] segments;
+
+    /**
+     * Recorded entries
+     */
+    private final Map<Capture.Key,Entry> entries;
+
+    /**
+     * Statements recorded as queries
+     */
+    private final Set<String> queries;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private ReplayStatementHandler(final ByteBuffer[] segments,
+                                   final Map<Capture.Key,Entry> entries,
+                                   final Set<String> queries) {
+
+        this.segments = segments;
+        this.entries = entries;
+        this.queries = queries;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Opens given |capture| file.
+     *
+     * @param capture the capture file
+     * @return Handler replaying the capture
+     * @throws IOException if fails to read the file,
+     * or if it's not a complete capture
+     */
+    public static ReplayStatementHandler open(final File capture)
+        throws IOException {
+
+        return open(capture, Integer.MAX_VALUE);
+    } // end of open
+
+    /**
+     * Opens given |capture| file, mapping segments of at most |maxSegment|
+     * bytes (a single mapping being limited to 2GB).
+     */
+    static ReplayStatementHandler open(final File capture,
+                                       final int maxSegment)
+        throws IOException {
+
+        if (capture == null) {
+            throw new IllegalArgumentException("No capture file");
+        } // end of if
+
+        final RandomAccessFile file = new RandomAccessFile(capture, "r");
+
+        try {
+            final FileChannel ch = file.getChannel();
+            final long size = ch.size();
+
+            if (size < Capture.MAGIC.length + 4 + Capture.TRAILER_LENGTH) {
+                throw new IOException("Invalid capture: " + capture);
+            } // end of if
+
+            // Trailer
+            final ByteBuffer trailer = ByteBuffer.
+                allocate(Capture.TRAILER_LENGTH);
+
+            ch.read(trailer, size - Capture.TRAILER_LENGTH);
+            trailer.flip();
+
+            final long indexOffset = trailer.getLong();
+            final byte[] magic = new byte[Capture.MAGIC.length];
+
+            trailer.get(magic);
+
+            if (!Arrays.equals(magic, Capture.MAGIC) ||
+                indexOffset < Capture.MAGIC.length ||
+                indexOffset > size - Capture.TRAILER_LENGTH) {
+
+                throw new IOException("Invalid capture: " + capture);
+            } // end of if
+
+            // ---
+
+            final ByteBuffer idx = ch.map(FileChannel.MapMode.READ_ONLY,
+                                          indexOffset, size - indexOffset -
+                                          Capture.TRAILER_LENGTH);
+
+            final int count = idx.getInt();
+            final HashMap<Capture.Key,Entry> entries =
+                new HashMap<Capture.Key,Entry>(count * 4 / 3 + 1);
+
+            final HashMap<String,String> statements =
+                new HashMap<String,String>();
+
+            final HashSet<String> queries = new HashSet<String>();
+            final ArrayList<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+            long segmentStart = Capture.MAGIC.length;
+            long segmentEnd = segmentStart;
+
+            for (int i = 0; i < count; i++) {
+                final byte kind = idx.get();
+                String sql = Capture.readString(idx);
+                final byte[] params = new byte[idx.getInt()];
+
+                idx.get(params);
+
+                final String known = statements.get(sql);
+
+                if (known == null) {
+                    statements.put(sql, sql);
+                } else {
+                    sql = known; // shared
+                } // end of else
+
+                final Capture.Key key = new Capture.Key(sql, params);
+
+                if (kind == Capture.UPDATE) {
+                    entries.put(key, new Entry(kind, -1, 0, idx.getInt()));
+                    continue;
+                } // end of if
+
+                // ---
+
+                final long offset = idx.getLong();
+                final int length = idx.getInt();
+
+                if (offset + length - segmentStart > maxSegment) {
+                    // Entries are written in order: new segment
+                    segments.add(ch.map(FileChannel.MapMode.READ_ONLY,
+                                        segmentStart,
+                                        segmentEnd - segmentStart));
+
+                    segmentStart = offset;
+
+                    if (length > maxSegment) {
+                        throw new IOException("Too large result: " + sql);
+                    } // end of if
+                } // end of if
+
+                segmentEnd = offset + length;
+
+                entries.put(key, new Entry(kind, segments.size(),
+                                           (int) (offset - segmentStart),
+                                           length));
+
+                queries.add(sql);
+            } // end of for
+
+            segments.add(ch.map(FileChannel.MapMode.READ_ONLY, segmentStart,
+                                segmentEnd - segmentStart));
+
+            return new ReplayStatementHandler(segments.
+                toArray(new ByteBuffer[segments.size()]), entries, queries);
+
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid capture: " + capture, e);
+        } finally {
+            file.close(); // mappings remain valid
+        } // end of finally
+    } // end of open
+
+    // --- StatementHandler impl ---
+
+    /**
+     * Returns the recorded result for |sql| and |parameters|.
+     *
+     * {@inheritDoc}
+     */
+    public QueryResult whenSQLQuery(final String sql,
+                                    final List<Parameter> parameters)
+        throws SQLException {
+
+        final Entry e = lookup(sql, parameters);
+
+        if (e == null || e.kind != Capture.QUERY) {
+            throw new SQLException("No recorded query: " + sql);
+        } // end of if
+
+        final ByteBuffer data = this.segments[e.segment].duplicate();
+
+        data.position(e.offset);
+        data.limit(e.offset + e.value);
+
+        try {
+            return Capture.rowList(data).asResult();
+        } catch (RuntimeException re) {
+            throw new SQLException("Invalid recorded query: " + sql, re);
+        } // end of catch
+    } // end of whenSQLQuery
+
+    /**
+     * Returns the recorded update count for |sql| and |parameters|.
+     *
+     * {@inheritDoc}
+     */
+    public UpdateResult whenSQLUpdate(final String sql,
+                                      final List<Parameter> parameters)
+        throws SQLException {
+
+        final Entry e = lookup(sql, parameters);
+
+        if (e == null || e.kind != Capture.UPDATE) {
+            throw new SQLException("No recorded update: " + sql);
+        } // end of if
+
+        return new UpdateResult(e.value);
+    } // end of whenSQLUpdate
+
+    /**
+     * Returns whether |sql| has been recorded as a query.
+     *
+     * {@inheritDoc}
+     */
+    public boolean isQuery(final String sql) {
+        return this.queries.contains(sql);
+    } // end of isQuery
+
+    // ---
+
+    /**
+     * Returns the number of recorded statements
+     * (distinct SQL and parameters).
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return this.entries.size();
+    } // end of size
+
+    /**
+     * Returns the entry recorded for |sql| and |parameters|, or null.
+     */
+    private Entry lookup(final String sql, final List<Parameter> parameters)
+        throws SQLException {
+
+        try {
+            return this.entries.
+                get(new Capture.Key(sql, Capture.parameters(parameters)));
+
+        } catch (IllegalArgumentException e) {
+            throw new SQLException(e.getMessage(), e);
+        } // end of catch
+    } // end of lookup
+
+    // --- Inner classes ---
+
+    /**
+     * Recorded entry.
+     */
+    private static final class Entry {
+        final byte kind;
+        final int segment;
+        final int offset;
+
+        /**
+         * Length of the query result, or update count
+         */
+        final int value;
+
+        Entry(final byte kind, final int segment,
+              final int offset, final int value) {
+
+            this.kind = kind;
+            this.segment = segment;
+            this.offset = offset;
+            this.value = value;
+        } // end of <init>
+    } // end of class Entry
+} // end of class ReplayStatementHandler
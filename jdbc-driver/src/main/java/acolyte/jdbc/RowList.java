@@ -1,8 +1,10 @@
 package acolyte.jdbc;
 
 import java.io.ByteArrayInputStream;
+import java.io.StringReader;
 import java.io.InputStream;
 import java.io.IOException;
+import java.io.Reader;
 
 import java.util.Collections;
 import java.util.ArrayList;
@@ -23,6 +25,7 @@ import java.sql.Date;
 import java.sql.Time;
 
 import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
 
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.EqualsBuilder;
@@ -38,7 +41,12 @@ public abstract class RowList<R extends Row> {
 
     /**
      * Returns unmodifiable rows list.
+     * A {@link StreamingRowList} doesn't keep its rows in memory,
+     * so it doesn't support this operation (the rows can only be read
+     * once, from the result set).
+     *
      * @return the list of row
+     * @throws UnsupportedOperationException for a streaming list
      */
     public abstract List<R> getRows();
 
@@ -90,8 +98,10 @@ public abstract class RowList<R extends Row> {
             return new RowResultSet<R>(getRows(), this.isCycling());
         } // end of if
 
-        return new RowResultSet<R>(getRows().subList(0, maxRows),
-                                   this.isCycling());
+        final List<R> rows = getRows();
+        final int max = Math.min(maxRows, rows.size());
+
+        return new RowResultSet<R>(rows.subList(0, max), this.isCycling());
     } // end of resultSet
 
     /**
@@ -132,6 +142,46 @@ public abstract class RowList<R extends Row> {
      */
     public abstract Map<Integer,Boolean> getColumnNullables();
 
+    /**
+     * Index of the column labels (lazily built)
+     */
+    private volatile ColumnIndex columnIndex = null;
+
+    /**
+     * Returns the index of the column labels,
+     * built once and shared by the result sets of this list.
+     */
+    ColumnIndex columnIndex() {
+        ColumnIndex index = this.columnIndex;
+
+        if (index == null) {
+            index = new ColumnIndex(getColumnLabels());
+            this.columnIndex = index;
+        } // end of if
+
+        return index;
+    } // end of columnIndex
+
+    /**
+     * Converters of the column values (lazily built)
+     */
+    private volatile ColumnConverters columnConverters = null;
+
+    /**
+     * Returns the value converters, precompiled once for the column classes
+     * and shared by the result sets of this list.
+     */
+    ColumnConverters columnConverters() {
+        ColumnConverters converters = this.columnConverters;
+
+        if (converters == null) {
+            converters = new ColumnConverters(getColumnClasses());
+            this.columnConverters = converters;
+        } // end of if
+
+        return converters;
+    } // end of columnConverters
+
     // --- Shared ---
 
     /**
@@ -268,9 +318,35 @@ public abstract class RowList<R extends Row> {
         final Map<String,Integer> columnLabels;
         final Map<Integer,Boolean> columnNullables;
         List<R> rows;
+
+        /**
+         * Index of the column labels
+         */
+        private final ColumnIndex labelIndex;
+
+        /**
+         * Converters of the column values
+         */
+        private final ColumnConverters converters;
         final AbstractStatement statement;
         final SQLWarning warning;
         private Object last;
+
+        /**
+         * Column values, if the rows are columnar (otherwise null)
+         */
+        private final ColumnarRowList.Rows columnar;
+
+        /**
+         * Cursor, if the rows are streamed (otherwise null)
+         */
+        private final StreamingRowList.Cursor<R> cursor;
+
+        /**
+         * Flight Recorder iteration event, committed on close (or null)
+         */
+        Object event;
+
         // TODO: tableName
 
         // --- Constructors ---
@@ -280,26 +356,37 @@ public abstract class RowList<R extends Row> {
          * @param rows the list of rows
          */
         protected RowResultSet(final List<R> rows, final boolean cycling) {
-            this(rows, null, null, null, cycling);
+            this(rows, null, null, null, null, cycling);
+        } // end of <init>
+
+        /**
+         * Streaming constructor.
+         * @param cursor the cursor over the streamed rows
+         */
+        RowResultSet(final StreamingRowList.Cursor<R> cursor) {
+            this(Collections.<R>emptyList(), cursor, null, null, null, false);
         } // end of <init>
 
         /**
          * Copy constructor.
          * 
          * @param rows the list of rows
+         * @param cursor the cursor over the streamed rows (or null)
          * @param last the cursor to last result
          * @param statement the associated statement
          * @param warning the SQL warning
          * @param cycling
          */
         private RowResultSet(final List<R> rows,
+                             final StreamingRowList.Cursor<R> cursor,
                              final Object last,
                              final AbstractStatement statement,
                              final SQLWarning warning,
                              final boolean cycling) {
 
-            this(getColumnClasses(), getColumnLabels(), getColumnNullables(),
-                 rows, last, statement, warning, cycling);
+            this(getColumnClasses(), getColumnLabels(), columnIndex(),
+                 columnConverters(), getColumnNullables(), rows, cursor, last, statement,
+                 warning, cycling);
 
         } // end of <init>
 
@@ -308,8 +395,11 @@ public abstract class RowList<R extends Row> {
          * 
          * @param columnClasses the column classes
          * @param columnLabels the column labels
+         * @param labelIndex the index of the column labels
+         * @param converters the converters of the column values
          * @param columnNullables the nullable flags for the columns
          * @param rows the list of rows
+         * @param cursor the cursor over the streamed rows (or null)
          * @param last the cursor to last result
          * @param statement the associated statement
          * @param warning the SQL warning
@@ -317,8 +407,11 @@ public abstract class RowList<R extends Row> {
          */
         private RowResultSet(final List<Class<?>> columnClasses,
                              final Map<String, Integer> columnLabels,
+                             final ColumnIndex labelIndex,
+                             final ColumnConverters converters,
                              final Map<Integer, Boolean> columnNullables,
                              final List<R> rows,
+                             final StreamingRowList.Cursor<R> cursor,
                              final Object last,
                              final AbstractStatement statement,
                              final SQLWarning warning,
@@ -332,9 +425,19 @@ public abstract class RowList<R extends Row> {
 
             this.columnClasses = columnClasses;
             this.columnLabels = columnLabels;
+            this.labelIndex = labelIndex;
+            this.converters = converters;
             this.columnNullables = columnNullables;
-            this.rows = Collections.unmodifiableList(rows);
+            if (rows instanceof ColumnarRowList.Rows) {
+                // Immutable view, kept as is for the typed getters
+                this.columnar = (ColumnarRowList.Rows) rows;
+                this.rows = rows;
+            } else {
+                this.columnar = null;
+                this.rows = Collections.unmodifiableList(rows);
+            } // end of else
 
+            this.cursor = cursor;
             this.statement = statement;
             this.warning = warning;
             this.last = null;
@@ -342,15 +445,46 @@ public abstract class RowList<R extends Row> {
             super.fetchSize = rows.size();
             super.cycling = cycling;
 
-            if (this.statement != null && super.fetchSize > 0 &&
-                "true".equals(this.statement.connection.getProperties().
-                              get("acolyte.resultSet.initOnFirstRow"))) {
-
+            if (this.cursor != null) {
+                initCursor();
+            } else if (super.fetchSize > 0 && isInitOnFirstRow()) {
                 // Initially move to first row, contrary to JDBC specs
                 this.row = 1;
             }
         } // end of <init>
 
+        /**
+         * Returns whether the result set must be initially on first row.
+         */
+        private boolean isInitOnFirstRow() {
+            return (this.statement != null &&
+                    "true".equals(this.statement.connection.getProperties().
+                                  get("acolyte.resultSet.initOnFirstRow")));
+
+        } // end of isInitOnFirstRow
+
+        /**
+         * Initializes the streaming cursor, if not yet moved
+         * (shared with the copies of this result set).
+         */
+        private void initCursor() {
+            if (this.cursor.position() == 0) {
+                if (this.statement != null && this.statement.fetchSize > 0) {
+                    this.cursor.setFetchSize(this.statement.fetchSize);
+                } // end of if
+
+                if (isInitOnFirstRow()) {
+                    try {
+                        this.cursor.next();
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e.getMessage(), e);
+                    } // end of catch
+                } // end of if
+            } // end of if
+
+            this.row = this.cursor.position();
+        } // end of initCursor
+
         // --- 
 
         /**
@@ -360,7 +494,7 @@ public abstract class RowList<R extends Row> {
          * @return Result set associated with given statement
          */
         public RowResultSet<R> withStatement(final AbstractStatement statement) {
-            return new RowResultSet<R>(this.rows, this.last, 
+            return new RowResultSet<R>(this.rows, this.cursor, this.last,
                                        statement, this.warning, this.cycling);
 
         } // end of withStatement
@@ -369,7 +503,7 @@ public abstract class RowList<R extends Row> {
          * Returns updated resultset, with cycling set.
          */
         public RowResultSet<R> withCycling(final boolean cycling) {
-            return new RowResultSet<R>(this.rows, this.last, 
+            return new RowResultSet<R>(this.rows, this.cursor, this.last,
                                        this.statement, this.warning, cycling);
         } // end of withCycling
 
@@ -380,7 +514,7 @@ public abstract class RowList<R extends Row> {
          * @return Result set associated with SQL warning
          */
         public RowResultSet<R> withWarning(final SQLWarning warning) {
-            return new RowResultSet<R>(this.rows, this.last, 
+            return new RowResultSet<R>(this.rows, this.cursor, this.last,
                                        this.statement, warning, this.cycling);
 
         } // end of withWarning
@@ -448,6 +582,10 @@ public abstract class RowList<R extends Row> {
         }
 
         private RowResultSet<Row> withProjection(final List<Integer> columnIndexes, final Map<String, Integer> labels, final Map<Integer, Boolean> nullables) {
+            if (this.cursor != null) {
+                throw new UnsupportedOperationException("Projection of streaming rows");
+            } // end of if
+
             final ArrayList<Class<?>> classes =
                 new ArrayList<Class<?>>(labels.size());
 
@@ -476,8 +614,8 @@ public abstract class RowList<R extends Row> {
                 projected.add(new Row.Untyped(cells));
             }
 
-            return new RowResultSet(classes, labels, nullables, projected,
-                                    this.last, this.statement, this.warning,
+            return new RowResultSet(classes, labels, new ColumnIndex(labels),
+                                    new ColumnConverters(classes), nullables, projected, null, this.last, this.statement, this.warning,
                                     this.cycling);
             
         } // end of withProjection
@@ -539,6 +677,17 @@ public abstract class RowList<R extends Row> {
         public void setFetchSize(final int maxRows) throws SQLException {
             checkClosed();
 
+            if (this.cursor != null) {
+                // Number of rows to be read in advance
+                if (maxRows < 0) {
+                    throw new SQLException("Negative fetch size");
+                } // end of if
+
+                this.cursor.setFetchSize(maxRows);
+
+                return;
+            } // end of if
+
             synchronized(this) {
                 if (maxRows > this.rows.size()) {
                     return;
@@ -554,61 +703,115 @@ public abstract class RowList<R extends Row> {
         public int getFetchSize() throws SQLException {
             checkClosed();
 
+            if (this.cursor != null) {
+                return this.cursor.getFetchSize();
+            } // end of if
+
             return this.fetchSize;
         } // end of getFetchSize
 
         /**
          * {@inheritDoc}
          */
-        public boolean wasNull() throws SQLException {
-            checkClosed();
+        public boolean isAfterLast() throws SQLException {
+            if (this.cursor != null) {
+                return this.cursor.isAfterLast();
+            } // end of if
 
-            return (this.last == null);
-        } // end of wasNull
+            return super.isAfterLast();
+        } // end of isAfterLast
 
         /**
          * {@inheritDoc}
          */
-        public Object getObject(final int columnIndex) throws SQLException {
-            checkClosed();
-
-            if (!isOn()) {
-                throw new SQLException("Not on a row");
+        public boolean isLast() throws SQLException {
+            if (this.cursor != null) {
+                return (isOn() && !this.cursor.hasNext());
             } // end of if
 
-            final int idx = columnIndex - 1;
-            final List<Object> cells = this.rows.get(this.row-1).cells();
+            return super.isLast();
+        } // end of isLast
 
-            if (idx < 0 || idx >= cells.size()) {
-                throw new SQLException("Invalid column index: " + columnIndex);
+        /**
+         * {@inheritDoc}
+         */
+        public boolean absolute(final int row) throws SQLException {
+            if (this.cursor == null) {
+                return super.absolute(row);
             } // end of if
 
             // ---
 
-            return this.last = cells.get(idx);
-        } // end of getObject
+            if (row < 0) {
+                throw new SQLException("Unknown count of streaming rows");
+            } // end of if
+
+            if (row < this.row) {
+                throw new SQLException("Backward move");
+            } // end of if
+
+            while (this.cursor.position() < row) {
+                if (!this.cursor.next()) {
+                    this.row = this.cursor.position();
+
+                    return false;
+                } // end of if
+            } // end of while
+
+            this.row = this.cursor.position();
+
+            return !this.cursor.isAfterLast();
+        } // end of absolute
 
         /**
          * {@inheritDoc}
          */
-        public Object getObject(final String columnLabel) throws SQLException {
-            checkClosed();
+        public void close() throws SQLException {
+            super.close();
 
-            if (!isOn()) {
-                throw new SQLException("Not on a row");
+            final Object e = this.event;
+
+            if (e != null) {
+                this.event = null;
+
+                DriverEvents.resultSetClosed(e, rowsRead());
             } // end of if
+        } // end of close
 
-            if (columnLabel == null || 
-                !this.columnLabels.containsKey(columnLabel)) {
+        /**
+         * Returns the number of rows read so far.
+         */
+        private int rowsRead() {
+            if (this.cursor != null) {
+                final int p = this.cursor.position();
 
-                throw new SQLException("Invalid label: " + columnLabel);
+                return this.cursor.isAfterLast() ? p - 1 : p;
             } // end of if
 
-            // ---
+            return Math.max(0, Math.min(this.row, super.fetchSize));
+        } // end of rowsRead
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean wasNull() throws SQLException {
+            checkClosed();
+
+            return (this.last == null);
+        } // end of wasNull
+
+        /**
+         * {@inheritDoc}
+         */
+        public Object getObject(final int columnIndex) throws SQLException {
+            checkClosed();
+
+            if (!isOn()) {
+                throw new SQLException("Not on a row");
+            } // end of if
 
-            final int columnIndex = findColumn(columnLabel);
             final int idx = columnIndex - 1;
-            final List<Object> cells = this.rows.get(this.row-1).cells();
+            final List<Object> cells = currentCells();
 
             if (idx < 0 || idx >= cells.size()) {
                 throw new SQLException("Invalid column index: " + columnIndex);
@@ -617,6 +820,13 @@ public abstract class RowList<R extends Row> {
             // ---
 
             return this.last = cells.get(idx);
+        } // end of getObject
+
+        /**
+         * {@inheritDoc}
+         */
+        public Object getObject(final String columnLabel) throws SQLException {
+            return getObject(labelColumn(columnLabel));
         } // end of getObject            
 
         /**
@@ -660,7 +870,9 @@ public abstract class RowList<R extends Row> {
 
             // ---
 
-            return convert(val, type);
+            final T v = this.converters.converter(columnIndex, type).convert(val);
+
+            return (v != null) ? v : convert(val, type);
         } // end of getObject
 
         /**
@@ -676,13 +888,7 @@ public abstract class RowList<R extends Row> {
 
             // ---
 
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return null;
-            } // end of if
-
-            return convert(val, type);
+            return getObject(labelColumn(columnLabel), type);
         } // end of getObject
 
         /**
@@ -788,34 +994,82 @@ public abstract class RowList<R extends Row> {
                 return null;
             } // end of if
 
-            return convert(val, Blob.class);
+            return convert(val, java.sql.Blob.class);
         } // end of getBlob
 
         /**
          * {@inheritDoc}
          */
-        public boolean getBoolean(final int columnIndex) throws SQLException {
+        public java.sql.Clob getClob(final int columnIndex)
+            throws SQLException {
+
             final Object val = getObject(columnIndex);
 
             if (val == null) {
-                return false;
+                return null;
             } // end of if
 
-            if (val instanceof Boolean) {
-                return (Boolean) val;
+            return getClob(val);
+        } // end of getClob
+
+        /**
+         * {@inheritDoc}
+         */
+        public java.sql.Clob getClob(final String columnLabel)
+            throws SQLException {
+
+            final Object val = getObject(columnLabel);
+
+            if (val == null) {
+                return null;
             } // end of if
 
-            return (val.toString().charAt(0) != '0');
-        } // end of getBoolean
+            return getClob(val);
+        } // end of getClob
 
         /**
          * {@inheritDoc}
          */
-        public boolean getBoolean(final String columnLabel) 
+        public Reader getCharacterStream(final int columnIndex)
+            throws SQLException {
+
+            final Object val = getObject(columnIndex);
+
+            if (val == null) {
+                return null;
+            } // end of if
+
+            return getCharacterStream(val);
+        } // end of getCharacterStream
+
+        /**
+         * {@inheritDoc}
+         */
+        public Reader getCharacterStream(final String columnLabel)
             throws SQLException {
 
             final Object val = getObject(columnLabel);
 
+            if (val == null) {
+                return null;
+            } // end of if
+
+            return getCharacterStream(val);
+        } // end of getCharacterStream
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean getBoolean(final int columnIndex) throws SQLException {
+            final ColumnarRowList.Values values =
+                primitiveColumn(columnIndex);
+
+            if (values != null && values.isBoolean()) {
+                return values.booleanValue(this.columnar.valueIndex(this.row));
+            } // end of if
+
+            final Object val = getObject(columnIndex);
+
             if (val == null) {
                 return false;
             } // end of if
@@ -827,10 +1081,26 @@ public abstract class RowList<R extends Row> {
             return (val.toString().charAt(0) != '0');
         } // end of getBoolean
 
+        /**
+         * {@inheritDoc}
+         */
+        public boolean getBoolean(final String columnLabel) 
+            throws SQLException {
+
+            return getBoolean(labelColumn(columnLabel));
+        } // end of getBoolean
+
         /**
          * {@inheritDoc}
          */
         public byte getByte(final int columnIndex) throws SQLException {
+            final ColumnarRowList.Values values =
+                primitiveColumn(columnIndex);
+
+            if (values != null && values.isNumeric()) {
+                return (byte) values.intValue(this.columnar.valueIndex(this.row));
+            } // end of if
+
             final Object val = getObject(columnIndex);
 
             if (val == null) {
@@ -850,17 +1120,7 @@ public abstract class RowList<R extends Row> {
         public byte getByte(final String columnLabel) 
             throws SQLException {
 
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return 0;
-            } // end of if
-
-            if (val instanceof Number) {
-                return ((Number) val).byteValue();
-            } // end of if
-
-            return -1;
+            return getByte(labelColumn(columnLabel));
         } // end of getByte
 
         /**
@@ -893,6 +1153,13 @@ public abstract class RowList<R extends Row> {
          * {@inheritDoc}
          */
         public short getShort(final int columnIndex) throws SQLException {
+            final ColumnarRowList.Values values =
+                primitiveColumn(columnIndex);
+
+            if (values != null && values.isNumeric()) {
+                return (short) values.intValue(this.columnar.valueIndex(this.row));
+            } // end of if
+
             final Object val = getObject(columnIndex);
 
             if (val == null) {
@@ -912,23 +1179,20 @@ public abstract class RowList<R extends Row> {
         public short getShort(final String columnLabel) 
             throws SQLException {
 
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return 0;
-            } // end of if
-
-            if (val instanceof Number) {
-                return ((Number) val).shortValue();
-            } // end of if
-
-            return -1;
+            return getShort(labelColumn(columnLabel));
         } // end of getShort
 
         /**
          * {@inheritDoc}
          */
         public int getInt(final int columnIndex) throws SQLException {
+            final ColumnarRowList.Values values =
+                primitiveColumn(columnIndex);
+
+            if (values != null && values.isNumeric()) {
+                return values.intValue(this.columnar.valueIndex(this.row));
+            } // end of if
+
             final Object val = getObject(columnIndex);
 
             if (val == null) {
@@ -948,23 +1212,20 @@ public abstract class RowList<R extends Row> {
         public int getInt(final String columnLabel) 
             throws SQLException {
 
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return 0;
-            } // end of if
-
-            if (val instanceof Number) {
-                return ((Number) val).intValue();
-            } // end of if
-
-            return -1;
+            return getInt(labelColumn(columnLabel));
         } // end of getInt
 
         /**
          * {@inheritDoc}
          */
         public long getLong(final int columnIndex) throws SQLException {
+            final ColumnarRowList.Values values =
+                primitiveColumn(columnIndex);
+
+            if (values != null && values.isNumeric()) {
+                return values.longValue(this.columnar.valueIndex(this.row));
+            } // end of if
+
             final Object val = getObject(columnIndex);
 
             if (val == null) {
@@ -984,23 +1245,20 @@ public abstract class RowList<R extends Row> {
         public long getLong(final String columnLabel) 
             throws SQLException {
 
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return 0;
-            } // end of if
-
-            if (val instanceof Number) {
-                return ((Number) val).longValue();
-            } // end of if
-
-            return -1;
+            return getLong(labelColumn(columnLabel));
         } // end of getLong
 
         /**
          * {@inheritDoc}
          */
         public float getFloat(final int columnIndex) throws SQLException {
+            final ColumnarRowList.Values values =
+                primitiveColumn(columnIndex);
+
+            if (values != null && values.isNumeric()) {
+                return values.floatValue(this.columnar.valueIndex(this.row));
+            } // end of if
+
             final Object val = getObject(columnIndex);
 
             if (val == null) {
@@ -1020,23 +1278,20 @@ public abstract class RowList<R extends Row> {
         public float getFloat(final String columnLabel) 
             throws SQLException {
 
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return 0;
-            } // end of if
-
-            if (val instanceof Number) {
-                return ((Number) val).floatValue();
-            } // end of if
-
-            return -1;
+            return getFloat(labelColumn(columnLabel));
         } // end of getFloat
 
         /**
          * {@inheritDoc}
          */
         public double getDouble(final int columnIndex) throws SQLException {
+            final ColumnarRowList.Values values =
+                primitiveColumn(columnIndex);
+
+            if (values != null && values.isNumeric()) {
+                return values.doubleValue(this.columnar.valueIndex(this.row));
+            } // end of if
+
             final Object val = getObject(columnIndex);
 
             if (val == null) {
@@ -1056,17 +1311,7 @@ public abstract class RowList<R extends Row> {
         public double getDouble(final String columnLabel) 
             throws SQLException {
 
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return 0;
-            } // end of if
-
-            if (val instanceof Number) {
-                return ((Number) val).doubleValue();
-            } // end of if
-
-            return -1;
+            return getDouble(labelColumn(columnLabel));
         } // end of getDouble
 
         /**
@@ -1075,21 +1320,7 @@ public abstract class RowList<R extends Row> {
         public BigDecimal getBigDecimal(final int columnIndex) 
             throws SQLException {
 
-            final Object val = getObject(columnIndex);
-
-            if (val == null) {
-                return null;
-            } // end of if
-
-            if (val instanceof BigDecimal) {
-                return (BigDecimal) val;
-            } // end of if
-
-            if (val instanceof Number) {
-                return new BigDecimal(val.toString());
-            } // end of if
-
-            throw new SQLException("Not a BigDecimal: " + columnIndex);
+            return bigDecimal(columnIndex, columnIndex);
         } // end of getBigDecimal
 
         /**
@@ -1098,21 +1329,7 @@ public abstract class RowList<R extends Row> {
         public BigDecimal getBigDecimal(final String columnLabel) 
             throws SQLException {
 
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return null;
-            } // end of if
-
-            if (val instanceof BigDecimal) {
-                return (BigDecimal) val;
-            } // end of if
-
-            if (val instanceof Number) {
-                return new BigDecimal(val.toString());
-            } // end of if
-
-            throw new SQLException("Not a BigDecimal: " + columnLabel);
+            return bigDecimal(labelColumn(columnLabel), columnLabel);
         } // end of getBigDecimal
 
         /**
@@ -1122,23 +1339,9 @@ public abstract class RowList<R extends Row> {
                                         final int scale) 
             throws SQLException {
 
-            final Object val = getObject(columnIndex);
-
-            if (val == null) {
-                return null;
-            } // end of if
-
-            final BigDecimal bd = (val instanceof BigDecimal) 
-                ? (BigDecimal) val
-                : (val instanceof Number) 
-                ? new BigDecimal(val.toString())
-                : null;
+            final BigDecimal bd = bigDecimal(columnIndex, columnIndex);
 
-            if (bd != null) {
-                return bd.setScale(scale, BigDecimal.ROUND_DOWN);
-            } // end of if
-
-            throw new SQLException("Not a BigDecimal: " + columnIndex);
+            return (bd == null) ? null : bd.setScale(scale, BigDecimal.ROUND_DOWN);
         } // end of getBigDecimal
 
         /**
@@ -1148,23 +1351,10 @@ public abstract class RowList<R extends Row> {
                                         final int scale) 
             throws SQLException {
 
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return null;
-            } // end of if
+            final BigDecimal bd =
+                bigDecimal(labelColumn(columnLabel), columnLabel);
 
-            final BigDecimal bd = (val instanceof BigDecimal) 
-                ? (BigDecimal) val
-                : (val instanceof Number) 
-                ? new BigDecimal(val.toString())
-                : null;
-
-            if (bd != null) {
-                return bd.setScale(scale, BigDecimal.ROUND_DOWN);
-            } // end of if
-
-            throw new SQLException("Not a BigDecimal: " + columnLabel);
+            return (bd == null) ? null : bd.setScale(scale, BigDecimal.ROUND_DOWN);
         } // end of getBigDecimal
 
         /**
@@ -1213,46 +1403,14 @@ public abstract class RowList<R extends Row> {
          * {@inheritDoc}
          */
         public Date getDate(final int columnIndex) throws SQLException {
-            final Object val = getObject(columnIndex);
-
-            if (val == null) {
-                return null;
-            } // end of if
-
-            // ---
-
-            if (val instanceof Date) {
-                return (Date) val;
-            } // end of if
-
-            if (val instanceof java.util.Date) {
-                return new Date(((java.util.Date) val).getTime());
-            } // end of if
-
-            throw new SQLException("Not a Date: " + columnIndex);
+            return date(columnIndex, columnIndex);
         } // end of getDate
 
         /**
          * {@inheritDoc}
          */
         public Date getDate(final String columnLabel) throws SQLException {
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return null;
-            } // end of if
-
-            // ---
-
-            if (val instanceof Date) {
-                return (Date) val;
-            } // end of if
-
-            if (val instanceof java.util.Date) {
-                return new Date(((java.util.Date) val).getTime());
-            } // end of if
-
-            throw new SQLException("Not a Date: " + columnLabel);
+            return date(labelColumn(columnLabel), columnLabel);
         } // end of getDate
 
         /**
@@ -1277,46 +1435,14 @@ public abstract class RowList<R extends Row> {
          * {@inheritDoc}
          */
         public Time getTime(final int columnIndex) throws SQLException {
-            final Object val = getObject(columnIndex);
-
-            if (val == null) {
-                return null;
-            } // end of if
-
-            // ---
-
-            if (val instanceof Time) {
-                return (Time) val;
-            } // end of if
-
-            if (val instanceof java.util.Date) {
-                return new Time(((java.util.Date) val).getTime());
-            } // end of if
-
-            throw new SQLException("Not a Time: " + columnIndex);
+            return time(columnIndex, columnIndex);
         } // end of getTime
 
         /**
          * {@inheritDoc}
          */
         public Time getTime(final String columnLabel) throws SQLException {
-            final Object val = getObject(columnLabel);
-
-            if (val == null) {
-                return null;
-            } // end of if
-
-            // ---
-
-            if (val instanceof Time) {
-                return (Time) val;
-            } // end of if
-
-            if (val instanceof java.util.Date) {
-                return new Time(((java.util.Date) val).getTime());
-            } // end of if
-
-            throw new SQLException("Not a Time: " + columnLabel);
+            return time(labelColumn(columnLabel), columnLabel);
         } // end of getTime
 
         /**
@@ -1343,6 +1469,77 @@ public abstract class RowList<R extends Row> {
         public Timestamp getTimestamp(final int columnIndex) 
             throws SQLException {
 
+            return timestamp(columnIndex, columnIndex);
+        } // end of getTimestamp
+
+        /**
+         * {@inheritDoc}
+         */
+        public Timestamp getTimestamp(final String columnLabel) 
+            throws SQLException {
+
+            return timestamp(labelColumn(columnLabel), columnLabel);
+        } // end of getTimestamp
+
+        /**
+         * {@inheritDoc}
+         */
+        public Timestamp getTimestamp(final int columnIndex, 
+                                      final Calendar cal) throws SQLException {
+            
+            return getTimestamp(columnIndex);
+        } // end of getTimestamp
+
+        /**
+         * {@inheritDoc}
+         */
+        public Timestamp getTimestamp(final String columnLabel, 
+                                      final Calendar cal) throws SQLException {
+            
+            return getTimestamp(columnLabel);
+        } // end of getTimestamp
+
+        /**
+         * {@inheritDoc}
+         */
+        public int findColumn(final String columnLabel) throws SQLException {
+            final int columnIndex = this.labelIndex.indexOf(columnLabel);
+
+            if (columnIndex == -1) {
+                throw new SQLException("Invalid label: " + columnLabel);
+            } // end of if
+
+            return columnIndex;
+        } // end of findColumn
+
+        /**
+         * Returns the index of the column with given |columnLabel|,
+         * checking the result set is open and on a row.
+         *
+         * @param columnLabel the column label
+         * @return the column index (first is 1)
+         * @throws SQLException if the result set is closed or not on a row,
+         * or if the label is unknown
+         */
+        private int labelColumn(final String columnLabel) throws SQLException {
+            checkClosed();
+
+            if (!isOn()) {
+                throw new SQLException("Not on a row");
+            } // end of if
+
+            return findColumn(columnLabel);
+        } // end of labelColumn
+
+        /**
+         * Returns the BigDecimal value of the specified column.
+         *
+         * @param columnIndex the index of the column (first is 1)
+         * @param column the column as specified by the caller (index or label)
+         */
+        private BigDecimal bigDecimal(final int columnIndex, final Object column)
+            throws SQLException {
+
             final Object val = getObject(columnIndex);
 
             if (val == null) {
@@ -1351,24 +1548,25 @@ public abstract class RowList<R extends Row> {
 
             // ---
 
-            if (val instanceof Timestamp) {
-                return (Timestamp) val;
-            } // end of if
+            final BigDecimal bd = this.converters.bigDecimal(columnIndex, val);
 
-            if (val instanceof java.util.Date) {
-                return new Timestamp(((java.util.Date) val).getTime());
+            if (bd != null) {
+                return bd;
             } // end of if
 
-            throw new SQLException("Not a Timestamp: " + columnIndex);
-        } // end of getTimestamp
+            throw new SQLException("Not a BigDecimal: " + column);
+        } // end of bigDecimal
 
         /**
-         * {@inheritDoc}
+         * Returns the Date value of the specified column.
+         *
+         * @param columnIndex the index of the column (first is 1)
+         * @param column the column as specified by the caller (index or label)
          */
-        public Timestamp getTimestamp(final String columnLabel) 
+        private Date date(final int columnIndex, final Object column)
             throws SQLException {
 
-            final Object val = getObject(columnLabel);
+            final Object val = getObject(columnIndex);
 
             if (val == null) {
                 return null;
@@ -1376,41 +1574,112 @@ public abstract class RowList<R extends Row> {
 
             // ---
 
-            if (val instanceof Timestamp) {
-                return (Timestamp) val;
+            final Date v = this.converters.date(columnIndex, val);
+
+            if (v != null) {
+                return v;
             } // end of if
 
-            if (val instanceof java.util.Date) {
-                return new Timestamp(((java.util.Date) val).getTime());
+            throw new SQLException("Not a Date: " + column);
+        } // end of date
+
+        /**
+         * Returns the Time value of the specified column.
+         *
+         * @param columnIndex the index of the column (first is 1)
+         * @param column the column as specified by the caller (index or label)
+         */
+        private Time time(final int columnIndex, final Object column)
+            throws SQLException {
+
+            final Object val = getObject(columnIndex);
+
+            if (val == null) {
+                return null;
             } // end of if
 
-            throw new SQLException("Not a Timestamp: " + columnLabel);
-        } // end of getTimestamp
+            // ---
+
+            final Time v = this.converters.time(columnIndex, val);
+
+            if (v != null) {
+                return v;
+            } // end of if
+
+            throw new SQLException("Not a Time: " + column);
+        } // end of time
 
         /**
-         * {@inheritDoc}
+         * Returns the Timestamp value of the specified column.
+         *
+         * @param columnIndex the index of the column (first is 1)
+         * @param column the column as specified by the caller (index or label)
          */
-        public Timestamp getTimestamp(final int columnIndex, 
-                                      final Calendar cal) throws SQLException {
-            
-            return getTimestamp(columnIndex);
-        } // end of getTimestamp
+        private Timestamp timestamp(final int columnIndex, final Object column)
+            throws SQLException {
+
+            final Object val = getObject(columnIndex);
+
+            if (val == null) {
+                return null;
+            } // end of if
+
+            // ---
+
+            final Timestamp v = this.converters.timestamp(columnIndex, val);
+
+            if (v != null) {
+                return v;
+            } // end of if
+
+            throw new SQLException("Not a Timestamp: " + column);
+        } // end of timestamp
 
         /**
-         * {@inheritDoc}
+         * Returns the cells of the current row.
          */
-        public Timestamp getTimestamp(final String columnLabel, 
-                                      final Calendar cal) throws SQLException {
-            
-            return getTimestamp(columnLabel);
-        } // end of getTimestamp
+        private List<Object> currentCells() {
+            if (this.cursor != null) {
+                return this.cursor.current().cells();
+            } // end of if
+
+            return this.rows.get(this.row-1).cells();
+        } // end of currentCells
 
         /**
-         * {@inheritDoc}
+         * Returns the values of the specified column, if the rows are
+         * columnar and the current value is a not null primitive one
+         * (then marked as last one, for {@link #wasNull}).
+         * Otherwise returns null, and the value is to be read
+         * (and checked) as any other.
+         *
+         * @param columnIndex the index of the column (first is 1)
          */
-        public int findColumn(final String columnLabel) throws SQLException {
-            return this.columnLabels.get(columnLabel);
-        } // end of findColumn
+        private ColumnarRowList.Values primitiveColumn(final int columnIndex)
+            throws SQLException {
+
+            if (this.columnar == null) {
+                return null;
+            } // end of if
+
+            checkClosed();
+
+            final ColumnarRowList.Values values =
+                this.columnar.column(columnIndex);
+
+            if (values == null || !isOn() ||
+                (!values.isNumeric() && !values.isBoolean()) ||
+                values.isNull(this.columnar.valueIndex(this.row))) {
+
+                return null;
+            } // end of if
+
+            // ---
+
+            this.last = Boolean.TRUE;
+
+            return values;
+        } // end of primitiveColumn
 
         /**
          * Convert not null value.
@@ -1531,7 +1800,7 @@ public abstract class RowList<R extends Row> {
                 } // end of catch
             } // end of if
 
-            if (value instanceof Blob) {
+            if (value instanceof java.sql.Blob) {
                 InputStream in = null;
 
                 try {
@@ -1564,7 +1833,8 @@ public abstract class RowList<R extends Row> {
                 return new ByteArrayInputStream((byte[]) value);
             } // end of if
 
-            if (value instanceof Blob) {
+            if (value instanceof java.sql.Blob) {
+                // Streamed from the BLOB (e.g. mapped one) without copy
                 return ((java.sql.Blob) value).getBinaryStream();
             } // end of if
 
@@ -1587,6 +1857,45 @@ public abstract class RowList<R extends Row> {
 
             return new SerialBlob(getBytes(value));
         } // end of getBlob
+
+        /**
+         * Tries to get CLOB from raw |value|.
+         *
+         * @param value the character value
+         * @return the CLOB
+         * @throws SQLException if fails to create the CLOB
+         */
+        private java.sql.Clob getClob(final Object value) throws SQLException {
+            if (value instanceof java.sql.Clob) return (java.sql.Clob) value;
+
+            if (value instanceof String) {
+                return new SerialClob(((String) value).toCharArray());
+            } // end of if
+
+            throw new SQLException("Cannot get CLOB: " + value);
+        } // end of getClob
+
+        /**
+         * Tries to get character stream from raw |value|.
+         *
+         * @param value the character value
+         * @return the reader
+         * @throws SQLException if fails to create the character stream
+         */
+        private Reader getCharacterStream(final Object value)
+            throws SQLException {
+
+            if (value instanceof java.sql.Clob) {
+                // Read from the CLOB (e.g. mapped one) without copy
+                return ((java.sql.Clob) value).getCharacterStream();
+            } // end of if
+
+            if (value instanceof String) {
+                return new StringReader((String) value);
+            } // end of if
+
+            throw new SQLException("Cannot get character stream: " + value);
+        } // end of getCharacterStream
     } // end of class RowResultSet
 
     /**
@@ -0,0 +1,44 @@
+package acolyte.jdbc;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * Resource handler also intercepting the savepoints of the transactions,
+ * so that the connection supports rolling back to (or releasing)
+ * a savepoint; otherwise these operations are not supported.
+ *
+ * @author Cedric Chantepie
+ * @see VersionedStore
+ */
+public interface SavepointHandler extends ResourceHandler {
+    /**
+     * Is fired when the |savepoint| is set in the transaction
+     * of |connection|.
+     *
+     * @see java.sql.Connection#setSavepoint
+     */
+    public void whenSetSavepoint(Connection connection, Savepoint savepoint)
+        throws SQLException;
+
+    /**
+     * Is fired when the transaction of |connection| is rollbacked
+     * to the |savepoint|.
+     *
+     * @see java.sql.Connection#rollback(java.sql.Savepoint)
+     */
+    public void whenRollbackSavepoint(Connection connection,
+                                      Savepoint savepoint)
+        throws SQLException;
+
+    /**
+     * Is fired when the |savepoint| is released from the transaction
+     * of |connection|.
+     *
+     * @see java.sql.Connection#releaseSavepoint
+     */
+    public void whenReleaseSavepoint(Connection connection,
+                                     Savepoint savepoint)
+        throws SQLException;
+
+} // end of interface SavepointHandler
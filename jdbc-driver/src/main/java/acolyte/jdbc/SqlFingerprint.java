@@ -0,0 +1,436 @@
+package acolyte.jdbc;
+
+import java.util.Collections;
+import java.util.BitSet;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fingerprint of SQL statements, so that the statements only differing
+ * by whitespaces, comments, keyword case or literal values
+ * are considered the same (e.g. for routing or statistics).
+ *
+ * <pre>
+ * {@code
+ * SqlFingerprint.of("select *  from users\nwhere id = 12 -- admin");
+ * // "SELECT * FROM users WHERE id = ?"
+ *
+ * SqlFingerprint.of("SELECT name FROM users WHERE id IN (1, 2, 3)");
+ * // "SELECT name FROM users WHERE id IN(?)"
+ * }
+ * </pre>
+ *
+ * The statement is scanned once:
+ * <ul>
+ * <li>the string and numeric literals are replaced by `?`,
+ * as the parameters, and a list of values after `IN` or `VALUES`
+ * (e.g. `IN (?, ?, ?)`) is collapsed as a single one, as the rows
+ * of a multi-row `VALUES` (e.g. `VALUES (1, 'a'), (2, 'b')`),</li>
+ * <li>the comments are removed, and the whitespaces are collapsed
+ * as a single space between words (none around punctuation),</li>
+ * <li>the SQL keywords are upper cased, whereas the other identifiers
+ * (and the quoted ones) are kept as is.</li>
+ * </ul>
+ *
+ * The fingerprints are cached per SQL string, up to a bounded number
+ * of distinct statements (the cache is cleared when the bound is reached).
+ *
+ * @author Cedric Chantepie
+ * @see StatementContext#getFingerprint
+ */
+public final class SqlFingerprint {
+    // --- Shared ---
+
+    /**
+     * Max number of cached fingerprints
+     */
+    private static final int MAX_CACHED = 4096;
+
+    /**
+     * Fingerprints per SQL string
+     */
+    private static final ConcurrentHashMap<String,String> cache =
+        new ConcurrentHashMap<String,String>();
+
+    /**
+     * Upper cased keywords
+     */
+    private static final Set<String> keywords =
+        Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "ADD", "ALL", "ALTER", "AND", "ANY", "AS", "ASC", "BEGIN",
+            "BETWEEN", "BY", "CALL", "CASE", "CAST", "COMMIT", "CREATE",
+            "CROSS", "DEFAULT", "DELETE", "DESC", "DISTINCT", "DROP", "ELSE",
+            "END", "EXCEPT", "EXEC", "EXECUTE", "EXISTS", "FALSE", "FETCH",
+            "FOR", "FROM", "FULL", "GROUP", "HAVING", "IN", "INNER", "INSERT",
+            "INTERSECT", "INTO", "IS", "JOIN", "LEFT", "LIKE", "LIMIT", "NOT",
+            "NULL", "OFFSET", "ON", "OR", "ORDER", "OUTER", "RETURNING",
+            "RIGHT", "ROLLBACK", "SELECT", "SET", "TABLE", "THEN", "TRUE",
+            "TRUNCATE", "UNION", "UPDATE", "USING", "VALUES", "WHEN", "WHERE",
+            "WITH")));
+
+    // --- Constructors ---
+
+    /**
+     * No instance.
+     */
+    private SqlFingerprint() {}
+
+    // ---
+
+    /**
+     * Returns the fingerprint of given |sql| statement.
+     *
+     * @param sql the SQL statement
+     * @return Fingerprint
+     * @throws IllegalArgumentException if |sql| is null
+     */
+    public static String of(final String sql) {
+        if (sql == null) {
+            throw new IllegalArgumentException("No statement");
+        } // end of if
+
+        final String cached = cache.get(sql);
+
+        if (cached != null) {
+            return cached;
+        } // end of if
+
+        // ---
+
+        final String fingerprint = compute(sql);
+
+        if (cache.size() >= MAX_CACHED) {
+            cache.clear();
+        } // end of if
+
+        cache.put(sql, fingerprint);
+
+        return fingerprint;
+    } // end of of
+
+    /**
+     * Computes the fingerprint of given |sql| statement, without cache.
+     */
+    static String compute(final String sql) {
+        final int len = sql.length();
+        final StringBuilder s = new StringBuilder(len);
+        final BitSet lists = new BitSet(); // index of the '(' of value lists
+        int i = 0;
+
+        while (i < len) {
+            final char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < len && sql.charAt(i + 1) == '-') {
+                // Line comment
+                while (i < len && sql.charAt(i) != '\n') {
+                    i++;
+                } // end of while
+            } else if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+                // Block comment
+                final int end = sql.indexOf("*/", i + 2);
+
+                i = (end == -1) ? len : end + 2;
+            } else if (c == '\'') {
+                i = skipQuoted(sql, i, '\'');
+                parameter(s, lists);
+            } else if (c == '"' || c == '`') {
+                final int end = skipQuoted(sql, i, c);
+
+                separate(s, c);
+                s.append(sql, i, end);
+
+                i = end;
+            } else if (isNumber(sql, i, s)) {
+                i = skipNumber(sql, i);
+                parameter(s, lists);
+            } else if (c == '?') {
+                i++;
+                parameter(s, lists);
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = i + 1;
+
+                while (end < len &&
+                       Character.isJavaIdentifierPart(sql.charAt(end))) {
+                    end++;
+                } // end of while
+
+                if (end - i == 1 && end < len && sql.charAt(end) == '\'' &&
+                    "NnXxBbEe".indexOf(c) != -1) {
+
+                    // Prefixed string literal (e.g. X'0F')
+                    i = skipQuoted(sql, end, '\'');
+                    parameter(s, lists);
+                } else {
+                    final String word = sql.substring(i, end);
+                    final String upper = word.toUpperCase(Locale.ROOT);
+
+                    separate(s, c);
+                    s.append(keywords.contains(upper) ? upper : word);
+
+                    i = end;
+                } // end of else
+            } else {
+                separate(s, c);
+
+                if (c == '(' && isValueList(s, lists)) {
+                    lists.set(s.length());
+                } // end of if
+
+                s.append(c);
+
+                if (c == ')') {
+                    foldTuple(s, lists);
+                } // end of if
+
+                i++;
+            } // end of else
+        } // end of while
+
+        return s.toString();
+    } // end of compute
+
+    /**
+     * Appends a parameter placeholder to the fingerprint |s|,
+     * unless following another one in a list of values.
+     *
+     * @param lists the index of the '(' opening the lists of values
+     */
+    private static void parameter(final StringBuilder s, final BitSet lists) {
+        final int n = s.length();
+
+        if (n >= 3 && s.charAt(n - 1) == ',' && s.charAt(n - 2) == '?' &&
+            s.charAt(n - 3) == '(' && lists.get(n - 3)) {
+
+            s.setLength(n - 1); // "(?, ?" => "(?"
+            return;
+        } // end of if
+
+        separate(s, '?');
+        s.append('?');
+    } // end of parameter
+
+    /**
+     * Removes the collapsed list of values just closed in |s|,
+     * if it follows another collapsed one
+     * (e.g. `VALUES(?), (?)` => `VALUES(?)`).
+     *
+     * @param lists the index of the '(' opening the lists of values
+     */
+    private static void foldTuple(final StringBuilder s, final BitSet lists) {
+        final int n = s.length();
+
+        if (n >= 8 && lists.get(n - 3) && lists.get(n - 8) &&
+            s.charAt(n - 2) == '?' && s.charAt(n - 4) == ' ' &&
+            s.charAt(n - 5) == ',' && s.charAt(n - 6) == ')' &&
+            s.charAt(n - 7) == '?') {
+
+            lists.clear(n - 3);
+            s.setLength(n - 5); // "(?), (?)" => "(?)"
+        } // end of if
+    } // end of foldTuple
+
+    /**
+     * Appends the separator required before the token
+     * starting with |c|, if any: a space between words,
+     * or between a word and an operator, but no space
+     * around the punctuation (except after a comma).
+     */
+    private static void separate(final StringBuilder s, final char c) {
+        final int n = s.length();
+
+        if (n == 0) {
+            return;
+        } // end of if
+
+        final char last = s.charAt(n - 1);
+
+        if (last == ',') {
+            s.append(' ');
+        } else if (last != '(' && last != '.' && c != '(' && c != ')' &&
+                   c != ',' && c != '.' && c != ';' &&
+                   (isWordPart(last) || isWordPart(c))) {
+
+            s.append(' ');
+        } // end of else if
+    } // end of separate
+
+    /**
+     * Returns true if the '(' to be appended to the fingerprint |s|
+     * opens a list of values: either just after `IN` or `VALUES`,
+     * or just after a collapsed one (e.g. `VALUES(?), (`).
+     * The parentheses of the function calls (e.g. `COALESCE(`)
+     * are not lists of values.
+     *
+     * @param lists the index of the '(' opening the lists of values so far
+     */
+    private static boolean isValueList(final StringBuilder s,
+                                       final BitSet lists) {
+
+        final int n = s.length();
+
+        if (n >= 5 && lists.get(n - 5) && s.charAt(n - 4) == '?' &&
+            s.charAt(n - 3) == ')' && s.charAt(n - 2) == ',') {
+
+            return true; // next tuple of multi-row VALUES
+        } // end of if
+
+        int start = n;
+
+        while (start > 0 &&
+               Character.isJavaIdentifierPart(s.charAt(start - 1))) {
+
+            start--;
+        } // end of while
+
+        final int len = n - start;
+
+        return ((len == 2 && s.indexOf("IN", start) == start) ||
+                (len == 6 && s.indexOf("VALUES", start) == start));
+    } // end of isValueList
+
+    /**
+     * Returns true if a numeric literal starts at index |i|:
+     * either a digit, a dot followed by a digit (e.g. `.5`),
+     * or a sign directly followed by a digit after an operator
+     * (e.g. `= -1`, but not `a - 1`).
+     *
+     * @param s the fingerprint so far
+     */
+    private static boolean isNumber(final String sql,
+                                    final int i,
+                                    final StringBuilder s) {
+
+        final char c = sql.charAt(i);
+
+        if (isDigit(c)) {
+            return true;
+        } // end of if
+
+        if (i + 1 >= sql.length() || !isDigit(sql.charAt(i + 1))) {
+            return false;
+        } // end of if
+
+        if (c == '.') {
+            return (i == 0 ||
+                    !Character.isJavaIdentifierPart(sql.charAt(i - 1)));
+
+        } // end of if
+
+        if (c == '-' || c == '+') {
+            final int n = s.length();
+
+            return (n == 0 || (!isWordPart(s.charAt(n - 1)) &&
+                               s.charAt(n - 1) != ')'));
+
+        } // end of if
+
+        return false;
+    } // end of isNumber
+
+    /**
+     * Returns the index after the literal quoted by |quote|,
+     * starting at |start| (doubled quotes being escaped ones).
+     */
+    private static int skipQuoted(final String sql,
+                                  final int start,
+                                  final char quote) {
+
+        final int len = sql.length();
+        int i = start + 1;
+
+        while (i < len) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < len && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                } // end of else
+            } else {
+                i++;
+            } // end of else
+        } // end of while
+
+        return len;
+    } // end of skipQuoted
+
+    /**
+     * Returns the index after the numeric literal starting at |start|
+     * (optionally signed): either hexadecimal with the `0x` prefix,
+     * or decimal with an optional exponent (e.g. `-1.5e3`).
+     * The literal stops at the first other character, so that a following
+     * letter is not considered as a digit (e.g. `12abc`).
+     */
+    private static int skipNumber(final String sql, final int start) {
+        final int len = sql.length();
+        int i = start;
+
+        if (sql.charAt(i) == '-' || sql.charAt(i) == '+') {
+            i++;
+        } // end of if
+
+        if (i + 2 < len && sql.charAt(i) == '0' &&
+            (sql.charAt(i + 1) == 'x' || sql.charAt(i + 1) == 'X') &&
+            isHexDigit(sql.charAt(i + 2))) {
+
+            i += 3;
+
+            while (i < len && isHexDigit(sql.charAt(i))) {
+                i++;
+            } // end of while
+
+            return i;
+        } // end of if
+
+        // ---
+
+        while (i < len && (isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+            i++;
+        } // end of while
+
+        if (i + 1 < len && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+            int e = i + 1;
+
+            if (sql.charAt(e) == '-' || sql.charAt(e) == '+') {
+                e++;
+            } // end of if
+
+            if (e < len && isDigit(sql.charAt(e))) {
+                i = e + 1;
+
+                while (i < len && isDigit(sql.charAt(i))) {
+                    i++;
+                } // end of while
+            } // end of if
+        } // end of if
+
+        return i;
+    } // end of skipNumber
+
+    /**
+     * Returns true if |c| is a decimal digit.
+     */
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    } // end of isDigit
+
+    /**
+     * Returns true if |c| is a hexadecimal digit.
+     */
+    private static boolean isHexDigit(final char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    } // end of isHexDigit
+
+    /**
+     * Returns true if |c| can be part of a word (or a placeholder).
+     */
+    private static boolean isWordPart(final char c) {
+        return c == '?' || c == '"' || c == '`' ||
+            Character.isJavaIdentifierPart(c);
+    } // end of isWordPart
+} // end of class SqlFingerprint
@@ -0,0 +1,400 @@
+package acolyte.jdbc;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import java.util.regex.Pattern;
+
+/**
+ * Immutable routing table, from SQL statement to handler:
+ * by normalized statement (hash lookup), then by statement fingerprint
+ * (hash lookup), then by longest normalized prefix (trie lookup),
+ * then by pattern (in registration order),
+ * and finally to the fallback handler (if any).
+ *
+ * Normalization collapses the whitespaces outside of the quoted literals
+ * or identifiers, and trims the statement.
+ *
+ * The routes are kept in persistent structures, shared with the routes
+ * they are derived from, so that adding one is done in O(log32 n)
+ * (without copying the previous ones).
+ *
+ * @param <H> the handler type
+ * @author Cedric Chantepie
+ * @see AbstractRouter
+ */
+final class SqlRoutes<H> {
+    // --- Properties ---
+
+    /**
+     * Handlers per normalized statement
+     */
+    private final PersistentMap<String,H> statements;
+
+    /**
+     * Handlers per statement fingerprint
+     */
+    private final PersistentMap<String,H> fingerprints;
+
+    /**
+     * Handlers per normalized prefix
+     */
+    private final PersistentMap<String,H> prefixes;
+
+    /**
+     * Route patterns
+     */
+    private final PersistentList<Pattern> patterns;
+
+    /**
+     * Handlers for the patterns (same order)
+     */
+    private final PersistentList<H> patternHandlers;
+
+    /**
+     * Fallback handler (or null)
+     */
+    private final H fallback;
+
+    /**
+     * Prefix trie (lazily compiled)
+     */
+    private volatile Node prefixTrie = null;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private SqlRoutes(final PersistentMap<String,H> statements,
+                      final PersistentMap<String,H> fingerprints,
+                      final PersistentMap<String,H> prefixes,
+                      final PersistentList<Pattern> patterns,
+                      final PersistentList<H> patternHandlers,
+                      final H fallback) {
+
+        this.statements = statements;
+        this.fingerprints = fingerprints;
+        this.prefixes = prefixes;
+        this.patterns = patterns;
+        this.patternHandlers = patternHandlers;
+        this.fallback = fallback;
+    } // end of <init>
+
+    /**
+     * Empty routes.
+     */
+    SqlRoutes() {
+        this(PersistentMap.<String,H>empty(),
+             PersistentMap.<String,H>empty(),
+             PersistentMap.<String,H>empty(),
+             PersistentList.<Pattern>empty(),
+             PersistentList.<H>empty(), null);
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns routes including |handler| for given |statement|.
+     *
+     * @throws IllegalArgumentException if |statement| or |handler| is null
+     */
+    SqlRoutes<H> withStatement(final String statement, final H handler) {
+        if (statement == null) {
+            throw new IllegalArgumentException("No statement");
+        } // end of if
+
+        if (handler == null) {
+            throw new IllegalArgumentException("No handler");
+        } // end of if
+
+        return new SqlRoutes<H>(this.statements.
+                                plus(normalize(statement, true), handler),
+                                this.fingerprints, this.prefixes,
+                                this.patterns, this.patternHandlers,
+                                this.fallback);
+
+    } // end of withStatement
+
+    /**
+     * Returns routes including |handler| for the statements
+     * with the same fingerprint as the given |statement|.
+     *
+     * @throws IllegalArgumentException if |statement| or |handler| is null
+     * @see SqlFingerprint
+     */
+    SqlRoutes<H> withFingerprint(final String statement, final H handler) {
+        if (statement == null) {
+            throw new IllegalArgumentException("No statement");
+        } // end of if
+
+        if (handler == null) {
+            throw new IllegalArgumentException("No handler");
+        } // end of if
+
+        return new SqlRoutes<H>(this.statements, this.fingerprints.
+                                plus(SqlFingerprint.of(statement), handler),
+                                this.prefixes, this.patterns,
+                                this.patternHandlers, this.fallback);
+
+    } // end of withFingerprint
+
+    /**
+     * Returns routes including |handler| for given |prefix|.
+     *
+     * @throws IllegalArgumentException if |prefix| is null or empty,
+     * or if |handler| is null
+     */
+    SqlRoutes<H> withPrefix(final String prefix, final H handler) {
+        final String p = (prefix == null) ? "" : normalize(prefix, false);
+
+        if (p.length() == 0) {
+            throw new IllegalArgumentException("Invalid prefix: " + prefix);
+        } // end of if
+
+        if (handler == null) {
+            throw new IllegalArgumentException("No handler");
+        } // end of if
+
+        return new SqlRoutes<H>(this.statements, this.fingerprints,
+                                this.prefixes.plus(p, handler),
+                                this.patterns, this.patternHandlers,
+                                this.fallback);
+
+    } // end of withPrefix
+
+    /**
+     * Returns routes including |handler| for given |pattern|,
+     * checked after the previous ones.
+     *
+     * @throws IllegalArgumentException if |pattern| or |handler| is null
+     */
+    SqlRoutes<H> withPattern(final Pattern pattern, final H handler) {
+        if (pattern == null) {
+            throw new IllegalArgumentException("No pattern");
+        } // end of if
+
+        if (handler == null) {
+            throw new IllegalArgumentException("No handler");
+        } // end of if
+
+        return new SqlRoutes<H>(this.statements, this.fingerprints,
+                                this.prefixes, this.patterns.append(pattern),
+                                this.patternHandlers.append(handler),
+                                this.fallback);
+
+    } // end of withPattern
+
+    /**
+     * Returns routes with given |fallback| handler.
+     *
+     * @throws IllegalArgumentException if |fallback| is null
+     */
+    SqlRoutes<H> withFallback(final H fallback) {
+        if (fallback == null) {
+            throw new IllegalArgumentException("No handler");
+        } // end of if
+
+        return new SqlRoutes<H>(this.statements, this.fingerprints,
+                                this.prefixes, this.patterns,
+                                this.patternHandlers, fallback);
+
+    } // end of withFallback
+
+    /**
+     * Returns the handler for given |sql| statement,
+     * or null if none (even fallback).
+     *
+     * @param sql the SQL statement
+     * @return the matching handler, or null
+     */
+    H route(final String sql) {
+        if (!this.statements.isEmpty() || !this.fingerprints.isEmpty() ||
+            !this.prefixes.isEmpty()) {
+
+            final String normalized = normalize(sql, true);
+            final H h = this.statements.get(normalized);
+
+            if (h != null) {
+                return h;
+            } // end of if
+
+            // ---
+
+            if (!this.fingerprints.isEmpty()) {
+                final H f = this.fingerprints.get(SqlFingerprint.of(sql));
+
+                if (f != null) {
+                    return f;
+                } // end of if
+            } // end of if
+
+            if (!this.prefixes.isEmpty()) {
+                @SuppressWarnings("unchecked")
+                final H p = (H) prefixTrie().longestPrefix(normalized);
+
+                if (p != null) {
+                    return p;
+                } // end of if
+            } // end of if
+        } // end of if
+
+        // ---
+
+        final int n = this.patterns.size();
+
+        for (int i = 0; i < n; i++) {
+            if (this.patterns.get(i).matcher(sql).lookingAt()) {
+                return this.patternHandlers.get(i);
+            } // end of if
+        } // end of for
+
+        return this.fallback;
+    } // end of route
+
+    /**
+     * Returns the prefix trie, compiled on first call.
+     */
+    private Node prefixTrie() {
+        Node trie = this.prefixTrie;
+
+        if (trie == null) {
+            trie = new Node();
+
+            for (final Map.Entry<String,H> e : this.prefixes.entrySet()) {
+                trie.put(e.getKey(), e.getValue());
+            } // end of for
+
+            this.prefixTrie = trie;
+        } // end of if
+
+        return trie;
+    } // end of prefixTrie
+
+    /**
+     * Normalizes given |sql|: whitespaces outside of quotes are collapsed
+     * as a single space, and leading ones are removed.
+     *
+     * @param sql the SQL statement
+     * @param trimEnd if true, trailing whitespaces are removed
+     * (otherwise kept as a single space, as a prefix)
+     * @return Normalized statement
+     */
+    static String normalize(final String sql, final boolean trimEnd) {
+        final int len = sql.length();
+        final StringBuilder s = new StringBuilder(len);
+        char quote = 0;
+        boolean space = false;
+
+        for (int i = 0; i < len; i++) {
+            final char c = sql.charAt(i);
+
+            if (quote != 0) {
+                s.append(c);
+
+                if (c == quote) {
+                    quote = 0;
+                } // end of if
+            } else if (Character.isWhitespace(c)) {
+                space = (s.length() > 0);
+            } else {
+                if (space) {
+                    s.append(' ');
+                    space = false;
+                } // end of if
+
+                if (c == '\'' || c == '"' || c == '`') {
+                    quote = c;
+                } // end of if
+
+                s.append(c);
+            } // end of else
+        } // end of for
+
+        if (space && !trimEnd) {
+            s.append(' ');
+        } // end of if
+
+        return s.toString();
+    } // end of normalize
+
+    // --- Inner classes ---
+
+    /**
+     * Trie node.
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private Object value = null;
+
+        /**
+         * Sets |value| for given |key|.
+         */
+        void put(final String key, final Object value) {
+            Node node = this;
+
+            for (int i = 0; i < key.length(); i++) {
+                node = node.child(key.charAt(i));
+            } // end of for
+
+            node.value = value;
+        } // end of put
+
+        /**
+         * Returns the child for given character, created if needed.
+         */
+        private Node child(final char c) {
+            final int idx = Arrays.binarySearch(this.keys, c);
+
+            if (idx >= 0) {
+                return this.children[idx];
+            } // end of if
+
+            // ---
+
+            final int ins = -(idx + 1);
+            final int n = this.keys.length;
+            final char[] ks = new char[n + 1];
+            final Node[] cs = new Node[n + 1];
+
+            System.arraycopy(this.keys, 0, ks, 0, ins);
+            System.arraycopy(this.children, 0, cs, 0, ins);
+            System.arraycopy(this.keys, ins, ks, ins + 1, n - ins);
+            System.arraycopy(this.children, ins, cs, ins + 1, n - ins);
+
+            ks[ins] = c;
+            cs[ins] = new Node();
+
+            this.keys = ks;
+            this.children = cs;
+
+            return cs[ins];
+        } // end of child
+
+        /**
+         * Returns the value of the longest key prefixing |s|, or null.
+         */
+        Object longestPrefix(final String s) {
+            Node node = this;
+            Object found = this.value;
+            final int len = s.length();
+
+            for (int i = 0; i < len; i++) {
+                final int idx = Arrays.binarySearch(node.keys, s.charAt(i));
+
+                if (idx < 0) {
+                    break;
+                } // end of if
+
+                node = node.children[idx];
+
+                if (node.value != null) {
+                    found = node.value;
+                } // end of if
+            } // end of for
+
+            return found;
+        } // end of longestPrefix
+    } // end of class Node
+} // end of class SqlRoutes
@@ -0,0 +1,146 @@
+package acolyte.jdbc;
+
+/**
+ * Context of the statement being executed by a handler,
+ * so that the handler can know from which connection
+ * (e.g. to use its transaction).
+ *
+ * <pre>
+ * {@code
+ * public UpdateResult whenSQLUpdate(String sql, List<Parameter> parameters) {
+ *   final StatementContext ctx = StatementContext.current();
+ *
+ *   store.put(ctx.getConnection(), key(parameters), value(parameters));
+ *   // ...
+ * }
+ * }
+ * </pre>
+ *
+ * The context is bound to the thread calling the handler
+ * (for the {@link ExecutorStatementHandler}, to the executing thread).
+ *
+ * @author Cedric Chantepie
+ */
+public final class StatementContext {
+    // --- Shared ---
+
+    /**
+     * Context of the current thread
+     */
+    private static final ThreadLocal<StatementContext> CURRENT =
+        new ThreadLocal<StatementContext>();
+
+    // --- Properties ---
+
+    /**
+     * Connection of the statement
+     */
+    private final Connection connection;
+
+    /**
+     * SQL of the statement
+     */
+    private final String sql;
+
+    /**
+     * Fingerprint of the SQL (lazily computed)
+     */
+    private volatile String fingerprint = null;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     *
+     * @param connection the connection of the statement
+     * @param sql the SQL of the statement
+     */
+    StatementContext(final Connection connection, final String sql) {
+        this.connection = connection;
+        this.sql = sql;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns the context of the statement being executed
+     * in the current thread.
+     *
+     * @return Current context, or null if none
+     */
+    public static StatementContext current() {
+        return CURRENT.get();
+    } // end of current
+
+    /**
+     * Returns the connection of the statement.
+     *
+     * @return Statement connection
+     */
+    public Connection getConnection() {
+        return this.connection;
+    } // end of getConnection
+
+    /**
+     * Returns the SQL of the statement.
+     *
+     * @return Statement SQL
+     */
+    public String getSql() {
+        return this.sql;
+    } // end of getSql
+
+    /**
+     * Returns the fingerprint of the statement SQL,
+     * so that the statements only differing by formatting
+     * or literal values can be handled the same way.
+     *
+     * @return Statement fingerprint
+     * @see SqlFingerprint
+     */
+    public String getFingerprint() {
+        String f = this.fingerprint;
+
+        if (f == null) {
+            f = SqlFingerprint.of(this.sql);
+            this.fingerprint = f;
+        } // end of if
+
+        return f;
+    } // end of getFingerprint
+
+    // ---
+
+    /**
+     * Binds given |context| to the current thread.
+     *
+     * @return the previous context, to be restored using {@link #exit}
+     */
+    static StatementContext enter(final StatementContext context) {
+        final StatementContext previous = CURRENT.get();
+
+        CURRENT.set(context);
+
+        return previous;
+    } // end of enter
+
+    /**
+     * Restores the |previous| context of the current thread.
+     */
+    static void exit(final StatementContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        } // end of else
+    } // end of exit
+
+    // --- Object support ---
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString() {
+        return String.format("StatementContext(%s)", this.sql);
+    } // end of toString
+} // end of class StatementContext
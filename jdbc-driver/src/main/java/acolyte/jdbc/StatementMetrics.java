@@ -0,0 +1,154 @@
+package acolyte.jdbc;
+
+/**
+ * Metrics of a SQL statement fingerprint, as snapshot
+ * from {@link HandlerMetrics}.
+ *
+ * @author Cedric Chantepie
+ */
+public final class StatementMetrics {
+    // --- Properties ---
+
+    /**
+     * Normalized SQL
+     */
+    private final String sql;
+
+    /**
+     * Query executions
+     */
+    private final long queries;
+
+    /**
+     * Update executions
+     */
+    private final long updates;
+
+    /**
+     * Executions that failed
+     */
+    private final long errors;
+
+    /**
+     * Rows returned by the queries
+     */
+    private final long rows;
+
+    /**
+     * Total update count
+     */
+    private final long updateCount;
+
+    /**
+     * Handler latencies
+     */
+    private final LatencyHistogram latency;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    StatementMetrics(final String sql,
+                     final long queries,
+                     final long updates,
+                     final long errors,
+                     final long rows,
+                     final long updateCount,
+                     final LatencyHistogram latency) {
+
+        this.sql = sql;
+        this.queries = queries;
+        this.updates = updates;
+        this.errors = errors;
+        this.rows = rows;
+        this.updateCount = updateCount;
+        this.latency = latency;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns the SQL fingerprint.
+     *
+     * @return SQL fingerprint
+     */
+    public String getSql() {
+        return this.sql;
+    } // end of getSql
+
+    /**
+     * Returns the number of executions (queries, updates and failed ones).
+     *
+     * @return Execution count
+     */
+    public long getExecutions() {
+        return this.queries + this.updates + this.errors;
+    } // end of getExecutions
+
+    /**
+     * Returns the number of successful query executions.
+     *
+     * @return Query count
+     */
+    public long getQueries() {
+        return this.queries;
+    } // end of getQueries
+
+    /**
+     * Returns the number of successful update executions.
+     *
+     * @return Update count
+     */
+    public long getUpdates() {
+        return this.updates;
+    } // end of getUpdates
+
+    /**
+     * Returns the number of executions for which the handler
+     * has thrown an exception.
+     *
+     * @return Error count
+     */
+    public long getErrors() {
+        return this.errors;
+    } // end of getErrors
+
+    /**
+     * Returns the number of rows returned by the queries
+     * (not including the streaming row lists).
+     *
+     * @return Row count
+     */
+    public long getRows() {
+        return this.rows;
+    } // end of getRows
+
+    /**
+     * Returns the sum of the update counts.
+     *
+     * @return Update count
+     */
+    public long getUpdateCount() {
+        return this.updateCount;
+    } // end of getUpdateCount
+
+    /**
+     * Returns the histogram of the time spent in the handler.
+     *
+     * @return Latency histogram (not updated afterwards)
+     */
+    public LatencyHistogram getLatency() {
+        return this.latency;
+    } // end of getLatency
+
+    // --- Object support ---
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString() {
+        return String.format("StatementMetrics(%s, queries = %d, updates = %d, errors = %d, rows = %d, updateCount = %d, %s)", this.sql, this.queries, this.updates, this.errors, this.rows, this.updateCount, this.latency);
+
+    } // end of toString
+} // end of class StatementMetrics
@@ -0,0 +1,427 @@
+package acolyte.jdbc;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import java.sql.SQLException;
+
+/**
+ * Row list whose rows are lazily read from an iterator,
+ * only when the result set is moved forward,
+ * so that memory use doesn't depend on the number of rows
+ * (useful to mock large or unbounded result sets).
+ *
+ * Column meta-data (classes, labels, nullable flags)
+ * are provided by an empty row list:
+ *
+ * <pre>
+ * {@code
+ * import acolyte.jdbc.StreamingRowList;
+ * import acolyte.jdbc.RowLists;
+ * import acolyte.jdbc.Row2;
+ *
+ * StreamingRowList<Row2<String, Integer>> list = StreamingRowList.
+ *   of(RowLists.rowList2(String.class, Integer.class), iterable);
+ * }
+ * </pre>
+ *
+ * Its result sets are forward only, and don't support cycling.
+ * The fetch size is the number of rows read in advance from the iterator
+ * (1 by default).
+ *
+ * @param <R> the row type
+ * @author Cedric Chantepie
+ */
+public final class StreamingRowList<R extends Row> extends RowList<R> {
+    // --- Properties ---
+
+    /**
+     * Meta-data
+     */
+    private final RowList<R> meta;
+
+    /**
+     * Row source
+     */
+    private final Iterable<? extends R> rows;
+
+    /**
+     * Single use iterator, if not created from an iterable (otherwise null)
+     */
+    private final OnceIterable<? extends R> once;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private StreamingRowList(final RowList<R> meta,
+                             final Iterable<? extends R> rows,
+                             final OnceIterable<? extends R> once) {
+
+        this.meta = meta;
+        this.rows = rows;
+        this.once = once;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns a list of rows lazily read from given |rows|.
+     * A new iterator is requested to |rows| for each result set.
+     *
+     * @param <R> the row type
+     * @param meta the empty list providing column meta-data
+     * @param rows the source of rows
+     * @return Streaming row list
+     * @throws IllegalArgumentException if |meta| or |rows| is null,
+     * or if |meta| is cycling
+     */
+    public static <R extends Row> StreamingRowList<R> of(final RowList<R> meta, final Iterable<? extends R> rows) {
+        if (rows == null) {
+            throw new IllegalArgumentException("No rows");
+        } // end of if
+
+        return new StreamingRowList<R>(checkMeta(meta), rows, null);
+    } // end of of
+
+    /**
+     * Returns a list of rows lazily read from given |rows|.
+     * As an iterator is used only once, a single result set can be created
+     * from such list.
+     *
+     * @param <R> the row type
+     * @param meta the empty list providing column meta-data
+     * @param rows the iterator over the rows
+     * @return Streaming row list
+     * @throws IllegalArgumentException if |meta| or |rows| is null,
+     * or if |meta| is cycling
+     */
+    public static <R extends Row> StreamingRowList<R> of(final RowList<R> meta, final Iterator<? extends R> rows) {
+        if (rows == null) {
+            throw new IllegalArgumentException("No rows");
+        } // end of if
+
+        final OnceIterable<R> once = new OnceIterable<R>(rows);
+
+        return new StreamingRowList<R>(checkMeta(meta), once, once);
+    } // end of of
+
+    /**
+     * Returns a forward only result set, reading the rows lazily.
+     *
+     * @param maxRows Limit for the maximum number of rows.
+     * If &lt;= 0 no limit will be set.
+     * @return ResultSet for this list of rows
+     * @throws IllegalStateException if the list has been created
+     * from an iterator, already used by a previous result set
+     */
+    public RowResultSet<R> resultSet(final int maxRows) {
+        @SuppressWarnings("unchecked")
+        final Iterator<R> it = (Iterator<R>) this.rows.iterator();
+
+        return new RowResultSet<R>(new Cursor<R>(it, maxRows));
+    } // end of resultSet
+
+    /**
+     * Not supported, as the rows are not kept in memory.
+     *
+     * @throws UnsupportedOperationException
+     */
+    public List<R> getRows() {
+        throw new UnsupportedOperationException("Streaming rows");
+    } // end of getRows
+
+    /**
+     * Not supported, as the rows are not kept in memory.
+     *
+     * @throws UnsupportedOperationException
+     * @deprecated Not supported, as the rows are not kept in memory.
+     */
+    @Deprecated
+    protected StreamingRowList<R> append(final R row) {
+        throw new UnsupportedOperationException("Streaming rows");
+    } // end of append
+
+    /**
+     * {@inheritDoc}
+     */
+    public StreamingRowList<R> withLabel(final int columnIndex,
+                                         final String label) {
+
+        return new StreamingRowList<R>(this.meta.
+                                       withLabel(columnIndex, label),
+                                       this.rows, this.once);
+
+    } // end of withLabel
+
+    /**
+     * {@inheritDoc}
+     */
+    public StreamingRowList<R> withNullable(final int columnIndex,
+                                            final boolean nullable) {
+
+        return new StreamingRowList<R>(this.meta.
+                                       withNullable(columnIndex, nullable),
+                                       this.rows, this.once);
+
+    } // end of withNullable
+
+    /**
+     * Returns this list if |cycling| is false.
+     *
+     * @throws UnsupportedOperationException if |cycling| is true
+     */
+    public StreamingRowList<R> withCycling(final boolean cycling) {
+        if (cycling) {
+            throw new UnsupportedOperationException("Streaming rows cannot cycle");
+        } // end of if
+
+        return this;
+    } // end of withCycling
+
+    /**
+     * Returns false.
+     */
+    public boolean isCycling() {
+        return false;
+    } // end of isCycling
+
+    /**
+     * {@inheritDoc}
+     */
+    public List<Class<?>> getColumnClasses() {
+        return this.meta.getColumnClasses();
+    } // end of getColumnClasses
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<String,Integer> getColumnLabels() {
+        return this.meta.getColumnLabels();
+    } // end of getColumnLabels
+
+    /**
+     * {@inheritDoc}
+     */
+    public Map<Integer,Boolean> getColumnNullables() {
+        return this.meta.getColumnNullables();
+    } // end of getColumnNullables
+
+    /**
+     * Checks the |meta| list.
+     */
+    private static <R extends Row> RowList<R> checkMeta(final RowList<R> meta) {
+        if (meta == null) {
+            throw new IllegalArgumentException("No meta-data");
+        } // end of if
+
+        if (meta.isCycling()) {
+            throw new IllegalArgumentException("Streaming rows cannot cycle");
+        } // end of if
+
+        return meta;
+    } // end of checkMeta
+
+    // --- Inner classes ---
+
+    /**
+     * Iterable over a single use iterator.
+     */
+    private static final class OnceIterable<R> implements Iterable<R> {
+        private Iterator<? extends R> iterator;
+
+        OnceIterable(final Iterator<? extends R> iterator) {
+            this.iterator = iterator;
+        } // end of <init>
+
+        /**
+         * Returns the iterator, the first time.
+         *
+         * @throws IllegalStateException if already used
+         */
+        @SuppressWarnings("unchecked")
+        public synchronized Iterator<R> iterator() {
+            if (this.iterator == null) {
+                throw new IllegalStateException("Rows already streamed");
+            } // end of if
+
+            final Iterator<? extends R> it = this.iterator;
+
+            this.iterator = null;
+
+            return (Iterator<R>) it;
+        } // end of iterator
+    } // end of class OnceIterable
+
+    /**
+     * Forward only cursor over the rows, keeping in memory
+     * only the current one and those fetched in advance.
+     */
+    static final class Cursor<R extends Row> {
+        // --- Properties ---
+
+        /**
+         * Row source
+         */
+        private final Iterator<R> source;
+
+        /**
+         * Max rows (or 0 if no limit)
+         */
+        private final int maxRows;
+
+        /**
+         * Rows fetched in advance
+         */
+        private final ArrayDeque<R> buffer = new ArrayDeque<R>();
+
+        /**
+         * Number of rows fetched at once
+         */
+        private int fetchSize = 1;
+
+        /**
+         * Number of rows read from the source
+         */
+        private int fetched = 0;
+
+        /**
+         * Current row number (first is 1)
+         */
+        private int position = 0;
+
+        /**
+         * Current row
+         */
+        private R current = null;
+
+        /**
+         * After last row?
+         */
+        private boolean afterLast = false;
+
+        // --- Constructors ---
+
+        /**
+         * Bulk constructor.
+         */
+        Cursor(final Iterator<R> source, final int maxRows) {
+            this.source = source;
+            this.maxRows = (maxRows < 0) ? 0 : maxRows;
+        } // end of <init>
+
+        // ---
+
+        /**
+         * Moves to the next row.
+         *
+         * @return false if there is no more row
+         */
+        synchronized boolean next() throws SQLException {
+            if (this.afterLast) {
+                return false;
+            } // end of if
+
+            if (this.buffer.isEmpty()) {
+                fetch();
+            } // end of if
+
+            this.current = this.buffer.poll();
+
+            if (this.current == null) {
+                this.afterLast = true;
+                this.position++;
+
+                return false;
+            } // end of if
+
+            this.position++;
+
+            return true;
+        } // end of next
+
+        /**
+         * Returns whether there is a row after the current one.
+         */
+        synchronized boolean hasNext() throws SQLException {
+            if (this.afterLast) {
+                return false;
+            } // end of if
+
+            if (this.buffer.isEmpty()) {
+                fetch();
+            } // end of if
+
+            return !this.buffer.isEmpty();
+        } // end of hasNext
+
+        /**
+         * Reads the next rows from the source, up to the fetch size.
+         */
+        private void fetch() throws SQLException {
+            try {
+                for (int i = 0; i < this.fetchSize; i++) {
+                    if ((this.maxRows > 0 && this.fetched >= this.maxRows) ||
+                        !this.source.hasNext()) {
+
+                        return;
+                    } // end of if
+
+                    final R row = this.source.next();
+
+                    if (row == null) {
+                        throw new SQLException("Null row #" +
+                                               (this.fetched + 1));
+
+                    } // end of if
+
+                    this.buffer.add(row);
+                    this.fetched++;
+                } // end of for
+            } catch (SQLException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new SQLException("Fails to fetch rows", e);
+            } // end of catch
+        } // end of fetch
+
+        /**
+         * Returns the current row (or null if not on a row).
+         */
+        synchronized R current() {
+            return this.current;
+        } // end of current
+
+        /**
+         * Returns the current row number (first is 1).
+         */
+        synchronized int position() {
+            return this.position;
+        } // end of position
+
+        /**
+         * Returns whether the cursor is after the last row.
+         */
+        synchronized boolean isAfterLast() {
+            return this.afterLast;
+        } // end of isAfterLast
+
+        /**
+         * Returns the number of rows fetched at once.
+         */
+        synchronized int getFetchSize() {
+            return this.fetchSize;
+        } // end of getFetchSize
+
+        /**
+         * Sets the number of rows fetched at once.
+         * If |fetchSize| is 0, the default one (1) is used.
+         */
+        synchronized void setFetchSize(final int fetchSize) {
+            this.fetchSize = (fetchSize <= 0) ? 1 : fetchSize;
+        } // end of setFetchSize
+    } // end of class Cursor
+} // end of class StreamingRowList
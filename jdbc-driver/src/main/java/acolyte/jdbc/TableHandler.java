@@ -0,0 +1,1200 @@
+package acolyte.jdbc;
+
+import java.util.Collections;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.Locale;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicLong;
+
+import java.math.BigDecimal;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Date;
+import java.sql.Time;
+
+import acolyte.jdbc.TableStatement.Predicate;
+
+/**
+ * Stateful statement handler keeping named tables in memory,
+ * so that the rows inserted or updated by a statement are returned
+ * by the next queries, without an external database.
+ *
+ * <pre>
+ * {@code
+ * import static acolyte.jdbc.RowList.Column;
+ *
+ * TableHandler tables = new TableHandler();
+ *
+ * tables.createTable("person",
+ *   Column(Integer.class, "id"),
+ *   Column(String.class, "name"),
+ *   Column(Integer.class, "age")).
+ *   createHashIndex("id").
+ *   createSortedIndex("age");
+ *
+ * Connection con = Driver.connection(tables);
+ *
+ * con.createStatement().
+ *   executeUpdate("INSERT INTO person VALUES (1, 'Ada', 36), (2, 'Bob', 42)");
+ *
+ * PreparedStatement stmt = con.prepareStatement(
+ *   "SELECT name FROM person WHERE age BETWEEN ? AND ? ORDER BY age DESC");
+ * }
+ * </pre>
+ *
+ * The supported SQL subset is INSERT, SELECT (optionally ordered by
+ * a column), UPDATE and DELETE, with a WHERE clause made of predicates
+ * on the columns (comparison, BETWEEN, IN or IS [NOT] NULL),
+ * combined with AND. The SQL statements are parsed once.
+ *
+ * An equality or IN predicate on a column with a hash or sorted index,
+ * or a range predicate on a column with a sorted index, is resolved
+ * using the index; otherwise the table is scanned.
+ * Without ORDER BY, the rows are returned in insertion order.
+ *
+ * The tables can be used by concurrent connections: the rows are
+ * immutable arrays in concurrent maps, so the queries never lock,
+ * and the writes of a row (with its index entries) are serialized
+ * by striped locks. Each row is updated atomically,
+ * but a statement affecting several rows is not (no transaction).
+ *
+ * @author Cedric Chantepie
+ */
+public final class TableHandler implements StatementHandler {
+    // --- Shared ---
+
+    /**
+     * Max number of parsed statements kept
+     */
+    private static final int MAX_STATEMENTS = 1024;
+
+    /**
+     * Number of lock stripes per table
+     */
+    private static final int STRIPES = 16;
+
+    // --- Properties ---
+
+    /**
+     * Tables by (lower case) name
+     */
+    private final ConcurrentHashMap<String,Table> tables =
+        new ConcurrentHashMap<String,Table>();
+
+    /**
+     * Parsed statements by SQL
+     */
+    private final ConcurrentHashMap<String,TableStatement> statements =
+        new ConcurrentHashMap<String,TableStatement>();
+
+    // ---
+
+    /**
+     * Creates a new empty table.
+     *
+     * @param name the table name (case insensitive)
+     * @param columns the column definitions
+     * @return New table
+     * @throws IllegalArgumentException if |name| is empty,
+     * or a table with the same name already exists,
+     * or no column is given, or a column class is not supported
+     */
+    public Table createTable(final String name, final Column<?>... columns) {
+        if (name == null || name.trim().length() == 0) {
+            throw new IllegalArgumentException("Invalid table name: " + name);
+        } // end of if
+
+        final Table table = new Table(name, columns);
+
+        if (this.tables.putIfAbsent(lower(name), table) != null) {
+            throw new IllegalArgumentException("Table already exists: " +
+                                               name);
+
+        } // end of if
+
+        return table;
+    } // end of createTable
+
+    /**
+     * Returns the table with given |name|.
+     *
+     * @param name the table name (case insensitive)
+     * @return the table, or null if none
+     */
+    public Table getTable(final String name) {
+        return (name == null) ? null : this.tables.get(lower(name));
+    } // end of getTable
+
+    /**
+     * Drops the table with given |name|.
+     *
+     * @param name the table name (case insensitive)
+     * @return true if the table has been dropped, or false if none
+     */
+    public boolean dropTable(final String name) {
+        return name != null && this.tables.remove(lower(name)) != null;
+    } // end of dropTable
+
+    // --- StatementHandler impl ---
+
+    /**
+     * {@inheritDoc}
+     */
+    public QueryResult whenSQLQuery(final String sql,
+                                    final List<Parameter> parameters)
+        throws SQLException {
+
+        final TableStatement st = statement(sql);
+
+        if (st.kind != TableStatement.SELECT) {
+            throw new SQLException("Not a query: " + sql);
+        } // end of if
+
+        return table(st.table).select(st, parameters).asResult();
+    } // end of whenSQLQuery
+
+    /**
+     * {@inheritDoc}
+     */
+    public UpdateResult whenSQLUpdate(final String sql,
+                                      final List<Parameter> parameters)
+        throws SQLException {
+
+        final TableStatement st = statement(sql);
+        final Table table = table(st.table);
+
+        switch (st.kind) {
+        case TableStatement.INSERT:
+            return new UpdateResult(table.insert(st, parameters));
+
+        case TableStatement.UPDATE:
+            return new UpdateResult(table.update(st, parameters));
+
+        case TableStatement.DELETE:
+            return new UpdateResult(table.delete(st, parameters));
+
+        default:
+            throw new SQLException("Not an update: " + sql);
+        } // end of switch
+    } // end of whenSQLUpdate
+
+    /**
+     * Returns true if |sql| is a SELECT statement.
+     *
+     * {@inheritDoc}
+     */
+    public boolean isQuery(final String sql) {
+        if (sql == null) {
+            return false;
+        } // end of if
+
+        final String s = sql.trim();
+
+        return s.regionMatches(true, 0, "SELECT", 0, 6);
+    } // end of isQuery
+
+    // ---
+
+    /**
+     * Returns the parsed |sql| statement.
+     */
+    private TableStatement statement(final String sql) throws SQLException {
+        TableStatement st = (sql == null) ? null : this.statements.get(sql);
+
+        if (st == null) {
+            st = TableStatement.parse(sql);
+
+            if (this.statements.size() < MAX_STATEMENTS) {
+                this.statements.put(sql, st);
+            } // end of if
+        } // end of if
+
+        return st;
+    } // end of statement
+
+    /**
+     * Returns the table with given |name|.
+     *
+     * @throws SQLException if there is no such table
+     */
+    private Table table(final String name) throws SQLException {
+        final Table table = this.tables.get(name);
+
+        if (table == null) {
+            throw new SQLException("Unknown table: " + name, "42S02");
+        } // end of if
+
+        return table;
+    } // end of table
+
+    /**
+     * Returns the lower case |name|.
+     */
+    private static String lower(final String name) {
+        return name.toLowerCase(Locale.ROOT);
+    } // end of lower
+
+    // --- Inner classes ---
+
+    /**
+     * In-memory table.
+     */
+    public static final class Table {
+        // --- Properties ---
+
+        /**
+         * Table name
+         */
+        private final String name;
+
+        /**
+         * Column definitions
+         */
+        private final Column<?>[] columns;
+
+        /**
+         * Column positions by (lower case) name
+         */
+        private final HashMap<String,Integer> positions;
+
+        /**
+         * Rows by identifier (insertion order), never modified once added
+         */
+        private final ConcurrentHashMap<Long,Object[]> rows =
+            new ConcurrentHashMap<Long,Object[]>();
+
+        /**
+         * Row identifier sequence
+         */
+        private final AtomicLong sequence = new AtomicLong(0L);
+
+        /**
+         * Locks of the row writes, by identifier stripe
+         */
+        private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+        /**
+         * Indexes by column position (null if not indexed),
+         * replaced when an index is created
+         */
+        private volatile Index[] indexes;
+
+        // --- Constructors ---
+
+        /**
+         * Bulk constructor.
+         */
+        Table(final String name, final Column<?>[] columns) {
+            if (columns == null || columns.length == 0) {
+                throw new IllegalArgumentException("No column");
+            } // end of if
+
+            this.name = name;
+            this.columns = columns.clone();
+            this.positions = new HashMap<String,Integer>(columns.length);
+
+            for (int i = 0; i < columns.length; i++) {
+                final Column<?> c = columns[i];
+
+                if (c == null) {
+                    throw new IllegalArgumentException("Invalid column #" +
+                                                       (i + 1));
+
+                } // end of if
+
+                checkClass(c.columnClass);
+
+                if (this.positions.put(lower(c.name), i) != null) {
+                    throw new IllegalArgumentException("Duplicate column: " +
+                                                       c.name);
+
+                } // end of if
+            } // end of for
+
+            for (int i = 0; i < STRIPES; i++) {
+                this.stripes[i] = new ReentrantLock();
+            } // end of for
+
+            this.indexes = new Index[columns.length];
+        } // end of <init>
+
+        // ---
+
+        /**
+         * Returns the table name.
+         *
+         * @return Table name
+         */
+        public String getName() {
+            return this.name;
+        } // end of getName
+
+        /**
+         * Returns the column definitions.
+         *
+         * @return Immutable list of columns
+         */
+        public List<Column<?>> getColumns() {
+            return Collections.unmodifiableList(Arrays.asList(this.columns));
+        } // end of getColumns
+
+        /**
+         * Returns the current number of rows.
+         *
+         * @return Row count
+         */
+        public int size() {
+            return this.rows.size();
+        } // end of size
+
+        /**
+         * Creates a hash index on given |column|,
+         * used to resolve the equality predicates.
+         *
+         * @param column the column name (case insensitive)
+         * @return This table
+         * @throws IllegalArgumentException if there is no such column,
+         * or it's already indexed
+         */
+        public Table createHashIndex(final String column) {
+            return createIndex(column, false);
+        } // end of createHashIndex
+
+        /**
+         * Creates a sorted index on given |column|,
+         * used to resolve the equality and range predicates.
+         *
+         * @param column the column name (case insensitive)
+         * @return This table
+         * @throws IllegalArgumentException if there is no such column,
+         * or it's already indexed
+         */
+        public Table createSortedIndex(final String column) {
+            return createIndex(column, true);
+        } // end of createSortedIndex
+
+        /**
+         * Creates an index on given |column|, from the current rows
+         * (no row is written meanwhile).
+         */
+        private Table createIndex(final String column, final boolean sorted) {
+            final Integer c = (column == null)
+                ? null : this.positions.get(lower(column));
+
+            if (c == null) {
+                throw new IllegalArgumentException("Unknown column: " + column);
+            } // end of if
+
+            for (final ReentrantLock lock : this.stripes) {
+                lock.lock();
+            } // end of for
+
+            try {
+                if (this.indexes[c] != null) {
+                    throw new IllegalArgumentException("Index already exists: " + column);
+                } // end of if
+
+                final Index index = new Index(sorted);
+
+                for (final Map.Entry<Long,Object[]> e : this.rows.entrySet()) {
+                    index.add(e.getValue()[c], e.getKey());
+                } // end of for
+
+                final Index[] updated = this.indexes.clone();
+
+                updated[c] = index;
+
+                this.indexes = updated;
+            } finally {
+                for (final ReentrantLock lock : this.stripes) {
+                    lock.unlock();
+                } // end of for
+            } // end of finally
+
+            return this;
+        } // end of createIndex
+
+        /**
+         * Returns the number of distinct values indexed for |column|,
+         * or -1 if it's not indexed.
+         */
+        int indexedValues(final String column) {
+            final Integer c = (column == null)
+                ? null : this.positions.get(lower(column));
+
+            final Index index = (c == null) ? null : this.indexes[c];
+
+            return (index == null) ? -1 : index.entries.size();
+        } // end of indexedValues
+
+        /**
+         * Inserts the rows of the |st| statement.
+         *
+         * @return the number of inserted rows
+         */
+        int insert(final TableStatement st, final List<Parameter> parameters)
+            throws SQLException {
+
+            final int[] targets = positions(st.columns);
+            final Object[][] inserted = new Object[st.values.length][];
+
+            for (int r = 0; r < inserted.length; r++) {
+                final TableStatement.Operand[] ops = st.values[r];
+
+                if (ops.length != targets.length) {
+                    throw new SQLException("Expected " + targets.length +
+                                           " value(s): " + ops.length);
+
+                } // end of if
+
+                final Object[] row = new Object[this.columns.length];
+
+                for (int i = 0; i < targets.length; i++) {
+                    final int c = targets[i];
+
+                    row[c] = convert(this.columns[c], ops[i].value(parameters));
+                } // end of for
+
+                inserted[r] = row;
+            } // end of for
+
+            // ---
+
+            for (final Object[] row : inserted) {
+                final Long id = this.sequence.incrementAndGet();
+                final ReentrantLock lock = stripe(id);
+
+                lock.lock();
+
+                try {
+                    this.rows.put(id, row);
+                    reindex(id, null, row);
+                } finally {
+                    lock.unlock();
+                } // end of finally
+            } // end of for
+
+            return inserted.length;
+        } // end of insert
+
+        /**
+         * Returns the rows selected by the |st| statement.
+         */
+        ColumnarRowList select(final TableStatement st,
+                               final List<Parameter> parameters)
+            throws SQLException {
+
+            final int[] projection = positions(st.columns);
+            final Condition[] conditions = conditions(st.where, parameters);
+            final Collection<Object[]> found = find(conditions).values();
+            final Collection<Object[]> ordered;
+
+            if (st.orderBy == null) {
+                ordered = found;
+            } else {
+                final ArrayList<Object[]> list = new ArrayList<Object[]>(found);
+                final int c = position(st.orderBy);
+                final boolean desc = st.descending;
+
+                // Stable: insertion order for the equal values
+                Collections.sort(list, new Comparator<Object[]>() {
+                        public int compare(final Object[] a, final Object[] b) {
+                            final int r = compareNullFirst(a[c], b[c]);
+
+                            return desc ? -r : r;
+                        }
+                    });
+
+                ordered = list;
+            } // end of else
+
+            // ---
+
+            final Column<?>[] cols = new Column<?>[projection.length];
+
+            for (int i = 0; i < cols.length; i++) {
+                cols[i] = this.columns[projection[i]];
+            } // end of for
+
+            final ColumnarRowList.Builder builder =
+                ColumnarRowList.empty(cols).builder(ordered.size());
+
+            for (final Object[] row : ordered) {
+                final Object[] values = new Object[projection.length];
+
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = row[projection[i]];
+                } // end of for
+
+                builder.append(values);
+            } // end of for
+
+            return builder.build();
+        } // end of select
+
+        /**
+         * Updates the rows matching the |st| statement.
+         *
+         * @return the number of updated rows
+         */
+        int update(final TableStatement st, final List<Parameter> parameters)
+            throws SQLException {
+
+            final int[] targets = positions(st.columns);
+            final Object[] values = new Object[targets.length];
+
+            for (int i = 0; i < targets.length; i++) {
+                final int c = targets[i];
+
+                values[i] = convert(this.columns[c],
+                                    st.values[0][i].value(parameters));
+
+            } // end of for
+
+            final Condition[] conditions = conditions(st.where, parameters);
+            int count = 0;
+
+            for (final Long id : find(conditions).keySet()) {
+                final ReentrantLock lock = stripe(id);
+
+                lock.lock();
+
+                try {
+                    final Object[] current = this.rows.get(id);
+
+                    if (current == null || !matches(conditions, current)) {
+                        continue; // deleted or updated meanwhile
+                    } // end of if
+
+                    final Object[] row = current.clone();
+
+                    for (int i = 0; i < targets.length; i++) {
+                        row[targets[i]] = values[i];
+                    } // end of for
+
+                    this.rows.put(id, row);
+                    reindex(id, current, row);
+
+                    count++;
+                } finally {
+                    lock.unlock();
+                } // end of finally
+            } // end of for
+
+            return count;
+        } // end of update
+
+        /**
+         * Deletes the rows matching the |st| statement.
+         *
+         * @return the number of deleted rows
+         */
+        int delete(final TableStatement st, final List<Parameter> parameters)
+            throws SQLException {
+
+            final Condition[] conditions = conditions(st.where, parameters);
+            int count = 0;
+
+            for (final Long id : find(conditions).keySet()) {
+                final ReentrantLock lock = stripe(id);
+
+                lock.lock();
+
+                try {
+                    final Object[] current = this.rows.get(id);
+
+                    if (current == null || !matches(conditions, current)) {
+                        continue; // deleted or updated meanwhile
+                    } // end of if
+
+                    this.rows.remove(id);
+                    reindex(id, current, null);
+
+                    count++;
+                } finally {
+                    lock.unlock();
+                } // end of finally
+            } // end of for
+
+            return count;
+        } // end of delete
+
+        /**
+         * Returns the rows matching all the |conditions|,
+         * by identifier (so in insertion order).
+         */
+        private TreeMap<Long,Object[]> find(final Condition[] conditions) {
+            final Collection<Long> candidates = candidates(conditions);
+            final TreeMap<Long,Object[]> found = new TreeMap<Long,Object[]>();
+
+            if (candidates == null) { // scan
+                for (final Map.Entry<Long,Object[]> e : this.rows.entrySet()) {
+                    if (matches(conditions, e.getValue())) {
+                        found.put(e.getKey(), e.getValue());
+                    } // end of if
+                } // end of for
+            } else {
+                for (final Long id : candidates) {
+                    final Object[] row = this.rows.get(id);
+
+                    // Index entry possibly not up to date: check the row
+                    if (row != null && matches(conditions, row)) {
+                        found.put(id, row);
+                    } // end of if
+                } // end of for
+            } // end of else
+
+            return found;
+        } // end of find
+
+        /**
+         * Returns the identifiers of the candidate rows according
+         * the indexes, or null if the table must be scanned.
+         */
+        private Collection<Long> candidates(final Condition[] conditions) {
+            final Index[] idx = this.indexes;
+            Collection<Long> range = null;
+
+            for (final Condition cond : conditions) {
+                final Index index = idx[cond.column];
+
+                if (index == null) {
+                    continue;
+                } // end of if
+
+                if (cond.op == TableStatement.EQ) {
+                    return index.get(cond.values[0]);
+                } // end of if
+
+                if (cond.op == TableStatement.IN) {
+                    final ArrayList<Long> ids = new ArrayList<Long>();
+
+                    for (final Object v : cond.values) {
+                        ids.addAll(index.get(v));
+                    } // end of for
+
+                    return ids;
+                } // end of if
+
+                if (range == null && index.sorted &&
+                    cond.op >= TableStatement.LT &&
+                    cond.op <= TableStatement.BETWEEN) {
+
+                    range = index.range(cond.op, cond.values);
+                } // end of if
+            } // end of for
+
+            return range;
+        } // end of candidates
+
+        /**
+         * Updates the index entries of the row |id|,
+         * from the |previous| values to the |next| ones
+         * (either possibly null); must be called within the row lock.
+         */
+        private void reindex(final Long id,
+                             final Object[] previous,
+                             final Object[] next) {
+
+            final Index[] idx = this.indexes;
+
+            for (int c = 0; c < idx.length; c++) {
+                final Index index = idx[c];
+
+                if (index == null) {
+                    continue;
+                } // end of if
+
+                final Object before = (previous == null) ? null : previous[c];
+                final Object after = (next == null) ? null : next[c];
+
+                if (before == null ? after == null : before.equals(after)) {
+                    continue;
+                } // end of if
+
+                index.remove(before, id);
+                index.add(after, id);
+            } // end of for
+        } // end of reindex
+
+        /**
+         * Resolves the |where| predicates.
+         */
+        private Condition[] conditions(final Predicate[] where,
+                                       final List<Parameter> parameters)
+            throws SQLException {
+
+            final Condition[] conditions = new Condition[where.length];
+
+            for (int i = 0; i < where.length; i++) {
+                final Predicate p = where[i];
+                final int c = position(p.column);
+                final Object[] values = new Object[p.operands.length];
+
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = convert(this.columns[c],
+                                        p.operands[j].value(parameters));
+
+                } // end of for
+
+                conditions[i] = new Condition(c, p.op, values);
+            } // end of for
+
+            return conditions;
+        } // end of conditions
+
+        /**
+         * Returns the positions of the named |columns|,
+         * or all the positions if null.
+         */
+        private int[] positions(final String[] columns) throws SQLException {
+            if (columns == null) {
+                final int[] all = new int[this.columns.length];
+
+                for (int i = 0; i < all.length; i++) {
+                    all[i] = i;
+                } // end of for
+
+                return all;
+            } // end of if
+
+            final int[] ps = new int[columns.length];
+
+            for (int i = 0; i < ps.length; i++) {
+                ps[i] = position(columns[i]);
+            } // end of for
+
+            return ps;
+        } // end of positions
+
+        /**
+         * Returns the position of the named (lower case) |column|.
+         *
+         * @throws SQLException if there is no such column
+         */
+        private int position(final String column) throws SQLException {
+            final Integer c = this.positions.get(column);
+
+            if (c == null) {
+                throw new SQLException("Unknown column: " + this.name +
+                                       "." + column, "42S22");
+
+            } // end of if
+
+            return c;
+        } // end of position
+
+        /**
+         * Returns the lock of the row |id|.
+         */
+        private ReentrantLock stripe(final Long id) {
+            return this.stripes[(int) (id.longValue() & (STRIPES - 1))];
+        } // end of stripe
+    } // end of class Table
+
+    /**
+     * Resolved predicate.
+     */
+    private static final class Condition {
+        /**
+         * Column position
+         */
+        final int column;
+
+        /**
+         * Operator (see TableStatement)
+         */
+        final int op;
+
+        /**
+         * Operand values, of the column class
+         */
+        final Object[] values;
+
+        /**
+         * Bulk constructor.
+         */
+        Condition(final int column, final int op, final Object[] values) {
+            this.column = column;
+            this.op = op;
+            this.values = values;
+        } // end of <init>
+
+        /**
+         * Returns whether the |row| matches this condition
+         * (never if the value or an operand is NULL, except IS NULL).
+         */
+        boolean matches(final Object[] row) {
+            final Object v = row[this.column];
+
+            if (this.op == TableStatement.IS_NULL) {
+                return v == null;
+            } else if (this.op == TableStatement.NOT_NULL) {
+                return v != null;
+            } else if (v == null) {
+                return false;
+            } // end of else if
+
+            if (this.op == TableStatement.IN) {
+                for (final Object o : this.values) {
+                    if (o != null && compare(v, o) == 0) {
+                        return true;
+                    } // end of if
+                } // end of for
+
+                return false;
+            } // end of if
+
+            final Object a = this.values[0];
+
+            if (a == null) {
+                return false;
+            } // end of if
+
+            final int r = compare(v, a);
+
+            switch (this.op) {
+            case TableStatement.EQ: return r == 0;
+            case TableStatement.NE: return r != 0;
+            case TableStatement.LT: return r < 0;
+            case TableStatement.LE: return r <= 0;
+            case TableStatement.GT: return r > 0;
+            case TableStatement.GE: return r >= 0;
+
+            default: // BETWEEN
+                final Object b = this.values[1];
+
+                return r >= 0 && b != null && compare(v, b) <= 0;
+            } // end of switch
+        } // end of matches
+    } // end of class Condition
+
+    /**
+     * Concurrent index of row identifiers by column value
+     * (NULL values are not indexed). The entry of a value is removed
+     * once emptied: the additions and removals for a same value
+     * are synchronized on its entry, and a removed entry is marked
+     * as such, so that a concurrent addition is never lost
+     * (but done again in a new entry).
+     */
+    private static final class Index {
+        /**
+         * Sorted index?
+         */
+        final boolean sorted;
+
+        /**
+         * Row identifiers by value
+         */
+        final ConcurrentMap<Object,Entry> entries;
+
+        /**
+         * Bulk constructor.
+         */
+        Index(final boolean sorted) {
+            this.sorted = sorted;
+            this.entries = sorted
+                ? new ConcurrentSkipListMap<Object,Entry>()
+                : new ConcurrentHashMap<Object,Entry>();
+
+        } // end of <init>
+
+        /**
+         * Adds the row |id| for given |value|.
+         */
+        void add(final Object value, final Long id) {
+            if (value == null) {
+                return;
+            } // end of if
+
+            final Object k = key(value);
+
+            while (true) {
+                Entry entry = this.entries.get(k);
+
+                if (entry == null) {
+                    final Entry created = new Entry();
+
+                    entry = this.entries.putIfAbsent(k, created);
+
+                    if (entry == null) {
+                        entry = created;
+                    } // end of if
+                } // end of if
+
+                synchronized (entry) {
+                    if (!entry.removed) {
+                        entry.ids.add(id);
+                        return;
+                    } // end of if
+                } // end of synchronized
+
+                this.entries.remove(k, entry); // if not yet done
+            } // end of while
+        } // end of add
+
+        /**
+         * Removes the row |id| for given |value|.
+         */
+        void remove(final Object value, final Long id) {
+            if (value == null) {
+                return;
+            } // end of if
+
+            final Object k = key(value);
+            final Entry entry = this.entries.get(k);
+
+            if (entry == null) {
+                return;
+            } // end of if
+
+            synchronized (entry) {
+                entry.ids.remove(id);
+
+                if (!entry.ids.isEmpty()) {
+                    return;
+                } // end of if
+
+                entry.removed = true;
+            } // end of synchronized
+
+            this.entries.remove(k, entry);
+        } // end of remove
+
+        /**
+         * Returns the identifiers of the rows with given |value|.
+         */
+        Collection<Long> get(final Object value) {
+            final Entry entry = (value == null)
+                ? null : this.entries.get(key(value));
+
+            return (entry == null) ? Collections.<Long>emptySet() : entry.ids;
+        } // end of get
+
+        /**
+         * Returns the identifiers of the rows in the range
+         * given by the operator |op| (sorted index only).
+         */
+        Collection<Long> range(final int op, final Object[] values) {
+            final ConcurrentNavigableMap<Object,Entry> m =
+                (ConcurrentNavigableMap<Object,Entry>) this.entries;
+
+            final Object a = values[0];
+
+            if (a == null) {
+                return Collections.<Long>emptySet();
+            } // end of if
+
+            final Object k = key(a);
+            final ConcurrentNavigableMap<Object,Entry> sub;
+
+            switch (op) {
+            case TableStatement.LT: sub = m.headMap(k, false); break;
+            case TableStatement.LE: sub = m.headMap(k, true); break;
+            case TableStatement.GT: sub = m.tailMap(k, false); break;
+            case TableStatement.GE: sub = m.tailMap(k, true); break;
+
+            default: // BETWEEN
+                final Object b = values[1];
+
+                if (b == null || compare(k, key(b)) > 0) {
+                    return Collections.<Long>emptySet();
+                } // end of if
+
+                sub = m.subMap(k, true, key(b), true);
+            } // end of switch
+
+            final ArrayList<Long> ids = new ArrayList<Long>();
+
+            for (final Entry e : sub.values()) {
+                ids.addAll(e.ids);
+            } // end of for
+
+            return ids;
+        } // end of range
+
+        /**
+         * Returns the index key for given |value|
+         * (decimals without trailing zeros, to be hashed consistently
+         * with their comparison).
+         */
+        private static Object key(final Object value) {
+            return (value instanceof BigDecimal)
+                ? ((BigDecimal) value).stripTrailingZeros() : value;
+
+        } // end of key
+
+        /**
+         * Row identifiers for a value.
+         */
+        private static final class Entry {
+            /**
+             * Identifiers (read without lock)
+             */
+            final Set<Long> ids = Collections.
+                newSetFromMap(new ConcurrentHashMap<Long,Boolean>());
+
+            /**
+             * Removed from the index? (guarded by this entry)
+             */
+            boolean removed = false;
+        } // end of class Entry
+    } // end of class Index
+
+    // ---
+
+    /**
+     * Returns whether the |row| matches all the |conditions|.
+     */
+    static boolean matches(final Condition[] conditions, final Object[] row) {
+        for (final Condition c : conditions) {
+            if (!c.matches(row)) {
+                return false;
+            } // end of if
+        } // end of for
+
+        return true;
+    } // end of matches
+
+    /**
+     * Compares values of the same column class.
+     */
+    @SuppressWarnings("unchecked")
+    static int compare(final Object a, final Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    } // end of compare
+
+    /**
+     * Compares values of the same column class, NULL first.
+     */
+    static int compareNullFirst(final Object a, final Object b) {
+        if (a == null) {
+            return (b == null) ? 0 : -1;
+        } else if (b == null) {
+            return 1;
+        } // end of else if
+
+        return compare(a, b);
+    } // end of compareNullFirst
+
+    /**
+     * Checks the column class is supported.
+     *
+     * @throws IllegalArgumentException if not supported
+     */
+    private static void checkClass(final Class<?> cls) {
+        if (!String.class.equals(cls) && !Integer.class.equals(cls) &&
+            !Long.class.equals(cls) && !Short.class.equals(cls) &&
+            !Byte.class.equals(cls) && !Double.class.equals(cls) &&
+            !Float.class.equals(cls) && !BigDecimal.class.equals(cls) &&
+            !Boolean.class.equals(cls) && !Date.class.equals(cls) &&
+            !Time.class.equals(cls) && !Timestamp.class.equals(cls)) {
+
+            throw new IllegalArgumentException("Unsupported column class: " +
+                                               cls.getName());
+
+        } // end of if
+    } // end of checkClass
+
+    /**
+     * Returns the |value| converted to the class of the |column|.
+     *
+     * @throws SQLException if the value cannot be converted
+     */
+    static Object convert(final Column<?> column, final Object value)
+        throws SQLException {
+
+        final Class<?> cls = column.columnClass;
+
+        if (value == null || cls.isInstance(value)) {
+            return value;
+        } // end of if
+
+        if (String.class.equals(cls)) {
+            return value.toString();
+        } // end of if
+
+        try {
+            if (value instanceof Number) {
+                final BigDecimal d = (value instanceof BigDecimal)
+                    ? (BigDecimal) value : new BigDecimal(value.toString());
+
+                if (Integer.class.equals(cls)) {
+                    return d.intValueExact();
+                } else if (Long.class.equals(cls)) {
+                    return d.longValueExact();
+                } else if (Short.class.equals(cls)) {
+                    return d.shortValueExact();
+                } else if (Byte.class.equals(cls)) {
+                    return d.byteValueExact();
+                } else if (Double.class.equals(cls)) {
+                    return d.doubleValue();
+                } else if (Float.class.equals(cls)) {
+                    return d.floatValue();
+                } else if (BigDecimal.class.equals(cls)) {
+                    return d;
+                } // end of else if
+            } else if (value instanceof String) {
+                final String s = ((String) value).trim();
+
+                if (Integer.class.equals(cls)) {
+                    return Integer.valueOf(s);
+                } else if (Long.class.equals(cls)) {
+                    return Long.valueOf(s);
+                } else if (Short.class.equals(cls)) {
+                    return Short.valueOf(s);
+                } else if (Byte.class.equals(cls)) {
+                    return Byte.valueOf(s);
+                } else if (Double.class.equals(cls)) {
+                    return Double.valueOf(s);
+                } else if (Float.class.equals(cls)) {
+                    return Float.valueOf(s);
+                } else if (BigDecimal.class.equals(cls)) {
+                    return new BigDecimal(s);
+                } else if (Date.class.equals(cls)) {
+                    return Date.valueOf(s);
+                } else if (Time.class.equals(cls)) {
+                    return Time.valueOf(s);
+                } else if (Timestamp.class.equals(cls)) {
+                    return Timestamp.valueOf(s);
+                } else if ("true".equalsIgnoreCase(s)) {
+                    return Boolean.TRUE;
+                } else if ("false".equalsIgnoreCase(s)) {
+                    return Boolean.FALSE;
+                } // end of else if
+            } else if (value instanceof java.util.Date) {
+                final long time = ((java.util.Date) value).getTime();
+
+                if (Date.class.equals(cls)) {
+                    return new Date(time);
+                } else if (Time.class.equals(cls)) {
+                    return new Time(time);
+                } else if (Timestamp.class.equals(cls)) {
+                    return new Timestamp(time);
+                } // end of else if
+            } // end of else if
+        } catch (IllegalArgumentException e) {
+            // Invalid format
+        } catch (ArithmeticException e) {
+            // Not exact
+        } // end of catch
+
+        throw new SQLException("Invalid value for column " + column.name +
+                               ": " + value, "22018");
+
+    } // end of convert
+} // end of class TableHandler
@@ -0,0 +1,727 @@
+package acolyte.jdbc;
+
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.List;
+
+import java.math.BigDecimal;
+
+import java.sql.SQLException;
+
+import acolyte.jdbc.StatementHandler.Parameter;
+
+/**
+ * Statement of the SQL subset supported by the {@link TableHandler},
+ * parsed once per distinct SQL.
+ *
+ * <pre>
+ * INSERT INTO table [(column, ...)] VALUES (operand, ...), ...
+ * SELECT * | column, ... FROM table [WHERE predicate AND ...]
+ *   [ORDER BY column [ASC|DESC]]
+ * UPDATE table SET column = operand, ... [WHERE predicate AND ...]
+ * DELETE FROM table [WHERE predicate AND ...]
+ *
+ * predicate: column (= | &lt;&gt; | != | &lt; | &lt;= | &gt; | &gt;=) operand
+ *   | column BETWEEN operand AND operand
+ *   | column IN (operand, ...)
+ *   | column IS [NOT] NULL
+ *
+ * operand: ? | 'string' | number | NULL | TRUE | FALSE
+ * </pre>
+ *
+ * The table and column names are case insensitive (kept lower case).
+ *
+ * @author Cedric Chantepie
+ */
+final class TableStatement {
+    // --- Shared ---
+
+    // Statement kinds
+    static final int INSERT = 0;
+    static final int SELECT = 1;
+    static final int UPDATE = 2;
+    static final int DELETE = 3;
+
+    // Predicate operators
+    static final int EQ = 0;
+    static final int NE = 1;
+    static final int LT = 2;
+    static final int LE = 3;
+    static final int GT = 4;
+    static final int GE = 5;
+    static final int BETWEEN = 6;
+    static final int IN = 7;
+    static final int IS_NULL = 8;
+    static final int NOT_NULL = 9;
+
+    // Token types
+    private static final int END = 0;
+    private static final int WORD = 1;
+    private static final int STRING = 2;
+    private static final int NUMBER = 3;
+    private static final int SYMBOL = 4;
+
+    // --- Properties ---
+
+    /**
+     * Statement kind
+     */
+    final int kind;
+
+    /**
+     * Table name
+     */
+    final String table;
+
+    /**
+     * Columns: inserted ones (or null for all), selected ones
+     * (or null for *), or updated ones
+     */
+    final String[] columns;
+
+    /**
+     * Values: inserted rows, or updated values (single row)
+     */
+    final Operand[][] values;
+
+    /**
+     * Predicates of the WHERE clause (empty if none)
+     */
+    final Predicate[] where;
+
+    /**
+     * Ordering column (or null)
+     */
+    final String orderBy;
+
+    /**
+     * Descending order?
+     */
+    final boolean descending;
+
+    /**
+     * Number of parameters ('?')
+     */
+    final int parameterCount;
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     */
+    private TableStatement(final int kind,
+                           final String table,
+                           final String[] columns,
+                           final Operand[][] values,
+                           final Predicate[] where,
+                           final String orderBy,
+                           final boolean descending,
+                           final int parameterCount) {
+
+        this.kind = kind;
+        this.table = table;
+        this.columns = columns;
+        this.values = values;
+        this.where = where;
+        this.orderBy = orderBy;
+        this.descending = descending;
+        this.parameterCount = parameterCount;
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Parses given |sql| statement.
+     *
+     * @throws SQLException if the statement is not supported
+     */
+    static TableStatement parse(final String sql) throws SQLException {
+        if (sql == null) {
+            throw new SQLException("No SQL", "42000");
+        } // end of if
+
+        return new Parser(sql).statement();
+    } // end of parse
+
+    // --- Inner classes ---
+
+    /**
+     * Literal or parameter operand.
+     */
+    static final class Operand {
+        /**
+         * Literal value (if not a parameter)
+         */
+        final Object literal;
+
+        /**
+         * Parameter index (from 0), or -1 if literal
+         */
+        final int parameter;
+
+        /**
+         * Bulk constructor.
+         */
+        Operand(final Object literal, final int parameter) {
+            this.literal = literal;
+            this.parameter = parameter;
+        } // end of <init>
+
+        /**
+         * Returns the operand value.
+         *
+         * @param parameters the statement parameters
+         * @throws SQLException if the parameter is missing
+         */
+        Object value(final List<Parameter> parameters) throws SQLException {
+            if (this.parameter == -1) {
+                return this.literal;
+            } // end of if
+
+            if (parameters == null || this.parameter >= parameters.size()) {
+                throw new SQLException("Missing parameter #" +
+                                       (this.parameter + 1));
+
+            } // end of if
+
+            return parameters.get(this.parameter).right;
+        } // end of value
+    } // end of class Operand
+
+    /**
+     * Predicate on a column.
+     */
+    static final class Predicate {
+        /**
+         * Column name
+         */
+        final String column;
+
+        /**
+         * Operator
+         */
+        final int op;
+
+        /**
+         * Operands (none for IS [NOT] NULL)
+         */
+        final Operand[] operands;
+
+        /**
+         * Bulk constructor.
+         */
+        Predicate(final String column, final int op,
+                  final Operand[] operands) {
+
+            this.column = column;
+            this.op = op;
+            this.operands = operands;
+        } // end of <init>
+    } // end of class Predicate
+
+    /**
+     * Single pass parser.
+     */
+    private static final class Parser {
+        /**
+         * SQL statement
+         */
+        private final String sql;
+
+        /**
+         * Current position
+         */
+        private int pos = 0;
+
+        /**
+         * Type of the current token
+         */
+        private int type;
+
+        /**
+         * Text of the current token (upper case for the words)
+         */
+        private String text;
+
+        /**
+         * Original text of the current word
+         */
+        private String word;
+
+        /**
+         * Start position of the current token
+         */
+        private int start;
+
+        /**
+         * Number of parameters so far
+         */
+        private int parameters = 0;
+
+        /**
+         * Bulk constructor.
+         */
+        Parser(final String sql) throws SQLException {
+            this.sql = sql;
+
+            next();
+        } // end of <init>
+
+        /**
+         * Parses the whole statement.
+         */
+        TableStatement statement() throws SQLException {
+            final TableStatement st;
+
+            if (accept("INSERT")) {
+                st = insert();
+            } else if (accept("SELECT")) {
+                st = select();
+            } else if (accept("UPDATE")) {
+                st = update();
+            } else if (accept("DELETE")) {
+                expect("FROM");
+
+                final String table = identifier();
+
+                st = new TableStatement(DELETE, table, null, null, where(),
+                                        null, false, this.parameters);
+
+            } else {
+                throw unexpected();
+            } // end of else
+
+            symbol(";");
+
+            if (this.type != END) {
+                throw unexpected();
+            } // end of if
+
+            return st;
+        } // end of statement
+
+        /**
+         * Parses INSERT statement (after the keyword).
+         */
+        private TableStatement insert() throws SQLException {
+            expect("INTO");
+
+            final String table = identifier();
+            String[] columns = null;
+
+            if (symbol("(")) {
+                columns = identifiers();
+
+                expectSymbol(")");
+            } // end of if
+
+            expect("VALUES");
+
+            final ArrayList<Operand[]> rows = new ArrayList<Operand[]>();
+
+            do {
+                expectSymbol("(");
+                rows.add(operands());
+                expectSymbol(")");
+            } while (symbol(","));
+
+            return new TableStatement(INSERT, table, columns,
+                                      rows.toArray(new Operand[rows.size()][]),
+                                      new Predicate[0], null, false,
+                                      this.parameters);
+
+        } // end of insert
+
+        /**
+         * Parses SELECT statement (after the keyword).
+         */
+        private TableStatement select() throws SQLException {
+            final String[] columns = symbol("*") ? null : identifiers();
+
+            expect("FROM");
+
+            final String table = identifier();
+            final Predicate[] where = where();
+            String orderBy = null;
+            boolean descending = false;
+
+            if (accept("ORDER")) {
+                expect("BY");
+
+                orderBy = identifier();
+
+                if (accept("DESC")) {
+                    descending = true;
+                } else {
+                    accept("ASC");
+                } // end of else
+            } // end of if
+
+            return new TableStatement(SELECT, table, columns, null, where,
+                                      orderBy, descending, this.parameters);
+
+        } // end of select
+
+        /**
+         * Parses UPDATE statement (after the keyword).
+         */
+        private TableStatement update() throws SQLException {
+            final String table = identifier();
+
+            expect("SET");
+
+            final ArrayList<String> columns = new ArrayList<String>();
+            final ArrayList<Operand> values = new ArrayList<Operand>();
+
+            do {
+                columns.add(identifier());
+                expectSymbol("=");
+                values.add(operand());
+            } while (symbol(","));
+
+            final Operand[][] set =
+                new Operand[][] { values.toArray(new Operand[values.size()]) };
+
+            return new TableStatement(UPDATE, table,
+                                      columns.toArray(new String[columns.size()]),
+                                      set, where(), null, false,
+                                      this.parameters);
+
+        } // end of update
+
+        /**
+         * Parses the optional WHERE clause.
+         */
+        private Predicate[] where() throws SQLException {
+            final ArrayList<Predicate> ps = new ArrayList<Predicate>();
+
+            if (accept("WHERE")) {
+                do {
+                    ps.add(predicate());
+                } while (accept("AND"));
+            } // end of if
+
+            return ps.toArray(new Predicate[ps.size()]);
+        } // end of where
+
+        /**
+         * Parses a predicate.
+         */
+        private Predicate predicate() throws SQLException {
+            final String column = identifier();
+
+            if (accept("IS")) {
+                final boolean not = accept("NOT");
+
+                expect("NULL");
+
+                return new Predicate(column, not ? NOT_NULL : IS_NULL,
+                                     new Operand[0]);
+
+            } // end of if
+
+            if (accept("BETWEEN")) {
+                final Operand low = operand();
+
+                expect("AND");
+
+                return new Predicate(column, BETWEEN,
+                                     new Operand[] { low, operand() });
+
+            } // end of if
+
+            if (accept("IN")) {
+                expectSymbol("(");
+
+                final Operand[] ops = operands();
+
+                expectSymbol(")");
+
+                return new Predicate(column, IN, ops);
+            } // end of if
+
+            // ---
+
+            final int op;
+
+            if (symbol("=")) {
+                op = EQ;
+            } else if (symbol("<>") || symbol("!=")) {
+                op = NE;
+            } else if (symbol("<=")) {
+                op = LE;
+            } else if (symbol(">=")) {
+                op = GE;
+            } else if (symbol("<")) {
+                op = LT;
+            } else if (symbol(">")) {
+                op = GT;
+            } else {
+                throw unexpected();
+            } // end of else
+
+            return new Predicate(column, op, new Operand[] { operand() });
+        } // end of predicate
+
+        /**
+         * Parses a comma separated list of operands.
+         */
+        private Operand[] operands() throws SQLException {
+            final ArrayList<Operand> ops = new ArrayList<Operand>();
+
+            do {
+                ops.add(operand());
+            } while (symbol(","));
+
+            return ops.toArray(new Operand[ops.size()]);
+        } // end of operands
+
+        /**
+         * Parses an operand.
+         */
+        private Operand operand() throws SQLException {
+            if (symbol("?")) {
+                return new Operand(null, this.parameters++);
+            } // end of if
+
+            if (this.type == STRING) {
+                final String s = this.text;
+
+                next();
+
+                return new Operand(s, -1);
+            } // end of if
+
+            final boolean negative = symbol("-");
+
+            if (this.type == NUMBER) {
+                final String n = negative ? ("-" + this.text) : this.text;
+
+                next();
+
+                return new Operand(number(n), -1);
+            } else if (negative) {
+                throw unexpected();
+            } // end of else if
+
+            if (accept("NULL")) {
+                return new Operand(null, -1);
+            } else if (accept("TRUE")) {
+                return new Operand(Boolean.TRUE, -1);
+            } else if (accept("FALSE")) {
+                return new Operand(Boolean.FALSE, -1);
+            } // end of else if
+
+            throw unexpected();
+        } // end of operand
+
+        /**
+         * Parses a comma separated list of identifiers.
+         */
+        private String[] identifiers() throws SQLException {
+            final ArrayList<String> ids = new ArrayList<String>();
+
+            do {
+                ids.add(identifier());
+            } while (symbol(","));
+
+            return ids.toArray(new String[ids.size()]);
+        } // end of identifiers
+
+        /**
+         * Parses an identifier (lower case).
+         */
+        private String identifier() throws SQLException {
+            if (this.type != WORD) {
+                throw unexpected();
+            } // end of if
+
+            final String id = this.word.toLowerCase(Locale.ROOT);
+
+            next();
+
+            return id;
+        } // end of identifier
+
+        /**
+         * Skips the current token if it's the given |keyword|.
+         */
+        private boolean accept(final String keyword) throws SQLException {
+            if (this.type == WORD && keyword.equals(this.text)) {
+                next();
+
+                return true;
+            } // end of if
+
+            return false;
+        } // end of accept
+
+        /**
+         * Skips the current token if it's the given |keyword|,
+         * or fails.
+         */
+        private void expect(final String keyword) throws SQLException {
+            if (!accept(keyword)) {
+                throw unexpected();
+            } // end of if
+        } // end of expect
+
+        /**
+         * Skips the current token if it's the given |symbol|.
+         */
+        private boolean symbol(final String symbol) throws SQLException {
+            if (this.type == SYMBOL && symbol.equals(this.text)) {
+                next();
+
+                return true;
+            } // end of if
+
+            return false;
+        } // end of symbol
+
+        /**
+         * Skips the current token if it's the given |symbol|,
+         * or fails.
+         */
+        private void expectSymbol(final String symbol) throws SQLException {
+            if (!symbol(symbol)) {
+                throw unexpected();
+            } // end of if
+        } // end of expectSymbol
+
+        /**
+         * Reads the next token.
+         */
+        private void next() throws SQLException {
+            final String s = this.sql;
+            final int len = s.length();
+            int i = this.pos;
+
+            while (i < len && Character.isWhitespace(s.charAt(i))) {
+                i++;
+            } // end of while
+
+            this.start = i;
+
+            if (i == len) {
+                this.type = END;
+                this.text = null;
+                this.pos = i;
+
+                return;
+            } // end of if
+
+            // ---
+
+            final char c = s.charAt(i);
+
+            if (Character.isLetter(c) || c == '_') {
+                int j = i + 1;
+
+                while (j < len && (Character.isLetterOrDigit(s.charAt(j)) ||
+                                   s.charAt(j) == '_')) {
+                    j++;
+                } // end of while
+
+                this.type = WORD;
+                this.word = s.substring(i, j);
+                this.text = this.word.toUpperCase(Locale.ROOT);
+                this.pos = j;
+            } else if (c == '"' || c == '`') {
+                final int j = s.indexOf(c, i + 1);
+
+                if (j == -1) {
+                    throw unexpected();
+                } // end of if
+
+                this.type = WORD;
+                this.word = s.substring(i + 1, j);
+                this.text = null; // never a keyword
+                this.pos = j + 1;
+            } else if (c == '\'') {
+                final StringBuilder buf = new StringBuilder();
+                int j = i + 1;
+
+                while (true) {
+                    if (j >= len) {
+                        throw unexpected();
+                    } // end of if
+
+                    final char d = s.charAt(j++);
+
+                    if (d == '\'') {
+                        if (j < len && s.charAt(j) == '\'') {
+                            buf.append('\''); // escaped quote
+                            j++;
+                        } else {
+                            break;
+                        } // end of else
+                    } else {
+                        buf.append(d);
+                    } // end of else
+                } // end of while
+
+                this.type = STRING;
+                this.text = buf.toString();
+                this.pos = j;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < len &&
+                                                Character.isDigit(s.charAt(i + 1)))) {
+                int j = i + 1;
+
+                while (j < len && (Character.isDigit(s.charAt(j)) ||
+                                   s.charAt(j) == '.' ||
+                                   s.charAt(j) == 'e' ||
+                                   s.charAt(j) == 'E')) {
+                    j++;
+                } // end of while
+
+                this.type = NUMBER;
+                this.text = s.substring(i, j);
+                this.pos = j;
+            } else {
+                final String two = (i + 1 < len) ? s.substring(i, i + 2) : null;
+
+                if ("<>".equals(two) || "!=".equals(two) ||
+                    "<=".equals(two) || ">=".equals(two)) {
+
+                    this.text = two;
+                    this.pos = i + 2;
+                } else if ("(),*=<>?;-".indexOf(c) != -1) {
+                    this.text = String.valueOf(c);
+                    this.pos = i + 1;
+                } else {
+                    throw unexpected();
+                } // end of else
+
+                this.type = SYMBOL;
+            } // end of else
+        } // end of next
+
+        /**
+         * Returns the literal value of given number.
+         */
+        private Object number(final String n) throws SQLException {
+            try {
+                return Long.valueOf(n);
+            } catch (NumberFormatException e) {
+                // Decimal or too large
+            } // end of catch
+
+            try {
+                return new BigDecimal(n);
+            } catch (NumberFormatException e) {
+                throw new SQLException("Invalid number: " + n, "42000");
+            } // end of catch
+        } // end of number
+
+        /**
+         * Returns the exception for the unexpected current token.
+         */
+        private SQLException unexpected() {
+            return new SQLException("Unsupported SQL (position " +
+                                    (this.start + 1) + "): " + this.sql,
+                                    "42000");
+
+        } // end of unexpected
+    } // end of class Parser
+} // end of class TableStatement
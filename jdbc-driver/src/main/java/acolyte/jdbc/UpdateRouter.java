@@ -0,0 +1,79 @@
+package acolyte.jdbc;
+
+import java.util.List;
+
+import java.sql.SQLException;
+
+import acolyte.jdbc.AbstractCompositeHandler.UpdateHandler;
+import acolyte.jdbc.StatementHandler.Parameter;
+
+/**
+ * Immutable update handler, dispatching each statement
+ * to the handler registered for it (see {@link AbstractRouter}).
+ *
+ * <pre>
+ * {@code
+ * UpdateRouter router = UpdateRouter.empty().
+ *   withStatement("UPDATE users SET name = ? WHERE id = ?", handler1).
+ *   withPrefix("DELETE FROM orders ", handler2).
+ *   withPattern("^CALL ", handler3).
+ *   withFallback(defaultHandler);
+ *
+ * CompositeHandler.empty().withUpdateHandler(router);
+ * }
+ * </pre>
+ *
+ * @author Cedric Chantepie
+ */
+public final class UpdateRouter
+    extends AbstractRouter<UpdateHandler, UpdateRouter>
+    implements UpdateHandler {
+
+    // --- Shared ---
+
+    /**
+     * Empty router
+     */
+    private static final UpdateRouter EMPTY =
+        new UpdateRouter(new SqlRoutes<UpdateHandler>());
+
+    // --- Constructors ---
+
+    /**
+     * Bulk constructor.
+     *
+     * @param routes the routes
+     */
+    private UpdateRouter(final SqlRoutes<UpdateHandler> routes) {
+        super(routes, "update");
+    } // end of <init>
+
+    /**
+     * Returns router without any route.
+     *
+     * @return Empty router
+     */
+    public static UpdateRouter empty() {
+        return EMPTY;
+    } // end of empty
+
+    // ---
+
+    /**
+     * {@inheritDoc}
+     */
+    UpdateRouter withRoutes(final SqlRoutes<UpdateHandler> routes) {
+        return new UpdateRouter(routes);
+    } // end of withRoutes
+
+    /**
+     * {@inheritDoc}
+     * @throws SQLException if there is no route for the |sql| statement
+     */
+    public UpdateResult apply(final String sql,
+                              final List<Parameter> parameters)
+        throws SQLException {
+
+        return route(sql).apply(sql, parameters);
+    } // end of apply
+} // end of class UpdateRouter
@@ -0,0 +1,570 @@
+package acolyte.jdbc;
+
+import java.util.Collections;
+import java.util.WeakHashMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * Multi-version key/value store, giving each connection
+ * a transactional view, for the stateful handlers.
+ *
+ * <pre>
+ * {@code
+ * final VersionedStore<Integer,String> store =
+ *   new VersionedStore<Integer,String>();
+ *
+ * StatementHandler handler = CompositeHandler.empty().
+ *   withUpdateHandler(new AbstractCompositeHandler.UpdateHandler() {
+ *     public UpdateResult apply(String sql, List<Parameter> ps)
+ *       throws SQLException {
+ *
+ *       // Written in the transaction of the executing connection
+ *       store.put((Integer) ps.get(0).right, (String) ps.get(1).right);
+ *
+ *       return UpdateResult.One;
+ *     }
+ *   });
+ *
+ * // The store must be the resource handler, to commit/rollback
+ * Connection con = Driver.connection(
+ *   new ConnectionHandler.Default(handler, store));
+ * }
+ * </pre>
+ *
+ * Unless in auto-commit mode, a connection gets a snapshot
+ * of the committed entries when its transaction starts
+ * (first access after the previous commit or rollback),
+ * and its writes are buffered until the commit publishes them
+ * atomically, as a new version (or discarded by the rollback).
+ * Rolling back to a savepoint discards the writes buffered since it.
+ * Writing an entry concurrently committed by another connection
+ * since the snapshot makes the commit fail
+ * (SQLException with state `40001`).
+ *
+ * The committed versions are immutable, so the readers never block
+ * or are blocked by the writers. A new version shares the structure
+ * of the previous one (persistent hash trie): committing |w| writes
+ * costs O(w log32 n) for |n| entries, whatever the size of the store,
+ * so that the bulk loads remain linear.
+ * The operations without connection (or in auto-commit mode)
+ * directly apply to the latest committed version.
+ *
+ * The transaction of a connection can be written concurrently
+ * (e.g. by the elements of a parallel batch).
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ * @author Cedric Chantepie
+ */
+public final class VersionedStore<K,V> implements SavepointHandler {
+    // --- Properties ---
+
+    /**
+     * Latest committed version
+     */
+    private final AtomicReference<Version<K,V>> committed;
+
+    /**
+     * Pending transactions, by connection
+     * (weak keys, so that those of the discarded connections are too)
+     */
+    private final Map<Connection,Transaction<K,V>> transactions =
+        Collections.synchronizedMap(new WeakHashMap<Connection,Transaction<K,V>>());
+
+    // --- Constructors ---
+
+    /**
+     * Empty store.
+     */
+    public VersionedStore() {
+        this.committed = new AtomicReference<Version<K,V>>(new Version<K,V>(0L, PersistentMap.<K,Entry<V>>empty()));
+    } // end of <init>
+
+    // ---
+
+    /**
+     * Returns the value for given |key|, as visible
+     * by the connection of the current statement (if any).
+     *
+     * @param key the entry key
+     * @return the value, or null if none
+     * @throws SQLException if the connection is closed
+     * @see StatementContext#current
+     */
+    public V get(final K key) throws SQLException {
+        return get(currentConnection(), key);
+    } // end of get
+
+    /**
+     * Returns the value for given |key|, as visible by the |connection|.
+     *
+     * @param connection the connection (or null for the committed version)
+     * @param key the entry key
+     * @return the value, or null if none
+     * @throws SQLException if the connection is closed
+     */
+    public V get(final Connection connection, final K key)
+        throws SQLException {
+
+        final Transaction<K,V> tx = transaction(connection);
+
+        if (tx == null) {
+            return value(this.committed.get(), key);
+        } // end of if
+
+        final Write<K,V> w;
+
+        synchronized (tx) {
+            w = tx.latest.get(key);
+        } // end of synchronized
+
+        if (w != null) {
+            return w.value; // null if removed
+        } // end of if
+
+        return value(tx.snapshot, key);
+    } // end of get
+
+    /**
+     * Returns the entries visible by the connection
+     * of the current statement (if any).
+     *
+     * @return Immutable copy of the entries
+     * @throws SQLException if the connection is closed
+     * @see StatementContext#current
+     */
+    public Map<K,V> entries() throws SQLException {
+        return entries(currentConnection());
+    } // end of entries
+
+    /**
+     * Returns the entries visible by the |connection|.
+     *
+     * @param connection the connection (or null for the committed version)
+     * @return Immutable copy of the entries
+     * @throws SQLException if the connection is closed
+     */
+    public Map<K,V> entries(final Connection connection) throws SQLException {
+        final Transaction<K,V> tx = transaction(connection);
+        final Version<K,V> v = (tx == null) ? this.committed.get() : tx.snapshot;
+        final HashMap<K,V> entries = new HashMap<K,V>(v.data.size());
+
+        for (final Map.Entry<K,Entry<V>> e : v.data.entrySet()) {
+            entries.put(e.getKey(), e.getValue().value);
+        } // end of for
+
+        if (tx != null) {
+            synchronized (tx) {
+                for (final Write<K,V> w : tx.latest.values()) {
+                    if (w.removed) {
+                        entries.remove(w.key);
+                    } else {
+                        entries.put(w.key, w.value);
+                    } // end of else
+                } // end of for
+            } // end of synchronized
+        } // end of if
+
+        return Collections.unmodifiableMap(entries);
+    } // end of entries
+
+    /**
+     * Writes the |value| for given |key|, in the transaction
+     * of the connection of the current statement (if any).
+     *
+     * @param key the entry key
+     * @param value the new value
+     * @throws SQLException if the connection is closed
+     * @see StatementContext#current
+     */
+    public void put(final K key, final V value) throws SQLException {
+        write(currentConnection(), new Write<K,V>(key, value, false));
+    } // end of put
+
+    /**
+     * Writes the |value| for given |key|,
+     * in the transaction of the |connection|.
+     *
+     * @param connection the connection (or null to directly commit)
+     * @param key the entry key
+     * @param value the new value
+     * @throws SQLException if the connection is closed
+     */
+    public void put(final Connection connection, final K key, final V value)
+        throws SQLException {
+
+        write(connection, new Write<K,V>(key, value, false));
+    } // end of put
+
+    /**
+     * Removes the entry for given |key|, in the transaction
+     * of the connection of the current statement (if any).
+     *
+     * @param key the entry key
+     * @throws SQLException if the connection is closed
+     * @see StatementContext#current
+     */
+    public void remove(final K key) throws SQLException {
+        write(currentConnection(), new Write<K,V>(key, null, true));
+    } // end of remove
+
+    /**
+     * Removes the entry for given |key|,
+     * in the transaction of the |connection|.
+     *
+     * @param connection the connection (or null to directly commit)
+     * @param key the entry key
+     * @throws SQLException if the connection is closed
+     */
+    public void remove(final Connection connection, final K key)
+        throws SQLException {
+
+        write(connection, new Write<K,V>(key, null, true));
+    } // end of remove
+
+    /**
+     * Returns the number of the latest committed version.
+     *
+     * @return Version number (0 if nothing committed)
+     */
+    public long getVersion() {
+        return this.committed.get().number;
+    } // end of getVersion
+
+    // --- SavepointHandler impl ---
+
+    /**
+     * Publishes the writes of the |connection| transaction.
+     *
+     * {@inheritDoc}
+     * @throws SQLException if an entry written in the transaction
+     * has been concurrently committed (state `40001`),
+     * then the transaction is rollbacked
+     */
+    public void whenCommitTransaction(final Connection connection)
+        throws SQLException {
+
+        final Transaction<K,V> tx = this.transactions.remove(connection);
+
+        if (tx != null) {
+            synchronized (tx) {
+                commit(tx);
+            } // end of synchronized
+        } // end of if
+    } // end of whenCommitTransaction
+
+    /**
+     * Discards the writes of the |connection| transaction.
+     *
+     * {@inheritDoc}
+     */
+    public void whenRollbackTransaction(final Connection connection)
+        throws SQLException {
+
+        this.transactions.remove(connection);
+    } // end of whenRollbackTransaction
+
+    /**
+     * {@inheritDoc}
+     */
+    public void whenSetSavepoint(final Connection connection,
+                                 final Savepoint savepoint)
+        throws SQLException {
+
+        final Transaction<K,V> tx = transaction(connection);
+
+        synchronized (tx) {
+            tx.savepoints.add(savepoint);
+            tx.marks.add(tx.log.size());
+        } // end of synchronized
+    } // end of whenSetSavepoint
+
+    /**
+     * Discards the writes since the |savepoint|,
+     * and releases the savepoints set after it.
+     *
+     * {@inheritDoc}
+     * @throws SQLException if the savepoint is unknown (state `3B001`)
+     */
+    public void whenRollbackSavepoint(final Connection connection,
+                                      final Savepoint savepoint)
+        throws SQLException {
+
+        final Transaction<K,V> tx = transaction(connection);
+
+        synchronized (tx) {
+            final int i = savepointIndex(tx, savepoint);
+
+            tx.release(i + 1);
+            tx.truncate(tx.marks.get(i));
+        } // end of synchronized
+    } // end of whenRollbackSavepoint
+
+    /**
+     * Releases the |savepoint|, and those set after it
+     * (keeping the writes).
+     *
+     * {@inheritDoc}
+     * @throws SQLException if the savepoint is unknown (state `3B001`)
+     */
+    public void whenReleaseSavepoint(final Connection connection,
+                                     final Savepoint savepoint)
+        throws SQLException {
+
+        final Transaction<K,V> tx = transaction(connection);
+
+        synchronized (tx) {
+            tx.release(savepointIndex(tx, savepoint));
+        } // end of synchronized
+    } // end of whenReleaseSavepoint
+
+    // ---
+
+    /**
+     * Returns the transaction of the |connection|, started if needed,
+     * or null if no connection or in auto-commit mode.
+     */
+    private Transaction<K,V> transaction(final Connection connection)
+        throws SQLException {
+
+        if (connection == null || connection.getAutoCommit()) {
+            return null;
+        } // end of if
+
+        synchronized (this.transactions) {
+            Transaction<K,V> tx = this.transactions.get(connection);
+
+            if (tx == null) {
+                tx = new Transaction<K,V>(this.committed.get());
+
+                this.transactions.put(connection, tx);
+            } // end of if
+
+            return tx;
+        } // end of synchronized
+    } // end of transaction
+
+    /**
+     * Buffers the |write| in the transaction of the |connection|,
+     * or directly commits it if none.
+     */
+    private void write(final Connection connection, final Write<K,V> write)
+        throws SQLException {
+
+        final Transaction<K,V> tx = transaction(connection);
+
+        if (tx != null) {
+            synchronized (tx) {
+                tx.log.add(write);
+                tx.latest.put(write.key, write);
+            } // end of synchronized
+
+            return;
+        } // end of if
+
+        // ---
+
+        while (true) {
+            final Version<K,V> current = this.committed.get();
+            final PersistentMap<K,Entry<V>> data = apply(current.data, write);
+
+            if (this.committed.compareAndSet(current, new Version<K,V>(current.number + 1L, data))) {
+                return;
+            } // end of if
+        } // end of while
+    } // end of write
+
+    /**
+     * Publishes the writes of the |tx| transaction, as a new version
+     * (lock on |tx| must be held).
+     *
+     * @throws SQLException if there is a write conflict
+     */
+    private void commit(final Transaction<K,V> tx) throws SQLException {
+        if (tx.latest.isEmpty()) {
+            return; // read-only
+        } // end of if
+
+        while (true) {
+            final Version<K,V> current = this.committed.get();
+
+            if (current != tx.snapshot) {
+                for (final K key : tx.latest.keySet()) {
+                    // Entries are never reused: same instance if unchanged
+                    if (current.data.get(key) != tx.snapshot.data.get(key)) {
+                        throw new SQLException("Concurrent update: " + key,
+                                               "40001");
+
+                    } // end of if
+                } // end of for
+            } // end of if
+
+            PersistentMap<K,Entry<V>> data = current.data;
+
+            for (final Write<K,V> w : tx.latest.values()) {
+                data = apply(data, w);
+            } // end of for
+
+            if (this.committed.compareAndSet(current, new Version<K,V>(current.number + 1L, data))) {
+                return;
+            } // end of if
+        } // end of while
+    } // end of commit
+
+    /**
+     * Returns the index of the |savepoint| in the |tx| transaction.
+     *
+     * @throws SQLException if unknown
+     */
+    private int savepointIndex(final Transaction<K,V> tx,
+                               final Savepoint savepoint)
+        throws SQLException {
+
+        final int i = tx.savepoints.indexOf(savepoint);
+
+        if (i == -1) {
+            throw new SQLException("Unknown savepoint: " + savepoint, "3B001");
+        } // end of if
+
+        return i;
+    } // end of savepointIndex
+
+    /**
+     * Returns the connection of the current statement, or null.
+     */
+    private static Connection currentConnection() {
+        final StatementContext ctx = StatementContext.current();
+
+        return (ctx == null) ? null : ctx.getConnection();
+    } // end of currentConnection
+
+    /**
+     * Returns the value for |key| in the |version|.
+     */
+    private static <K,V> V value(final Version<K,V> version, final K key) {
+        final Entry<V> e = version.data.get(key);
+
+        return (e == null) ? null : e.value;
+    } // end of value
+
+    /**
+     * Returns the |data| of a new version, with the |write| applied
+     * (sharing the structure of the previous |data|).
+     */
+    private static <K,V> PersistentMap<K,Entry<V>> apply(
+        final PersistentMap<K,Entry<V>> data, final Write<K,V> write) {
+
+        if (write.removed) {
+            return data.minus(write.key);
+        } // end of if
+
+        return data.plus(write.key, new Entry<V>(write.value));
+    } // end of apply
+
+    // --- Inner classes ---
+
+    /**
+     * Committed version (immutable).
+     */
+    private static final class Version<K,V> {
+        final long number;
+        final PersistentMap<K,Entry<V>> data;
+
+        Version(final long number, final PersistentMap<K,Entry<V>> data) {
+            this.number = number;
+            this.data = data;
+        } // end of <init>
+    } // end of class Version
+
+    /**
+     * Committed value, whose instance identifies the write.
+     */
+    private static final class Entry<V> {
+        final V value;
+
+        Entry(final V value) {
+            this.value = value;
+        } // end of <init>
+    } // end of class Entry
+
+    /**
+     * Buffered write.
+     */
+    private static final class Write<K,V> {
+        final K key;
+        final V value;
+        final boolean removed;
+
+        Write(final K key, final V value, final boolean removed) {
+            this.key = key;
+            this.value = value;
+            this.removed = removed;
+        } // end of <init>
+    } // end of class Write
+
+    /**
+     * Transaction of a connection (guarded by itself).
+     */
+    private static final class Transaction<K,V> {
+        /**
+         * Snapshot at the transaction start
+         */
+        final Version<K,V> snapshot;
+
+        /**
+         * Buffered writes, in order
+         */
+        final ArrayList<Write<K,V>> log = new ArrayList<Write<K,V>>();
+
+        /**
+         * Latest buffered write by key
+         */
+        final HashMap<K,Write<K,V>> latest = new HashMap<K,Write<K,V>>();
+
+        /**
+         * Savepoints, in order
+         */
+        final ArrayList<Savepoint> savepoints = new ArrayList<Savepoint>();
+
+        /**
+         * Number of buffered writes when each savepoint was set
+         */
+        final ArrayList<Integer> marks = new ArrayList<Integer>();
+
+        Transaction(final Version<K,V> snapshot) {
+            this.snapshot = snapshot;
+        } // end of <init>
+
+        /**
+         * Discards the writes after the first |size| ones.
+         */
+        void truncate(final int size) {
+            while (this.log.size() > size) {
+                this.log.remove(this.log.size() - 1);
+            } // end of while
+
+            this.latest.clear();
+
+            for (final Write<K,V> w : this.log) {
+                this.latest.put(w.key, w);
+            } // end of for
+        } // end of truncate
+
+        /**
+         * Releases the savepoints from the |index| one.
+         */
+        void release(final int index) {
+            while (this.savepoints.size() > index) {
+                this.savepoints.remove(this.savepoints.size() - 1);
+                this.marks.remove(this.marks.size() - 1);
+            } // end of while
+        } // end of release
+    } // end of class Transaction
+} // end of class VersionedStore
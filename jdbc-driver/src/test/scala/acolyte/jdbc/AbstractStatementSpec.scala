@@ -265,20 +265,21 @@ object AbstractStatementSpec extends Specification {
       )
     }
 
-    "have not query timeout" in {
-      (statement().getQueryTimeout aka "timeout" must_=== 0).and(
-        statement()
-          .setQueryTimeout(1)
-          .aka("setter") must throwA[UnsupportedOperationException]
-      )
+    "have query timeout" in {
+      val s = statement()
 
-    }
+      (s.getQueryTimeout aka "default timeout" must_=== 0)
+        .and(s.setQueryTimeout(1) aka "setter" must not(throwA[Exception]))
+        .and(s.getQueryTimeout aka "timeout" must_=== 1)
+        .and(
+          s.setQueryTimeout(-1)
+            .aka("negative") must throwA[SQLException](message = "Negative query timeout")
+        )
 
-    "not support cancel" in {
-      statement()
-        .cancel()
-        .aka("cancel") must throwA[SQLFeatureNotSupportedException]
+    }
 
+    "be cancelled without pending execution" in {
+      statement().cancel() aka "cancel" must not(throwA[Exception])
     }
 
     "have default resultset holdability" in {
@@ -520,6 +521,38 @@ object AbstractStatementSpec extends Specification {
         throwA[SQLException]
       ) and (h.exed.size aka "executed" must_=== 0)
     }
+
+    "be executed in parallel (batch.parallelism)" in {
+      val props = new Properties()
+      props.put("acolyte.batch.parallelism", "4")
+
+      val running = new java.util.concurrent.atomic.AtomicInteger(0)
+      val maxRunning = new java.util.concurrent.atomic.AtomicInteger(0)
+      val h = new Handler {
+        override def whenSQLUpdate(s: String, p: Params) = {
+          val r = running.incrementAndGet()
+          maxRunning.accumulateAndGet(r, Math.max(_, _))
+          Thread.sleep(5L)
+          running.decrementAndGet()
+
+          new UpdateResult(s.drop(5).toInt)
+        }
+      }
+      lazy val s = statement(
+        new acolyte.jdbc.Connection(jdbcUrl, props, defaultHandler), h)
+
+      (1 to 20).foreach { i => s.addBatch(s"BATCH$i") }
+
+      (s.executeBatch() aka "update counts" must_=== (1 to 20).toArray) and {
+        maxRunning.get aka "max parallel executions" must beBetween(2, 4)
+      } and {
+        s.clearBatch()
+        (1 to 20).foreach { i => s.addBatch(s"BATCH$i") }
+
+        // Pool shared with the previous batch
+        s.executeBatch() aka "next batch" must_=== (1 to 20).toArray
+      }
+    }
   }
 
   "Generated keys" should {
@@ -0,0 +1,233 @@
+package acolyte.jdbc
+
+import java.util.{ Arrays, Collection => JCollection, Collections, List => JList }
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import java.sql.SQLException
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.StatementHandler.Parameter
+
+object CachingStatementHandlerSpec extends Specification {
+  "Caching statement handler".title
+
+  val noParams = Collections.emptyList[Parameter]()
+
+  def param(v: String) = Parameter.of(
+    ParameterMetaData.Str,
+    v
+  )
+
+  /** Handler counting the built results (result #n contains n). */
+  class Counting extends StatementHandler {
+    val queries = new AtomicInteger(0)
+    val updates = new AtomicInteger(0)
+
+    def whenSQLQuery(sql: String, ps: JList[Parameter]) = {
+      val n = queries.incrementAndGet()
+
+      if (sql startsWith "ERR") throw new SQLException("Fails")
+      else RowLists.intList().append(Int.box(n)).asResult
+    }
+
+    def whenSQLUpdate(sql: String, ps: JList[Parameter]) =
+      new UpdateResult(updates.incrementAndGet())
+
+    def isQuery(sql: String) = sql startsWith "SELECT"
+  }
+
+  def first(h: StatementHandler, sql: String, ps: JList[Parameter] = noParams): Int = {
+    val rs = h.whenSQLQuery(sql, ps).getRowList.resultSet()
+
+    rs.next()
+    rs.getInt(1)
+  }
+
+  val tableTags = new CachingStatementHandler.TableTags {
+    def tags(sql: String): JCollection[String] =
+      if (sql contains "users") Collections.singleton("users")
+      else if (sql contains "orders") Collections.singleton("orders")
+      else null
+  }
+
+  "Handler" should {
+    "not be created with invalid arguments" in {
+      (new CachingStatementHandler(null: StatementHandler, 1)
+        aka "no handler" must throwA[IllegalArgumentException](
+          message = "Invalid Acolyte handler"
+        )).and(
+        new CachingStatementHandler(new Counting(), -1) aka "negative size" must throwA[
+          IllegalArgumentException
+        ](message = "Invalid max entries: -1")
+      )
+    }
+
+    "not cache asynchronous or batch handler" in {
+      val batch = new Counting() with BatchStatementHandler {
+        def whenSQLBatch(sql: String, ps: Array[Array[Parameter]]) =
+          Array.fill(ps.length)(1)
+      }
+
+      (new CachingStatementHandler(new ExecutorStatementHandler(new Counting()), 1)
+        aka "asynchronous" must throwA[IllegalArgumentException](
+          message = "Cannot cache asynchronous or batch handler"
+        )).and(
+        new CachingStatementHandler(batch, 1) aka "batch" must throwA[
+          IllegalArgumentException
+        ](message = "Cannot cache asynchronous or batch handler")
+      )
+    }
+
+    "return cached result for same statement and parameters" in {
+      val u = new Counting()
+      val h = new CachingStatementHandler(u, 10)
+
+      (first(h, "SELECT 1") aka "miss #1" must_=== 1)
+        .and(first(h, "SELECT 1") aka "hit #1" must_=== 1)
+        .and(first(h, "SELECT 2") aka "miss #2" must_=== 2)
+        .and(first(h, "SELECT 1", Arrays.asList(param("a"))) aka "miss #3" must_=== 3)
+        .and(first(h, "SELECT 1", Arrays.asList(param("a"))) aka "hit #2" must_=== 3)
+        .and(first(h, "SELECT 1", Arrays.asList(param("b"))) aka "miss #4" must_=== 4)
+        .and(h.getHits aka "hits" must_=== 2L)
+        .and(h.getMisses aka "misses" must_=== 4L)
+        .and(h.getSize aka "size" must_=== 4)
+        .and(h.isQuery("SELECT 3") aka "query detection" must beTrue)
+    }
+
+    "not cache failure or streaming result" in {
+      val u = new Counting()
+      val h = new CachingStatementHandler(u, 10)
+      val streaming = new CachingStatementHandler(new StatementHandler {
+        def whenSQLQuery(sql: String, ps: JList[Parameter]) =
+          StreamingRowList.of(
+            RowLists.intList(),
+            Arrays.asList(new Row1[Integer](Int.box(1)))
+          ).asResult
+
+        def whenSQLUpdate(sql: String, ps: JList[Parameter]) =
+          new UpdateResult(0)
+
+        def isQuery(sql: String) = true
+      }, 10)
+
+      (h.whenSQLQuery("ERR", noParams) aka "failure #1" must throwA[SQLException](
+        message = "Fails"
+      )).and(h.whenSQLQuery("ERR", noParams) aka "failure #2" must throwA[
+        SQLException
+      ](message = "Fails"))
+        .and(u.queries.get aka "built results" must_=== 2)
+        .and(h.getSize aka "size" must_=== 0)
+        .and {
+          streaming.whenSQLQuery("SELECT", noParams)
+          streaming.getSize aka "streaming" must_=== 0
+        }
+    }
+
+    "evict least recently used results" in {
+      val h = new CachingStatementHandler(new Counting(), 2)
+
+      first(h, "SELECT 1")
+      first(h, "SELECT 2")
+      first(h, "SELECT 1") // most recently used
+
+      first(h, "SELECT 3") // evicts SELECT 2
+
+      (h.getEvictions aka "evictions" must_=== 1L)
+        .and(h.getSize aka "size" must_=== 2)
+        .and(first(h, "SELECT 1") aka "kept" must_=== 1)
+        .and(first(h, "SELECT 2") aka "evicted" must_=== 4)
+    }
+
+    "evict results according weight" in {
+      val h = new CachingStatementHandler(new Counting(), 10).withMaxWeight(
+        5L,
+        new CachingStatementHandler.Weigher {
+          def weigh(r: QueryResult) = 2L
+        }
+      )
+
+      first(h, "SELECT 1")
+      first(h, "SELECT 2")
+      first(h, "SELECT 3")
+
+      (h.getSize aka "size" must_=== 2).and(h.getEvictions aka "evictions" must_=== 1L).and(
+        new CachingStatementHandler(new Counting(), 1).withMaxWeight(-1L, null)
+          aka "invalid weight" must throwA[IllegalArgumentException](
+            message = "Invalid max weight: -1"
+          )
+      )
+    }
+
+    "expire results" in {
+      val h = new CachingStatementHandler(new Counting(), 10).withTimeToLive(
+        50L,
+        TimeUnit.MILLISECONDS
+      )
+
+      first(h, "SELECT 1")
+
+      (first(h, "SELECT 1") aka "hit" must_=== 1).and {
+        Thread.sleep(100L)
+
+        (first(h, "SELECT 1") aka "expired" must_=== 2)
+          .and(h.getEvictions aka "evictions" must_=== 1L)
+      }
+    }
+
+    "invalidate all results on update" in {
+      val h = new CachingStatementHandler(new Counting(), 10)
+
+      first(h, "SELECT 1")
+      first(h, "SELECT 2")
+
+      (h.whenSQLUpdate("DELETE", noParams).getUpdateCount aka "update" must_=== 1)
+        .and(h.getSize aka "size" must_=== 0)
+        .and(h.getInvalidations aka "invalidations" must_=== 2L)
+        .and(first(h, "SELECT 1") aka "rebuilt" must_=== 3)
+    }
+
+    "invalidate results by table tags" in {
+      val h = new CachingStatementHandler(new Counting(), 10).
+        withTableTags(tableTags)
+
+      first(h, "SELECT * FROM users")
+      first(h, "SELECT * FROM orders")
+      first(h, "SELECT 1") // unknown tags: not cached
+
+      (h.getSize aka "size" must_=== 2).and {
+        h.whenSQLUpdate("UPDATE users SET name = ?", noParams)
+
+        (h.getInvalidations aka "invalidations" must_=== 1L)
+          .and(first(h, "SELECT * FROM orders") aka "kept" must_=== 2)
+          .and(first(h, "SELECT * FROM users") aka "invalidated" must_=== 4)
+      }.and {
+        h.whenSQLUpdate("TRUNCATE", noParams) // unknown: all
+
+        h.getSize aka "size after unknown update" must_=== 0
+      }
+    }
+
+    "be thread-safe" in {
+      val u = new Counting()
+      val h = new CachingStatementHandler(u, 8)
+      val threads = (1 to 8).map { t =>
+        new Thread {
+          override def run(): Unit = (1 to 500).foreach { i =>
+            h.whenSQLQuery(s"SELECT ${(i + t) % 16}", noParams)
+
+            if (i % 100 == 0) h.whenSQLUpdate("DELETE", noParams)
+          }
+        }
+      }
+
+      threads.foreach(_.start())
+      threads.foreach(_.join())
+
+      (h.getHits + h.getMisses aka "lookups" must_=== 4000L)
+        .and(h.getMisses aka "misses" must_=== u.queries.get.toLong)
+        .and(h.getSize aka "size" must be_<=(8))
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package acolyte.jdbc
+
+import java.util.Arrays
+import java.math.BigDecimal
+import java.sql.{ Date, Time, Timestamp }
+
+import org.specs2.mutable.Specification
+
+object ColumnConvertersSpec extends Specification {
+  "Column converters".title
+
+  def converters(classes: Class[_]*) =
+    new ColumnConverters(Arrays.asList[Class[_]](classes: _*))
+
+  "Converter" should {
+    "be resolved once per pair of classes" in {
+      val a = ColumnConverters.resolve(classOf[Integer], classOf[java.lang.Long])
+
+      (ColumnConverters.resolve(
+        classOf[Integer],
+        classOf[java.lang.Long]
+      ) aka "resolved again" must beTheSameAs(a)).and(
+        converters(classOf[Integer]).converter(1, classOf[java.lang.Long])
+          aka "column converter" must beTheSameAs(a)
+      )
+    }
+
+    "convert integral numbers" in {
+      val cs = converters(classOf[Integer], classOf[java.lang.Long])
+
+      (cs.converter(1, classOf[java.lang.Long]).convert(Int.box(12))
+        aka "int to long" must_=== 12L)
+        .and(
+          cs.converter(2, classOf[java.lang.Byte]).convert(Long.box(3L))
+            aka "long to byte" must_=== 3.toByte
+        )
+        .and(
+          cs.converter(1, classOf[java.lang.Double]).convert(Int.box(5))
+            aka "int to double" must_=== 5D
+        )
+        .and(cs.bigDecimal(2, Long.box(7L)) aka "decimal" must_=== (
+          new BigDecimal("7")
+        ))
+    }
+
+    "fall back to generic conversion" in {
+      val cs = converters(classOf[Integer], classOf[Object], classOf[Date])
+
+      (cs.converter(1, classOf[java.lang.Byte]).convert(Int.box(300))
+        aka "out of range" must beNull)
+        .and(
+          cs.converter(1, classOf[java.lang.Long]).convert(Long.box(1L))
+            aka "other class" must beNull
+        )
+        .and(
+          cs.converter(2, classOf[String]).convert("str")
+            aka "undeclared" must beNull
+        )
+        .and(
+          cs.converter(4, classOf[String]).convert("str")
+            aka "unknown column" must beNull
+        )
+        .and(cs.date(3, new Timestamp(1L)) aka "date" must_=== new Date(1L))
+        .and(cs.bigDecimal(2, "str") aka "not numeric" must beNull)
+    }
+
+    "convert temporal values" in {
+      val cs = converters(classOf[Timestamp], classOf[java.util.Date])
+      val ts = new Timestamp(1234L)
+
+      (cs.timestamp(1, ts) aka "timestamp" must beTheSameAs(ts))
+        .and(cs.time(1, ts) aka "time" must_=== new Time(1234L))
+        .and(cs.date(2, new java.util.Date(5L)) aka "date" must_=== (
+          new Date(5L)
+        ))
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package acolyte.jdbc
+
+import org.specs2.mutable.Specification
+
+object ColumnIndexSpec extends Specification {
+  "Column index".title
+
+  def index(labels: (String, Int)*) = {
+    val m = new java.util.HashMap[String, Integer]()
+    labels.foreach { case (l, i) => m.put(l, Int.box(i)) }
+    new ColumnIndex(m)
+  }
+
+  "Index" should {
+    "be empty" in {
+      (index().indexOf("a") aka "label" must_=== -1).and(
+        index().indexOf(null) aka "null" must_=== -1
+      )
+    }
+
+    "resolve labels" in {
+      val labels = (1 to 100).map(i => s"col$i" -> i)
+      val idx = index(labels: _*)
+
+      (labels.map { case (l, _) => idx.indexOf(l) } aka "indexes" must_=== (
+        1 to 100
+      )).and(idx.indexOf("col101") aka "unknown" must_=== -1)
+    }
+
+    "resolve labels ignoring case" in {
+      val idx = index("name" -> 1, "Title" -> 2, "été" -> 3)
+
+      (idx.indexOf("NAME") aka "upper" must_=== 1)
+        .and(idx.indexOf("title") aka "lower" must_=== 2)
+        .and(idx.indexOf("ÉTÉ") aka "non ASCII" must_=== 3)
+        .and(idx.indexOf("names") aka "unknown" must_=== -1)
+    }
+
+    "prefer exact label, then first column" in {
+      val idx = index("id" -> 3, "ID" -> 2, "Id" -> 1)
+
+      (idx.indexOf("id") aka "exact #1" must_=== 3)
+        .and(idx.indexOf("ID") aka "exact #2" must_=== 2)
+        .and(idx.indexOf("iD") aka "first column" must_=== 1)
+    }
+  }
+}
@@ -0,0 +1,252 @@
+package acolyte.jdbc
+
+import java.sql.SQLException
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.RowList.{ Column => Col }
+
+object ColumnarRowListSpec extends Specification {
+  "Columnar row list".title
+
+  lazy val empty = ColumnarRowList.empty(
+    Col(classOf[Integer], "i"),
+    Col(classOf[java.lang.Long], "l"),
+    Col(classOf[java.lang.Double], "d"),
+    Col(classOf[java.lang.Boolean], "b").withNullable(true),
+    Col(classOf[String], "s")
+  )
+
+  lazy val list = empty
+    .builder()
+    .append(Int.box(1), Long.box(2L), Double.box(3.5D), Boolean.box(true), "A")
+    .append(null, null, null, null, null)
+    .append(Int.box(-4), Long.box(5000000000L), Double.box(-6.25D),
+      Boolean.box(false), "B")
+    .build()
+
+  def cells(values: Any*): java.util.List[AnyRef] =
+    java.util.Arrays.asList(values.map(_.asInstanceOf[AnyRef]): _*)
+
+  "Empty list" should {
+    "have the column meta-data" in {
+      (empty.getRows.size aka "size" must_=== 0) and {
+        empty.getColumnClasses.get(1).getName.
+          aka("2nd class") must_=== "java.lang.Long"
+      } and {
+        empty.getColumnLabels.get("d") aka "3rd label" must_=== 3
+      } and {
+        empty.getColumnNullables.get(4) aka "nullable" must_=== true
+      }
+    }
+
+    "not be created without column" in {
+      ColumnarRowList.empty() aka "list" must throwA[IllegalArgumentException](
+        message = "No column"
+      )
+    }
+  }
+
+  "Builder" should {
+    "append rows" in {
+      (list.getRows.size aka "size" must_=== 3) and {
+        list.getRows.get(0).cells.
+          aka("first row") must_=== cells(1, 2L, 3.5D, true, "A")
+      } and {
+        list.getRows.get(1).cells.
+          aka("null row") must_=== cells(null, null, null, null, null)
+      } and {
+        list.getRows.get(2).cells.get(1).
+          aka("last long") must_=== Long.box(5000000000L)
+      }
+    }
+
+    "keep the rows of the original list" in {
+      val updated = list.builder(4).append(Int.box(7), null, null, null, "C")
+        .build()
+
+      (list.getRows.size aka "original size" must_=== 3) and {
+        updated.getRows.size aka "size" must_=== 4
+      } and {
+        updated.getRows.get(3).cells.get(4) aka "appended" must_=== "C"
+      } and {
+        updated.getRows.subList(0, 3) aka "previous rows" must_=== list.getRows
+      }
+    }
+
+    "grow beyond the initial capacity" in {
+      val builder = empty.builder(1)
+
+      (0 until 10000).foreach { i =>
+        builder.append(Int.box(i), Long.box(i.toLong), Double.box(i.toDouble),
+          if (i % 3 == 0) null else Boolean.box(i % 2 == 0), s"$i")
+      }
+
+      val rows = builder.build().getRows
+
+      (rows.size aka "size" must_=== 10000) and {
+        rows.get(9999).cells.
+          aka("last row") must_=== cells(9999, 9999L, 9999D, null, "9999")
+      } and {
+        rows.get(9998).cells.get(3) aka "boolean" must_=== java.lang.Boolean.TRUE
+      }
+    }
+
+    "refuse value of invalid type" in {
+      empty.builder().append("1", null, null, null, null).
+        aka("append") must throwA[IllegalArgumentException](
+          message = "Invalid value for column #1: 1"
+        )
+    }
+
+    "refuse invalid number of values" in {
+      empty.builder().append(Int.box(1)) aka "append" must throwA[
+        IllegalArgumentException
+      ](message = "Expected 5 value\\(s\\)")
+    }
+
+    "not be used once built" in {
+      val builder = empty.builder()
+
+      builder.build()
+
+      builder.append(null, null, null, null, null).
+        aka("append") must throwA[IllegalStateException](
+          message = "Row list already built"
+        )
+    }
+  }
+
+  "Derived list" should {
+    "share the column values" in {
+      val labeled = list.withLabel(5, "str").withCycling(true)
+
+      (labeled.getRows aka "rows" must_=== list.getRows) and {
+        labeled.isCycling aka "cycling" must beTrue
+      } and {
+        labeled.getColumnLabels.get("str") aka "label" must_=== 5
+      }
+    }
+  }
+
+  "Result set" should {
+    "read primitive values" in {
+      val rs = list.resultSet
+
+      rs.next aka "has first row" must beTrue and {
+        rs.getInt(1) aka "int" must_=== 1
+      } and {
+        rs.wasNull aka "was null" must beFalse
+      } and {
+        rs.getLong("l") aka "long" must_=== 2L
+      } and {
+        rs.getDouble(3) aka "double" must_=== 3.5D
+      } and {
+        rs.getInt(3) aka "double as int" must_=== 3
+      } and {
+        rs.getFloat("d") aka "float" must_=== 3.5F
+      } and {
+        rs.getShort(2) aka "short" must_=== 2.toShort
+      } and {
+        rs.getBoolean("b") aka "boolean" must beTrue
+      } and {
+        rs.getString(5) aka "string" must_=== "A"
+      } and {
+        rs.getObject(2) aka "boxed" must_=== Long.box(2L)
+      }
+    }
+
+    "read null values" in {
+      val rs = list.resultSet
+
+      (rs.next && rs.next) aka "has 2nd row" must beTrue and {
+        rs.getInt(1) aka "int" must_=== 0
+      } and {
+        rs.wasNull aka "was null" must beTrue
+      } and {
+        rs.getBoolean("b") aka "boolean" must beFalse
+      } and {
+        rs.wasNull aka "was null boolean" must beTrue
+      } and {
+        rs.getDouble(3) aka "double" must_=== 0D
+      }
+    }
+
+    "read values as the boxed ones" in {
+      val rs = list.resultSet
+      val boxed = new RowList5.Impl(
+        classOf[Integer], classOf[java.lang.Long], classOf[java.lang.Double],
+        classOf[java.lang.Boolean], classOf[String]
+      ).append(-4, 5000000000L, -6.25D, false, "B").resultSet
+
+      rs.absolute(3) aka "move to last row" must beTrue and {
+        boxed.next aka "boxed row" must beTrue
+      } and {
+        rs.getInt(2) aka "long as int" must_=== boxed.getInt(2)
+      } and {
+        rs.getByte(2) aka "long as byte" must_=== boxed.getByte(2)
+      } and {
+        rs.getLong(3) aka "double as long" must_=== boxed.getLong(3)
+      } and {
+        rs.getInt(4) aka "boolean as int" must_=== boxed.getInt(4)
+      } and {
+        rs.getBoolean(1) aka "int as boolean" must_=== boxed.getBoolean(1)
+      }
+    }
+
+    "be limited" in {
+      val rs = list.resultSet(2)
+
+      (rs.getFetchSize aka "size" must_=== 2) and {
+        rs.absolute(2) aka "move to last row" must beTrue
+      } and {
+        rs.getLong(2) aka "long" must_=== 0L
+      } and {
+        rs.next aka "has more" must beFalse
+      }
+    }
+
+    "be attached to a statement" in {
+      val ch = test.EmptyConnectionHandler
+      lazy val con = new acolyte.jdbc.Connection("jdbc:acolyte:test", null, ch)
+      val s = new AbstractStatement(con, ch.getStatementHandler) {}
+      val rs = list.resultSet.withStatement(s)
+
+      rs.next aka "has first row" must beTrue and {
+        rs.getLong(2) aka "long" must_=== 2L
+      }
+    }
+
+    "fail on invalid column" in {
+      val rs = list.resultSet
+
+      (rs.getInt(1) aka "not on row" must throwA[SQLException](
+        message = "Not on a row"
+      )) and {
+        rs.next aka "has first row" must beTrue
+      } and {
+        rs.getInt(6) aka "invalid index" must throwA[SQLException](
+          message = "Invalid column index: 6"
+        )
+      } and {
+        rs.getInt("x") aka "invalid label" must throwA[SQLException](
+          message = "Invalid label: x"
+        )
+      }
+    }
+  }
+
+  "Column values" should {
+    "fail to be read with an incompatible type" in {
+      val values = ColumnarRowList.Values.forClass(classOf[String], 1)
+
+      (values.intValue(0) aka "int" must throwA[ClassCastException](
+        message = "Cannot read java.lang.String value as int"
+      )) and {
+        ColumnarRowList.Values.forClass(classOf[Integer], 1).
+          booleanValue(0) aka "boolean" must throwA[ClassCastException](
+            message = "Cannot read java.lang.Integer value as boolean")
+      }
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package acolyte.jdbc
+
+import java.util.{ List => JList }
+
+import java.nio.file.Files
+
+import jdk.jfr.Recording
+import jdk.jfr.consumer.{ RecordedEvent, RecordingFile }
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.RowList.{ Column => Col }
+import acolyte.jdbc.StatementHandler.Parameter
+
+object DriverEventsSpec extends Specification {
+  "Flight Recorder events".title
+
+  sequential
+
+  lazy val handler = CompositeHandler.empty()
+    .withQueryDetection("^SELECT ")
+    .withQueryHandler(new AbstractCompositeHandler.QueryHandler {
+      def apply(sql: String, ps: JList[Parameter]) = ColumnarRowList
+        .empty(Col(classOf[Integer], "id"))
+        .builder()
+        .append(Int.box(1))
+        .append(Int.box(2))
+        .append(Int.box(3))
+        .build()
+        .asResult
+    })
+    .withUpdateHandler(new AbstractCompositeHandler.UpdateHandler {
+      def apply(sql: String, ps: JList[Parameter]) = new UpdateResult(2)
+    })
+
+  def record(enabled: Boolean)(f: => Unit): List[RecordedEvent] = {
+    val r = new Recording()
+
+    if (enabled) {
+      Seq(
+        "acolyte.ConnectionOpen",
+        "acolyte.ConnectionClose",
+        "acolyte.Prepare",
+        "acolyte.Query",
+        "acolyte.Update",
+        "acolyte.Batch",
+        "acolyte.ResultSet"
+      ).foreach { n => r.enable(n).withoutStackTrace() }
+    }
+
+    r.start()
+
+    try {
+      f
+    } finally {
+      r.stop()
+    }
+
+    val file = Files.createTempFile("acolyte", ".jfr")
+
+    try {
+      r.dump(file)
+
+      val events = RecordingFile.readAllEvents(file)
+      var res = List.empty[RecordedEvent]
+
+      for (i <- 0 until events.size) {
+        val e = events.get(i)
+
+        if (e.getEventType.getName startsWith "acolyte.") {
+          res = res :+ e
+        }
+      }
+
+      res
+    } finally {
+      r.close()
+      Files.delete(file)
+    }
+  }
+
+  def execute(): Unit = {
+    val con = Driver.connection(handler)
+    val q = con.prepareStatement("SELECT * FROM test WHERE id > ?")
+
+    q.setInt(1, 0)
+
+    val rs = q.executeQuery()
+
+    rs.next()
+    rs.next()
+    rs.close()
+
+    val u = con.prepareStatement("UPDATE test SET x = ?")
+
+    u.setInt(1, 1)
+    u.executeUpdate()
+
+    u.setInt(1, 2)
+    u.addBatch()
+    u.setInt(1, 3)
+    u.addBatch()
+    u.executeBatch()
+
+    con.close()
+  }
+
+  "Driver events" should {
+    "be recorded when enabled" in {
+      val events = record(true)(execute())
+      def named(n: String) = events.filter(_.getEventType.getName == n)
+
+      val query = named("acolyte.Query")
+      val update = named("acolyte.Update")
+      val batch = named("acolyte.Batch")
+      val resultSet = named("acolyte.ResultSet")
+
+      (named("acolyte.ConnectionOpen").size aka "open" must_=== 1)
+        .and(named("acolyte.ConnectionClose").size aka "close" must_=== 1)
+        .and(named("acolyte.Prepare").size aka "prepare" must_=== 2)
+        .and(query.size aka "queries" must_=== 1)
+        .and(query.head.getString("sql") aka "query SQL" must_=== (
+          "SELECT * FROM test WHERE id > ?"
+        ))
+        .and(query.head.getInt("parameterCount") aka "parameters" must_=== 1)
+        .and(query.head.getInt("rowCount") aka "rows" must_=== 3)
+        .and(update.size aka "updates" must_=== 3) // 1 + 2 in batch
+        .and(update.head.getInt("updateCount") aka "update count" must_=== 2)
+        .and(batch.size aka "batch" must_=== 1)
+        .and(batch.head.getInt("size") aka "batch size" must_=== 2)
+        .and(resultSet.size aka "result set" must_=== 1)
+        .and(resultSet.head.getInt("rowsRead") aka "rows read" must_=== 2)
+    }
+
+    "be recorded for each checkout of a pooled connection" in {
+      val ds = new PooledDataSource(handler, 1)
+      val events = record(true) {
+        ds.getConnection().close()
+        ds.getConnection().close() // reused
+      }
+      def named(n: String) = events.filter(_.getEventType.getName == n)
+
+      (ds.getHits aka "hits" must_=== 1L)
+        .and(named("acolyte.ConnectionOpen").size aka "open" must_=== 2)
+        .and(named("acolyte.ConnectionClose").size aka "close" must_=== 2)
+    }
+
+    "not be recorded by default" in {
+      record(false)(execute()) aka "events" must beEmpty
+    }
+  }
+}
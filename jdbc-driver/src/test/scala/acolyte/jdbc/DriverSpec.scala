@@ -21,6 +21,8 @@ final class DriverSpec(
 
   "Acolyte driver".title
 
+  sequential // the cache of handler IDs is shared
+
   "Driver class" should {
     "be assignable as java.sql.Driver" in {
       classOf[JdbcDriver]
@@ -195,6 +197,78 @@ final class DriverSpec(
 
       Future.sequence(futures).map(_.fold(ok)(_ and _)).await(1, 5.seconds)
     }
+
+    "reuse the registered handler for the connections" in {
+      val count = new java.util.concurrent.atomic.AtomicInteger(0)
+      val h = CompositeHandler.empty().
+        withQueryDetection("^SELECT ").
+        withQueryHandler(new AbstractCompositeHandler.QueryHandler {
+          def apply(sql: String, ps: java.util.List[StatementHandler.Parameter]) = {
+            count.incrementAndGet()
+            RowLists.stringList().asResult
+          }
+        })
+      val id = s"reused-${UUID.randomUUID()}"
+
+      acolyte.jdbc.Driver.register(id, h)
+
+      try {
+        (1 to 3).foreach { _ =>
+          val con = new acolyte.jdbc.Driver().
+            connect(s"jdbc:acolyte:test?handler=$id", null: java.util.Properties)
+
+          con.createStatement().executeQuery("SELECT 1")
+          con.close()
+        }
+
+        (count.get aka "executions" must_=== 3).
+          and(acolyte.jdbc.Driver.handlers.get(id).getStatementHandler.
+            aka("registered handler") must beTheSameAs(h))
+      } finally {
+        acolyte.jdbc.Driver.unregister(id)
+      }
+    }
+  }
+
+  "Handler ID" should {
+    "be parsed from URL" in {
+      (acolyte.jdbc.Driver.handlerId("jdbc:acolyte:test?handler=abc").
+        aka("ID #1") must_=== "abc") and {
+          acolyte.jdbc.Driver.handlerId("jdbc:acolyte:t?x=1&handler=def&y=2").
+            aka("ID #2") must_=== "def"
+        } and {
+          acolyte.jdbc.Driver.handlerId("jdbc:acolyte:test?handler=abc").
+            aka("cached ID") must_=== "abc"
+        } and {
+          acolyte.jdbc.Driver.handlerId("jdbc:acolyte:test?handler=").
+            aka("empty ID") must throwA[IllegalArgumentException](
+              message = "Invalid handler ID: ")
+        }
+    }
+
+    "be parsed once per URL" in {
+      val url = s"jdbc:acolyte:test?handler=${UUID.randomUUID()}"
+
+      acolyte.jdbc.Driver.handlerId(url) aka "cached ID" must beTheSameAs(
+        acolyte.jdbc.Driver.handlerId(url))
+    }
+
+    "be evicted once the cache bound is exceeded" in {
+      val id = UUID.randomUUID().toString
+      val url = s"jdbc:acolyte:test?handler=$id"
+      val first = acolyte.jdbc.Driver.handlerId(url)
+
+      (1 to acolyte.jdbc.Driver.MAX_CACHED_URLS).foreach { i =>
+        acolyte.jdbc.Driver.handlerId(s"jdbc:acolyte:test?handler=$id-$i")
+      }
+
+      val parsed = acolyte.jdbc.Driver.handlerId(url)
+
+      (parsed aka "parsed again" must not(beTheSameAs(first))).
+        and(parsed aka "ID" must_=== first).
+        and(acolyte.jdbc.Driver.handlerId(url) aka "cached again" must
+          beTheSameAs(parsed))
+    }
   }
 }
 
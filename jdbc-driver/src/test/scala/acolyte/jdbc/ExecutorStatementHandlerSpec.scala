@@ -0,0 +1,174 @@
+package acolyte.jdbc
+
+import java.util.{ ArrayList, List => JList }
+import java.util.concurrent.{ CompletableFuture, Executors, TimeUnit }
+
+import java.sql.{ BatchUpdateException, SQLException, SQLTimeoutException }
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.RowList.{ Column => Col }
+import acolyte.jdbc.StatementHandler.Parameter
+
+object ExecutorStatementHandlerSpec extends Specification {
+  "Asynchronous statement handler".title
+
+  lazy val handler = CompositeHandler.empty()
+    .withQueryDetection("^SELECT ")
+    .withQueryHandler(new AbstractCompositeHandler.QueryHandler {
+      def apply(sql: String, ps: JList[Parameter]) = {
+        if (sql contains "error") throw new SQLException("Expected")
+
+        ColumnarRowList
+          .empty(Col(classOf[Integer], "id"))
+          .builder()
+          .append(Int.box(1))
+          .append(Int.box(2))
+          .build()
+          .asResult
+      }
+    })
+    .withUpdateHandler(new AbstractCompositeHandler.UpdateHandler {
+      def apply(sql: String, ps: JList[Parameter]) = new UpdateResult(3)
+    })
+
+  "Executor handler" should {
+    "refuse invalid arguments" in {
+      (new ExecutorStatementHandler(null) aka "handler" must throwA[
+        IllegalArgumentException
+      ](message = "Invalid handler"))
+        .and(new ExecutorStatementHandler(handler, null) aka "executor" must (
+          throwA[IllegalArgumentException](message = "Invalid executor")
+        ))
+        .and(new ExecutorStatementHandler(handler)
+          .withDelay(-1L, TimeUnit.SECONDS) aka "delay" must (
+            throwA[IllegalArgumentException]
+          ))
+    }
+
+    "execute statements" in {
+      val con = Driver.connection(new ExecutorStatementHandler(handler))
+      val rs = con.createStatement().executeQuery("SELECT * FROM test")
+      val st = con.prepareStatement("UPDATE test SET x = ?")
+
+      st.setInt(1, 1)
+
+      (rs.next() aka "has row" must beTrue)
+        .and(rs.getInt(1) aka "id" must_=== 1)
+        .and(st.executeUpdate() aka "update count" must_=== 3)
+        .and(con.createStatement().executeQuery("SELECT error") aka (
+          "failure"
+        ) must throwA[SQLException](message = "Expected"))
+    }
+
+    "execute the underlying handler after the delay" in {
+      val h = new ExecutorStatementHandler(handler)
+        .withDelay(200L, TimeUnit.MILLISECONDS)
+
+      val start = System.nanoTime()
+      val res = h.whenSQLUpdate("UPDATE test", new ArrayList[Parameter]())
+      val elapsed = (System.nanoTime() - start) / 1000000L
+
+      (res.getUpdateCount aka "update count" must_=== 3)
+        .and(elapsed aka "elapsed" must beGreaterThanOrEqualTo(190L))
+    }
+
+    "not hold threads while delayed" in {
+      val executor = Executors.newSingleThreadExecutor()
+      val h = new ExecutorStatementHandler(handler, executor)
+        .withDelay(300L, TimeUnit.MILLISECONDS)
+
+      try {
+        val start = System.nanoTime()
+        val results = (1 to 2000).map { _ =>
+          h.whenSQLUpdateAsync("UPDATE test", new ArrayList[Parameter]())
+            .toCompletableFuture
+        }
+
+        CompletableFuture.allOf(results: _*).get(10L, TimeUnit.SECONDS)
+
+        val elapsed = (System.nanoTime() - start) / 1000000L
+
+        (results.forall(_.get.getUpdateCount == 3) aka "all completed" must (
+          beTrue
+        )).and(elapsed aka "elapsed" must beLessThan(5000L))
+      } finally {
+        executor.shutdown()
+      }
+    }
+  }
+
+  "Statement" should {
+    lazy val slow = new ExecutorStatementHandler(handler)
+      .withDelay(10L, TimeUnit.SECONDS)
+
+    "enforce the query timeout" in {
+      val st = Driver.connection(slow).createStatement()
+      val start = System.nanoTime()
+
+      st.setQueryTimeout(1)
+
+      (st.executeQuery("SELECT * FROM test") aka "query" must throwA[
+        SQLTimeoutException
+      ](message = "Query timeout exceeded: 1s"))
+        .and((System.nanoTime() - start) / 1000000L aka "elapsed" must (
+          beLessThan(5000L)
+        ))
+    }
+
+    "be cancelled from another thread" in {
+      val st = Driver.connection(slow).prepareStatement("UPDATE test")
+      val canceller = new Thread(new Runnable {
+        def run(): Unit = {
+          Thread.sleep(200L)
+          st.cancel()
+        }
+      })
+
+      canceller.start()
+
+      try {
+        st.executeUpdate() aka "update" must throwA[SQLException].like {
+          case e: SQLException => e.getSQLState aka "state" must_=== "57014"
+        }
+      } finally {
+        canceller.join()
+      }
+    }
+
+    "cancel all the elements of a parallel batch" in {
+      val props = new java.util.Properties()
+
+      props.put("acolyte.batch.parallelism", "2")
+      props.put("acolyte.batch.continueOnError", "true")
+
+      val st = Driver.connection(slow, props).createStatement()
+      val canceller = new Thread(new Runnable {
+        def run(): Unit = {
+          Thread.sleep(500L)
+          st.cancel()
+        }
+      })
+      val start = System.nanoTime()
+
+      st.addBatch("UPDATE test SET a = 1")
+      st.addBatch("UPDATE test SET a = 2")
+      canceller.start()
+
+      try {
+        (st.executeBatch() aka "batch" must throwA[BatchUpdateException].like {
+          case e: BatchUpdateException =>
+            (e.getSQLState aka "state" must_=== "57014")
+              .and(e.getUpdateCounts.toSeq aka "counts" must_=== Seq(
+                java.sql.Statement.EXECUTE_FAILED,
+                java.sql.Statement.EXECUTE_FAILED
+              ))
+        }).and((System.nanoTime() - start) / 1000000L aka "elapsed" must (
+          beLessThan(5000L)
+        ))
+      } finally {
+        canceller.join()
+      }
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package acolyte.jdbc
+
+import java.io.{ ByteArrayInputStream, File, IOException }
+
+import java.math.BigDecimal
+import java.sql.{ Date, Timestamp }
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.RowList.{ Column => Col }
+
+object FixtureImporterSpec extends Specification {
+  "Fixture importer".title
+
+  def input(s: String) = new ByteArrayInputStream(s.getBytes("UTF-8"))
+
+  def cells(list: RowList[_ <: Row]): List[List[Any]] = {
+    val it = list.getRows.iterator
+    var res = List.empty[List[Any]]
+
+    while (it.hasNext) {
+      res = res :+ it.next().cells.toArray.toList
+    }
+
+    res
+  }
+
+  lazy val importer = FixtureImporter.of(
+    Col(classOf[Integer], "id"),
+    Col(classOf[String], "name").withNullable(true),
+    Col(classOf[BigDecimal], "price"),
+    Col(classOf[Date], "day")
+  )
+
+  "CSV" should {
+    "be imported according header" in {
+      val rows = importer.csv(input(
+        "name,id,day,price,other\r\n" +
+          "foo,1,2020-01-02,1.50,x\r\n" +
+          "\"with \"\"quote\"\", comma\nand newline\",2,,-2,y\n" +
+          "\"\",3,2020-02-03,0,z\n" +
+          ",4,2020-03-04,1E+2,\n"
+      ))
+
+      (rows.getColumnLabels.get("price") aka "label" must_=== 3)
+        .and(cells(rows) aka "rows" must_=== List(
+          List(1, "foo", new BigDecimal("1.50"), Date.valueOf("2020-01-02")),
+          List(2, "with \"quote\", comma\nand newline", new BigDecimal("-2"), null),
+          List(3, "", new BigDecimal("0"), Date.valueOf("2020-02-03")),
+          List(4, null, new BigDecimal("1E+2"), Date.valueOf("2020-03-04"))
+        ))
+    }
+
+    "be imported by position with separator" in {
+      val rows = importer.withHeader(false).withSeparator(';').
+        csv(input("1;foo;2.5;2020-01-02\n2;bar\n"))
+
+      cells(rows) aka "rows" must_=== List(
+        List(1, "foo", new BigDecimal("2.5"), Date.valueOf("2020-01-02")),
+        List(2, "bar", null, null)
+      )
+    }
+
+    "skip the blank lines but keep the null values of a single column" in {
+      val single = FixtureImporter.of(
+        Col(classOf[String], "name").withNullable(true)
+      )
+
+      (cells(importer.csv(input(
+        "id,name\n1,foo\n\n  \r\n2,\n"
+      ))) aka "blank lines" must_=== List(
+        List(1, "foo", null, null),
+        List(2, null, null, null)
+      )).and(cells(single.csv(input("name\nfoo\n\nbar\n\n"))).
+        aka("single column") must_=== List(
+          List("foo"), List(null), List("bar"), List(null)
+        ))
+    }
+
+    "be imported by chunks in order" in {
+      val size = 20000
+      val f = File.createTempFile("acolyte-fixture", ".csv")
+      val out = new java.io.PrintWriter(f, "UTF-8")
+
+      f.deleteOnExit()
+      out.println("id,name,price,day")
+
+      (1 to size).foreach { i =>
+        out.println(s"""$i,"name
+$i",$i.5,2020-01-01""")
+      }
+      out.close()
+
+      val rows = importer.withChunkSize(64).csv(f)
+      val rs = rows.resultSet()
+
+      rs.absolute(12345)
+
+      (rows.getRows.size aka "size" must_=== size)
+        .and(rs.getInt(1) aka "id" must_=== 12345)
+        .and(rs.getString(2) aka "name" must_=== "name\n12345")
+        .and(rs.getBigDecimal(3) aka "price" must_=== new BigDecimal("12345.5"))
+        .and(
+          (1 to size).toList.map(i => rows.getRows.get(i - 1).cells.get(0))
+            aka "order" must_=== (1 to size).toList.map(Int.box(_): Object)
+        )
+    }
+
+    "be empty" in {
+      importer.csv(input("")).getRows.size aka "size" must_=== 0
+    }
+
+    "not be imported with invalid value" in {
+      importer.withChunkSize(16).
+        csv(input("id,name\n1,foo\n2,bar\nthree,lorem\n")) aka "import" must {
+          throwA[IOException](message = "Invalid fixture \\(line 4\\): Invalid value for column #1: three")
+        }
+    }
+  }
+
+  "JSON lines" should {
+    "be imported" in {
+      val rows = FixtureImporter.of(
+        Col(classOf[Integer], "id"),
+        Col(classOf[String], "name").withNullable(true),
+        Col(classOf[java.lang.Boolean], "active"),
+        Col(classOf[Timestamp], "ts")
+      ).jsonLines(input(
+          """{"id": 1, "name": "a \"b\"\ncé", "active": true, "ts": "2020-01-02 03:04:05.6"}""" + "\n" +
+            """{ "other": "x", "id": 2, "name": null, "active": false }""" + "\n\n" +
+            """{}"""
+        ))
+
+      cells(rows) aka "rows" must_=== List(
+        List(1, "a \"b\"\ncé", true, Timestamp.valueOf("2020-01-02 03:04:05.6")),
+        List(2, null, false, null),
+        List(null, null, null, null)
+      )
+    }
+
+    "not be imported with nested value" in {
+      importer.jsonLines(input("{\"id\": 1}\n{\"id\": [2]}")) aka "import" must {
+        throwA[IOException](message = "Invalid fixture \\(line 2\\): Unsupported JSON value")
+      }
+    }
+  }
+
+  "Importer" should {
+    "not support unknown column class" in {
+      FixtureImporter.of(Col(classOf[Object], "x")) aka "importer" must {
+        throwA[IllegalArgumentException](message = "Unsupported column class: java.lang.Object")
+      }
+    }
+  }
+}
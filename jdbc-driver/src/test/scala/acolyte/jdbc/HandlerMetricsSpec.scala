@@ -0,0 +1,236 @@
+package acolyte.jdbc
+
+import java.util.{ List => JList }
+import java.lang.management.ManagementFactory
+
+import java.sql.SQLException
+
+import javax.management.openmbean.CompositeData
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.RowList.{ Column => Col }
+import acolyte.jdbc.StatementHandler.Parameter
+
+object HandlerMetricsSpec extends Specification {
+  "Handler metrics".title
+
+  lazy val rows = ColumnarRowList
+    .empty(Col(classOf[Integer], "id"))
+    .builder()
+    .append(Int.box(1))
+    .append(Int.box(2))
+    .append(Int.box(3))
+    .build()
+
+  lazy val handler = CompositeHandler.empty()
+    .withQueryDetection("^SELECT ")
+    .withQueryHandler(new AbstractCompositeHandler.QueryHandler {
+      def apply(sql: String, ps: JList[Parameter]) = {
+        if (sql contains "error") throw new SQLException("Expected")
+
+        rows.asResult
+      }
+    })
+    .withUpdateHandler(new AbstractCompositeHandler.UpdateHandler {
+      def apply(sql: String, ps: JList[Parameter]) = new UpdateResult(2)
+    })
+
+  "Instrumented handler" should {
+    "record statement metrics" in {
+      val metrics = new HandlerMetrics()
+      val con = Driver.connection(metrics.instrument(handler))
+
+      con.createStatement().executeQuery("SELECT * FROM test")
+      con.createStatement().executeQuery("SELECT  *\n FROM test ")
+
+      val st = con.prepareStatement("UPDATE test SET x = ?")
+
+      st.setInt(1, 1)
+      st.executeUpdate()
+      st.executeUpdate()
+
+      val failed = con.createStatement().
+        executeQuery("SELECT error") must throwA[SQLException](
+          message = "Expected"
+        )
+
+      val snapshot = metrics.snapshot()
+      val select = snapshot.getStatement("SELECT * FROM test")
+      val update = snapshot.getStatement("UPDATE test SET x = ?")
+      val error = snapshot.getStatement("SELECT error")
+
+      failed.and(snapshot.getStatements.size aka "statements" must_=== 3)
+        .and(select.getQueries aka "queries" must_=== 2L)
+        .and(select.getRows aka "rows" must_=== 6L)
+        .and(select.getLatency.getCount aka "select latencies" must_=== 2L)
+        .and(update.getUpdates aka "updates" must_=== 2L)
+        .and(update.getUpdateCount aka "update count" must_=== 4L)
+        .and(error.getErrors aka "errors" must_=== 1L)
+        .and(error.getExecutions aka "failed executions" must_=== 1L)
+        .and(snapshot.getStatement("SELECT 1") aka "unknown" must beNull)
+        .and(metrics.getExecutions aka "executions" must_=== 5L)
+        .and(metrics.getErrors aka "total errors" must_=== 1L)
+    }
+
+    "record result with exception as error" in {
+      val metrics = new HandlerMetrics()
+      val h = metrics.instrument(new StatementHandler {
+        def isQuery(sql: String) = true
+
+        def whenSQLQuery(sql: String, ps: JList[Parameter]) =
+          rows.asResult.withException("Expected")
+
+        def whenSQLUpdate(sql: String, ps: JList[Parameter]) =
+          UpdateResult.One.withException("Expected")
+      })
+      val ps = new java.util.ArrayList[Parameter]()
+
+      h.whenSQLQuery("SELECT 1", ps)
+      h.whenSQLUpdate("DELETE test", ps)
+
+      val snapshot = metrics.snapshot()
+      val select = snapshot.getStatement("SELECT 1")
+      val delete = snapshot.getStatement("DELETE test")
+
+      (select.getQueries aka "queries" must_=== 0L)
+        .and(select.getErrors aka "query errors" must_=== 1L)
+        .and(delete.getUpdates aka "updates" must_=== 0L)
+        .and(delete.getErrors aka "update errors" must_=== 1L)
+    }
+
+    "keep the asynchronous and batch handlers" in {
+      val metrics = new HandlerMetrics()
+      val async = metrics.instrument(new ExecutorStatementHandler(handler))
+      val batch = metrics.instrument(new StatementHandler with BatchStatementHandler {
+        def isQuery(sql: String) = false
+
+        def whenSQLQuery(sql: String, ps: JList[Parameter]) = rows.asResult
+
+        def whenSQLUpdate(sql: String, ps: JList[Parameter]) =
+          throw new SQLException("Batch expected")
+
+        def whenSQLBatch(sql: String, ps: Array[Array[Parameter]]) =
+          Array.fill(ps.length)(2)
+      })
+      val con = Driver.connection(batch)
+      val st = con.prepareStatement("INSERT INTO test(x) VALUES (?)")
+
+      st.setInt(1, 1)
+      st.addBatch()
+      st.setInt(1, 2)
+      st.addBatch()
+
+      val counts = st.executeBatch().toSeq
+      val insert = metrics.snapshot().getStatement("INSERT INTO test(x) VALUES (?)")
+      val stage = async.asInstanceOf[AsyncStatementHandler].whenSQLQueryAsync(
+        "SELECT * FROM test",
+        new java.util.ArrayList[Parameter]()
+      ).toCompletableFuture
+
+      stage.get()
+
+      (async must beAnInstanceOf[AsyncStatementHandler])
+        .and(batch must beAnInstanceOf[BatchStatementHandler])
+        .and(counts aka "update counts" must_=== Seq(2, 2))
+        .and(insert.getUpdates aka "batch updates" must_=== 2L)
+        .and(insert.getUpdateCount aka "batch update count" must_=== 4L)
+        .and(eventually {
+          metrics.snapshot().getStatement("SELECT * FROM test").
+            getQueries aka "async queries" must_=== 1L
+        })
+    }
+
+    "record transactions" in {
+      val metrics = new HandlerMetrics()
+      val con = Driver.connection(metrics.instrument(
+        new ConnectionHandler.Default(handler)
+      ))
+
+      con.setAutoCommit(false)
+      con.commit()
+      con.rollback()
+      con.rollback()
+
+      val snapshot = metrics.snapshot()
+
+      (snapshot.getCommits aka "commits" must_=== 1L)
+        .and(snapshot.getRollbacks aka "rollbacks" must_=== 2L)
+    }
+
+    "be reset" in {
+      val metrics = new HandlerMetrics()
+
+      metrics.instrument(handler).whenSQLQuery(
+        "SELECT 1",
+        new java.util.ArrayList[Parameter]()
+      )
+
+      metrics.reset()
+
+      metrics.snapshot().getStatements.isEmpty aka "empty" must beTrue
+    }
+
+    "be exposed through JMX" in {
+      val metrics = new HandlerMetrics()
+      val name = metrics.registerMBean("spec")
+      val server = ManagementFactory.getPlatformMBeanServer
+
+      try {
+        metrics.instrument(handler).whenSQLQuery(
+          "SELECT * FROM test",
+          new java.util.ArrayList[Parameter]()
+        )
+
+        val stmts = server.getAttribute(name, "Statements").
+          asInstanceOf[Array[CompositeData]]
+
+        (server.getAttribute(name, "StatementCount") aka "count" must_=== Int.box(1))
+          .and(stmts.size aka "statements" must_=== 1)
+          .and(stmts(0).get("sql") aka "sql" must_=== "SELECT * FROM test")
+          .and(stmts(0).get("rows") aka "rows" must_=== Long.box(3L))
+          .and(server.invoke(
+            name,
+            "getLatencyPercentile",
+            Array[AnyRef]("SELECT * FROM test", Double.box(50D)),
+            Array("java.lang.String", "double")
+          ).asInstanceOf[Long] aka "p50" must beGreaterThan(0L))
+      } finally {
+        server.unregisterMBean(name)
+      }
+    }
+  }
+
+  "Latency histogram" should {
+    "compute percentiles" in {
+      val h = new LatencyHistogram()
+
+      (1 to 1000).foreach { i => h.record(i.toLong * 1000L) }
+
+      (h.getCount aka "count" must_=== 1000L)
+        .and(h.getMin aka "min" must_=== 1000L)
+        .and(h.getMax aka "max" must_=== 1000000L)
+        .and(h.getMean aka "mean" must_=== 500500D)
+        .and(h.getValueAtPercentile(50D) aka "p50" must beBetween(500000L, 562500L))
+        .and(h.getValueAtPercentile(99D) aka "p99" must beBetween(990000L, 1000000L))
+        .and(h.getValueAtPercentile(100D) aka "p100" must_=== 1000000L)
+    }
+
+    "keep exact small values" in {
+      val h = new LatencyHistogram()
+
+      h.record(3L)
+      h.record(-1L)
+
+      (h.getValueAtPercentile(100D) aka "max" must_=== 3L)
+        .and(h.getValueAtPercentile(50D) aka "p50" must_=== 0L)
+        .and(h.snapshot().getCount aka "snapshot" must_=== 2L)
+    }
+
+    "bucket any value" in {
+      (LatencyHistogram.bucket(Long.MaxValue) aka "last bucket" must_=== 487)
+        .and(LatencyHistogram.highest(487) aka "highest" must_=== Long.MaxValue)
+        .and(LatencyHistogram.highest(LatencyHistogram.bucket(31L)) aka "31" must_=== 31L)
+    }
+  }
+}
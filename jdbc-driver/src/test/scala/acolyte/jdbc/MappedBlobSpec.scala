@@ -0,0 +1,150 @@
+package acolyte.jdbc
+
+import java.io.{ File, FileOutputStream }
+import java.nio.ByteBuffer
+
+import java.sql.{ SQLException, SQLFeatureNotSupportedException }
+
+import org.apache.commons.io.IOUtils
+
+import org.specs2.mutable.Specification
+
+object MappedBlobSpec extends Specification {
+  "Mapped BLOB".title
+
+  val data: Array[Byte] = "abcabdabcabcX".getBytes("US-ASCII")
+
+  def mapped(bytes: Array[Byte]): MappedBlob = {
+    val f = File.createTempFile("acolyte-blob", ".bin")
+    f.deleteOnExit()
+
+    val out = new FileOutputStream(f)
+
+    try {
+      out.write(bytes)
+    } finally {
+      out.close()
+    }
+
+    MappedBlob.map(f)
+  }
+
+  "Mapped file" should {
+    "be read as is" in {
+      val blob = mapped(data)
+
+      (blob.length aka "length" must_=== data.length.toLong)
+        .and(IOUtils.toByteArray(blob.getBinaryStream) aka "stream" must_=== data)
+        .and(blob.getBytes(4L, 3) aka "bytes" must_=== "abd".getBytes)
+        .and(blob.getBytes(12L, 10) aka "bytes at end" must_=== "cX".getBytes)
+    }
+
+    "be empty" in {
+      val blob = mapped(Array.empty[Byte])
+
+      (blob.length aka "length" must_=== 0L)
+        .and(blob.getBinaryStream.read aka "stream" must_=== -1)
+    }
+  }
+
+  "Binary stream" should {
+    "be a slice" in {
+      val blob = MappedBlob.wrap(ByteBuffer.wrap(data))
+      val in = blob.getBinaryStream(4L, 6L)
+
+      (in.available aka "available" must_=== 6)
+        .and {
+          in.skip(1L)
+          in.mark(0)
+
+          IOUtils.toByteArray(in) aka "slice" must_=== "bdabc".getBytes
+        }
+        .and {
+          in.reset()
+
+          in.read() aka "after reset" must_=== 'b'.toInt
+        }
+    }
+
+    "not change the wrapped buffer" in {
+      val buf = ByteBuffer.wrap(data)
+
+      buf.position(3)
+
+      val blob = MappedBlob.wrap(buf)
+
+      IOUtils.toByteArray(blob.getBinaryStream)
+
+      (buf.position() aka "position" must_=== 3)
+        .and(blob.length aka "length" must_=== 10L)
+        .and(blob.getBytes(1L, 3) aka "bytes" must_=== "abd".getBytes)
+    }
+
+    "fail with invalid position" in {
+      val blob = MappedBlob.wrap(ByteBuffer.wrap(data))
+
+      (blob.getBinaryStream(0L, 1L) aka "pos 0" must throwA[SQLException](
+        message = "Invalid position: 0"
+      )).and(blob.getBinaryStream(15L, 1L) aka "after end" must throwA[
+        SQLException
+      ](message = "Invalid position: 15"))
+        .and(blob.getBinaryStream(1L, -1L) aka "negative length" must throwA[
+          SQLException
+        ](message = "Invalid length: -1"))
+    }
+  }
+
+  "Position" should {
+    "be found in place" in {
+      val blob = MappedBlob.wrap(ByteBuffer.wrap(data))
+
+      (blob.position("abcabc".getBytes, 1L) aka "first" must_=== 7L)
+        .and(blob.position("abc".getBytes, 2L) aka "from 2" must_=== 7L)
+        .and(blob.position("X".getBytes, 1L) aka "last" must_=== 13L)
+        .and(blob.position("abcd".getBytes, 1L) aka "missing" must_=== -1L)
+        .and(blob.position(MappedBlob.wrap(ByteBuffer.wrap("dab".getBytes)), 1L).
+          aka("BLOB pattern") must_=== 6L)
+    }
+
+    "fail with invalid offset" in {
+      MappedBlob.wrap(ByteBuffer.wrap(data)).position("a".getBytes, 0L).
+        aka("position") must throwA[SQLException](message = "Invalid offset: 0")
+    }
+  }
+
+  "Mapped BLOB" should {
+    "be read-only" in {
+      val blob = MappedBlob.wrap(ByteBuffer.wrap(data))
+
+      (blob.setBytes(1L, data) aka "set bytes" must throwA[
+        SQLFeatureNotSupportedException
+      ]).and(blob.truncate(1L) aka "truncate" must throwA[
+          SQLFeatureNotSupportedException
+        ])
+    }
+
+    "not be readable once freed" in {
+      val blob = MappedBlob.wrap(ByteBuffer.wrap(data))
+
+      blob.free()
+
+      blob.length aka "length" must throwA[SQLException](message = "BLOB freed")
+    }
+
+    "be streamed by the result set" in {
+      val blob = mapped(data)
+      val rs = RowLists.rowList1(classOf[java.sql.Blob]).
+        withLabel(1, "doc").append(blob).resultSet()
+
+      rs.next()
+
+      (rs.getBlob(1) aka "BLOB" must beTheSameAs(blob))
+        .and(rs.getBlob("doc") aka "BLOB by label" must beTheSameAs(blob))
+        .and(rs.getBinaryStream(1) aka "stream" must beLike {
+          case in: ByteBufferInputStream =>
+            IOUtils.toByteArray(in) aka "bytes" must_=== data
+        })
+        .and(rs.getBytes("doc") aka "bytes" must_=== data)
+    }
+  }
+}
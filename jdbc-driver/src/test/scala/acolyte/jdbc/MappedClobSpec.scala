@@ -0,0 +1,108 @@
+package acolyte.jdbc
+
+import java.io.{ File, FileOutputStream }
+import java.nio.ByteBuffer
+import java.nio.charset.Charset
+
+import java.sql.{ SQLException, SQLFeatureNotSupportedException }
+
+import org.apache.commons.io.IOUtils
+
+import org.specs2.mutable.Specification
+
+object MappedClobSpec extends Specification {
+  "Mapped CLOB".title
+
+  val utf8 = Charset.forName("UTF-8")
+  val latin1 = Charset.forName("ISO-8859-1")
+  val text = "Éléphant à Noël, éléphant"
+
+  def clob(cs: Charset): MappedClob =
+    MappedClob.wrap(ByteBuffer.wrap(text.getBytes(cs)), cs)
+
+  "Mapped CLOB" should {
+    "be read from a file" in {
+      val f = File.createTempFile("acolyte-clob", ".txt")
+      f.deleteOnExit()
+
+      val out = new FileOutputStream(f)
+
+      try {
+        out.write(text.getBytes(utf8))
+      } finally {
+        out.close()
+      }
+
+      val c = MappedClob.map(f, utf8)
+
+      (c.length aka "length" must_=== text.length.toLong)
+        .and(IOUtils.toString(c.getCharacterStream) aka "text" must_=== text)
+    }
+
+    "be read with multi-byte charset" in {
+      val c = clob(utf8)
+
+      (c.length aka "length" must_=== text.length.toLong)
+        .and(c.getSubString(12L, 4) aka "substring" must_=== "Noël")
+        .and(IOUtils.toString(c.getCharacterStream(3L, 6L)) aka "stream" must_===
+          "éphant")
+        .and(c.getSubString(24L, 10) aka "substring at end" must_=== "nt")
+        .and(c.getAsciiStream aka "ASCII" must throwA[
+          SQLFeatureNotSupportedException
+        ])
+    }
+
+    "be sliced with single-byte charset" in {
+      val c = clob(latin1)
+
+      (c.length aka "length" must_=== text.length.toLong)
+        .and(c.getSubString(12L, 4) aka "substring" must_=== "Noël")
+        .and(IOUtils.toString(c.getCharacterStream(3L, 6L)) aka "stream" must_===
+          "éphant")
+        .and(IOUtils.toByteArray(c.getAsciiStream) aka "ASCII" must_===
+          text.getBytes(latin1))
+    }
+
+    "fail with invalid position" in {
+      (clob(utf8).getSubString(27L, 1) aka "UTF-8" must throwA[SQLException](
+        message = "Invalid position: 27"
+      )).and(clob(latin1).getSubString(0L, 1) aka "ISO-8859-1" must throwA[
+          SQLException
+        ](message = "Invalid position: 0"))
+    }
+
+    "find the position on the fly" in {
+      val c = clob(utf8)
+
+      (c.position("éléphant", 1L) aka "first" must_=== 18L)
+        .and(c.position("l", 3L) aka "from 3" must_=== 15L)
+        .and(c.position("lion", 1L) aka "missing" must_=== -1L)
+        .and(c.position(clob(latin1), 1L) aka "CLOB pattern" must_=== 1L)
+        .and(c.position("a", 0L) aka "invalid" must throwA[SQLException](
+          message = "Invalid offset: 0"
+        ))
+    }
+
+    "be read-only" in {
+      clob(utf8).setString(1L, "x") aka "set" must throwA[
+        SQLFeatureNotSupportedException
+      ]
+    }
+
+    "be read by the result set" in {
+      val c = clob(utf8)
+      val rs = RowLists.rowList2(classOf[java.sql.Clob], classOf[String]).
+        withLabel(1, "text").append(c, "str").resultSet()
+
+      rs.next()
+
+      (rs.getClob("text") aka "CLOB" must beTheSameAs(c))
+        .and(IOUtils.toString(rs.getCharacterStream(1)) aka "stream" must_===
+          text)
+        .and(rs.getClob(2).getSubString(1L, 3) aka "string as CLOB" must_===
+          "str")
+        .and(IOUtils.toString(rs.getCharacterStream(2)) aka "string stream" must_===
+          "str")
+    }
+  }
+}
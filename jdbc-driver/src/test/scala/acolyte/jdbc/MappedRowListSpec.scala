@@ -0,0 +1,178 @@
+package acolyte.jdbc
+
+import java.io.{ File, IOException }
+
+import java.math.BigDecimal
+import java.sql.{ Date, ResultSetMetaData, Time, Timestamp }
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.RowList.{ Column => Col }
+
+object MappedRowListSpec extends Specification {
+  "Mapped row list".title
+
+  def tempFile(): File = {
+    val f = File.createTempFile("acolyte-rows", ".bin")
+    f.deleteOnExit()
+    f
+  }
+
+  def reload(rows: RowList[_]): MappedRowList = {
+    val f = tempFile()
+
+    MappedRowList.write(rows, f)
+    MappedRowList.load(f)
+  }
+
+  def cells(list: RowList[_ <: Row]): List[List[Any]] = {
+    val it = list.getRows.iterator
+    var res = List.empty[List[Any]]
+
+    while (it.hasNext) {
+      res = res :+ it.next().cells.toArray.toList
+    }
+
+    res
+  }
+
+  lazy val ts = {
+    val t = new Timestamp(1234L)
+    t.setNanos(234000567)
+    t
+  }
+
+  lazy val typed = ColumnarRowList
+    .empty(
+      Col(classOf[Integer], "i"),
+      Col(classOf[java.lang.Long], "l"),
+      Col(classOf[java.lang.Double], "d"),
+      Col(classOf[java.lang.Float], "f"),
+      Col(classOf[java.lang.Short], "s"),
+      Col(classOf[java.lang.Byte], "b"),
+      Col(classOf[java.lang.Boolean], "bool"),
+      Col(classOf[Date], "date"),
+      Col(classOf[Time], "time"),
+      Col(classOf[Timestamp], "ts"),
+      Col(classOf[String], "str").withNullable(true),
+      Col(classOf[BigDecimal], "dec"),
+      Col(classOf[Object], "any")
+    )
+    .builder()
+    .append(
+      Int.box(1),
+      Long.box(2L),
+      Double.box(3.5D),
+      Float.box(4.5F),
+      Short.box(5.toShort),
+      Byte.box(6.toByte),
+      java.lang.Boolean.TRUE,
+      new Date(7L),
+      new Time(8L),
+      ts,
+      "été",
+      new BigDecimal("10.01"),
+      Int.box(11)
+    )
+    .append(null, null, null, null, null, null, null, null, null, null, null, null, "any")
+    .append(
+      Int.box(-1),
+      Long.box(Long.MaxValue),
+      Double.box(-0.5D),
+      Float.box(0F),
+      Short.box(Short.MinValue),
+      Byte.box(Byte.MaxValue),
+      java.lang.Boolean.FALSE,
+      new Date(0L),
+      new Time(0L),
+      new Timestamp(0L),
+      "",
+      new BigDecimal("-1E+3"),
+      null
+    )
+    .build()
+    .withLabel(1, "alias")
+
+  "Mapped row list" should {
+    "be written and loaded" in {
+      val list = reload(typed)
+
+      (list.getColumnClasses aka "classes" must_=== typed.getColumnClasses)
+        .and(list.getColumnLabels aka "labels" must_=== typed.getColumnLabels)
+        .and(
+          list.getColumnNullables aka "nullables" must_=== (
+            typed.getColumnNullables
+          )
+        )
+        .and(list.getRows.size aka "size" must_=== 3)
+        .and(cells(list) aka "cells" must_=== cells(typed))
+    }
+
+    "be read from result set" in {
+      val rs = reload(typed).resultSet()
+
+      rs.next()
+
+      (rs.getInt("alias") aka "int" must_=== 1)
+        .and(rs.getLong("l") aka "long" must_=== 2L)
+        .and(rs.getString("str") aka "string" must_=== "été")
+        .and(rs.getTimestamp("ts") aka "timestamp" must_=== ts)
+        .and(rs.getBigDecimal("dec") aka "decimal" must_=== new BigDecimal("10.01"))
+        .and(rs.getObject("any") aka "any" must_=== Int.box(11))
+        .and(rs.getMetaData.isNullable(11) aka "nullable" must_=== (
+          ResultSetMetaData.columnNullable
+        ))
+        .and {
+          rs.next()
+
+          (rs.getString("str") aka "null string" must beNull)
+            .and(rs.getInt(1) aka "null int" must_=== 0)
+            .and(rs.wasNull aka "was null" must beTrue)
+            .and(rs.getObject("any") aka "tagged" must_=== "any")
+        }
+    }
+
+    "load large list without decoding it" in {
+      val size = 200000
+      val b = ColumnarRowList
+        .empty(Col(classOf[Integer], "id"), Col(classOf[String], "name"))
+        .builder(size)
+
+      (1 to size).foreach { i => b.append(Int.box(i), s"name$i") }
+
+      val list = reload(b.build())
+      val rs = list.resultSet()
+
+      rs.absolute(150000)
+
+      (list.getRows.size aka "size" must_=== size)
+        .and(rs.getInt(1) aka "id" must_=== 150000)
+        .and(rs.getString(2) aka "name" must_=== "name150000")
+    }
+
+    "support meta-data updates" in {
+      val list = reload(typed)
+
+      (list.withLabel(2, "long").getColumnLabels.get("long")
+        aka "label" must_=== 2)
+        .and(list.withNullable(1, true).getColumnNullables.get(1)
+          aka "nullable" must_=== true)
+        .and(list.withCycling(true).isCycling aka "cycling" must beTrue)
+        .and(list.withLabel(14, "x") aka "invalid index" must throwA[
+          IllegalArgumentException
+        ](message = "Invalid index: 14"))
+    }
+
+    "not load invalid file" in {
+      val f = tempFile()
+      val out = new java.io.FileOutputStream(f)
+
+      out.write("not a row list".getBytes)
+      out.close()
+
+      MappedRowList.load(f) aka "load" must throwA[IOException](
+        message = "Invalid row list"
+      )
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package acolyte.jdbc
+
+import org.specs2.mutable.Specification
+import org.specs2.specification.core.Fragment
+
+object PersistentListSpec extends Specification {
+  "Persistent list".title
+
+  "Empty list" should {
+    "have no element" in {
+      (PersistentList.empty[String].size aka "size" must_=== 0) and {
+        PersistentList.empty[String].get(0) aka "get" must throwA[
+          IndexOutOfBoundsException
+        ]
+      }
+    }
+
+    "not be modified in place" in {
+      PersistentList.empty[String].add("A") aka "add" must throwA[
+        UnsupportedOperationException
+      ]
+    }
+  }
+
+  "Appending" should {
+    def appended(n: Int): PersistentList[Integer] =
+      (0 until n).foldLeft(PersistentList.empty[Integer]) { (l, i) =>
+        l.append(i)
+      }
+
+    def expected(n: Int) = {
+      val l = new java.util.ArrayList[Integer](n)
+      (0 until n).foreach(i => l.add(i))
+      l
+    }
+
+    Fragment.foreach(Seq(1, 32, 33, 64, 1024, 1056, 1057, 33 * 1024 + 1)) {
+      n =>
+        s"keep ordered elements for $n element(s)" in {
+          (appended(n): java.util.List[Integer]) must_=== expected(n)
+        }
+    }
+
+    "share the structure with the original list" in {
+      val orig = appended(100)
+      val derived = orig.append(100)
+
+      (orig.size aka "original size" must_=== 100) and {
+        derived.size aka "derived size" must_=== 101
+      } and {
+        derived.get(100) aka "last element" must_=== 100
+      } and {
+        derived.subList(0, 100) aka "shared elements" must_=== orig
+      }
+    }
+  }
+
+  "Builder" should {
+    def expected(n: Int) = {
+      val l = new java.util.ArrayList[Integer](n)
+      (0 until n).foreach(i => l.add(i))
+      l
+    }
+
+    Fragment.foreach(
+      Seq(0 -> 1, 0 -> 33, 31 -> 2, 32 -> 1024, 1057 -> 32 * 1024)
+    ) {
+      case (init, n) =>
+        s"append $n element(s) in place to $init one(s)" in {
+          val orig = PersistentList.from(expected(init))
+          val builder = PersistentList.builder(orig)
+
+          (init until init + n).foreach(i => builder.append(i))
+
+          val built = builder.build()
+
+          ((built: java.util.List[Integer]) must_=== expected(init + n)).
+            and(orig aka "original" must_=== expected(init)).
+            and(built.append(-1).get(init + n) aka "appended" must_=== -1).
+            and(builder.append(0) aka "once built" must throwA[
+              IllegalStateException])
+        }
+    }
+  }
+
+  "Conversion" should {
+    "return a persistent list as is" in {
+      val list = PersistentList.empty[String].append("A")
+
+      PersistentList.from(list) aka "converted" must beTheSameAs(list)
+    }
+
+    Fragment.foreach(Seq(0, 1, 32, 33, 1024, 1025, 32 * 1024 + 33)) { n =>
+      s"copy $n element(s) from another list" in {
+        val l = new java.util.ArrayList[Integer](n)
+        (0 until n).foreach(i => l.add(i))
+
+        val converted = PersistentList.from(l)
+
+        ((converted: java.util.List[Integer]) must_=== l) and {
+          converted.append(n).get(n) aka "appended" must_=== n
+        } and {
+          converted.append(n).subList(0, n) aka "previous" must_=== l
+        }
+      }
+    }
+  }
+}
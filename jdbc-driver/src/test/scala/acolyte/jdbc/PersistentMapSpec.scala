@@ -0,0 +1,114 @@
+package acolyte.jdbc
+
+import org.specs2.mutable.Specification
+import org.specs2.specification.core.Fragment
+
+object PersistentMapSpec extends Specification {
+  "Persistent map".title
+
+  /** Key with a fixed hash code, to test the collisions. */
+  final case class Colliding(name: String) {
+    override def hashCode = 42
+  }
+
+  def filled(n: Int): PersistentMap[Integer, String] =
+    (0 until n).foldLeft(PersistentMap.empty[Integer, String]) { (m, i) =>
+      m.plus(i, s"v$i")
+    }
+
+  def expected(n: Int) = {
+    val m = new java.util.HashMap[Integer, String](n)
+    (0 until n).foreach(i => m.put(i, s"v$i"))
+    m
+  }
+
+  "Empty map" should {
+    "have no entry" in {
+      (PersistentMap.empty[String, String].size aka "size" must_=== 0) and {
+        PersistentMap.empty[String, String].get("A") aka "get" must beNull
+      } and {
+        PersistentMap.empty[String, String].entrySet.iterator.hasNext.
+          aka("iterator") must beFalse
+      }
+    }
+
+    "not be modified in place" in {
+      PersistentMap.empty[String, String].put("A", "B") aka "put" must throwA[
+        UnsupportedOperationException
+      ]
+    }
+  }
+
+  "Putting" should {
+    Fragment.foreach(Seq(1, 32, 33, 1024, 33 * 1024 + 1)) { n =>
+      s"keep the entries for $n key(s)" in {
+        val m = filled(n)
+
+        ((m: java.util.Map[Integer, String]) must_=== expected(n)) and {
+          m.size aka "size" must_=== n
+        } and {
+          m.get(n - 1) aka "last" must_=== s"v${n - 1}"
+        }
+      }
+    }
+
+    "replace the value of an existing key" in {
+      val orig = filled(100)
+      val derived = orig.plus(50, "updated")
+
+      (derived.size aka "size" must_=== 100) and {
+        derived.get(50) aka "updated" must_=== "updated"
+      } and {
+        orig.get(50) aka "original" must_=== "v50"
+      }
+    }
+
+    "support the colliding and null keys" in {
+      val m = PersistentMap.empty[AnyRef, String].
+        plus(Colliding("a"), "1").plus(Colliding("b"), "2").
+        plus(null, "3").plus(Colliding("a"), "4")
+
+      (m.size aka "size" must_=== 3) and {
+        m.get(Colliding("a")) aka "a" must_=== "4"
+      } and {
+        m.get(Colliding("b")) aka "b" must_=== "2"
+      } and {
+        m.get(null) aka "null" must_=== "3"
+      } and {
+        m.get(Colliding("c")) aka "c" must beNull
+      }
+    }
+  }
+
+  "Removing" should {
+    "keep the other entries" in {
+      val orig = filled(2000)
+      val derived = (0 until 2000 by 2).foldLeft(orig) { (m, i) =>
+        m.minus(i)
+      }
+      val odd = expected(2000)
+
+      (0 until 2000 by 2).foreach(i => odd.remove(i))
+
+      ((derived: java.util.Map[Integer, String]) must_=== odd) and {
+        derived.size aka "size" must_=== 1000
+      } and {
+        orig.size aka "original size" must_=== 2000
+      } and {
+        derived.minus(0) aka "absent key" must beTheSameAs(derived)
+      }
+    }
+
+    "remove the colliding keys" in {
+      val m = PersistentMap.empty[AnyRef, String].
+        plus(Colliding("a"), "1").plus(Colliding("b"), "2").
+        minus(Colliding("a"))
+
+      (m.size aka "size" must_=== 1) and {
+        m.get(Colliding("b")) aka "b" must_=== "2"
+      } and {
+        m.minus(Colliding("b")).isEmpty aka "empty" must beTrue
+      }
+    }
+  }
+}
@@ -0,0 +1,282 @@
+package acolyte.jdbc
+
+import java.sql.SQLException
+
+import scala.concurrent.{ Await, Future }
+import scala.concurrent.ExecutionContext.Implicits.global
+import scala.concurrent.duration._
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.test.EmptyConnectionHandler
+
+object PooledDataSourceSpec extends Specification {
+  "Pooled data source".title
+
+  /** Returns the pooled connection of the |handle|. */
+  def pooled(handle: java.sql.Connection): Connection =
+    handle.unwrap(classOf[Connection])
+
+  "Data source" should {
+    "refuse invalid configuration" in {
+      (new PooledDataSource(null.asInstanceOf[ConnectionHandler], 1).
+        aka("no handler") must throwA[IllegalArgumentException](
+          message = "Invalid Acolyte handler")) and {
+          new PooledDataSource(EmptyConnectionHandler, -1).
+            aka("negative size") must throwA[IllegalArgumentException](
+              message = "Invalid pool size: -1")
+        }
+    }
+
+    "create connection with properties" in {
+      val props = new java.util.Properties()
+      props.put("acolyte.test", "val")
+
+      val ds = new PooledDataSource(EmptyConnectionHandler, props, 2)
+      val con = ds.getConnection()
+
+      (pooled(con).getProperties aka "properties" must_=== props) and {
+        con.isClosed aka "closed" must beFalse
+      } and {
+        con.getMetaData.getURL aka "URL" must startWith("jdbc:acolyte:pooled-")
+      }
+    }
+
+    "reuse closed connection" in {
+      val ds = new PooledDataSource(EmptyConnectionHandler, 2)
+      val con1 = ds.getConnection()
+      val physical = pooled(con1)
+
+      (ds.getMisses aka "misses #1" must_=== 1L) and {
+        con1.close()
+        ds.getIdleCount aka "idle count #1" must_=== 1
+      } and {
+        con1.isClosed aka "closed" must beTrue
+      } and {
+        con1.createStatement() aka "closed statement" must throwA[SQLException](
+          message = "Connection is already closed")
+      } and {
+        val con2 = ds.getConnection()
+
+        (con2 aka "new handle" must not(be(con1))) and {
+          pooled(con2) aka "reused connection" must be(physical)
+        } and {
+          con2.isClosed aka "reopened" must beFalse
+        } and {
+          ds.getHits aka "hits" must_=== 1L
+        } and {
+          ds.getIdleCount aka "idle count #2" must_=== 0
+        } and {
+          pooled(ds.getConnection()) aka "new connection" must not(be(physical))
+        } and {
+          ds.getMisses aka "misses #2" must_=== 2L
+        }
+      }
+    }
+
+    "not use the connection through a closed handle" in {
+      val ds = new PooledDataSource(EmptyConnectionHandler, 1)
+      val con1 = ds.getConnection()
+
+      con1.close()
+
+      val con2 = ds.getConnection() // same pooled connection
+
+      (con1.setAutoCommit(true) aka "stale handle" must throwA[SQLException](
+        message = "Connection is already closed")) and {
+        con1.getClientInfo("name") aka "stale client info" must throwA[
+          SQLException](message = "Connection is already closed")
+      } and {
+        con1.close() aka "stale close" must throwA[SQLException](
+          message = "Connection is already closed")
+      } and {
+        con1.isValid(0) aka "stale validity" must beFalse
+      } and {
+        (con2.isClosed, con2.getAutoCommit) aka "current handle" must_=== (
+          false -> false)
+      } and {
+        ds.getIdleCount aka "idle count" must_=== 0
+      }
+    }
+
+    "close the statements and rollback on release" in {
+      var rollbacks = 0
+      val handler = new ConnectionHandler.Default(
+        test.EmptyStatementHandler,
+        new ResourceHandler {
+          def whenCommitTransaction(c: Connection) = ()
+          def whenRollbackTransaction(c: Connection) = rollbacks += 1
+        }
+      )
+      val ds = new PooledDataSource(handler, 1)
+      val con = ds.getConnection()
+      val st = con.createStatement()
+      val ps = con.prepareStatement("UPDATE test SET a = ?")
+
+      con.close()
+
+      (st.isClosed aka "statement" must beTrue) and {
+        ps.isClosed aka "prepared statement" must beTrue
+      } and {
+        rollbacks aka "rollbacks" must_=== 1
+      } and {
+        val auto = ds.getConnection()
+
+        auto.setAutoCommit(true)
+        auto.close()
+
+        rollbacks aka "no rollback in auto-commit mode" must_=== 1
+      }
+    }
+
+    "refer to the handle from statements, result sets and metadata" in {
+      val ds = new PooledDataSource(EmptyConnectionHandler, 1)
+      val con = ds.getConnection()
+      val st = con.createStatement()
+      val ps = con.prepareStatement("SELECT * FROM test")
+      val rs = ps.executeQuery()
+
+      (st.getConnection aka "statement connection" must be(con)) and {
+        ps.getConnection aka "prepared statement connection" must be(con)
+      } and {
+        rs.getStatement aka "result set statement" must be(ps)
+      } and {
+        rs.getStatement.getConnection aka "result set connection" must be(con)
+      } and {
+        con.getMetaData.getConnection aka "metadata connection" must be(con)
+      } and {
+        st.executeQuery("SELECT 1").getStatement aka "statement" must be(st)
+      } and {
+        st.close()
+        st.isClosed aka "closed statement" must beTrue
+      } and {
+        ps.getConnection.close()
+
+        (con.isClosed aka "closed handle" must beTrue) and {
+          ps.isClosed aka "statement closed with handle" must beTrue
+        } and {
+          ds.getIdleCount aka "idle count" must_=== 1
+        }
+      }
+    }
+
+    "discard a pooled connection closed behind the handle" in {
+      val ds = new PooledDataSource(EmptyConnectionHandler, 1)
+      val con = ds.getConnection()
+      val physical = pooled(con)
+
+      physical.close()
+
+      (con.close() aka "close handle" must not(throwA[SQLException])) and {
+        ds.getIdleCount aka "idle count" must_=== 0
+      } and {
+        pooled(ds.getConnection()) aka "new" must not(be(physical))
+      }
+    }
+
+    "reset connection state" in {
+      val ds = new PooledDataSource(EmptyConnectionHandler, 1)
+      val con = ds.getConnection()
+      val typemap = new java.util.HashMap[String, Class[_]]()
+
+      typemap.put("type", classOf[String])
+
+      val physical = pooled(con)
+
+      con.setAutoCommit(false)
+      con.setSavepoint("sp")
+      con.setAutoCommit(true)
+      con.setReadOnly(true)
+      con.setTransactionIsolation(java.sql.Connection.TRANSACTION_SERIALIZABLE)
+      con.setTypeMap(typemap)
+      con.setClientInfo("name", "value")
+      con.setCatalog("cat")
+      con.setSchema("sch")
+      con.close()
+
+      val reused = ds.getConnection()
+
+      (pooled(reused) aka "reused" must be(physical)) and {
+        reused.getAutoCommit aka "auto-commit" must beFalse
+      } and {
+        reused.isReadOnly aka "read-only" must beFalse
+      } and {
+        reused.getTransactionIsolation aka "isolation" must_=== (
+          java.sql.Connection.TRANSACTION_NONE)
+      } and {
+        reused.getWarnings aka "warnings" must beNull
+      } and {
+        reused.getTypeMap.isEmpty aka "empty type map" must beTrue
+      } and {
+        typemap.size aka "caller type map" must_=== 1
+      } and {
+        reused.getClientInfo.isEmpty aka "client info" must beTrue
+      } and {
+        reused.getCatalog aka "catalog" must beNull
+      } and {
+        reused.getSchema aka "schema" must beNull
+      }
+    }
+
+    "discard connections over the pool size" in {
+      val ds = new PooledDataSource(EmptyConnectionHandler, 1)
+      val con1 = ds.getConnection()
+      val con2 = ds.getConnection()
+      val (physical1, physical2) = (pooled(con1), pooled(con2))
+
+      con1.close()
+      con2.close()
+
+      (ds.getIdleCount aka "idle count" must_=== 1) and {
+        pooled(ds.getConnection()) aka "reused" must be(physical1)
+      } and {
+        pooled(ds.getConnection()) aka "new" must not(be(physical2))
+      } and {
+        (ds.getHits, ds.getMisses) aka "hits/misses" must_=== (1L -> 3L)
+      }
+    }
+
+    "not pool connection with size 0" in {
+      val ds = new PooledDataSource(EmptyConnectionHandler, 0)
+      val con = ds.getConnection()
+      val physical = pooled(con)
+
+      con.close()
+
+      (ds.getIdleCount aka "idle count" must_=== 0) and {
+        pooled(ds.getConnection()) aka "new" must not(be(physical))
+      }
+    }
+
+    "not close connection twice" in {
+      val ds = new PooledDataSource(EmptyConnectionHandler, 2)
+      val con = ds.getConnection()
+
+      con.close()
+
+      (con.close() aka "second close" must throwA[SQLException](
+        message = "Connection is already closed")) and {
+        ds.getIdleCount aka "idle count" must_=== 1
+      }
+    }
+
+    "be used from several threads" in {
+      val ds = new PooledDataSource(EmptyConnectionHandler, 4)
+      val futures = (1 to 1000).map { _ =>
+        Future {
+          val con = ds.getConnection()
+          val closed = con.isClosed
+          con.close()
+          closed
+        }
+      }
+
+      (Await.result(Future.sequence(futures), 10.seconds).
+        aka("closed on checkout") must not(contain(true))) and {
+          (ds.getHits + ds.getMisses) aka "checkouts" must_=== 1000L
+        } and {
+          ds.getIdleCount aka "idle count" must be_<=(4)
+        }
+    }
+  }
+}
@@ -337,6 +337,392 @@ trait StatementSpecification[S <: PreparedStatement] extends Setters {
         throwA[SQLException]
       ) and (h.exed.size aka "executed" must_=== 0)
     }
+
+    "be executed in parallel (batch.parallelism)" in {
+      val props = new Properties()
+      props.put("acolyte.batch.parallelism", "8")
+
+      val running = new java.util.concurrent.atomic.AtomicInteger(0)
+      val maxRunning = new java.util.concurrent.atomic.AtomicInteger(0)
+      val h = new Handler {
+        override def whenSQLUpdate(s: String, p: Params) = {
+          val r = running.incrementAndGet()
+          maxRunning.accumulateAndGet(r, Math.max(_, _))
+          Thread.sleep(5L)
+          running.decrementAndGet()
+
+          new UpdateResult(p.get(1).right.asInstanceOf[Int])
+        }
+      }
+      lazy val s = statement(c = connection(props), h = h)
+
+      (1 to 64).foreach { i =>
+        s.setString(1, "A"); s.setInt(2, i); s.addBatch()
+      }
+
+      (s.executeBatch() aka "update counts" must_=== (1 to 64).toArray) and {
+        maxRunning.get aka "max parallel executions" must beBetween(2, 8)
+      }
+    }
+
+    "not change the statement state executing a batch in parallel" in {
+      val props = new Properties()
+      props.put("acolyte.batch.parallelism", "4")
+
+      val h = new Handler {
+        override def whenSQLUpdate(s: String, p: Params) =
+          new UpdateResult(p.get(1).right.asInstanceOf[Int])
+      }
+      lazy val s = statement(c = connection(props), h = h)
+
+      s.setString(1, "A"); s.setInt(2, 100)
+      s.executeUpdate()
+
+      (1 to 16).foreach { i =>
+        s.setString(1, "A"); s.setInt(2, i); s.addBatch()
+      }
+
+      (s.executeBatch() aka "update counts" must_=== (1 to 16).toArray) and {
+        s.getUpdateCount aka "update count" must_=== 100
+      } and {
+        s.getWarnings aka "warning" must beNull
+      }
+    }
+
+    "throw same exception executing sequentially or in parallel" in {
+      def failed(parallelism: String) = {
+        val props = new Properties()
+        props.put("acolyte.batch.parallelism", parallelism)
+
+        val h = new Handler {
+          override def whenSQLUpdate(s: String, p: Params) =
+            throw new IllegalStateException("Unexpected")
+        }
+        lazy val s = statement(c = connection(props), h = h)
+
+        s.setString(1, "A"); s.setInt(2, 1); s.addBatch()
+        s.setString(1, "B"); s.setInt(2, 2); s.addBatch()
+
+        s.executeBatch() aka s"batch ($parallelism)" must throwA[
+          BatchUpdateException
+        ].like {
+          case ex: BatchUpdateException =>
+            (ex.getUpdateCounts.toSeq aka "update counts" must_=== Seq(
+              EXECUTE_FAILED, EXECUTE_FAILED
+            )).and(ex.getCause aka "cause" must beAnInstanceOf[
+              IllegalStateException
+            ])
+        }
+      }
+
+      failed("1").and(failed("2"))
+    }
+
+    "throw same exception executing in parallel" in {
+      val props = new Properties()
+      props.put("acolyte.batch.parallelism", "4")
+
+      val h = new Handler {
+        override def whenSQLUpdate(s: String, p: Params) = {
+          val i = p.get(1).right.asInstanceOf[Int]
+          if (i == 3 || i == 7) sys.error(s"Batch error: $i")
+          new UpdateResult(i)
+        }
+      }
+      lazy val s = statement(c = connection(props), h = h)
+
+      (1 to 10).foreach { i =>
+        s.setString(1, "A"); s.setInt(2, i); s.addBatch()
+      }
+
+      s.executeBatch() aka "batch execution" must throwA[
+        BatchUpdateException
+      ].like {
+        case ex: BatchUpdateException =>
+          (ex.getUpdateCounts aka "update count" must_=== Array[Int](
+            1, 2, EXECUTE_FAILED, EXECUTE_FAILED, EXECUTE_FAILED,
+            EXECUTE_FAILED, EXECUTE_FAILED, EXECUTE_FAILED, EXECUTE_FAILED,
+            EXECUTE_FAILED
+          )).and(ex.getCause.getMessage aka "cause" must_=== "Batch error: 3")
+      }
+    }
+
+    "continue after errors executing in parallel" in {
+      val props = new Properties()
+      props.put("acolyte.batch.parallelism", "4")
+      props.put("acolyte.batch.continueOnError", "true")
+
+      val h = new Handler {
+        override def whenSQLUpdate(s: String, p: Params) = {
+          val i = p.get(1).right.asInstanceOf[Int]
+          if (i == 3 || i == 7) sys.error(s"Batch error: $i")
+          new UpdateResult(i)
+        }
+      }
+      lazy val s = statement(c = connection(props), h = h)
+
+      (1 to 10).foreach { i =>
+        s.setString(1, "A"); s.setInt(2, i); s.addBatch()
+      }
+
+      s.executeBatch() aka "batch execution" must throwA[
+        BatchUpdateException
+      ].like {
+        case ex: BatchUpdateException =>
+          (ex.getUpdateCounts aka "update count" must_=== Array[Int](
+            1, 2, EXECUTE_FAILED, 4, 5, 6, EXECUTE_FAILED, 8, 9, 10
+          )).and(ex.getCause.getMessage aka "cause" must_=== "Batch error: 3")
+      }
+    }
+
+    "not be executed with invalid parallelism" in {
+      val props = new Properties()
+      props.put("acolyte.batch.parallelism", "0")
+
+      lazy val s = statement(c = connection(props), h = new Handler())
+      s.setString(1, "A"); s.setInt(2, 1); s.addBatch()
+
+      s.executeBatch() aka "batch execution" must throwA[SQLException](
+        message = "Invalid batch parallelism: 0")
+    }
+
+    "be executed in a single call by batch handler" in {
+      val h = new Handler with BatchStatementHandler {
+        var bulk = Seq.empty[(String, Array[Array[Parameter]])]
+
+        def whenSQLBatch(sql: String, ps: Array[Array[Parameter]]) = {
+          bulk = bulk :+ (sql -> ps)
+          ps.map(_(1).right.asInstanceOf[Int])
+        }
+      }
+      lazy val s = statement(h = h)
+
+      (1 to 1000).foreach { i =>
+        s.setString(1, s"V$i"); s.setInt(2, i); s.addBatch()
+      }
+
+      (s.executeBatch() aka "update counts" must_=== (1 to 1000).toArray).
+        and(h.exed.size aka "executed one by one" must_=== 0).
+        and(h.bulk.size aka "bulk calls" must_=== 1).
+        and(h.bulk.head._1 aka "SQL" must_=== "TEST").
+        and(h.bulk.head._2.length aka "rows" must_=== 1000).
+        and(h.bulk.head._2(9).toSeq aka "10th row" must_=== Seq(
+          Parameter.of(ParameterMetaData.Str, "V10"),
+          Parameter.of(ParameterMetaData.Int, 10)))
+    }
+
+    "fail with batch handler" in {
+      def failing(f: => Array[Int]) = new Handler with BatchStatementHandler {
+        def whenSQLBatch(sql: String, ps: Array[Array[Parameter]]) = f
+      }
+
+      def batch(h: StatementHandler) = {
+        val s = statement(h = h)
+        s.setString(1, "A"); s.setInt(2, 1); s.addBatch()
+        s.setString(1, "B"); s.setInt(2, 2); s.addBatch()
+        s.executeBatch()
+      }
+
+      (batch(failing(sys.error("Bulk error"))) aka "runtime error" must throwA[
+        BatchUpdateException].like {
+          case ex: BatchUpdateException =>
+            (ex.getUpdateCounts aka "update count" must_=== Array[Int](
+              EXECUTE_FAILED, EXECUTE_FAILED)).
+              and(ex.getMessage aka "message" must_=== "Bulk error")
+        }) and {
+          batch(failing(throw new BatchUpdateException(
+            "Partial", Array[Int](1, EXECUTE_FAILED)))).
+            aka("batch error") must throwA[BatchUpdateException].like {
+              case ex: BatchUpdateException =>
+                ex.getUpdateCounts aka "update count" must_=== Array[Int](
+                  1, EXECUTE_FAILED)
+            }
+        } and {
+          batch(failing(Array(1))) aka "invalid counts" must throwA[
+            BatchUpdateException](message = "Invalid update counts: 1 != 2")
+        }
+    }
+
+    "keep the counts after a failure of batch handler if continuing" in {
+      val h = new Handler with BatchStatementHandler {
+        def whenSQLBatch(sql: String, ps: Array[Array[Parameter]]) =
+          throw new BatchUpdateException(
+            "Partial", Array[Int](1, EXECUTE_FAILED, 3))
+      }
+
+      def batch(props: Properties) = {
+        val s = statement(c = connection(props), h = h)
+        s.setString(1, "A"); s.setInt(2, 1); s.addBatch()
+        s.setString(1, "B"); s.setInt(2, 2); s.addBatch()
+        s.setString(1, "C"); s.setInt(2, 3); s.addBatch()
+        s.executeBatch()
+      }
+
+      val cont = new Properties()
+      cont.put("acolyte.batch.continueOnError", "true")
+
+      (batch(cont) aka "continue on error" must throwA[
+        BatchUpdateException].like {
+          case ex: BatchUpdateException =>
+            ex.getUpdateCounts aka "update count" must_=== Array[Int](
+              1, EXECUTE_FAILED, 3)
+        }) and {
+          batch(new Properties()) aka "stop on error" must throwA[
+            BatchUpdateException].like {
+              case ex: BatchUpdateException =>
+                ex.getUpdateCounts aka "update count" must_=== Array[Int](
+                  1, EXECUTE_FAILED, EXECUTE_FAILED)
+            }
+        }
+    }
+
+    "be executed by batch handler within statement context" in {
+      val h = new Handler with BatchStatementHandler {
+        var context = Option.empty[StatementContext]
+
+        def whenSQLBatch(sql: String, ps: Array[Array[Parameter]]) = {
+          context = Option(StatementContext.current())
+          Array.fill(ps.length)(1)
+        }
+      }
+      lazy val s = statement(h = h)
+
+      s.setString(1, "A"); s.setInt(2, 1); s.addBatch()
+
+      (s.executeBatch() aka "update counts" must_=== Array(1)).
+        and(h.context.map(_.getSql) aka "context SQL" must beSome("TEST")).
+        and(StatementContext.current() aka "context after" must beNull)
+    }
+
+    "time out with asynchronous batch handler" in {
+      val h = new Handler with AsyncStatementHandler with BatchStatementHandler {
+        def whenSQLBatch(sql: String, ps: Array[Array[Parameter]]) = {
+          Thread.sleep(5000L)
+          Array.fill(ps.length)(1)
+        }
+
+        def whenSQLQueryAsync(s: String, p: Params) =
+          java.util.concurrent.CompletableFuture.completedFuture(
+            whenSQLQuery(s, p))
+
+        def whenSQLUpdateAsync(s: String, p: Params) =
+          java.util.concurrent.CompletableFuture.completedFuture(
+            whenSQLUpdate(s, p))
+      }
+      lazy val s = statement(h = h)
+
+      s.setString(1, "A"); s.setInt(2, 1); s.addBatch()
+      s.setQueryTimeout(1)
+
+      s.executeBatch() aka "batch execution" must throwA[
+        BatchUpdateException].like {
+          case ex: BatchUpdateException =>
+            (ex.getUpdateCounts aka "update count" must_=== Array[Int](
+              EXECUTE_FAILED)).and(ex.getMessage aka "message" must startWith(
+              "Query timeout exceeded"))
+        }
+    }
+
+    "not be executed by batch handler with missing parameter" in {
+      val h = new Handler with BatchStatementHandler {
+        def whenSQLBatch(sql: String, ps: Array[Array[Parameter]]) =
+          sys.error("Unexpected")
+      }
+      lazy val s = statement(h = h)
+
+      s.setInt(2, 1); s.addBatch()
+
+      s.executeBatch() aka "batch execution" must throwA[
+        BatchUpdateException](message = "Missing parameter value: 1")
+    }
+  }
+
+  "Parameters" should {
+    class Handler extends StatementHandler {
+      var params = Seq.empty[java.util.List[Parameter]]
+      def isQuery(s: String) = false
+
+      def whenSQLUpdate(s: String, p: Params) = {
+        params = params :+ p
+        new UpdateResult(params.size)
+      }
+      def whenSQLQuery(s: String, p: Params) = sys.error("TEST")
+    }
+
+    "be passed as immutable list" in {
+      val h = new Handler()
+      lazy val s = statement(s = "UPDATE t SET a = ? WHERE b = '?'", h = h)
+
+      s.setString(1, "A")
+      s.executeUpdate()
+
+      (h.params.head.size aka "size" must_=== 1) and {
+        h.params.head.add(Parameter.of(ParameterMetaData.Int, 1)).
+          aka("add") must throwA[UnsupportedOperationException]
+      } and {
+        h.params.head.set(0, null) aka "set" must throwA[
+          UnsupportedOperationException]
+      }
+    }
+
+    "be shared while not updated" in {
+      val h = new Handler()
+      lazy val s = statement(h = h)
+
+      s.setString(1, "A"); s.setInt(2, 1)
+      s.executeUpdate(); s.executeUpdate()
+
+      s.setInt(2, 2)
+      s.executeUpdate()
+
+      val Seq(p1, p2, p3) = h.params
+
+      (p2 aka "same list" must be(p1)) and {
+        p1.get(1) aka "first value" must_=== Parameter.
+          of(ParameterMetaData.Int, 1)
+      } and {
+        p3.get(1) aka "updated value" must_=== Parameter.
+          of(ParameterMetaData.Int, 2)
+      } and {
+        p3.get(0) aka "unchanged value" must_=== p1.get(0)
+      }
+    }
+
+    "be more than the placeholders" in {
+      val h = new Handler()
+      lazy val s = statement(s = "CALL proc(?)", h = h)
+
+      s.setString(1, "A"); s.setInt(3, 3)
+
+      (s.executeUpdate() aka "missing" must throwA[SQLException](
+        message = "Missing parameter value: 2")) and {
+        s.setLong(2, 2L)
+        s.executeUpdate() aka "update" must_=== 1
+      } and {
+        h.params.head.size aka "parameter count" must_=== 3
+      }
+    }
+
+    "be cleared" in {
+      val h = new Handler()
+      lazy val s = statement(h = h)
+
+      s.setString(1, "A"); s.setInt(2, 1)
+      s.executeUpdate()
+      s.clearParameters()
+      s.setString(1, "B")
+      s.executeUpdate()
+
+      (h.params.map(_.size) aka "sizes" must_=== Seq(2, 1)) and {
+        h.params.head.get(0) aka "first value" must_=== Parameter.
+          of(ParameterMetaData.Str, "A")
+      }
+    }
+
+    "not be set with invalid index" in {
+      statement().setString(0, "A") aka "setter" must throwA[SQLException](
+        message = "Invalid parameter index: 0")
+    }
   }
 
   "Null" should {
@@ -0,0 +1,129 @@
+package acolyte.jdbc
+
+import java.util.regex.Pattern
+
+import org.specs2.execute.{ Result => ExecResult }
+import org.specs2.mutable.Specification
+import org.specs2.specification.core.Fragment
+
+object QueryDetectionSpec extends Specification {
+  "Query detection".title
+
+  lazy val statements = Seq(
+    "SELECT * FROM table",
+    "select * from table",
+    "SeLeCt 1",
+    "SELECT",
+    "SEL",
+    "",
+    "EXEC that_proc('test')",
+    "exec that_proc",
+    "  SELECT 2",
+    "WITH cte AS (SELECT 1) SELECT * FROM cte",
+    "UPDATE table SET a = 1",
+    "INSERT INTO table VALUES (1)",
+    "CALL proc(?)",
+    "\nSELECT 3",
+    "VALUES 1",
+    "show tables",
+    "aa",
+    "abab"
+  )
+
+  lazy val patternSets = Seq(
+    "literal prefix" -> Seq(Pattern.compile("^SELECT ")),
+    "literal without anchor" -> Seq(Pattern.compile("EXEC that_proc")),
+    "case insensitive flag" -> Seq(
+      Pattern.compile("^select", Pattern.CASE_INSENSITIVE)
+    ),
+    "inline case insensitive" -> Seq(Pattern.compile("(?i)^show .*")),
+    "overlapping prefixes" -> Seq(
+      Pattern.compile("^SELECT"),
+      Pattern.compile("^SEL"),
+      Pattern.compile("^SELECT *")
+    ),
+    "regular expressions" -> Seq(
+      Pattern.compile("^\\s*SELECT"),
+      Pattern.compile("(?i)with\\s+\\w+"),
+      Pattern.compile("CALL|VALUES")
+    ),
+    "multiline" -> Seq(Pattern.compile("^SELECT", Pattern.MULTILINE)),
+    "literal flag" -> Seq(Pattern.compile("EXEC", Pattern.LITERAL)),
+    "back reference" -> Seq(
+      Pattern.compile("(a)\\1"),
+      Pattern.compile("(ab)\\1")
+    ),
+    "same group name" -> Seq(
+      Pattern.compile("(?<kw>SELECT)"),
+      Pattern.compile("(?<kw>select)")
+    ),
+    "quotation" -> Seq(Pattern.compile("\\QEXEC"), Pattern.compile("show")),
+    "mixed" -> Seq(
+      Pattern.compile("^SELECT "),
+      Pattern.compile("^exec", Pattern.CASE_INSENSITIVE),
+      Pattern.compile("\\s*WITH\\s"),
+      Pattern.compile("(?x) CALL \\s+ # comment"),
+      Pattern.compile("VALUES", Pattern.COMMENTS)
+    ),
+    "any" -> Seq(Pattern.compile(".*"))
+  )
+
+  "Compiled detection" should {
+    Fragment.foreach(patternSets) {
+      case (name, patterns) =>
+        s"be the same as the patterns for $name" in {
+          val detection = new QueryDetection(patterns.toArray)
+
+          ExecResult.foreach(statements) { sql =>
+            val expected = patterns.exists(_.matcher(sql).lookingAt)
+
+            (detection.isQuery(sql) aka s"'$sql'" must_=== expected) and {
+              detection.isQuery(sql) aka s"cached '$sql'" must_=== expected
+            }
+          }
+        }
+    }
+
+    "not match without pattern" in {
+      new QueryDetection(Array.empty[Pattern]).isQuery("SELECT").
+        aka("detection") must beFalse
+    }
+  }
+
+  "Literal prefix" should {
+    "be extracted" in {
+      (QueryDetection.literalPrefix(Pattern.compile("^SELECT ")).
+        aka("anchored") must_=== "SELECT ") and {
+        QueryDetection.literalPrefix(Pattern.compile("(?i)^exec .*")).
+          aka("inline flag and trailing wildcard") must_=== "exec "
+      }
+    }
+
+    "not be extracted from regular expression" in {
+      (QueryDetection.literalPrefix(Pattern.compile("^\\s*SELECT")).
+        aka("escape") must beNull) and {
+        QueryDetection.literalPrefix(Pattern.compile("SELECT|CALL")).
+          aka("alternation") must beNull
+      } and {
+        QueryDetection.literalPrefix(Pattern.compile(".*")).
+          aka("wildcard") must beNull
+      } and {
+        QueryDetection.literalPrefix(
+          Pattern.compile("select", Pattern.UNICODE_CASE)
+        ) aka "unicode case" must beNull
+      }
+    }
+  }
+
+  "Cache" should {
+    "be bounded" in {
+      val detection = new QueryDetection(Array(Pattern.compile("^Q")))
+
+      (0 to QueryDetection.MAX_CACHED * 2).foreach { i =>
+        detection.isQuery(s"Q$i")
+      }
+
+      detection.isQuery("Q1") aka "detection" must beTrue
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package acolyte.jdbc
+
+import java.util.{ ArrayList, List => JList }
+import java.util.regex.Pattern
+
+import java.sql.SQLException
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.AbstractCompositeHandler.{ QueryHandler, UpdateHandler }
+import acolyte.jdbc.StatementHandler.Parameter
+
+object QueryRouterSpec extends Specification {
+  "Statement routing".title
+
+  def handler(name: String) = new QueryHandler {
+    def apply(sql: String, ps: JList[Parameter]) =
+      RowLists.stringList().append(name).asResult
+  }
+
+  def updateHandler(count: Int) = new UpdateHandler {
+    def apply(sql: String, ps: JList[Parameter]) = new UpdateResult(count)
+  }
+
+  def routed(router: QueryRouter, sql: String): String = {
+    val rs = router.apply(sql, new ArrayList[Parameter]()).getRowList.resultSet()
+
+    rs.next()
+    rs.getString(1)
+  }
+
+  "Query router" should {
+    "route exact statement ignoring whitespaces" in {
+      val router = QueryRouter.empty().
+        withStatement("SELECT * FROM  users WHERE id = ?", handler("users")).
+        withStatement("SELECT 1", handler("one"))
+
+      (routed(router, "SELECT * FROM users WHERE id = ?").
+        aka("route #1") must_=== "users") and {
+          routed(router, "  SELECT *\n FROM\tusers WHERE id = ?  ").
+            aka("route #2") must_=== "users"
+        } and {
+          routed(router, "SELECT 1") aka "route #3" must_=== "one"
+        } and {
+          routed(router, "SELECT 12") aka "no route" must throwA[SQLException](
+            message = "No query route: SELECT 12")
+        }
+    }
+
+    "not normalize whitespaces in quotes" in {
+      val router = QueryRouter.empty().
+        withStatement("SELECT 'a  b'", handler("quoted"))
+
+      (routed(router, "SELECT  'a  b'") aka "route" must_=== "quoted") and {
+        routed(router, "SELECT 'a b'") aka "other literal" must throwA[
+          SQLException](message = "No query route: SELECT 'a b'")
+      }
+    }
+
+    "route by fingerprint" in {
+      val router = QueryRouter.empty().
+        withStatement("SELECT * FROM users WHERE id = 1", handler("first")).
+        withFingerprint("select * from users where id = 1", handler("users"))
+
+      (routed(router, "SELECT * FROM users WHERE id = 1").
+        aka("exact statement") must_=== "first") and {
+          routed(router, "select * FROM users\n WHERE id=23 -- other").
+            aka("literal") must_=== "users"
+        } and {
+          routed(router, "SELECT * FROM users WHERE id = ?").
+            aka("parameter") must_=== "users"
+        } and {
+          routed(router, "SELECT * FROM users WHERE name = 'a'").
+            aka("no route") must throwA[SQLException](
+              message = "No query route")
+        }
+    }
+
+    "route by longest prefix" in {
+      val router = QueryRouter.empty().
+        withPrefix("SELECT * FROM orders", handler("orders")).
+        withPrefix("SELECT * FROM orders WHERE status = 'open'",
+          handler("open")).
+        withPrefix("SELECT ", handler("select"))
+
+      (routed(router, "SELECT * FROM orders WHERE id = 2").
+        aka("route #1") must_=== "orders") and {
+          routed(router, "SELECT  * FROM orders WHERE status = 'open' AND 1").
+            aka("route #2") must_=== "open"
+        } and {
+          routed(router, "SELECT * FROM items") aka "route #3" must_=== "select"
+        } and {
+          routed(router, "SELECT") aka "no route" must throwA[SQLException]
+        }
+    }
+
+    "prefer exact statement to prefix" in {
+      val router = QueryRouter.empty().
+        withPrefix("SELECT", handler("prefix")).
+        withStatement("SELECT * FROM t", handler("exact"))
+
+      (routed(router, "SELECT * FROM t") aka "exact" must_=== "exact") and {
+        routed(router, "SELECT * FROM t2") aka "prefix" must_=== "prefix"
+      }
+    }
+
+    "route by patterns in order" in {
+      val router = QueryRouter.empty().
+        withPattern("(?i)exec \\w+_proc", handler("proc")).
+        withPattern(Pattern.compile("EXEC"), handler("exec")).
+        withPrefix("CALL", handler("call"))
+
+      (routed(router, "exec my_proc(?)") aka "route #1" must_=== "proc") and {
+        routed(router, "EXEC other") aka "route #2" must_=== "exec"
+      } and {
+        routed(router, "CALL EXEC") aka "prefix first" must_=== "call"
+      } and {
+        routed(router, " EXEC") aka "looking at" must throwA[SQLException]
+      }
+    }
+
+    "fall back to existing handler" in {
+      val router = QueryRouter.empty().
+        withStatement("SELECT 1", handler("one")).
+        withFallback(handler("fallback"))
+
+      (routed(router, "SELECT 1") aka "route" must_=== "one") and {
+        routed(router, "SELECT 2") aka "fallback" must_=== "fallback"
+      }
+    }
+
+    "be immutable" in {
+      val empty = QueryRouter.empty()
+      val router = empty.withStatement("SELECT 1", handler("one"))
+
+      (routed(router, "SELECT 1") aka "route" must_=== "one") and {
+        routed(empty, "SELECT 1") aka "empty" must throwA[SQLException]
+      }
+    }
+
+    "register many routes without altering the derived routers" in {
+      val base = (1 to 10000).foldLeft(QueryRouter.empty()) { (r, i) =>
+        r.withStatement(s"SELECT $i", handler(s"#$i")).
+          withPattern(s"^CALL p$i$$", handler(s"p$i"))
+      }
+      val r1 = base.withStatement("SELECT 1", handler("r1"))
+      val r2 = base.withStatement("SELECT 1", handler("r2"))
+
+      (routed(base, "SELECT 10000") aka "last route" must_=== "#10000").
+        and(routed(base, "CALL p10000") aka "last pattern" must_=== "p10000").
+        and(routed(base, "SELECT 1") aka "base" must_=== "#1").
+        and(routed(r1, "SELECT 1") aka "derived #1" must_=== "r1").
+        and(routed(r2, "SELECT 1") aka "derived #2" must_=== "r2")
+    }
+
+    "refuse invalid route" in {
+      (QueryRouter.empty().withStatement(null, handler("a")).
+        aka("null statement") must throwA[IllegalArgumentException](
+          message = "No statement")) and {
+          QueryRouter.empty().withPrefix(" ", handler("a")).
+            aka("blank prefix") must throwA[IllegalArgumentException](
+              message = "Invalid prefix:  ")
+        } and {
+          QueryRouter.empty().withPattern(null: String, handler("a")).
+            aka("null pattern") must throwA[IllegalArgumentException](
+              message = "No pattern")
+        } and {
+          QueryRouter.empty().withFallback(null).
+            aka("null handler") must throwA[IllegalArgumentException](
+              message = "No handler")
+        }
+    }
+  }
+
+  "Update router" should {
+    "route statements" in {
+      val router = UpdateRouter.empty().
+        withStatement("DELETE FROM t", updateHandler(1)).
+        withPrefix("INSERT INTO t", updateHandler(2)).
+        withPattern("UPDATE", updateHandler(3))
+
+      def count(sql: String) =
+        router.apply(sql, new ArrayList[Parameter]()).getUpdateCount
+
+      (count("DELETE  FROM t") aka "exact" must_=== 1) and {
+        count("INSERT INTO t VALUES (?)") aka "prefix" must_=== 2
+      } and {
+        count("UPDATE t SET a = 1") aka "pattern" must_=== 3
+      } and {
+        count("TRUNCATE t") aka "no route" must throwA[SQLException](
+          message = "No update route: TRUNCATE t")
+      }
+    }
+  }
+
+  "Composite handler" should {
+    "use routers as query and update handlers" in {
+      val h = new CompositeHandler().withQueryDetection("^SELECT ").
+        withQueryHandler(QueryRouter.empty().
+          withPrefix("SELECT * FROM a", handler("a")).
+          withFallback(handler("other"))).
+        withUpdateHandler(UpdateRouter.empty().
+          withFallback(updateHandler(4)))
+
+      val ps = new ArrayList[Parameter]()
+      def name(sql: String) = {
+        val rs = h.whenSQLQuery(sql, ps).getRowList.resultSet()
+        rs.next()
+        rs.getString(1)
+      }
+
+      (name("SELECT * FROM a") aka "routed query" must_=== "a") and {
+        name("SELECT * FROM b") aka "fallback query" must_=== "other"
+      } and {
+        h.whenSQLUpdate("DELETE FROM a", ps).getUpdateCount.
+          aka("update count") must_=== 4
+      }
+    }
+  }
+}
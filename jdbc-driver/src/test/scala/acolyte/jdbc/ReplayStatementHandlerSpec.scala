@@ -0,0 +1,184 @@
+package acolyte.jdbc
+
+import java.io.File
+import java.util.{ Arrays, Collections, List => JList }
+
+import java.math.BigDecimal
+import java.sql.{ SQLException, Timestamp }
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.RowList.{ Column => Col }
+import acolyte.jdbc.StatementHandler.Parameter
+
+object ReplayStatementHandlerSpec extends Specification {
+  "Record and replay".title
+
+  val noParams = Collections.emptyList[Parameter]()
+
+  def params(vs: AnyRef*): JList[Parameter] =
+    Arrays.asList(vs.map(v => Parameter.of(ParameterMetaData.Str, v)): _*)
+
+  def captureFile(): File = {
+    val f = File.createTempFile("acolyte-capture", ".bin")
+    f.deleteOnExit()
+    f
+  }
+
+  lazy val rows = ColumnarRowList
+    .empty(
+      Col(classOf[Integer], "id"),
+      Col(classOf[String], "name").withNullable(true),
+      Col(classOf[BigDecimal], "price"),
+      Col(classOf[Timestamp], "created")
+    )
+    .builder()
+    .append(Int.box(1), "foo", new BigDecimal("1.50"), new Timestamp(1234L))
+    .append(Int.box(2), null, new BigDecimal("-2"), new Timestamp(5678L))
+    .build()
+
+  def cells(r: QueryResult): List[List[Any]] = {
+    val rs = r.getRowList.resultSet()
+    var res = List.empty[List[Any]]
+
+    while (rs.next()) {
+      res = res :+ (1 to rs.getMetaData.getColumnCount).map(
+        rs.getObject(_): Any
+      ).toList
+    }
+
+    res
+  }
+
+  "Capture" should {
+    "be replayed" in {
+      val f = captureFile()
+      val w = new CaptureWriter(f)
+
+      w.recordQuery("SELECT * FROM test WHERE id > ?", params("0"), rows)
+      w.recordQuery(
+        "SELECT * FROM test",
+        noParams,
+        ColumnarRowList.empty(Col(classOf[Integer], "id"))
+      )
+      w.recordUpdate("DELETE FROM test WHERE id = ?", params("1"), 3)
+      w.close()
+
+      val h = ReplayStatementHandler.open(f)
+      val r = h.whenSQLQuery("SELECT * FROM test WHERE id > ?", params("0"))
+      val meta = r.getRowList.resultSet().getMetaData
+
+      (h.size aka "size" must_=== 3)
+        .and(cells(r) aka "rows" must_=== List(
+          List(1, "foo", new BigDecimal("1.50"), new Timestamp(1234L)),
+          List(2, null, new BigDecimal("-2"), new Timestamp(5678L))
+        ))
+        .and(meta.getColumnLabel(2) aka "label" must_=== "name")
+        .and(meta.getColumnClassName(3) aka "class" must_=== (
+          "java.math.BigDecimal"
+        ))
+        .and(meta.isNullable(2) aka "nullable" must_=== (
+          java.sql.ResultSetMetaData.columnNullable
+        ))
+        .and(
+          cells(h.whenSQLQuery("SELECT * FROM test", noParams))
+            aka "empty" must beEmpty
+        )
+        .and(
+          h.whenSQLUpdate("DELETE FROM test WHERE id = ?", params("1"))
+            .getUpdateCount aka "update count" must_=== 3
+        )
+        .and(h.isQuery("SELECT * FROM test") aka "query" must beTrue)
+        .and(
+          h.isQuery("DELETE FROM test WHERE id = ?") aka "update" must beFalse
+        )
+    }
+
+    "not replay unknown statement" in {
+      val f = captureFile()
+      val w = new CaptureWriter(f)
+
+      w.recordQuery("SELECT ?", params("a"), rows)
+      w.close()
+
+      val h = ReplayStatementHandler.open(f)
+
+      (h.whenSQLQuery("SELECT ?", params("b")) aka "other parameter" must throwA[
+        SQLException
+      ](message = "No recorded query: SELECT \\?"))
+        .and(h.whenSQLUpdate("SELECT ?", params("a")) aka "not update" must throwA[
+          SQLException
+        ](message = "No recorded update: SELECT \\?"))
+    }
+
+    "not be opened if incomplete" in {
+      val f = captureFile()
+      new CaptureWriter(f) // not closed
+
+      ReplayStatementHandler.open(f) aka "replay" must throwA[
+        java.io.IOException
+      ](message = "Invalid capture")
+    }
+
+    "be mapped in several segments" in {
+      val f = captureFile()
+      val w = new CaptureWriter(f)
+
+      (1 to 20).foreach { i =>
+        w.recordQuery(s"SELECT $i", noParams, rows)
+      }
+      w.close()
+
+      val h = ReplayStatementHandler.open(f, 300)
+
+      (1 to 20).map { i =>
+        cells(h.whenSQLQuery(s"SELECT $i", noParams)).size
+      }.toList aka "replayed" must_=== List.fill(20)(2)
+    }
+
+    "be recorded from another database" in {
+      val f = captureFile()
+      val w = new CaptureWriter(f)
+      val target = Driver.connection(
+        CompositeHandler.empty()
+          .withQueryDetection("^SELECT ")
+          .withQueryHandler(new AbstractCompositeHandler.QueryHandler {
+            def apply(sql: String, ps: JList[Parameter]) = rows.asResult
+          })
+          .withUpdateHandler(new AbstractCompositeHandler.UpdateHandler {
+            def apply(sql: String, ps: JList[Parameter]) = new UpdateResult(2)
+          })
+      )
+      val recording = new RecordingStatementHandler(target, w)
+      val con = Driver.connection(recording)
+      val st = con.prepareStatement("SELECT * FROM test WHERE name = ?")
+
+      st.setString(1, "foo")
+
+      val recorded = {
+        val rs = st.executeQuery()
+        rs.next()
+        rs.getString("name")
+      }
+      val count = con.prepareStatement("UPDATE test SET x = 1").executeUpdate()
+
+      w.close()
+
+      val replay = Driver.connection(ReplayStatementHandler.open(f))
+      val replayed = replay.prepareStatement("SELECT * FROM test WHERE name = ?")
+
+      replayed.setString(1, "foo")
+
+      (recorded aka "recorded" must_=== "foo").and(count aka "count" must_=== 2).and {
+        val rs = replayed.executeQuery()
+
+        (rs.next() aka "has row" must beTrue).and(
+          rs.getString("name") aka "replayed" must_=== "foo"
+        )
+      }.and(
+        replay.prepareStatement("UPDATE test SET x = 1").executeUpdate()
+          aka "replayed count" must_=== 2
+      )
+    }
+  }
+}
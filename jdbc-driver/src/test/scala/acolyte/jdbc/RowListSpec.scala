@@ -147,6 +147,109 @@ object RowListSpec extends Specification with RowListTest {
     }
   }
 
+  "Builder" should {
+    lazy val meta = (Col(classOf[String], "a"), Col(classOf[Int], "b"))
+
+    "append rows to an empty list" in {
+      val builder = RowLists.rowList2(meta._1, meta._2).builder(3)
+
+      builder.append("Foo", 1).append("Bar", 2)
+
+      val list = builder.build()
+
+      (builder.size aka "size after build" must_=== 0) and {
+        list.getRows.size aka "rows" must_=== 2
+      } and {
+        list.getColumnLabels.get("b") aka "label" must_=== 2
+      } and {
+        list.getRows.get(1) aka "last row" must_=== new Row2[String, Int]("Bar", 2)
+      }
+    }
+
+    "build a list whose rows are shared by the derived lists" in {
+      val list = RowLists.rowList2Builder(meta._1, meta._2).
+        append("Foo", 1).append("Bar", 2).build()
+
+      (list.withLabel(1, "c").getRows aka "label" must beTheSameAs(
+        list.getRows)) and {
+        list.withNullable(2, true).getRows aka "nullable" must beTheSameAs(
+          list.getRows)
+      } and {
+        list.withCycling(true).getRows aka "cycling" must beTheSameAs(
+          list.getRows)
+      }
+    }
+
+    "be created by the factory" in {
+      val list = RowLists.rowList2Builder(meta._1, meta._2).
+        append("Foo", 1).build()
+
+      (list.getRows.size aka "rows" must_=== 1) and {
+        list.getColumnLabels.get("a") aka "label" must_=== 1
+      } and {
+        RowLists.rowList1Builder(classOf[String]).append("Bar").build().
+          getRows.get(0) aka "row" must_=== new Row1[String]("Bar")
+      }
+    }
+
+    "keep the rows of the original list" in {
+      val orig = RowLists.stringList("A").withCycling(true)
+      val list = orig.builder().append("B").append("C").build()
+
+      (orig.getRows.size aka "original size" must_=== 1) and {
+        list.isCycling aka "cycling" must beTrue
+      } and {
+        list.resultSet() must beLike {
+          case rs =>
+            (rs.getFetchSize aka "size" must_=== 3) and {
+              (rs.next && rs.next) aka "has row #2" must beTrue
+            } and (rs.getString(1) aka "row #2" must_=== "B")
+        }
+      }
+    }
+
+    "not be used once built" in {
+      val builder = RowLists.stringList().builder(1)
+
+      builder.build()
+
+      (builder.append("A") aka "append" must throwA[IllegalStateException](
+        message = "Row list already built"
+      )) and {
+        builder.build() aka "build" must throwA[IllegalStateException]
+      }
+    }
+  }
+
+  "Derived list" should {
+    "be appended without updating the original one" in {
+      val orig = RowLists.stringList().append("A")
+      val list = orig.append("B")
+
+      (orig.getRows.size aka "original size" must_=== 1) and {
+        list.getRows.size aka "size" must_=== 2
+      } and {
+        list.getRows.get(1) aka "appended row" must_=== new Row1[String]("B")
+      }
+    }
+
+    "share rows with the original one" in {
+      val orig = RowLists.stringList().append("A").append("B")
+
+      (orig.withLabel(1, "l").getRows aka "labeled rows" must beTheSameAs(
+        orig.getRows
+      )) and {
+        orig.withNullable(1, false).getRows aka "rows" must beTheSameAs(
+          orig.getRows
+        )
+      } and {
+        orig.withCycling(true).getRows aka "cycling rows" must beTheSameAs(
+          orig.getRows
+        )
+      }
+    }
+  }
+
   "Result set metadata" should {
     lazy val meta = RowLists
       .rowList3(classOf[Float], classOf[String], classOf[Time])
@@ -1085,6 +1188,46 @@ object RowListSpec extends Specification with RowListTest {
     }
   }
 
+  "Column label" should {
+    lazy val list = RowLists
+      .rowList3(classOf[String], classOf[Int], classOf[Long])
+      .withLabel(1, "name")
+      .withLabel(2, "Num")
+      .withLabel(3, "NUM")
+      .append("a", 1, 2L)
+
+    "be resolved ignoring case" in {
+      val rs = list.resultSet()
+      rs.next
+
+      (rs.getString("NAME") aka "name" must_=== "a").and(
+        rs.findColumn("nAmE") aka "index" must_=== 1
+      )
+    }
+
+    "be resolved as is before ignoring case" in {
+      val rs = list.resultSet()
+      rs.next
+
+      (rs.getInt("Num") aka "exact #1" must_=== 1)
+        .and(rs.getLong("NUM") aka "exact #2" must_=== 2L)
+        .and(rs.findColumn("num") aka "first column" must_=== 2)
+    }
+
+    "not be found" in {
+      list.resultSet().findColumn("unknown") aka "index" must throwA[
+        SQLException
+      ](message = "Invalid label: unknown")
+    }
+
+    "be indexed once per list" in {
+      (list.columnIndex() aka "index" must be(list.columnIndex())).and(
+        list.withLabel(1, "other").columnIndex().indexOf("other")
+          .aka("updated index") must_=== 1
+      )
+    }
+  }
+
   "String column from result set" should {
     "not be read by index when not on a row" in {
       (new RowList1.Impl(classOf[String])
@@ -0,0 +1,80 @@
+package acolyte.jdbc
+
+import org.specs2.mutable.Specification
+
+object SqlFingerprintSpec extends Specification {
+  "SQL fingerprint".title
+
+  "Fingerprint" should {
+    "collapse the whitespaces and remove the comments" in {
+      (SqlFingerprint.of("  SELECT *\n\tFROM  test  ") aka "whitespaces" must_===
+        "SELECT * FROM test").
+        and(SqlFingerprint.of(
+          "SELECT a, b -- columns\nFROM /* table */ test") aka "comments" must_===
+          "SELECT a, b FROM test").
+        and(SqlFingerprint.of("SELECT t.a,b FROM test t WHERE x=?") aka "punctuation" must_===
+          SqlFingerprint.of("SELECT t . a , b FROM test t WHERE x = ?"))
+    }
+
+    "upper case the keywords but not the identifiers" in {
+      SqlFingerprint.of("select Name, count(*) from Test where X is not null").
+        aka("fingerprint") must_===
+        "SELECT Name, count(*) FROM Test WHERE X IS NOT NULL"
+    }
+
+    "replace the literals" in {
+      (SqlFingerprint.of("UPDATE test SET a = 'it''s', b = -1.5e3 WHERE c = X'0F'").
+        aka("update") must_=== "UPDATE test SET a = ?, b = ? WHERE c = ?").
+        and(SqlFingerprint.of("SELECT a - 1, .5 FROM t2") aka "numbers" must_===
+          "SELECT a - ?, ? FROM t2").
+        and(SqlFingerprint.of("SELECT \"Col 1\" FROM `my table`").
+          aka("quoted identifiers") must_===
+          "SELECT \"Col 1\" FROM `my table`")
+    }
+
+    "collapse the lists of values" in {
+      (SqlFingerprint.of("SELECT * FROM t WHERE id IN (1, 2, 3)") aka "literals" must_===
+        "SELECT * FROM t WHERE id IN(?)").
+        and(SqlFingerprint.of("SELECT * FROM t WHERE id IN (?,?)") aka "parameters" must_===
+          "SELECT * FROM t WHERE id IN(?)").
+        and(SqlFingerprint.of("INSERT INTO t(a, b) VALUES (1, 'x'), (2, 'y')") aka "insert" must_===
+          "INSERT INTO t(a, b) VALUES(?)").
+        and(SqlFingerprint.of("INSERT INTO t(a, b) VALUES (1, 'x'), (2, 'y'), (?, ?)").
+          aka("insert of 3 rows") must_=== "INSERT INTO t(a, b) VALUES(?)").
+        and(SqlFingerprint.of("INSERT INTO t VALUES (1, 2), (3, 4) RETURNING id").
+          aka("insert returning") must_=== "INSERT INTO t VALUES(?) RETURNING id").
+        and(SqlFingerprint.of("SELECT COALESCE(?, ?) FROM t") aka "function" must_===
+          "SELECT COALESCE(?, ?) FROM t").
+        and(SqlFingerprint.of("SELECT * FROM t WHERE (a, b) = (1, 2) AND c NOT IN (3, 4)").
+          aka("row value") must_=== "SELECT * FROM t WHERE(a, b)=(?, ?) AND c NOT IN(?)").
+        and(SqlFingerprint.of("INSERT INTO t VALUES (1, now()), (2, now())").
+          aka("function in values") must_===
+          "INSERT INTO t VALUES(?, now()), (?, now())")
+    }
+
+    "not read the letters following a number as digits" in {
+      (SqlFingerprint.of("SELECT * FROM t WHERE c = 12abc") aka "decimal" must_===
+        "SELECT * FROM t WHERE c = ? abc").
+        and(SqlFingerprint.of("SELECT * FROM t WHERE c = 0x1Fa AND d = -0XFF") aka "hexadecimal" must_===
+          "SELECT * FROM t WHERE c = ? AND d = ?").
+        and(SqlFingerprint.of("SELECT 1e3, 2.5E-2, 3e FROM t") aka "exponent" must_===
+          "SELECT ?, ?, ? e FROM t")
+    }
+
+    "be cached" in {
+      val sql = "SELECT * FROM cached WHERE id = 1"
+
+      (SqlFingerprint.of(sql) aka "fingerprint" must beTheSameAs(
+        SqlFingerprint.of(sql))).
+        and(SqlFingerprint.of(null) aka "null" must throwA[
+          IllegalArgumentException](message = "No statement"))
+    }
+
+    "be exposed by the statement context" in {
+      val ctx = new StatementContext(null, "select * from test where id=3")
+
+      ctx.getFingerprint aka "fingerprint" must_===
+        "SELECT * FROM test WHERE id = ?"
+    }
+  }
+}
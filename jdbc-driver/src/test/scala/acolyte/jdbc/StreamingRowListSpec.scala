@@ -0,0 +1,230 @@
+package acolyte.jdbc
+
+import java.sql.{ ResultSet, SQLException }
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.test.Params
+
+object StreamingRowListSpec extends Specification {
+  "Streaming row list".title
+
+  lazy val meta = RowLists.rowList2(classOf[String], classOf[Integer])
+    .withLabel(1, "name").withLabel(2, "num")
+
+  /** Iterator over `count` rows, counting the rows read from it. */
+  final class Source(count: Int) extends java.util.Iterator[Row2[String, Integer]] {
+    var read = 0
+
+    def hasNext = read < count
+
+    def next() = {
+      read += 1
+      new Row2[String, Integer](s"row$read", read)
+    }
+  }
+
+  def iterable(count: Int) = new java.lang.Iterable[Row2[String, Integer]] {
+    def iterator = new Source(count)
+  }
+
+  "List" should {
+    "have the column meta-data" in {
+      val list = StreamingRowList.of(meta, iterable(1))
+
+      (list.getColumnClasses aka "classes" must_=== meta.getColumnClasses) and {
+        list.getColumnLabels.get("num") aka "label" must_=== 2
+      } and {
+        list.withNullable(2, true).getColumnNullables.get(2).
+          aka("nullable") must_=== true
+      }
+    }
+
+    "not keep the rows in memory" in {
+      val list = StreamingRowList.of(meta, iterable(1))
+
+      (list.getRows aka "rows" must throwA[UnsupportedOperationException](
+        message = "Streaming rows"
+      )) and {
+        list.withCycling(true) aka "cycling" must throwA[
+          UnsupportedOperationException
+        ]
+      } and {
+        list.isCycling aka "cycling" must beFalse
+      }
+    }
+
+    "not be created from cycling meta-data" in {
+      StreamingRowList.of(meta.withCycling(true), iterable(1)).
+        aka("list") must throwA[IllegalArgumentException](
+          message = "Streaming rows cannot cycle"
+        )
+    }
+
+    "not be captured or written as mapped list" in {
+      val list = StreamingRowList.of(meta, iterable(1))
+      val file = java.io.File.createTempFile("streaming", ".rows")
+
+      file.deleteOnExit()
+
+      (Capture.rowList(list) aka "capture" must throwA[
+        IllegalArgumentException
+      ](message = "Streaming rows")) and {
+        MappedRowList.write(list, file) aka "write" must throwA[
+          IllegalArgumentException
+        ](message = "Streaming rows")
+      }
+    }
+
+    "create result set from iterable each time" in {
+      val list = StreamingRowList.of(meta, iterable(2))
+      val rs1 = list.resultSet()
+      val rs2 = list.resultSet()
+
+      (rs1.next && rs1.next) aka "two rows #1" must beTrue and {
+        (rs2.next && rs2.next) aka "two rows #2" must beTrue
+      } and {
+        rs1.next aka "no more" must beFalse
+      }
+    }
+
+    "create a single result set from iterator" in {
+      val list = StreamingRowList.of(meta, new Source(2))
+
+      (list.resultSet().next aka "first row" must beTrue) and {
+        list.resultSet() aka "second result set" must throwA[
+          IllegalStateException
+        ](message = "Rows already streamed")
+      }
+    }
+  }
+
+  "Result set" should {
+    "read rows lazily" in {
+      val source = new Source(Int.MaxValue)
+      val rs = StreamingRowList.of(meta, source).resultSet()
+
+      (source.read aka "read before move" must_=== 0) and {
+        rs.next aka "first row" must beTrue
+      } and {
+        source.read aka "read on first row" must_=== 1
+      } and {
+        rs.getString("name") aka "name" must_=== "row1"
+      } and {
+        rs.getInt(2) aka "num" must_=== 1
+      } and {
+        rs.getRow aka "row number" must_=== 1
+      }
+    }
+
+    "fetch rows in advance according fetch size" in {
+      val source = new Source(10)
+      val rs = StreamingRowList.of(meta, source).resultSet()
+
+      rs.setFetchSize(4)
+
+      (rs.getFetchSize aka "fetch size" must_=== 4) and {
+        rs.next aka "first row" must beTrue
+      } and {
+        source.read aka "fetched rows" must_=== 4
+      } and {
+        rs.absolute(5) aka "5th row" must beTrue
+      } and {
+        rs.getInt(2) aka "num" must_=== 5
+      } and {
+        source.read aka "fetched rows" must_=== 8
+      }
+    }
+
+    "be limited by max rows" in {
+      val source = new Source(10)
+      val rs = StreamingRowList.of(meta, source).resultSet(3)
+
+      (rs.absolute(3) aka "3rd row" must beTrue) and {
+        rs.isLast aka "last" must beTrue
+      } and {
+        rs.next aka "4th row" must beFalse
+      } and {
+        rs.isAfterLast aka "after last" must beTrue
+      } and {
+        source.read aka "read rows" must_=== 3
+      }
+    }
+
+    "stream many rows" in {
+      val rs = StreamingRowList.of(meta, iterable(1000000)).resultSet()
+      var count = 0L
+
+      rs.setFetchSize(100)
+
+      while (rs.next()) {
+        count += rs.getInt(2)
+      }
+
+      count aka "sum" must_=== (1000000L * 1000001L / 2L)
+    }
+
+    "be forward only" in {
+      val rs = StreamingRowList.of(meta, iterable(3)).resultSet()
+
+      (rs.getType aka "type" must_=== ResultSet.TYPE_FORWARD_ONLY) and {
+        rs.absolute(2) aka "2nd row" must beTrue
+      } and {
+        rs.previous aka "previous" must throwA[SQLException](
+          message = "Type of result set is forward only"
+        )
+      } and {
+        rs.absolute(1) aka "backward" must throwA[SQLException](
+          message = "Backward move"
+        )
+      } and {
+        rs.last aka "last" must throwA[SQLException](
+          message = "Unknown count of streaming rows"
+        )
+      }
+    }
+
+    "not be read when not on a row" in {
+      val rs = StreamingRowList.of(meta, iterable(0)).resultSet()
+
+      (rs.getString(1) aka "before first" must throwA[SQLException](
+        message = "Not on a row"
+      )) and {
+        rs.next aka "no row" must beFalse
+      } and {
+        rs.getString(1) aka "after last" must throwA[SQLException](
+          message = "Not on a row"
+        )
+      }
+    }
+
+    "be returned by prepared statement with max rows and fetch size" in {
+      val source = new Source(100)
+      val h = new StatementHandler {
+        def isQuery(sql: String) = true
+        def whenSQLUpdate(sql: String, ps: Params) = UpdateResult.Nothing
+        def whenSQLQuery(sql: String, ps: Params) =
+          StreamingRowList.of(meta, source).asResult
+      }
+      val con = new acolyte.jdbc.Connection(
+        "jdbc:acolyte:test", null, test.EmptyConnectionHandler)
+
+      val stmt = new PreparedStatement(
+        con, "SELECT", java.sql.Statement.NO_GENERATED_KEYS, null, null, h)
+
+      stmt.setMaxRows(5)
+      stmt.setFetchSize(2)
+
+      val rs = stmt.executeQuery()
+      var count = 0
+
+      while (rs.next()) { count += 1 }
+
+      (count aka "row count" must_=== 5) and {
+        rs.getFetchSize aka "fetch size" must_=== 2
+      } and {
+        source.read aka "read rows" must_=== 5
+      }
+    }
+  }
+}
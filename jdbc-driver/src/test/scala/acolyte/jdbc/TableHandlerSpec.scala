@@ -0,0 +1,269 @@
+package acolyte.jdbc
+
+import java.util.concurrent.{ Callable, Executors, TimeUnit }
+
+import java.sql.{ ResultSet, SQLException }
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.RowList.{ Column => Col }
+
+object TableHandlerSpec extends Specification {
+  "In-memory tables".title
+
+  def tables(): TableHandler = {
+    val h = new TableHandler()
+
+    h.createTable(
+      "person",
+      Col(classOf[Integer], "id"),
+      Col(classOf[String], "name"),
+      Col(classOf[Integer], "age").withNullable(true),
+      Col(classOf[java.math.BigDecimal], "score").withNullable(true)
+    ).createHashIndex("id")
+      .createSortedIndex("age")
+
+    h
+  }
+
+  def names(rs: ResultSet): List[String] = {
+    var res = List.empty[String]
+
+    while (rs.next()) {
+      res = res :+ rs.getString("name")
+    }
+
+    res
+  }
+
+  def fixture(h: TableHandler): java.sql.Connection = {
+    val con = Driver.connection(h)
+
+    con.createStatement().executeUpdate(
+      "INSERT INTO person (id, name, age, score) VALUES " +
+        "(1, 'Ada', 36, 1.50), (2, 'Bob', 42, NULL), " +
+        "(3, 'Cyd', NULL, 2), (4, 'Dan', 28, -0.5)"
+    )
+
+    con
+  }
+
+  "Table" should {
+    "be created with supported columns" in {
+      val h = tables()
+
+      (h.getTable("PERSON").getName aka "name" must_=== "person")
+        .and(h.getTable("person").getColumns.size aka "columns" must_=== 4)
+        .and(h.createTable("Person", Col(classOf[String], "x")) aka (
+          "duplicate"
+        ) must throwA[IllegalArgumentException](
+          message = "Table already exists: Person"
+        ))
+        .and(h.createTable("other", Col(classOf[Object], "x")) aka (
+          "unsupported"
+        ) must throwA[IllegalArgumentException](
+          message = "Unsupported column class: java.lang.Object"
+        ))
+        .and(h.getTable("person").createHashIndex("age") aka (
+          "already indexed"
+        ) must throwA[IllegalArgumentException](
+          message = "Index already exists: age"
+        ))
+        .and(h.dropTable("person") aka "dropped" must beTrue)
+        .and(h.getTable("person") aka "after drop" must beNull)
+    }
+  }
+
+  "Table handler" should {
+    "insert and select rows" in {
+      val h = tables()
+      val con = fixture(h)
+      val rs = con.createStatement().executeQuery("SELECT * FROM person")
+      val meta = rs.getMetaData
+
+      (h.getTable("person").size aka "size" must_=== 4)
+        .and(meta.getColumnCount aka "column count" must_=== 4)
+        .and(meta.getColumnClassName(1) aka "id class" must_=== (
+          "java.lang.Integer"
+        ))
+        .and(meta.getColumnName(4) aka "score label" must_=== "score")
+        .and(names(rs) aka "names" must_=== List("Ada", "Bob", "Cyd", "Dan"))
+    }
+
+    "select with predicates" in {
+      val con = fixture(tables())
+
+      def select(where: String): List[String] = names(
+        con.createStatement().executeQuery(
+          s"SELECT name FROM person WHERE $where"
+        )
+      )
+
+      (select("id = 2") aka "hash index" must_=== List("Bob"))
+        .and(select("id IN (4, 1, 7)") aka "in" must_=== List("Ada", "Dan"))
+        .and(select("age > 30") aka "range" must_=== List("Ada", "Bob"))
+        .and(select("age BETWEEN 30 AND 40 AND id <> 2") aka (
+          "between"
+        ) must_=== List("Ada"))
+        .and(select("age IS NULL") aka "is null" must_=== List("Cyd"))
+        .and(select("name >= 'C'") aka "scan" must_=== List("Cyd", "Dan"))
+        .and(select("score = 1.5") aka "decimal" must_=== List("Ada"))
+        .and(select("score < 0") aka "negative" must_=== List("Dan"))
+        .and(select("age = NULL") aka "null equality" must beEmpty)
+    }
+
+    "order selected rows" in {
+      val con = fixture(tables())
+
+      (names(con.createStatement().executeQuery(
+        "SELECT name FROM person ORDER BY age DESC"
+      )) aka "descending" must_=== List("Bob", "Ada", "Dan", "Cyd"))
+        .and(names(con.createStatement().executeQuery(
+          "select NAME from Person order by name"
+        )) aka "case insensitive" must_=== List("Ada", "Bob", "Cyd", "Dan"))
+    }
+
+    "bind parameters" in {
+      val con = fixture(tables())
+      val q = con.prepareStatement(
+        "SELECT name FROM person WHERE age >= ? AND name <> ?"
+      )
+
+      q.setInt(1, 30)
+      q.setString(2, "Bob")
+
+      val u = con.prepareStatement(
+        "UPDATE person SET age = ?, name = ? WHERE id = ?"
+      )
+
+      u.setLong(1, 50L)
+      u.setString(2, "Eve")
+      u.setInt(3, 3)
+
+      (names(q.executeQuery()) aka "before" must_=== List("Ada"))
+        .and(u.executeUpdate() aka "updated" must_=== 1)
+        .and(names(q.executeQuery()) aka "after" must_=== List("Ada", "Eve"))
+    }
+
+    "update and delete rows" in {
+      val h = tables()
+      val con = fixture(h)
+      val st = con.createStatement()
+
+      (st.executeUpdate(
+        "UPDATE person SET age = 30 WHERE age > 40"
+      ) aka "updated" must_=== 1)
+        .and(names(st.executeQuery(
+          "SELECT name FROM person WHERE age = 30"
+        )) aka "reindexed" must_=== List("Bob"))
+        .and(names(st.executeQuery(
+          "SELECT name FROM person WHERE age = 42"
+        )) aka "old entry" must beEmpty)
+        .and(h.getTable("person").indexedValues("age") aka (
+          "indexed ages after update"
+        ) must_=== 3)
+        .and(st.executeUpdate(
+          "DELETE FROM person WHERE age < 35"
+        ) aka "deleted" must_=== 2)
+        .and(names(st.executeQuery(
+          "SELECT name FROM person"
+        )) aka "remaining" must_=== List("Ada", "Cyd"))
+        .and(h.getTable("person").indexedValues("age") aka (
+          "indexed ages after delete"
+        ) must_=== 1)
+        .and(st.executeUpdate("DELETE FROM person") aka "all" must_=== 2)
+        .and(h.getTable("person").size aka "empty" must_=== 0)
+        .and(h.getTable("person").indexedValues("id") aka (
+          "indexed IDs"
+        ) must_=== 0)
+    }
+
+    "index the existing rows" in {
+      val h = tables()
+      val con = fixture(h)
+
+      h.getTable("person").createSortedIndex("name")
+
+      names(con.createStatement().executeQuery(
+        "SELECT name FROM person WHERE name < 'C'"
+      )) aka "names" must_=== List("Ada", "Bob")
+    }
+
+    "refuse invalid statements" in {
+      val st = fixture(tables()).createStatement()
+
+      (st.executeQuery("SELECT * FROM unknown") aka "table" must throwA[
+        SQLException
+      ](message = "Unknown table: unknown"))
+        .and(st.executeQuery("SELECT x FROM person") aka "column" must (
+          throwA[SQLException](message = "Unknown column: person.x")
+        ))
+        .and(st.executeQuery("SELECT * FROM person WHERE id LIKE 1") aka (
+          "syntax"
+        ) must throwA[SQLException](message = "Unsupported SQL \\(position 31\\)"))
+        .and(st.executeUpdate("INSERT INTO person (id) VALUES (1, 2)") aka (
+          "values"
+        ) must throwA[SQLException](message = "Expected 1 value\\(s\\): 2"))
+        .and(st.executeUpdate("INSERT INTO person (id) VALUES ('x')") aka (
+          "conversion"
+        ) must throwA[SQLException](message = "Invalid value for column id: x"))
+        .and(st.executeQuery("SELECT * FROM person WHERE id = 1.5") aka (
+          "inexact"
+        ) must throwA[SQLException](message = "Invalid value for column id"))
+    }
+
+    "be safe under concurrent connections" in {
+      val h = tables()
+      val pool = Executors.newFixedThreadPool(8)
+
+      try {
+        val tasks = (0 until 8).map { t =>
+          pool.submit(new Callable[Integer] {
+            def call(): Integer = {
+              val con = Driver.connection(h)
+              val ins = con.prepareStatement(
+                "INSERT INTO person (id, name, age) VALUES (?, ?, ?)"
+              )
+              val upd = con.prepareStatement(
+                "UPDATE person SET age = ? WHERE id = ?"
+              )
+
+              (0 until 250).foreach { i =>
+                val id = t * 1000 + i
+
+                ins.setInt(1, id)
+                ins.setString(2, s"p$id")
+                ins.setInt(3, i % 10)
+                ins.executeUpdate()
+
+                upd.setInt(1, 100 + t)
+                upd.setInt(2, id)
+                upd.executeUpdate()
+              }
+
+              Int.box(t)
+            }
+          })
+        }
+
+        tasks.foreach(_.get(30L, TimeUnit.SECONDS))
+
+        val st = Driver.connection(h).createStatement()
+        def count(sql: String): Int = names(st.executeQuery(sql)).size
+
+        (h.getTable("person").size aka "size" must_=== 2000)
+          .and(count("SELECT name FROM person WHERE age < 100") aka (
+            "old ages"
+          ) must_=== 0)
+          .and(count("SELECT name FROM person WHERE age = 103") aka (
+            "updated by thread #3"
+          ) must_=== 250)
+          .and(count("SELECT name FROM person WHERE age BETWEEN 100 AND 107") aka (
+            "all updated"
+          ) must_=== 2000)
+      } finally {
+        pool.shutdown()
+      }
+    }
+  }
+}
@@ -0,0 +1,289 @@
+package acolyte.jdbc
+
+import java.util.{ List => JList }
+import java.util.concurrent.{ Callable, Executors, TimeUnit }
+
+import java.sql.SQLException
+
+import org.specs2.mutable.Specification
+
+import acolyte.jdbc.RowList.{ Column => Col }
+import acolyte.jdbc.StatementHandler.Parameter
+
+object VersionedStoreSpec extends Specification {
+  "Versioned store".title
+
+  def connection(store: VersionedStore[String, String]): Connection =
+    Driver.connection(
+      new ConnectionHandler.Default(test.EmptyStatementHandler, store)
+    )
+
+  "Transaction" should {
+    "isolate the writes until commit" in {
+      val store = new VersionedStore[String, String]()
+      val c1 = connection(store)
+      val c2 = connection(store)
+
+      store.put(c1, "a", "1")
+
+      val before = store.get(c2, "a") // c2 snapshot started
+
+      c1.commit()
+
+      (before aka "before commit" must beNull)
+        .and(store.get(c1, "a") aka "own write" must_=== "1")
+        .and(store.get(c2, "a") aka "repeatable read" must beNull)
+        .and(store.getVersion aka "version" must_=== 1L)
+        .and {
+          c2.rollback()
+
+          store.get(c2, "a") aka "after new snapshot" must_=== "1"
+        }
+    }
+
+    "discard the writes on rollback or close" in {
+      val store = new VersionedStore[String, String]()
+      val c1 = connection(store)
+      val c2 = connection(store)
+
+      store.put(c1, "a", "1")
+      c1.rollback()
+
+      store.put(c2, "b", "2")
+      c2.close()
+
+      (store.entries(null).isEmpty aka "committed" must beTrue)
+        .and(store.getVersion aka "version" must_=== 0L)
+    }
+
+    "directly commit in auto-commit mode" in {
+      val store = new VersionedStore[String, String]()
+      val c = connection(store)
+
+      c.setAutoCommit(true)
+
+      store.put(c, "a", "1")
+      store.put(null, "b", "2")
+      store.remove(c, "b")
+
+      (store.get(null, "a") aka "committed" must_=== "1")
+        .and(store.get(null, "b") aka "removed" must beNull)
+        .and(store.getVersion aka "version" must_=== 3L)
+    }
+
+    "commit the pending writes when auto-commit is enabled" in {
+      val store = new VersionedStore[String, String]()
+      val c = connection(store)
+
+      c.setAutoCommit(false)
+      store.put(c, "k", "v1")
+      c.setAutoCommit(true)
+
+      (store.get(null, "k") aka "committed" must_=== "v1")
+        .and(store.getVersion aka "version" must_=== 1L)
+        .and {
+          store.put(null, "k", "v2")
+          c.setAutoCommit(false)
+
+          store.get(c, "k") aka "new snapshot" must_=== "v2"
+        }
+    }
+
+    "fail to commit a concurrent update" in {
+      val store = new VersionedStore[String, String]()
+      val c1 = connection(store)
+      val c2 = connection(store)
+
+      store.get(c1, "a")
+      store.put(c2, "a", "2")
+      c2.commit()
+
+      store.put(c1, "a", "1")
+      store.put(c1, "b", "1")
+
+      (c1.commit() aka "commit" must throwA[SQLException].like {
+        case e: SQLException => e.getSQLState aka "state" must_=== "40001"
+      }).and(store.entries(c1).get("b") aka "rollbacked" must beNull)
+        .and(store.get(null, "a") aka "first committer" must_=== "2")
+    }
+
+    "load many entries without copying the versions" in {
+      val store = new VersionedStore[String, String]()
+
+      (0 until 100000).foreach { i => store.put(null, s"k$i", "v") }
+
+      (store.entries(null).size aka "entries" must_=== 100000)
+        .and(store.get(null, "k99999") aka "last" must_=== "v")
+        .and(store.getVersion aka "version" must_=== 100000L)
+    }
+
+    "not block the concurrent transactions" in {
+      val store = new VersionedStore[String, String]()
+      val pool = Executors.newFixedThreadPool(8)
+
+      try {
+        val tasks = (0 until 8).map { t =>
+          pool.submit(new Callable[Integer] {
+            def call(): Integer = {
+              val c = connection(store)
+
+              (0 until 100).foreach { i =>
+                store.put(c, s"$t-$i", i.toString)
+                store.entries(c)
+                c.commit()
+              }
+
+              Int.box(t)
+            }
+          })
+        }
+
+        tasks.foreach(_.get(30L, TimeUnit.SECONDS))
+
+        (store.entries(null).size aka "entries" must_=== 800)
+          .and(store.getVersion aka "version" must_=== 800L)
+      } finally {
+        pool.shutdown()
+      }
+    }
+  }
+
+  "Savepoint" should {
+    "discard the writes since it on rollback" in {
+      val store = new VersionedStore[String, String]()
+      val c = connection(store)
+
+      store.put(c, "a", "1")
+      val s1 = c.setSavepoint("s1")
+      store.put(c, "a", "2")
+      store.put(c, "b", "2")
+      val s2 = c.setSavepoint("s2")
+      store.put(c, "c", "3")
+
+      c.rollback(s1)
+
+      (store.get(c, "a") aka "restored" must_=== "1")
+        .and(store.get(c, "b") aka "discarded" must beNull)
+        .and(c.rollback(s2) aka "released with rollback" must throwA[
+          SQLException
+        ](message = "Unknown savepoint"))
+        .and {
+          store.put(c, "d", "4")
+          c.releaseSavepoint(s1)
+          c.commit()
+
+          store.entries(null).keySet.toArray.toSeq aka "committed" must contain(
+            exactly[Any]("a", "d")
+          )
+        }
+    }
+
+    "be unknown for another connection" in {
+      val store = new VersionedStore[String, String]()
+      val s = connection(store).setSavepoint()
+
+      connection(store).releaseSavepoint(s) aka "release" must throwA[
+        SQLException
+      ].like {
+        case e: SQLException => e.getSQLState aka "state" must_=== "3B001"
+      }
+    }
+  }
+
+  "Statement handler" should {
+    "use the transaction of the executing connection" in {
+      val store = new VersionedStore[String, String]()
+      val handler = CompositeHandler.empty()
+        .withQueryDetection("^SELECT ")
+        .withQueryHandler(new AbstractCompositeHandler.QueryHandler {
+          def apply(sql: String, ps: JList[Parameter]) = {
+            val b = ColumnarRowList
+              .empty(Col(classOf[String], "value"))
+              .builder()
+
+            Option(store.get(ps.get(0).right.asInstanceOf[String]))
+              .foreach(b.append(_))
+
+            b.build().asResult
+          }
+        })
+        .withUpdateHandler(new AbstractCompositeHandler.UpdateHandler {
+          def apply(sql: String, ps: JList[Parameter]) = {
+            store.put(
+              ps.get(0).right.asInstanceOf[String],
+              ps.get(1).right.asInstanceOf[String]
+            )
+
+            UpdateResult.One
+          }
+        })
+
+      def con = Driver.connection(
+        new ConnectionHandler.Default(handler, store)
+      )
+
+      def select(c: java.sql.Connection): Option[String] = {
+        val q = c.prepareStatement("SELECT value FROM kv WHERE key = ?")
+
+        q.setString(1, "k")
+
+        val rs = q.executeQuery()
+
+        if (rs.next()) Some(rs.getString(1)) else None
+      }
+
+      val c1 = con
+      val c2 = con
+      val u = c1.prepareStatement("UPDATE kv SET value = ? WHERE key = ?")
+
+      u.setString(1, "k")
+      u.setString(2, "v")
+      u.executeUpdate()
+
+      (select(c1) aka "own write" must beSome("v"))
+        .and(select(c2) aka "other connection" must beNone)
+        .and(StatementContext.current() aka "context after" must beNull)
+        .and {
+          c1.commit()
+          c2.rollback()
+
+          select(c2) aka "after commit" must beSome("v")
+        }
+    }
+
+    "commit every write of a parallel batch" in {
+      val store = new VersionedStore[String, String]()
+      val handler = CompositeHandler.empty()
+        .withUpdateHandler(new AbstractCompositeHandler.UpdateHandler {
+          def apply(sql: String, ps: JList[Parameter]) = {
+            store.put(ps.get(0).right.toString, "v")
+
+            UpdateResult.One
+          }
+        })
+      val props = new java.util.Properties()
+
+      props.put("acolyte.batch.parallelism", "8")
+
+      val c = Driver.connection(
+        new ConnectionHandler.Default(handler, store),
+        props
+      )
+      val u = c.prepareStatement("INSERT INTO kv(key) VALUES (?)")
+
+      (1 to 2000).foreach { i =>
+        u.setInt(1, i)
+        u.addBatch()
+      }
+
+      u.executeBatch()
+
+      val pending = store.entries(c).size
+
+      c.commit()
+
+      (pending aka "pending writes" must_=== 2000)
+        .and(store.entries(null).size aka "committed" must_=== 2000)
+    }
+  }
+}
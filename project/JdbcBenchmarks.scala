@@ -0,0 +1,19 @@
+import sbt._
+import Keys._
+
+import pl.project13.scala.sbt.JmhPlugin
+
+final class JdbcBenchmarks(jdbcDriver: Project) {
+
+  lazy val project =
+    Project(id = "jdbc-benchmarks", base = file("jdbc-benchmarks"))
+      .settings(
+        name := "jdbc-benchmarks",
+        autoScalaLibrary := false,
+        crossPaths := false,
+        publish / skip := true
+      )
+      .enablePlugins(JmhPlugin)
+      .dependsOn(jdbcDriver)
+
+}
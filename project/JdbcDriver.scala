@@ -202,6 +202,7 @@ object JdbcDriver {
     public abstract Class<${letter(i)}> c$i();"""
       }
       val gc = for (i ← 0 until n) yield s"c$i()"
+      val lgc = for (i ← 0 until n) yield s"this.list.c$i()"
       val gs = for (i ← 0 until n) yield {
         s"""/**
          * {inheritDoc}
@@ -226,6 +227,7 @@ object JdbcDriver {
                 .replaceAll("#PS#", ps.mkString("\n\n        "))
                 .replaceAll("#AGS#", ags.mkString("\n\n    "))
                 .replaceAll("#GC#", gc.mkString(", "))
+                .replaceAll("#LGC#", lgc.mkString(", "))
                 .replaceAll("#GS#", gs.mkString("\n\n        "))
                 .replaceAll("#PSC#", psc.mkString(", "))
                 .replaceAll("#IC#", ic.mkString("\n\n            "))
@@ -286,6 +288,38 @@ object JdbcDriver {
               as.mkString(".columnClass, "),
               ls.mkString("."),
               ns.mkString(".")
+            ) :+ """
+    /**
+     * Returns a builder of list of row with %d column(s).
+     */
+    public static <%s> RowList%d.Builder<%s, RowList%d.Impl<%s>> rowList%dBuilder(%s) { return rowList%d(%s).builder(); }"""
+            .format(
+              n,
+              gp,
+              n,
+              gp,
+              n,
+              gp,
+              n,
+              ps.mkString(", "),
+              n,
+              as.mkString(", ")
+            ) :+ """
+    /**
+     * Returns a builder of list of row with %d column(s).
+     */
+    public static <%s> RowList%d.Builder<%s, RowList%d.Impl<%s>> rowList%dBuilder(%s) { return rowList%d(%s).builder(); }"""
+            .format(
+              n,
+              gp,
+              n,
+              gp,
+              n,
+              gp,
+              n,
+              cs.mkString(", "),
+              n,
+              as.mkString(", ")
             )
 
         }